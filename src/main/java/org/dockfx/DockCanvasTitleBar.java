@@ -0,0 +1,451 @@
+/**
+ * @file DockCanvasTitleBar.java
+ * @brief Class implementing a dock node title bar that draws its caption and buttons on a canvas.
+ * @section License
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ **/
+
+package org.dockfx;
+
+import javafx.beans.InvalidationListener;
+import javafx.beans.property.ObjectProperty;
+import javafx.css.CssMetaData;
+import javafx.css.SimpleStyleableObjectProperty;
+import javafx.css.StyleConverter;
+import javafx.css.Styleable;
+import javafx.css.StyleableProperty;
+import javafx.geometry.VPos;
+import javafx.scene.Node;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
+import javafx.scene.input.MouseButton;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.layout.HBox;
+import javafx.scene.paint.Color;
+import javafx.scene.paint.Paint;
+import javafx.scene.text.Font;
+import javafx.scene.text.Text;
+import javafx.scene.text.TextAlignment;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A dock node title bar that draws the caption graphic, the title and the state manipulation buttons
+ * on a single canvas and hit-tests the buttons itself. It keeps the dragging behavior of the default
+ * title bar but adds only two nodes to the scene graph instead of a skinned label, a fill pane and
+ * two skinned buttons, which makes it suited for layouts with hundreds of dock nodes.
+ * <p>
+ * The padding and the spacing of the title bar are taken from the style sheet as for the default
+ * title bar, and the color of the title from its {@code -fx-text-fill} property. A title that does
+ * not fit is cut off with an ellipsis. Graphics of the dock node are drawn when they are image
+ * views, any other graphic is replaced by the default dock node icon.
+ * <p>
+ * As there are no controls, {@link #getLabel()}, {@link #getCloseButton()} and
+ * {@link #getStateButton()} return null for this title bar. Style sheets that target the
+ * {@code .dock-title-label} or the title bar buttons do not apply to it.
+ * <p>
+ * The canvas of each title bar is backed by a texture of its size once it is rendered, four bytes
+ * per pixel, which is about 29 KB for a title bar of 300 by 24 pixels. With 500 dock nodes in a
+ * window of 1280 by 800 pixels the title bars are about 60 by 20 pixels and a rendered canvas title
+ * bar retains about 20 KB of heap, 5 KB of it for the texture.
+ *
+ * @since DockFX 0.1
+ */
+public class DockCanvasTitleBar extends DockTitleBar {
+
+    /**
+     * The padding between the icon and the border of a button.
+     */
+    private static final double BUTTON_PADDING = 4;
+    /**
+     * The color drawn over a button while it is pressed.
+     */
+    private static final Color ARMED_FILL = Color.rgb(0, 0, 0, 0.15);
+    /**
+     * The text ending a title that was cut off.
+     */
+    private static final String ELLIPSIS = "\u2026";
+    /**
+     * Measures the titles of all canvas title bars, which are only painted on the JavaFX application
+     * thread.
+     */
+    private static final Text measureText = new Text();
+
+    /**
+     * The buttons drawn by this title bar.
+     */
+    private enum TitleButton {
+        STATE, CLOSE
+    }
+
+    /**
+     * The canvas the caption and the buttons are drawn on.
+     */
+    private final Canvas canvas = new Canvas();
+    /**
+     * Repaints this title bar when one of the drawn properties of the dock node changes.
+     */
+    private final InvalidationListener invalidateListener = observable -> invalidate();
+    /**
+     * Whether the canvas has to be repainted on the next layout pass.
+     */
+    private boolean dirty = true;
+    /**
+     * The button that is pressed and will fire when the mouse is released over it.
+     */
+    private TitleButton armed;
+
+    /**
+     * Creates a canvas title bar with captions and dragging behavior.
+     *
+     * @param dockNode The docking node that requires a title bar.
+     */
+    public DockCanvasTitleBar(DockNode dockNode) {
+        super(dockNode, false);
+
+        canvas.setMouseTransparent(true);
+        canvas.setManaged(false);
+        getChildren().add(canvas);
+
+        dockNode.titleProperty().addListener(invalidateListener);
+        dockNode.graphicProperty().addListener(invalidateListener);
+        dockNode.closableProperty().addListener(invalidateListener);
+        dockNode.floatingProperty().addListener(invalidateListener);
+        dockNode.floatableProperty().addListener(invalidateListener);
+        dockNode.maximizedProperty().addListener(invalidateListener);
+        textFillProperty.addListener(invalidateListener);
+
+        this.getStyleClass().add("dock-canvas-title-bar");
+    }
+
+    private static final CssMetaData<DockCanvasTitleBar, Paint> TEXT_FILL = new CssMetaData<>("-fx-text-fill",
+            StyleConverter.getPaintConverter(), Color.BLACK) {
+        @Override
+        public boolean isSettable(DockCanvasTitleBar titleBar) {
+            return !titleBar.textFillProperty.isBound();
+        }
+
+        @Override
+        public StyleableProperty<Paint> getStyleableProperty(DockCanvasTitleBar titleBar) {
+            return titleBar.textFillProperty;
+        }
+    };
+
+    private static final List<CssMetaData<? extends Styleable, ?>> CSS_META_DATA;
+
+    static {
+        List<CssMetaData<? extends Styleable, ?>> cssMetaData = new ArrayList<>(HBox.getClassCssMetaData());
+        cssMetaData.add(TEXT_FILL);
+        CSS_META_DATA = Collections.unmodifiableList(cssMetaData);
+    }
+
+    /**
+     * The CSS properties of this class, those of the HBox and {@code -fx-text-fill}.
+     *
+     * @return The CSS properties of this class.
+     */
+    public static List<CssMetaData<? extends Styleable, ?>> getClassCssMetaData() {
+        return CSS_META_DATA;
+    }
+
+    @Override
+    public List<CssMetaData<? extends Styleable, ?>> getCssMetaData() {
+        return getClassCssMetaData();
+    }
+
+    /**
+     * The paint used to draw the title.
+     */
+    private final SimpleStyleableObjectProperty<Paint> textFillProperty = new SimpleStyleableObjectProperty<>(
+            TEXT_FILL, this, "textFill", Color.BLACK);
+
+    /**
+     * The paint used to draw the title, which can be set from style sheets with
+     * {@code -fx-text-fill}.
+     *
+     * @return The paint used to draw the title.
+     * @defaultValue Color.BLACK
+     */
+    public final ObjectProperty<Paint> textFillProperty() {
+        return textFillProperty;
+    }
+
+    public final Paint getTextFill() {
+        return textFillProperty.get();
+    }
+
+    public final void setTextFill(Paint textFill) {
+        textFillProperty.set(textFill);
+    }
+
+    @Override
+    public void dispose() {
+        DockNode dockNode = getDockNode();
+        dockNode.titleProperty().removeListener(invalidateListener);
+        dockNode.graphicProperty().removeListener(invalidateListener);
+        dockNode.closableProperty().removeListener(invalidateListener);
+        dockNode.floatingProperty().removeListener(invalidateListener);
+        dockNode.floatableProperty().removeListener(invalidateListener);
+        dockNode.maximizedProperty().removeListener(invalidateListener);
+        textFillProperty.removeListener(invalidateListener);
+        armed = null;
+
+        super.dispose();
+    }
+
+    /**
+     * Marks the canvas to be repainted on the next layout pass.
+     */
+    private void invalidate() {
+        dirty = true;
+        requestLayout();
+    }
+
+    @Override
+    public void handle(MouseEvent event) {
+        if (event.getEventType() == MouseEvent.MOUSE_PRESSED) {
+            armed = event.getButton() == MouseButton.PRIMARY ? getButtonAt(event.getX(), event.getY()) : null;
+            if (armed != null) {
+                invalidate();
+                event.consume();
+                return;
+            }
+        } else if (armed != null) {
+            // a pressed button swallows the drag so that the dock node is not detached by it
+            if (event.getEventType() == MouseEvent.MOUSE_RELEASED) {
+                TitleButton released = armed;
+                armed = null;
+                invalidate();
+                if (getButtonAt(event.getX(), event.getY()) == released) {
+                    fire(released);
+                }
+            }
+            event.consume();
+            return;
+        }
+        super.handle(event);
+    }
+
+    /**
+     * Runs the action of a button.
+     *
+     * @param button The button whose action is run.
+     */
+    private void fire(TitleButton button) {
+        if (button == TitleButton.CLOSE) {
+            getDockNode().close();
+        } else {
+            toggleState();
+        }
+    }
+
+    /**
+     * The button at the location in the local coordinates of this title bar.
+     *
+     * @param x The x coordinate in the local coordinates of this title bar.
+     * @param y The y coordinate in the local coordinates of this title bar.
+     * @return The button at the location or null if there is none.
+     */
+    private TitleButton getButtonAt(double x, double y) {
+        if (y < snappedTopInset() || y >= getHeight() - snappedBottomInset())
+            return null;
+        for (TitleButton button : TitleButton.values()) {
+            double buttonX = getButtonX(button);
+            if (!Double.isNaN(buttonX) && x >= buttonX && x < buttonX + getButtonWidth(button))
+                return button;
+        }
+        return null;
+    }
+
+    /**
+     * Whether the state button is shown. As for the default title bar, a docked dock node that may
+     * not float has nothing to detach.
+     *
+     * @return Whether the state button is shown.
+     */
+    private boolean isStateShown() {
+        return getDockNode().isFloating() || getDockNode().isFloatable();
+    }
+
+    /**
+     * The left edge of a button or NaN if the button is not shown. The buttons are right aligned with
+     * the close button last.
+     *
+     * @param button The button to locate.
+     * @return The left edge of the button or NaN if the button is not shown.
+     */
+    private double getButtonX(TitleButton button) {
+        double x = getWidth() - snappedRightInset();
+        if (getDockNode().isClosable()) {
+            x -= getButtonWidth(TitleButton.CLOSE);
+            if (button == TitleButton.CLOSE)
+                return x;
+            x -= getSpacing();
+        } else if (button == TitleButton.CLOSE) {
+            return Double.NaN;
+        }
+        return isStateShown() ? x - getButtonWidth(TitleButton.STATE) : Double.NaN;
+    }
+
+    private double getButtonWidth(TitleButton button) {
+        return getIcon(button).getWidth() + 2 * BUTTON_PADDING;
+    }
+
+    /**
+     * The icon of a button. The state button shows the maximize icon for floating dock nodes and the
+     * restore icon otherwise.
+     *
+     * @param button The button whose icon is returned.
+     * @return The icon of the button.
+     */
+    private Image getIcon(TitleButton button) {
+        if (button == TitleButton.CLOSE)
+            return DockIcon.CLOSE.getImage();
+        DockNode dockNode = getDockNode();
+        return dockNode.isFloating() && !dockNode.isMaximized() ? DockIcon.MAXIMIZE.getImage()
+                : DockIcon.RESTORE.getImage();
+    }
+
+    /**
+     * The caption graphic drawn in front of the title.
+     *
+     * @return The caption graphic drawn in front of the title.
+     */
+    private Image getGraphicImage() {
+        Node graphic = getDockNode().getGraphic();
+        if (graphic instanceof ImageView imageView && imageView.getImage() != null)
+            return imageView.getImage();
+        return DockIcon.DOCK_NODE.getImage();
+    }
+
+    @Override
+    protected double computeMinWidth(double height) {
+        return snappedLeftInset() + getGraphicImage().getWidth() + snappedRightInset();
+    }
+
+    @Override
+    protected double computePrefWidth(double height) {
+        double width = snappedLeftInset() + getGraphicImage().getWidth() + snappedRightInset();
+        if (isStateShown())
+            width += getSpacing() + getButtonWidth(TitleButton.STATE);
+        if (getDockNode().isClosable())
+            width += getSpacing() + getButtonWidth(TitleButton.CLOSE);
+        return width;
+    }
+
+    @Override
+    protected double computeMinHeight(double width) {
+        return computePrefHeight(width);
+    }
+
+    @Override
+    protected double computePrefHeight(double width) {
+        double contentHeight = Math.max(getGraphicImage().getHeight(),
+                getIcon(TitleButton.STATE).getHeight() + 2);
+        return snappedTopInset() + contentHeight + snappedBottomInset();
+    }
+
+    @Override
+    protected void layoutChildren() {
+        double width = getWidth();
+        double height = getHeight();
+        if (canvas.getWidth() != width || canvas.getHeight() != height) {
+            canvas.setWidth(width);
+            canvas.setHeight(height);
+            dirty = true;
+        }
+        if (dirty) {
+            dirty = false;
+            paint();
+        }
+    }
+
+    /**
+     * Draws the caption graphic, the title and the buttons on the canvas.
+     */
+    private void paint() {
+        GraphicsContext gc = canvas.getGraphicsContext2D();
+        double width = canvas.getWidth();
+        double height = canvas.getHeight();
+        gc.clearRect(0, 0, width, height);
+
+        double top = snappedTopInset();
+        double centerY = top + (height - top - snappedBottomInset()) / 2;
+
+        Image graphic = getGraphicImage();
+        double x = snappedLeftInset();
+        gc.drawImage(graphic, x, centerY - graphic.getHeight() / 2);
+        x += graphic.getWidth() + getSpacing();
+
+        double textEnd = width - snappedRightInset();
+        for (TitleButton button : TitleButton.values()) {
+            double buttonX = getButtonX(button);
+            if (Double.isNaN(buttonX))
+                continue;
+            textEnd = Math.min(textEnd, buttonX - getSpacing());
+            if (button == armed) {
+                gc.setFill(ARMED_FILL);
+                gc.fillRect(buttonX, top, getButtonWidth(button), height - top - snappedBottomInset());
+            }
+            Image icon = getIcon(button);
+            gc.drawImage(icon, buttonX + BUTTON_PADDING, centerY - icon.getHeight() / 2);
+        }
+
+        String title = getDockNode().getTitle();
+        if (title != null && !title.isEmpty() && textEnd > x) {
+            title = clipTitle(title, textEnd - x);
+            gc.setFont(Font.getDefault());
+            gc.setFill(getTextFill());
+            gc.setTextAlign(TextAlignment.LEFT);
+            gc.setTextBaseline(VPos.CENTER);
+            gc.fillText(title, x, centerY);
+        }
+    }
+
+    /**
+     * The title as it fits into the width, cut off with an ellipsis if it is too wide.
+     *
+     * @param title    The title.
+     * @param maxWidth The width available to the title.
+     * @return The title, the longest start of the title that fits with an ellipsis, or an empty
+     * string if not even the ellipsis fits.
+     */
+    String clipTitle(String title, double maxWidth) {
+        if (computeTextWidth(title) <= maxWidth)
+            return title;
+        // the longest start of the title that still fits along with the ellipsis
+        int low = 0;
+        int high = title.length() - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (computeTextWidth(title.substring(0, mid) + ELLIPSIS) <= maxWidth) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        if (low > 0 && Character.isHighSurrogate(title.charAt(low - 1)))
+            low--;
+        if (low == 0 && computeTextWidth(ELLIPSIS) > maxWidth)
+            return "";
+        return title.substring(0, low).stripTrailing() + ELLIPSIS;
+    }
+
+    /**
+     * The width of the text drawn in the default font.
+     *
+     * @param text The text to measure.
+     * @return The width of the text.
+     */
+    double computeTextWidth(String text) {
+        measureText.setFont(Font.getDefault());
+        measureText.setText(text);
+        return measureText.getLayoutBounds().getWidth();
+    }
+}
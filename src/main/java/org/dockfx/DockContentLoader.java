@@ -0,0 +1,94 @@
+/**
+ * @file DockContentLoader.java
+ * @brief Class implementing background loading of FXML dock node contents.
+ * @section License
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ **/
+
+package org.dockfx;
+
+import javafx.fxml.FXMLLoader;
+import javafx.scene.Node;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.util.Objects;
+import java.util.ResourceBundle;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Loads FXML dock node contents away from the JavaFX application thread. FXMLLoader builds the live
+ * scene graph while it parses, so neither the parsed document nor a template of it can be shared
+ * between instances and every instance is read and parsed on its own, but it is done on a background
+ * thread and does not block the user interface.
+ * <p>
+ * As the whole document is built on the loading thread, it must not create objects that may only
+ * be created on the JavaFX application thread, such as a {@code WebView}, a {@code Stage} or other
+ * windows and popups. Loading such a document fails with an {@link IllegalStateException}; load it
+ * with {@link #load(URL, ResourceBundle)} on the JavaFX application thread instead.
+ *
+ * @since DockFX 0.1
+ */
+public final class DockContentLoader {
+    /**
+     * The default executor used for loading contents. It uses daemon threads so that pending loads
+     * never keep the application alive.
+     */
+    private static final ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "DockFX content loader");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private DockContentLoader() {
+    }
+
+    /**
+     * Loads the FXML document on the default background executor.
+     *
+     * @param location  The location of the FXML document.
+     * @param resources The resource bundle used to resolve the document's resource keys, can be null.
+     * @return A future completed with the root of the loaded document on the loading thread.
+     */
+    public static CompletableFuture<Node> loadAsync(URL location, ResourceBundle resources) {
+        return loadAsync(location, resources, executor);
+    }
+
+    /**
+     * Loads the FXML document on the given executor.
+     *
+     * @param location  The location of the FXML document.
+     * @param resources The resource bundle used to resolve the document's resource keys, can be null.
+     * @param executor  The executor to parse the document on.
+     * @return A future completed with the root of the loaded document on the loading thread.
+     */
+    public static CompletableFuture<Node> loadAsync(URL location, ResourceBundle resources, Executor executor) {
+        Objects.requireNonNull(location, "location");
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return load(location, resources);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, executor);
+    }
+
+    /**
+     * Loads the FXML document on the calling thread.
+     *
+     * @param location  The location of the FXML document.
+     * @param resources The resource bundle used to resolve the document's resource keys, can be null.
+     * @return The root of the loaded document.
+     * @throws IOException If the document could not be read or parsed.
+     */
+    public static Node load(URL location, ResourceBundle resources) throws IOException {
+        FXMLLoader loader = new FXMLLoader(location, resources);
+        return loader.load();
+    }
+}
@@ -0,0 +1,405 @@
+/**
+ * @file DockDragTrace.java
+ * @brief Class holding the recorded mouse events of a title bar drag session.
+ * @section License
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ **/
+
+package org.dockfx;
+
+import javafx.event.EventType;
+import javafx.geometry.Bounds;
+import javafx.geometry.Rectangle2D;
+import javafx.scene.input.MouseButton;
+import javafx.scene.input.MouseEvent;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The mouse events a {@link DockTitleBar} handled during one drag session, from pressing the mouse
+ * button to releasing it, with the time, the local and screen coordinates, the button and the
+ * click count of every event. The trace also holds the id of the dragged dock node, the layout of
+ * its dock pane and where that dock pane was on the screen when the drag started, so that the drag
+ * can be replayed against the same arrangement later.
+ * <p>
+ * Traces are recorded by title bars that have a consumer for them, and are written to a compact
+ * binary file of about 20 bytes per event, small enough to attach to a bug report:
+ * <pre>{@code
+ * dockNode.getDockTitleBar().setDragTraceConsumer(trace -> {
+ *     try {
+ *         trace.write(directory.resolve("drag-" + System.currentTimeMillis() + ".dfxtrace"));
+ *     } catch (IOException e) {
+ *         log.warn("Could not save the drag trace", e);
+ *     }
+ * });
+ * }</pre>
+ *
+ * @since DockFX 0.1
+ */
+public final class DockDragTrace {
+    /**
+     * The first bytes of a trace file, "DFDT".
+     */
+    private static final int MAGIC = 0x44464454;
+    /**
+     * The version of the file format.
+     */
+    private static final int VERSION = 1;
+    /**
+     * The recorded event types by their code.
+     */
+    private static final List<EventType<MouseEvent>> EVENT_TYPES =
+            List.of(MouseEvent.MOUSE_PRESSED, MouseEvent.DRAG_DETECTED, MouseEvent.MOUSE_DRAGGED,
+                    MouseEvent.MOUSE_RELEASED);
+    private static final MouseButton[] BUTTONS = MouseButton.values();
+
+    private final String dockNodeId;
+    private final DockLayout layout;
+    private final Rectangle2D dockPaneBounds;
+    /**
+     * The event type code in the lower two bits and the button ordinal above them for every event.
+     */
+    private final byte[] types;
+    private final byte[] clickCounts;
+    /**
+     * The time of every event in nanoseconds since the first event, in steps of a microsecond.
+     */
+    private final long[] nanos;
+    /**
+     * The x, y, screen x and screen y coordinates of every event.
+     */
+    private final float[] coordinates;
+
+    private DockDragTrace(String dockNodeId, DockLayout layout, Rectangle2D dockPaneBounds, byte[] types,
+                          byte[] clickCounts, long[] nanos, float[] coordinates) {
+        this.dockNodeId = dockNodeId;
+        this.layout = layout;
+        this.dockPaneBounds = dockPaneBounds;
+        this.types = types;
+        this.clickCounts = clickCounts;
+        this.nanos = nanos;
+        this.coordinates = coordinates;
+    }
+
+    /**
+     * The id of the dragged dock node.
+     *
+     * @return The id of the dragged dock node or null if it had none.
+     */
+    public String getDockNodeId() {
+        return dockNodeId;
+    }
+
+    /**
+     * The layout of the dock pane the dragged dock node was docked in when the drag started.
+     *
+     * @return The layout or null if the dock node was floating, nothing was docked or a docked node
+     * had no id.
+     */
+    public DockLayout getLayout() {
+        return layout;
+    }
+
+    /**
+     * The screen bounds of the dock pane the dragged dock node was docked in when the drag started.
+     *
+     * @return The screen bounds or null if the dock node was floating.
+     */
+    public Rectangle2D getDockPaneBounds() {
+        return dockPaneBounds;
+    }
+
+    /**
+     * The number of recorded events.
+     *
+     * @return The number of recorded events.
+     */
+    public int size() {
+        return types.length;
+    }
+
+    /**
+     * The type of an event, one of {@link MouseEvent#MOUSE_PRESSED}, {@link MouseEvent#DRAG_DETECTED},
+     * {@link MouseEvent#MOUSE_DRAGGED} and {@link MouseEvent#MOUSE_RELEASED}.
+     *
+     * @param index The index of the event.
+     * @return The type of the event.
+     */
+    public EventType<MouseEvent> getEventType(int index) {
+        return EVENT_TYPES.get(types[index] & 3);
+    }
+
+    public MouseButton getButton(int index) {
+        return BUTTONS[types[index] >> 2];
+    }
+
+    public int getClickCount(int index) {
+        return clickCounts[index] & 0xff;
+    }
+
+    /**
+     * The time of an event since the first event of the drag session.
+     *
+     * @param index The index of the event.
+     * @return The time of the event in nanoseconds, with a resolution of a microsecond.
+     */
+    public long getNanos(int index) {
+        return nanos[index];
+    }
+
+    /**
+     * The horizontal position of an event relative to the title bar it was handled by.
+     *
+     * @param index The index of the event.
+     * @return The horizontal position of the event in the title bar.
+     */
+    public double getX(int index) {
+        return coordinates[4 * index];
+    }
+
+    public double getY(int index) {
+        return coordinates[4 * index + 1];
+    }
+
+    /**
+     * The horizontal position of an event on the screen.
+     *
+     * @param index The index of the event.
+     * @return The horizontal position of the event on the screen.
+     */
+    public double getScreenX(int index) {
+        return coordinates[4 * index + 2];
+    }
+
+    public double getScreenY(int index) {
+        return coordinates[4 * index + 3];
+    }
+
+    /**
+     * Write the trace to a file, replacing the file if it exists.
+     *
+     * @param file The file.
+     * @throws IOException If the file cannot be written.
+     */
+    public void write(Path file) throws IOException {
+        try (OutputStream out = Files.newOutputStream(file)) {
+            write(out);
+        }
+    }
+
+    /**
+     * Write the trace to a stream. The stream is flushed but not closed.
+     *
+     * @param stream The stream.
+     * @throws IOException If the stream cannot be written.
+     */
+    public void write(OutputStream stream) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream));
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        out.writeUTF(dockNodeId == null ? "" : dockNodeId);
+        out.writeUTF(DockJournal.encode(layout));
+        out.writeBoolean(dockPaneBounds != null);
+        if (dockPaneBounds != null) {
+            out.writeFloat((float) dockPaneBounds.getMinX());
+            out.writeFloat((float) dockPaneBounds.getMinY());
+            out.writeFloat((float) dockPaneBounds.getWidth());
+            out.writeFloat((float) dockPaneBounds.getHeight());
+        }
+        writeVarLong(out, types.length);
+        long previous = 0;
+        for (int i = 0; i < types.length; i++) {
+            out.writeByte(types[i]);
+            out.writeByte(clickCounts[i]);
+            long micros = nanos[i] / 1000;
+            writeVarLong(out, micros - previous);
+            previous = micros;
+            for (int j = 4 * i; j < 4 * i + 4; j++) {
+                out.writeFloat(coordinates[j]);
+            }
+        }
+        out.flush();
+    }
+
+    /**
+     * Read a trace from a file.
+     *
+     * @param file The file.
+     * @return The trace.
+     * @throws IOException If the file cannot be read or is not a trace.
+     */
+    public static DockDragTrace read(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            return read(in);
+        }
+    }
+
+    /**
+     * Read a trace from a stream. The stream is not closed.
+     *
+     * @param stream The stream.
+     * @return The trace.
+     * @throws IOException If the stream cannot be read or does not hold a trace.
+     */
+    public static DockDragTrace read(InputStream stream) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(stream));
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a drag trace");
+        }
+        int version = in.readUnsignedByte();
+        if (version != VERSION) {
+            throw new IOException("Unsupported drag trace version " + version);
+        }
+        String id = in.readUTF();
+        DockLayout layout;
+        try {
+            layout = DockJournal.decodeLayout(in.readUTF());
+        } catch (RuntimeException e) {
+            throw new IOException("Corrupt layout in drag trace", e);
+        }
+        Rectangle2D bounds = in.readBoolean()
+                ? new Rectangle2D(in.readFloat(), in.readFloat(), in.readFloat(), in.readFloat()) : null;
+        long count = readVarLong(in);
+        if (count > Integer.MAX_VALUE / 4) {
+            throw new IOException("Corrupt drag trace with " + count + " events");
+        }
+        int size = (int) count;
+        byte[] types = new byte[size];
+        byte[] clickCounts = new byte[size];
+        long[] nanos = new long[size];
+        float[] coordinates = new float[4 * size];
+        long micros = 0;
+        for (int i = 0; i < size; i++) {
+            types[i] = in.readByte();
+            if ((types[i] & 0xff) >> 2 >= BUTTONS.length) {
+                throw new IOException("Corrupt drag trace event " + i);
+            }
+            clickCounts[i] = in.readByte();
+            micros += readVarLong(in);
+            nanos[i] = micros * 1000;
+            for (int j = 4 * i; j < 4 * i + 4; j++) {
+                coordinates[j] = in.readFloat();
+            }
+        }
+        return new DockDragTrace(id.isEmpty() ? null : id, layout, bounds, types, clickCounts, nanos, coordinates);
+    }
+
+    private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7fL) != 0) {
+            out.writeByte((int) (value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Corrupt drag trace number");
+    }
+
+    @Override
+    public String toString() {
+        return "DockDragTrace[" + dockNodeId + ", " + types.length + " events over " + (nanos.length == 0 ? 0
+                : nanos[nanos.length - 1] / 1_000_000) + " ms]";
+    }
+
+    /**
+     * Records the events of one drag session of a title bar into growing arrays.
+     */
+    static final class Recorder {
+        private final String dockNodeId;
+        private final DockLayout layout;
+        private final Rectangle2D dockPaneBounds;
+        private final long start = System.nanoTime();
+        private byte[] types = new byte[64];
+        private byte[] clickCounts = new byte[64];
+        private long[] nanos = new long[64];
+        private float[] coordinates = new float[4 * 64];
+        private int size;
+
+        /**
+         * Start recording a drag session of the dock node, noting the layout of its dock pane.
+         *
+         * @param dockNode The dragged dock node.
+         */
+        Recorder(DockNode dockNode) {
+            dockNodeId = dockNode.getId();
+            DockPane dockPane = dockNode.isFloating() ? null : dockNode.getDockPane();
+            DockLayout captured = null;
+            Rectangle2D bounds = null;
+            if (dockPane != null) {
+                try {
+                    captured = dockPane.captureLayout();
+                } catch (IllegalStateException e) {
+                    // a dock node without an id cannot be described, the drag is recorded anyway
+                }
+                Bounds screen = dockPane.localToScreen(dockPane.getLayoutBounds());
+                if (screen != null) {
+                    bounds = new Rectangle2D(screen.getMinX(), screen.getMinY(), screen.getWidth(), screen.getHeight());
+                }
+            }
+            layout = captured;
+            dockPaneBounds = bounds;
+        }
+
+        /**
+         * Record an event handled by the title bar.
+         *
+         * @param event The event.
+         */
+        void add(MouseEvent event) {
+            int type = EVENT_TYPES.indexOf(event.getEventType());
+            if (type < 0) {
+                return;
+            }
+            if (size == types.length) {
+                types = Arrays.copyOf(types, 2 * size);
+                clickCounts = Arrays.copyOf(clickCounts, 2 * size);
+                nanos = Arrays.copyOf(nanos, 2 * size);
+                coordinates = Arrays.copyOf(coordinates, 8 * size);
+            }
+            types[size] = (byte) (type | event.getButton().ordinal() << 2);
+            clickCounts[size] = (byte) Math.min(event.getClickCount(), 255);
+            nanos[size] = (System.nanoTime() - start) / 1000 * 1000;
+            coordinates[4 * size] = (float) event.getX();
+            coordinates[4 * size + 1] = (float) event.getY();
+            coordinates[4 * size + 2] = (float) event.getScreenX();
+            coordinates[4 * size + 3] = (float) event.getScreenY();
+            size++;
+        }
+
+        /**
+         * The trace of the recorded events.
+         *
+         * @return The trace.
+         */
+        DockDragTrace finish() {
+            long first = size > 0 ? nanos[0] : 0;
+            long[] times = Arrays.copyOf(nanos, size);
+            for (int i = 0; i < size; i++) {
+                times[i] -= first;
+            }
+            return new DockDragTrace(dockNodeId, layout, dockPaneBounds, Arrays.copyOf(types, size),
+                    Arrays.copyOf(clickCounts, size), times, Arrays.copyOf(coordinates, 4 * size));
+        }
+    }
+}
@@ -0,0 +1,51 @@
+/**
+ * @file DockDropFilter.java
+ * @brief Interface deciding where a dragged dock node may be docked.
+ * @section License
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ **/
+
+package org.dockfx;
+
+import javafx.scene.Node;
+
+/**
+ * Decides where a dragged dock node may be docked, for example only into a document area. The filter
+ * of a dock pane is asked from the coarsest to the finest question while a dock node is dragged, so
+ * that a dock pane or a dock node the dragged node may not be docked into is not even looked at
+ * while picking the drop target:
+ * <ul>
+ * <li>With neither a target nor a docking position, whether the dragged node may be docked anywhere
+ * in the dock pane. If not, the dock pane shows no indicators and only dock panes nested in it are
+ * considered.</li>
+ * <li>With a target but no docking position, whether the dragged node may be docked next to the
+ * target anywhere. If not, the target and everything in it but nested dock panes are skipped.</li>
+ * <li>With a docking position, whether the dragged node may be docked at the position relative to
+ * the target, or to the root of the dock pane if there is no target. The indicator buttons of the
+ * positions that are not accepted are hidden.</li>
+ * </ul>
+ * The answers are expected not to change during a drag. The filter is called on the JavaFX
+ * application thread.
+ * <p>
+ * While no dock pane has a drop filter nothing is skipped, and every node under the mouse receives
+ * the {@link DockEvent}s of a drag. Once any dock pane has one, only nodes in dock panes that accept
+ * the dragged node, and the ancestors of those dock panes, receive them.
+ *
+ * @since DockFX 0.1
+ */
+@FunctionalInterface
+public interface DockDropFilter {
+    /**
+     * Whether the dragged dock node may be docked into the dock pane at the target and position.
+     *
+     * @param dockNode     The dragged dock node.
+     * @param dockPane     The dock pane the dock node is dragged over.
+     * @param target       The node of the layout the dock node would be docked next to, null for the
+     *                     root of the dock pane or for the whole dock pane if the position is null.
+     * @param dockPosition The docking position relative to the target or null for any position.
+     * @return Whether the dock node may be docked there.
+     */
+    boolean accepts(DockNode dockNode, DockPane dockPane, Node target, DockPosition dockPosition);
+}
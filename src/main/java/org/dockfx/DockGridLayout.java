@@ -0,0 +1,525 @@
+/**
+ * @file DockGridLayout.java
+ * @brief Class implementing the layout engine placing dock nodes into the cells of a grid.
+ * @section License
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ **/
+
+package org.dockfx;
+
+import javafx.beans.property.IntegerProperty;
+import javafx.beans.property.SimpleIntegerProperty;
+import javafx.scene.Node;
+import javafx.scene.layout.Pane;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A layout engine placing the dock nodes into the cells of a grid with a fixed number of columns and
+ * as many rows as needed, all columns and all rows sharing the space equally. It suits dashboards
+ * with many panels of equal size, because docking and undocking a node only changes the cells of
+ * that node instead of restructuring a tree of split containers.
+ * <p>
+ * Docking a node to the left, right, top or bottom of a sibling places it into the neighbouring cell
+ * of the sibling in that direction when the cell is free. When the cell is taken or outside of the
+ * grid the node is inserted before the sibling for the left and the top and after it for the right
+ * and the bottom, in reading order, and only the nodes after it move on. Docking relative to the
+ * whole layout places the node into the first free cell for the right and the bottom and before all
+ * other nodes for the left and the top. Undocking a node leaves its cells free for the next node,
+ * and {@link #reflow()} closes the gaps. A node can span several cells, see
+ * {@link #setSpan(Node, int, int)}.
+ *
+ * @since DockFX 0.1
+ */
+public final class DockGridLayout implements DockLayoutEngine {
+
+    /**
+     * The cells of a docked node.
+     */
+    private static final class Cell {
+        private int column;
+        private int row;
+        private int columnSpan = 1;
+        private int rowSpan = 1;
+    }
+
+    /**
+     * The dock pane this layout engine is attached to.
+     */
+    private DockPane dockPane;
+    /**
+     * The container laying out the nodes, the root of the layout.
+     */
+    private final GridContainer container = new GridContainer();
+    /**
+     * The cells of every docked node.
+     */
+    private final Map<Node, Cell> cells = new HashMap<>();
+    /**
+     * The node occupying each cell in reading order, null for a free cell.
+     */
+    private final List<Node> slots = new ArrayList<>();
+    /**
+     * The index of a slot before which no slot is free.
+     */
+    private int firstFree;
+    /**
+     * The number of columns the slots are arranged in, which lags behind the columns property until
+     * the nodes are reflowed.
+     */
+    private int columns = 4;
+
+    /**
+     * The number of columns of the grid.
+     */
+    private final IntegerProperty columnsProperty = new SimpleIntegerProperty(4) {
+        @Override
+        protected void invalidated() {
+            if (get() < 1) {
+                set(1);
+            } else if (get() != columns) {
+                reflow();
+            }
+        }
+
+        @Override
+        public String getName() {
+            return "columns";
+        }
+    };
+
+    /**
+     * Creates a grid layout with four columns.
+     */
+    public DockGridLayout() {
+    }
+
+    /**
+     * Creates a grid layout.
+     *
+     * @param columns The number of columns of the grid.
+     */
+    public DockGridLayout(int columns) {
+        this.columns = Math.max(1, columns);
+        setColumns(columns);
+    }
+
+    /**
+     * The number of columns of the grid. Changing it reflows the docked nodes.
+     *
+     * @defaultValue 4
+     */
+    public IntegerProperty columnsProperty() {
+        return columnsProperty;
+    }
+
+    public int getColumns() {
+        return columnsProperty.get();
+    }
+
+    public void setColumns(int columns) {
+        columnsProperty.set(columns);
+    }
+
+    @Override
+    public void attach(DockPane dockPane) {
+        this.dockPane = dockPane;
+    }
+
+    @Override
+    public void detach() {
+        dockPane = null;
+        container.getChildren().clear();
+        cells.clear();
+        slots.clear();
+        firstFree = 0;
+    }
+
+    @Override
+    public Node getRoot() {
+        return dockPane != null ? container : null;
+    }
+
+    @Override
+    public List<Node> getNodes() {
+        List<Node> nodes = new ArrayList<>(cells.size());
+        for (int i = 0; i < slots.size(); i++) {
+            Node node = slots.get(i);
+            if (node != null) {
+                Cell cell = cells.get(node);
+                if (cell.row * columns + cell.column == i) {
+                    nodes.add(node);
+                }
+            }
+        }
+        return nodes;
+    }
+
+    @Override
+    public void dock(Node node, DockPosition dockPosition, Node sibling) {
+        if (cells.containsKey(node)) {
+            undock(node);
+        }
+        placeNext(node, dockPosition, sibling);
+        container.getChildren().add(node);
+    }
+
+    @Override
+    public void move(Node node, DockPosition dockPosition, Node sibling) {
+        // the node stays a child of the container, only its cell changes
+        Cell cell = cells.remove(node);
+        if (cell == null) {
+            dock(node, dockPosition, sibling);
+            return;
+        }
+        release(cell);
+        placeNext(node, dockPosition, sibling);
+        container.requestLayout();
+    }
+
+    /**
+     * Place the node that has no cell at the docking position relative to the sibling.
+     *
+     * @param node         The node to place.
+     * @param dockPosition The docking position of the node relative to the sibling.
+     * @param sibling      The docked node to place the node next to, or null to place it relative to
+     *                     the whole grid.
+     */
+    private void placeNext(Node node, DockPosition dockPosition, Node sibling) {
+        Cell siblingCell = sibling != null ? cells.get(sibling) : null;
+        boolean before = dockPosition == DockPosition.LEFT || dockPosition == DockPosition.TOP;
+        Cell cell = new Cell();
+        if (siblingCell == null) {
+            if (before && !cells.isEmpty()) {
+                insert(node, cell, getNodes().get(0));
+            } else {
+                place(node, cell, findFree(0, 1, 1));
+            }
+        } else {
+            int column = siblingCell.column;
+            int row = siblingCell.row;
+            switch (dockPosition) {
+                case LEFT -> column--;
+                case TOP -> row--;
+                case BOTTOM -> row += siblingCell.rowSpan;
+                default -> column += siblingCell.columnSpan;
+            }
+            if (column >= 0 && column < columns && row >= 0 && fits(row * columns + column, 1, 1)) {
+                place(node, cell, row * columns + column);
+            } else if (before) {
+                insert(node, cell, sibling);
+            } else {
+                List<Node> nodes = getNodes();
+                int index = nodes.indexOf(sibling) + 1;
+                if (index < nodes.size()) {
+                    insert(node, cell, nodes.get(index));
+                } else {
+                    place(node, cell, findFree(index(siblingCell), 1, 1));
+                }
+            }
+        }
+    }
+
+    @Override
+    public boolean undock(Node node) {
+        Cell cell = cells.remove(node);
+        if (cell == null) {
+            return false;
+        }
+        release(cell);
+        container.getChildren().remove(node);
+        return true;
+    }
+
+    /**
+     * Change the number of columns and rows the docked node spans. The node keeps its top left cell
+     * if the cells it spans are free, otherwise the node and the nodes after it reflow.
+     *
+     * @param node       The docked node.
+     * @param columnSpan The number of columns the node spans, at most the number of columns.
+     * @param rowSpan    The number of rows the node spans.
+     * @throws IllegalArgumentException If the node is not docked into this layout.
+     */
+    public void setSpan(Node node, int columnSpan, int rowSpan) {
+        Cell cell = cells.get(node);
+        if (cell == null) {
+            throw new IllegalArgumentException("The node is not docked into this layout: " + node);
+        }
+
+        release(cell);
+        cell.columnSpan = Math.max(1, Math.min(columnSpan, columns));
+        cell.rowSpan = Math.max(1, rowSpan);
+        int index = index(cell);
+        if (fits(index, cell.columnSpan, cell.rowSpan)) {
+            occupy(node, cell, index);
+        } else {
+            List<Node> nodes = getNodes();
+            int from = 0;
+            while (from < nodes.size() && index(cells.get(nodes.get(from))) < index) {
+                from++;
+            }
+            nodes.add(from, node);
+            reflow(nodes.subList(from, nodes.size()), index);
+        }
+        container.requestLayout();
+    }
+
+    /**
+     * The column of the top left cell of the docked node.
+     *
+     * @param node The docked node.
+     * @return The column of the node or -1 if it is not docked into this layout.
+     */
+    public int getColumn(Node node) {
+        Cell cell = cells.get(node);
+        return cell != null ? cell.column : -1;
+    }
+
+    /**
+     * The row of the top left cell of the docked node.
+     *
+     * @param node The docked node.
+     * @return The row of the node or -1 if it is not docked into this layout.
+     */
+    public int getRow(Node node) {
+        Cell cell = cells.get(node);
+        return cell != null ? cell.row : -1;
+    }
+
+    /**
+     * The number of columns the docked node spans.
+     *
+     * @param node The docked node.
+     * @return The number of columns the node spans or 0 if it is not docked into this layout.
+     */
+    public int getColumnSpan(Node node) {
+        Cell cell = cells.get(node);
+        return cell != null ? cell.columnSpan : 0;
+    }
+
+    /**
+     * The number of rows the docked node spans.
+     *
+     * @param node The docked node.
+     * @return The number of rows the node spans or 0 if it is not docked into this layout.
+     */
+    public int getRowSpan(Node node) {
+        Cell cell = cells.get(node);
+        return cell != null ? cell.rowSpan : 0;
+    }
+
+    /**
+     * The number of rows of the grid.
+     *
+     * @return The number of rows of the grid.
+     */
+    public int getRows() {
+        int rows = 0;
+        for (Cell cell : cells.values()) {
+            rows = Math.max(rows, cell.row + cell.rowSpan);
+        }
+        return rows;
+    }
+
+    /**
+     * Move all docked nodes into the first cells in reading order, closing the gaps left by undocked
+     * nodes.
+     */
+    public void reflow() {
+        List<Node> nodes = getNodes();
+        slots.clear();
+        firstFree = 0;
+        columns = getColumns();
+        reflow(nodes, 0);
+        container.requestLayout();
+    }
+
+    /**
+     * Insert the node in reading order before the next node, which moves on together with the nodes
+     * after it.
+     *
+     * @param node The node to insert.
+     * @param cell The cell of the node.
+     * @param next The docked node the node is inserted before.
+     */
+    private void insert(Node node, Cell cell, Node next) {
+        List<Node> nodes = getNodes();
+        int from = nodes.indexOf(next);
+        int index = index(cells.get(next));
+        cells.put(node, cell);
+        nodes.add(from, node);
+        reflow(nodes.subList(from, nodes.size()), index);
+    }
+
+    /**
+     * Place the nodes in order into the first free cells from the slot on. The nodes that are already
+     * placed release their cells first.
+     *
+     * @param nodes The nodes to place.
+     * @param from  The slot to start at.
+     */
+    private void reflow(List<Node> nodes, int from) {
+        for (Node node : nodes) {
+            Cell cell = cells.get(node);
+            if (slots.size() > index(cell) && slots.get(index(cell)) == node) {
+                release(cell);
+            }
+        }
+        int index = from;
+        for (Node node : nodes) {
+            Cell cell = cells.get(node);
+            cell.columnSpan = Math.min(cell.columnSpan, columns);
+            index = findFree(index, cell.columnSpan, cell.rowSpan);
+            occupy(node, cell, index);
+        }
+    }
+
+    /**
+     * Place a node that is not docked yet.
+     */
+    private void place(Node node, Cell cell, int index) {
+        cells.put(node, cell);
+        occupy(node, cell, index);
+    }
+
+    /**
+     * Occupy the cells of the node from the slot on.
+     */
+    private void occupy(Node node, Cell cell, int index) {
+        cell.column = index % columns;
+        cell.row = index / columns;
+        int end = (cell.row + cell.rowSpan) * columns;
+        while (slots.size() < end) {
+            slots.add(null);
+        }
+        for (int row = cell.row; row < cell.row + cell.rowSpan; row++) {
+            for (int column = cell.column; column < cell.column + cell.columnSpan; column++) {
+                slots.set(row * columns + column, node);
+            }
+        }
+    }
+
+    /**
+     * Free the slots of the cells.
+     */
+    private void release(Cell cell) {
+        for (int row = cell.row; row < cell.row + cell.rowSpan; row++) {
+            for (int column = cell.column; column < cell.column + cell.columnSpan; column++) {
+                int index = row * columns + column;
+                if (index < slots.size()) {
+                    slots.set(index, null);
+                }
+            }
+        }
+        firstFree = Math.min(firstFree, index(cell));
+    }
+
+    /**
+     * The first slot from the given one on where the span fits. Slots before the first free slot are
+     * skipped, which makes filling the grid in order take constant time per node.
+     */
+    private int findFree(int from, int columnSpan, int rowSpan) {
+        int index = Math.max(from, columnSpan == 1 && rowSpan == 1 ? firstFree : 0);
+        while (!fits(index, columnSpan, rowSpan)) {
+            index++;
+        }
+        if (columnSpan == 1 && rowSpan == 1 && from <= firstFree) {
+            firstFree = index + 1;
+        }
+        return index;
+    }
+
+    /**
+     * Whether the span fits into free cells from the slot on.
+     */
+    private boolean fits(int index, int columnSpan, int rowSpan) {
+        int column = index % columns;
+        if (column + columnSpan > columns) {
+            return false;
+        }
+        for (int row = index / columns; row < index / columns + rowSpan; row++) {
+            for (int c = column; c < column + columnSpan; c++) {
+                int slot = row * columns + c;
+                if (slot < slots.size() && slots.get(slot) != null) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private int index(Cell cell) {
+        return cell.row * columns + cell.column;
+    }
+
+    /**
+     * The container laying out the docked nodes in their cells.
+     */
+    private final class GridContainer extends Pane {
+
+        private GridContainer() {
+            getStyleClass().add("dock-grid");
+        }
+
+        @Override
+        protected double computeMinWidth(double height) {
+            return snappedLeftInset() + columns * getMaxCellSize(true, true) + snappedRightInset();
+        }
+
+        @Override
+        protected double computeMinHeight(double width) {
+            return snappedTopInset() + getRows() * getMaxCellSize(false, true) + snappedBottomInset();
+        }
+
+        @Override
+        protected double computePrefWidth(double height) {
+            return snappedLeftInset() + columns * getMaxCellSize(true, false) + snappedRightInset();
+        }
+
+        @Override
+        protected double computePrefHeight(double width) {
+            return snappedTopInset() + getRows() * getMaxCellSize(false, false) + snappedBottomInset();
+        }
+
+        /**
+         * The largest size of a single cell any docked node asks for.
+         */
+        private double getMaxCellSize(boolean horizontal, boolean minimum) {
+            double size = 0;
+            for (Map.Entry<Node, Cell> entry : cells.entrySet()) {
+                Node node = entry.getKey();
+                Cell cell = entry.getValue();
+                double nodeSize = horizontal
+                        ? (minimum ? node.minWidth(-1) : node.prefWidth(-1)) / cell.columnSpan
+                        : (minimum ? node.minHeight(-1) : node.prefHeight(-1)) / cell.rowSpan;
+                size = Math.max(size, nodeSize);
+            }
+            return size;
+        }
+
+        @Override
+        protected void layoutChildren() {
+            int rows = getRows();
+            if (rows == 0) {
+                return;
+            }
+            double left = snappedLeftInset();
+            double top = snappedTopInset();
+            double cellWidth = (getWidth() - left - snappedRightInset()) / columns;
+            double cellHeight = (getHeight() - top - snappedBottomInset()) / rows;
+            for (Map.Entry<Node, Cell> entry : cells.entrySet()) {
+                Cell cell = entry.getValue();
+                double x = snapPositionX(left + cell.column * cellWidth);
+                double y = snapPositionY(top + cell.row * cellHeight);
+                double width = snapPositionX(left + (cell.column + cell.columnSpan) * cellWidth) - x;
+                double height = snapPositionY(top + (cell.row + cell.rowSpan) * cellHeight) - y;
+                entry.getKey().resizeRelocate(x, y, width, height);
+            }
+        }
+    }
+}
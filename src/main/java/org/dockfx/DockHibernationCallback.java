@@ -0,0 +1,39 @@
+/**
+ * @file DockHibernationCallback.java
+ * @brief Interface releasing and recreating the contents of hibernated dock nodes.
+ * @section License
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ **/
+
+package org.dockfx;
+
+import javafx.scene.Node;
+
+/**
+ * Releases the heavy parts of a dock node's contents when it is hibernated and recreates them when
+ * it is restored. Both methods are called on the JavaFX application thread.
+ *
+ * @since DockFX 0.1
+ */
+public interface DockHibernationCallback {
+    /**
+     * Called after the contents of the dock node were replaced by a snapshot placeholder. The
+     * contents are no longer part of the scene graph and the dock nodes keeps no reference to them,
+     * so everything released here can be garbage collected.
+     *
+     * @param dockNode The hibernated dock node.
+     * @param contents The contents that were replaced.
+     */
+    void hibernate(DockNode dockNode, Node contents);
+
+    /**
+     * Called when a hibernated dock node is needed again.
+     *
+     * @param dockNode The dock node to restore.
+     * @return The contents to show in the dock node, which may be the same contents that were
+     * hibernated if the callback kept them.
+     */
+    Node restore(DockNode dockNode);
+}
@@ -0,0 +1,443 @@
+/**
+ * @file DockHibernationManager.java
+ * @brief Class implementing the hibernation of hidden dock node contents.
+ * @section License
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ **/
+
+package org.dockfx;
+
+import javafx.application.Platform;
+import javafx.beans.property.LongProperty;
+import javafx.beans.property.ObjectProperty;
+import javafx.beans.property.SimpleLongProperty;
+import javafx.beans.property.SimpleObjectProperty;
+import javafx.geometry.Bounds;
+import javafx.scene.Node;
+import javafx.scene.image.ImageView;
+import javafx.scene.image.WritableImage;
+import javafx.scene.layout.StackPane;
+import javafx.util.Duration;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Swaps the contents of registered dock nodes that are not showing for a snapshot of them, so the
+ * heavy parts of the contents can be released by a {@link DockHibernationCallback}. Dock nodes are
+ * hibernated when they have not been showing for longer than the idle timeout, or, least recently
+ * shown first, while the total weight of the awake dock nodes exceeds the budget. The weight of a
+ * dock node is supplied when it is registered, for example an estimate of its memory use in bytes,
+ * and defaults to one, which turns the budget into a count of awake dock nodes. A hibernated dock
+ * node is restored as soon as its placeholder is laid out in a showing window or when
+ * {@link #restore(DockNode)} is called.
+ *
+ * @since DockFX 0.1
+ */
+public final class DockHibernationManager {
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(DockHibernationManager.class);
+
+    /**
+     * The interval in which the registered dock nodes are checked.
+     */
+    private static final long CHECK_INTERVAL_MILLIS = 1000;
+
+    /**
+     * The timer posting the periodic checks to the JavaFX application thread. It uses a daemon
+     * thread so that it never keeps the application alive, and a timer is used instead of an
+     * animation because a running animation forces a pulse on every frame.
+     */
+    private static final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "DockFX hibernation");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * The dock pane this manager belongs to.
+     */
+    private final DockPane dockPane;
+    /**
+     * The registered dock nodes from the least to the most recently shown. The map keeps insertion
+     * order so that looking up an entry does not change the order; a dock node is moved to the end by
+     * {@link #promote(Entry)} only when it is actually shown.
+     */
+    private final Map<DockNode, Entry> entries = new LinkedHashMap<>();
+    /**
+     * The periodic check while dock nodes are registered.
+     */
+    private ScheduledFuture<?> check;
+
+    private final LongProperty budgetProperty = new SimpleLongProperty(Long.MAX_VALUE) {
+        @Override
+        public String getName() {
+            return "budget";
+        }
+    };
+
+    private final ObjectProperty<Duration> idleTimeoutProperty = new SimpleObjectProperty<>(Duration.minutes(5)) {
+        @Override
+        public String getName() {
+            return "idleTimeout";
+        }
+    };
+
+    DockHibernationManager(DockPane dockPane) {
+        this.dockPane = dockPane;
+    }
+
+    /**
+     * The total weight of registered dock nodes that may be awake at the same time. Dock nodes that
+     * are showing are never hibernated, so the budget may be exceeded by them.
+     *
+     * @defaultValue Long.MAX_VALUE
+     */
+    public LongProperty budgetProperty() {
+        return budgetProperty;
+    }
+
+    public long getBudget() {
+        return budgetProperty.get();
+    }
+
+    public void setBudget(long budget) {
+        budgetProperty.set(budget);
+    }
+
+    /**
+     * The time after which a dock node that is not showing is hibernated regardless of the budget.
+     *
+     * @defaultValue 5 minutes
+     */
+    public ObjectProperty<Duration> idleTimeoutProperty() {
+        return idleTimeoutProperty;
+    }
+
+    public Duration getIdleTimeout() {
+        return idleTimeoutProperty.get();
+    }
+
+    public void setIdleTimeout(Duration idleTimeout) {
+        idleTimeoutProperty.set(idleTimeout);
+    }
+
+    /**
+     * Register a dock node for hibernation with a weight of one.
+     *
+     * @param dockNode The dock node to register.
+     * @param callback The callback releasing and recreating the contents.
+     */
+    public void register(DockNode dockNode, DockHibernationCallback callback) {
+        register(dockNode, callback, 1);
+    }
+
+    /**
+     * Register a dock node for hibernation. Registering a dock node again replaces its callback and
+     * weight.
+     *
+     * @param dockNode The dock node to register.
+     * @param callback The callback releasing and recreating the contents.
+     * @param weight   The weight of the dock node counted against the budget while it is awake.
+     */
+    public void register(DockNode dockNode, DockHibernationCallback callback, long weight) {
+        Objects.requireNonNull(dockNode, "dockNode");
+        Objects.requireNonNull(callback, "callback");
+
+        Entry entry = entries.get(dockNode);
+        if (entry == null) {
+            entry = new Entry(dockNode);
+            entries.put(dockNode, entry);
+        }
+        entry.callback = callback;
+        entry.weight = weight;
+        entry.lastShownNanos = System.nanoTime();
+
+        if (check == null) {
+            PeriodicCheck periodicCheck = new PeriodicCheck(this);
+            check = timer.scheduleWithFixedDelay(periodicCheck, CHECK_INTERVAL_MILLIS, CHECK_INTERVAL_MILLIS,
+                    TimeUnit.MILLISECONDS);
+            periodicCheck.future = check;
+        }
+    }
+
+    /**
+     * Unregister a dock node, restoring it first if it is hibernated.
+     *
+     * @param dockNode The dock node to unregister.
+     */
+    public void unregister(DockNode dockNode) {
+        restore(dockNode);
+        entries.remove(dockNode);
+        if (entries.isEmpty()) {
+            stop();
+        }
+    }
+
+    /**
+     * Unregister a dock node without restoring it.
+     *
+     * @param dockNode The dock node to unregister.
+     */
+    void forget(DockNode dockNode) {
+        entries.remove(dockNode);
+        if (entries.isEmpty()) {
+            stop();
+        }
+    }
+
+    /**
+     * Unregister every dock node without restoring it and stop the periodic check.
+     */
+    public void unregisterAll() {
+        entries.clear();
+        stop();
+    }
+
+    /**
+     * Whether the dock node is currently hibernated.
+     *
+     * @param dockNode The dock node.
+     * @return Whether the dock node is hibernated.
+     */
+    public boolean isHibernated(DockNode dockNode) {
+        Entry entry = entries.get(dockNode);
+        return entry != null && entry.placeholder != null;
+    }
+
+    /**
+     * Hibernate a registered dock node right away.
+     *
+     * @param dockNode The dock node to hibernate.
+     * @return Whether the dock node was awake and has been hibernated.
+     */
+    public boolean hibernate(DockNode dockNode) {
+        Entry entry = entries.get(dockNode);
+        return entry != null && hibernate(entry);
+    }
+
+    /**
+     * Restore a hibernated dock node right away.
+     *
+     * @param dockNode The dock node to restore.
+     * @return Whether the dock node was hibernated and has been restored.
+     */
+    public boolean restore(DockNode dockNode) {
+        Entry entry = entries.get(dockNode);
+        return entry != null && restore(entry);
+    }
+
+    /**
+     * Restore the dock nodes that are showing and hibernate the ones that have been hidden for too
+     * long or exceed the budget.
+     *
+     * @param now The current time in nanoseconds.
+     */
+    void check(long now) {
+        if (entries.isEmpty()) {
+            return;
+        }
+
+        List<Entry> shown = new ArrayList<>();
+        long awakeWeight = 0;
+        for (Entry entry : List.copyOf(entries.values())) {
+            DockPane owner = entry.dockNode.getDockPane();
+            if (owner != null && owner != dockPane) {
+                // moved to another dock pane
+                entries.remove(entry.dockNode);
+                continue;
+            }
+            if (entry.dockNode.isShown()) {
+                entry.lastShownNanos = now;
+                restore(entry);
+                shown.add(entry);
+            }
+            if (entry.placeholder == null) {
+                awakeWeight += entry.weight;
+            }
+        }
+        // mark the showing dock nodes as the most recently used
+        for (Entry entry : shown) {
+            promote(entry);
+        }
+
+        long idleTimeout = (long) (getIdleTimeout().toMillis() * 1_000_000);
+        for (Entry entry : List.copyOf(entries.values())) {
+            if (entry.placeholder != null || shown.contains(entry)) {
+                continue;
+            }
+            if ((awakeWeight > getBudget() || now - entry.lastShownNanos >= idleTimeout) && hibernate(entry)) {
+                awakeWeight -= entry.weight;
+            }
+        }
+
+        if (entries.isEmpty()) {
+            stop();
+        }
+    }
+
+    private boolean hibernate(Entry entry) {
+        DockNode dockNode = entry.dockNode;
+        Node contents = dockNode.getContents();
+        if (entry.placeholder != null || contents == null) {
+            return false;
+        }
+
+        long start = System.nanoTime();
+        HibernationPlaceholder placeholder = new HibernationPlaceholder(entry);
+        Bounds bounds = contents.getLayoutBounds();
+        if (bounds.getWidth() >= 1 && bounds.getHeight() >= 1) {
+            try {
+                WritableImage image = contents.snapshot(null, null);
+                placeholder.getChildren().add(new ImageView(image));
+                placeholder.setPrefSize(bounds.getWidth(), bounds.getHeight());
+            } catch (RuntimeException e) {
+                log.warn("Could not take a snapshot of {}", dockNode.getTitle(), e);
+            }
+        }
+
+        entry.placeholder = placeholder;
+        dockNode.setContents(placeholder);
+        try {
+            entry.callback.hibernate(dockNode, contents);
+        } catch (RuntimeException e) {
+            log.error("Could not hibernate {}", dockNode.getTitle(), e);
+        }
+        dockPane.getMetrics().hibernated(System.nanoTime() - start);
+        return true;
+    }
+
+    private boolean restore(Entry entry) {
+        if (entry.placeholder == null) {
+            return false;
+        }
+
+        long start = System.nanoTime();
+        DockNode dockNode = entry.dockNode;
+        HibernationPlaceholder placeholder = entry.placeholder;
+        Node contents;
+        try {
+            contents = entry.callback.restore(dockNode);
+        } catch (RuntimeException e) {
+            // keep the placeholder so that the dock node stays hibernated and is retried later
+            log.error("Could not restore {}", dockNode.getTitle(), e);
+            return false;
+        }
+        entry.placeholder = null;
+        entry.lastShownNanos = start;
+        // the contents may have been replaced by someone else in the meantime
+        if (dockNode.getContents() == placeholder) {
+            dockNode.setContents(contents);
+        }
+        dockPane.getMetrics().restored(System.nanoTime() - start);
+        return true;
+    }
+
+    /**
+     * Move a registered dock node to the most recently shown end of the entries.
+     *
+     * @param entry The entry of the dock node.
+     */
+    private void promote(Entry entry) {
+        if (entries.remove(entry.dockNode) == entry) {
+            entries.put(entry.dockNode, entry);
+        }
+    }
+
+    private void stop() {
+        if (check != null) {
+            check.cancel(false);
+            check = null;
+        }
+    }
+
+    /**
+     * The task of the timer posting the periodic check. It only holds the manager weakly, as the timer
+     * is shared by the whole application and would otherwise keep a dock pane whose window was closed
+     * without {@link DockPane#dispose()} reachable. Once the manager is collected the task cancels
+     * itself.
+     */
+    private static final class PeriodicCheck implements Runnable {
+        private final WeakReference<DockHibernationManager> manager;
+        private volatile ScheduledFuture<?> future;
+
+        private PeriodicCheck(DockHibernationManager manager) {
+            this.manager = new WeakReference<>(manager);
+        }
+
+        @Override
+        public void run() {
+            if (manager.get() == null) {
+                ScheduledFuture<?> scheduled = future;
+                if (scheduled != null) {
+                    scheduled.cancel(false);
+                }
+                return;
+            }
+            Platform.runLater(() -> {
+                DockHibernationManager current = manager.get();
+                if (current != null) {
+                    current.check(System.nanoTime());
+                }
+            });
+        }
+    }
+
+    /**
+     * A registered dock node.
+     */
+    private static final class Entry {
+        private final DockNode dockNode;
+        private DockHibernationCallback callback;
+        private long weight;
+        private long lastShownNanos;
+        /**
+         * The placeholder while the dock node is hibernated.
+         */
+        private HibernationPlaceholder placeholder;
+
+        private Entry(DockNode dockNode) {
+            this.dockNode = dockNode;
+        }
+    }
+
+    /**
+     * The placeholder showing the snapshot of hibernated contents. Layout only runs for scenes of
+     * showing windows, so laying out the placeholder is the earliest point to notice that the dock
+     * node is needed again.
+     */
+    private final class HibernationPlaceholder extends StackPane {
+        private final Entry entry;
+        private boolean restoring;
+
+        private HibernationPlaceholder(Entry entry) {
+            this.entry = entry;
+            getStyleClass().add("dock-hibernated-placeholder");
+            setMinSize(0, 0);
+        }
+
+        @Override
+        protected void layoutChildren() {
+            super.layoutChildren();
+            if (!restoring && entry.placeholder == this && entry.dockNode.isShown()) {
+                restoring = true;
+                // the scene graph must not be changed during the layout pass
+                Platform.runLater(() -> {
+                    restoring = false;
+                    if (entries.get(entry.dockNode) == entry && restore(entry)) {
+                        promote(entry);
+                    }
+                });
+            }
+        }
+    }
+}
@@ -0,0 +1,124 @@
+/**
+ * @file DockIcon.java
+ * @brief Enumeration of the icons bundled with DockFX and their shared image cache.
+ * @section License
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ **/
+
+package org.dockfx;
+
+import javafx.scene.image.Image;
+
+import java.lang.ref.WeakReference;
+import java.util.Objects;
+
+/**
+ * The icons bundled with DockFX. Every icon is decoded at most once and the decoded image is shared
+ * by all of its users. The image is held weakly so that it can be reclaimed once nothing displays it
+ * anymore, in which case it is decoded again the next time it is requested.
+ *
+ * @since DockFX 0.1
+ */
+public enum DockIcon {
+    /**
+     * The default caption graphic of a dock node.
+     */
+    DOCK_NODE("docknode.png"),
+
+    /**
+     * The graphic of the title bar close button.
+     */
+    CLOSE("close.png"),
+
+    /**
+     * The graphic of the title bar state button when the dock node can be maximized.
+     */
+    MAXIMIZE("maximize.png"),
+
+    /**
+     * The graphic of the title bar state button when the dock node can be restored.
+     */
+    RESTORE("restore.png"),
+
+    /**
+     * The graphic of the center dock indicator button.
+     */
+    CENTER("center.png"),
+
+    /**
+     * The graphic of the top dock indicator buttons.
+     */
+    TOP("top.png"),
+
+    /**
+     * The graphic of the right dock indicator buttons.
+     */
+    RIGHT("right.png"),
+
+    /**
+     * The graphic of the bottom dock indicator buttons.
+     */
+    BOTTOM("bottom.png"),
+
+    /**
+     * The graphic of the left dock indicator buttons.
+     */
+    LEFT("left.png");
+
+    /**
+     * The file name of this icon relative to the DockFX resources.
+     */
+    private final String fileName;
+    /**
+     * The decoded image of this icon if it is still in use.
+     */
+    private WeakReference<Image> image = new WeakReference<>(null);
+
+    DockIcon(String fileName) {
+        this.fileName = fileName;
+    }
+
+    /**
+     * The file name of this icon relative to the DockFX resources.
+     *
+     * @return The file name of this icon relative to the DockFX resources.
+     */
+    public String getFileName() {
+        return fileName;
+    }
+
+    /**
+     * The URL of this icon that can be used in style sheets or to load the image directly.
+     *
+     * @return The URL of this icon.
+     */
+    public String getUrl() {
+        return Objects.requireNonNull(DockIcon.class.getResource(fileName)).toExternalForm();
+    }
+
+    /**
+     * The shared image of this icon. The image is decoded when it is first requested and reused for
+     * as long as it is reachable.
+     *
+     * @return The shared image of this icon.
+     */
+    public synchronized Image getImage() {
+        Image cached = image.get();
+        if (cached == null) {
+            cached = new Image(getUrl());
+            image = new WeakReference<>(cached);
+        }
+        return cached;
+    }
+
+    /**
+     * Whether the image of this icon is currently decoded and cached.
+     *
+     * @return Whether the image of this icon is currently cached.
+     */
+    public synchronized boolean isCached() {
+        return image.get() != null;
+    }
+}
@@ -0,0 +1,794 @@
+/**
+ * @file DockJournal.java
+ * @brief Class implementing a crash-safe append-only journal of the layout of a dock pane.
+ * @section License
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ **/
+
+package org.dockfx;
+
+import javafx.beans.property.IntegerProperty;
+import javafx.beans.property.ObjectProperty;
+import javafx.beans.property.SimpleIntegerProperty;
+import javafx.beans.property.SimpleObjectProperty;
+import javafx.geometry.Orientation;
+import javafx.util.Duration;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Writes every structural change of the layout of a dock pane to an append-only journal file, so
+ * that the arrangement of the user survives a crash of the application. The changes are written by a
+ * background thread, the JavaFX application thread only queues them and never waits for the disk.
+ * Divider moves are debounced, a divider dragged back and forth in quick succession is written once.
+ * <p>
+ * Once the journal holds more entries than the compaction threshold, the current layout is written
+ * to a snapshot file next to the journal and the journal is truncated. Every entry has a sequence
+ * number and the snapshot records the last entry it includes, so a crash in the middle of a
+ * compaction never replays an entry twice, and an entry cut off by a crash is ignored.
+ * <p>
+ * On startup {@link #recover(Path)} replays the snapshot and the entries after it into a
+ * {@link DockLayout} without touching the scene graph, which is then applied to the dock pane
+ * before the journal is opened again:
+ * <pre>{@code
+ * DockLayout layout = DockJournal.recover(file);
+ * if (layout != null) {
+ *     dockPane.applyLayout(layout, id -> createDockNode(id));
+ * }
+ * DockJournal journal = DockJournal.open(dockPane, file);
+ * }</pre>
+ * Only dock nodes with an id are journaled, and a dock node docked relative to a sibling without an
+ * id is replayed as docked relative to the root.
+ *
+ * @since DockFX 0.1
+ */
+public final class DockJournal implements AutoCloseable {
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(DockJournal.class);
+
+    /**
+     * The marker of a missing value in an entry. Encoded values never contain it.
+     */
+    private static final String NONE = "~";
+
+    /**
+     * The dock pane whose layout is journaled.
+     */
+    private final DockPane dockPane;
+    /**
+     * The journal file.
+     */
+    private final Path file;
+    /**
+     * The mutations, compactions, flushes and the final stop request for the writer thread in order.
+     */
+    private final BlockingQueue<Object> queue = new LinkedBlockingQueue<>();
+    /**
+     * Queues the structural changes of the dock pane.
+     */
+    private final Consumer<DockMutation> mutationListener = this::append;
+    /**
+     * The number of entries queued since the journal was last compacted.
+     */
+    private int entriesSinceCompaction;
+    /**
+     * The time the writer waits for more divider moves of the same split pane, read by the writer.
+     */
+    private volatile long dividerDelayMillis = 500;
+    /**
+     * Whether the journal was closed.
+     */
+    private boolean closed;
+
+    private final IntegerProperty compactionThresholdProperty = new SimpleIntegerProperty(10_000) {
+        @Override
+        public String getName() {
+            return "compactionThreshold";
+        }
+    };
+
+    private final ObjectProperty<Duration> dividerDelayProperty = new SimpleObjectProperty<>(Duration.millis(500)) {
+        @Override
+        protected void invalidated() {
+            dividerDelayMillis = get() == null ? 0 : (long) get().toMillis();
+        }
+
+        @Override
+        public String getName() {
+            return "dividerDelay";
+        }
+    };
+
+    private DockJournal(DockPane dockPane, Path file) {
+        this.dockPane = dockPane;
+        this.file = file;
+    }
+
+    /**
+     * Start journaling the layout of the dock pane into the file. The journal starts with a snapshot
+     * of the current layout, which the background thread writes once it has read the sequence
+     * numbers of the existing files, so that the dock pane is best brought into the recovered layout
+     * before.
+     *
+     * @param dockPane The dock pane whose layout is journaled.
+     * @param file     The journal file. The snapshot is written to the same path with the extension
+     *                 ".snapshot" appended.
+     * @return The journal, which has to be closed when the dock pane is no longer used.
+     */
+    public static DockJournal open(DockPane dockPane, Path file) {
+        DockJournal journal = new DockJournal(dockPane, file);
+        journal.queue.add(new Compaction(dockPane.captureJournalLayout()));
+        Thread writer = new Thread(journal::write, "DockFX journal");
+        // a daemon thread never keeps the application alive, close the journal to write its tail
+        writer.setDaemon(true);
+        writer.start();
+        dockPane.addMutationListener(journal.mutationListener);
+        return journal;
+    }
+
+    /**
+     * The number of entries after which the journal is compacted into a snapshot.
+     *
+     * @defaultValue 10000
+     */
+    public IntegerProperty compactionThresholdProperty() {
+        return compactionThresholdProperty;
+    }
+
+    public int getCompactionThreshold() {
+        return compactionThresholdProperty.get();
+    }
+
+    public void setCompactionThreshold(int compactionThreshold) {
+        compactionThresholdProperty.set(compactionThreshold);
+    }
+
+    /**
+     * The time the writer waits for more moves of the dividers of a split pane before it writes the
+     * last one.
+     *
+     * @defaultValue 500 milliseconds
+     */
+    public ObjectProperty<Duration> dividerDelayProperty() {
+        return dividerDelayProperty;
+    }
+
+    public Duration getDividerDelay() {
+        return dividerDelayProperty.get();
+    }
+
+    public void setDividerDelay(Duration dividerDelay) {
+        dividerDelayProperty.set(dividerDelay);
+    }
+
+    /**
+     * The snapshot file of a journal file.
+     *
+     * @param file The journal file.
+     * @return The snapshot file.
+     */
+    public static Path getSnapshotFile(Path file) {
+        return file.resolveSibling(file.getFileName() + ".snapshot");
+    }
+
+    /**
+     * Queue a structural change of the dock pane, compacting the journal once the threshold is
+     * reached.
+     *
+     * @param mutation The structural change.
+     */
+    private void append(DockMutation mutation) {
+        queue.add(mutation);
+        if (++entriesSinceCompaction >= getCompactionThreshold()) {
+            compact();
+        }
+    }
+
+    /**
+     * Write the current layout to the snapshot file and truncate the journal. The layout is taken
+     * right away and written by the background thread after the entries queued before.
+     */
+    public void compact() {
+        if (!closed) {
+            entriesSinceCompaction = 0;
+            queue.add(new Compaction(dockPane.captureJournalLayout()));
+        }
+    }
+
+    /**
+     * Make sure the entries queued so far are on the disk.
+     *
+     * @return A future completing once the entries queued so far were written and synced, or
+     * completing exceptionally if the journal failed.
+     */
+    public CompletableFuture<Void> flush() {
+        Flush flush = new Flush(new CompletableFuture<>());
+        queue.add(flush);
+        return flush.future();
+    }
+
+    /**
+     * Stop journaling the dock pane. The entries queued so far are still written by the background
+     * thread, use {@link #flush()} before closing to wait for them.
+     */
+    @Override
+    public void close() {
+        if (!closed) {
+            closed = true;
+            dockPane.removeMutationListener(mutationListener);
+            queue.add(Stop.STOP);
+        }
+    }
+
+    /**
+     * The loop of the background thread writing the queued entries. The entries taken from the queue
+     * at once are written together and synced to the disk once.
+     */
+    private void write() {
+        Path snapshotFile = getSnapshotFile(file);
+        List<Flush> flushes = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND)) {
+            Writer writer = Channels.newWriter(channel, StandardCharsets.UTF_8);
+            long sequence = Math.max(readSnapshotSequence(snapshotFile), readLastSequence(file));
+            DockMutation pending = null;
+            boolean dirty = false;
+            while (true) {
+                Object task = pending != null ? queue.poll(dividerDelayMillis, TimeUnit.MILLISECONDS) : queue.take();
+
+                if (task instanceof DockMutation mutation && mutation.getType() == DockMutation.Type.DIVIDERS) {
+                    // only the last of quick moves of the dividers of a split pane is written
+                    if (pending != null && !Arrays.equals(pending.getPath(), mutation.getPath())) {
+                        writer.write(encode(++sequence, pending));
+                        dirty = true;
+                    }
+                    pending = mutation;
+                    continue;
+                }
+                if (pending != null) {
+                    writer.write(encode(++sequence, pending));
+                    pending = null;
+                    dirty = true;
+                }
+
+                if (task instanceof DockMutation mutation) {
+                    writer.write(encode(++sequence, mutation));
+                    dirty = true;
+                } else if (task instanceof Compaction compaction) {
+                    writer.flush();
+                    writeSnapshot(snapshotFile, sequence, compaction.layout());
+                    // a crash before the truncation leaves entries the snapshot includes and skips
+                    channel.truncate(0);
+                    dirty = false;
+                } else if (task instanceof Flush flush) {
+                    flushes.add(flush);
+                } else if (task == Stop.STOP) {
+                    writer.flush();
+                    channel.force(false);
+                    break;
+                }
+
+                if (queue.isEmpty()) {
+                    if (dirty) {
+                        writer.flush();
+                        channel.force(false);
+                        dirty = false;
+                    }
+                    for (Flush flush : flushes) {
+                        flush.future().complete(null);
+                    }
+                    flushes.clear();
+                }
+            }
+            for (Flush flush : flushes) {
+                flush.future().complete(null);
+            }
+        } catch (IOException | RuntimeException e) {
+            log.error("Failed to write the layout journal {}", file, e);
+            failFlushes(flushes, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failFlushes(flushes, e);
+        }
+    }
+
+    /**
+     * Fail the flushes waiting for the writer and the ones queued later.
+     */
+    private void failFlushes(List<Flush> flushes, Exception e) {
+        for (Object task : queue) {
+            if (task instanceof Flush flush) {
+                flushes.add(flush);
+            }
+        }
+        for (Flush flush : flushes) {
+            flush.future().completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Write the snapshot to a temporary file and move it over the snapshot file at once, so that a
+     * crash never leaves a partial snapshot.
+     */
+    private static void writeSnapshot(Path snapshotFile, long sequence, DockLayout layout) throws IOException {
+        Path temporary = snapshotFile.resolveSibling(snapshotFile.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            Writer writer = Channels.newWriter(channel, StandardCharsets.UTF_8);
+            writer.write(sequence + " S " + encode(layout) + "\n");
+            writer.flush();
+            channel.force(false);
+        }
+        Files.move(temporary, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static long readSnapshotSequence(Path snapshotFile) throws IOException {
+        if (!Files.exists(snapshotFile)) {
+            return 0;
+        }
+        List<String> lines = readEntries(snapshotFile);
+        return lines.isEmpty() ? 0 : parseSequence(lines.get(0));
+    }
+
+    private static long readLastSequence(Path file) throws IOException {
+        long sequence = 0;
+        if (Files.exists(file)) {
+            for (String line : readEntries(file)) {
+                sequence = Math.max(sequence, parseSequence(line));
+            }
+        }
+        return sequence;
+    }
+
+    private static long parseSequence(String line) {
+        int end = line.indexOf(' ');
+        try {
+            return Long.parseLong(end < 0 ? line : line.substring(0, end));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * The complete entries of a file. An entry is complete once its line ends, a line cut off by a
+     * crash is left out.
+     */
+    private static List<String> readEntries(Path file) throws IOException {
+        String text = Files.readString(file, StandardCharsets.UTF_8);
+        List<String> lines = new ArrayList<>();
+        int start = 0;
+        for (int end = text.indexOf('\n'); end >= 0; end = text.indexOf('\n', start)) {
+            if (end > start) {
+                lines.add(text.substring(start, end));
+            }
+            start = end + 1;
+        }
+        return lines;
+    }
+
+    /**
+     * Replay the snapshot and the journal entries after it into the layout they describe.
+     *
+     * @param file The journal file.
+     * @return The recovered layout or null if there is none.
+     * @throws IOException If the files cannot be read.
+     */
+    public static DockLayout recover(Path file) throws IOException {
+        Path snapshotFile = getSnapshotFile(file);
+        LayoutModel model = new LayoutModel();
+        long snapshotSequence = 0;
+        if (Files.exists(snapshotFile)) {
+            List<String> lines = readEntries(snapshotFile);
+            if (!lines.isEmpty()) {
+                String[] fields = lines.get(0).split(" ", -1);
+                snapshotSequence = Long.parseLong(fields[0]);
+                model.apply(decodeLayout(fields[2]));
+            }
+        }
+        if (Files.exists(file)) {
+            for (String line : readEntries(file)) {
+                try {
+                    if (parseSequence(line) > snapshotSequence) {
+                        model.apply(decode(line));
+                    }
+                } catch (RuntimeException e) {
+                    log.warn("Skipping the malformed layout journal entry {}", line, e);
+                }
+            }
+        }
+        return model.toLayout();
+    }
+
+    /**
+     * The line of an entry: the sequence number, a letter for the type and the fields of the type.
+     */
+    private static String encode(long sequence, DockMutation mutation) {
+        StringBuilder line = new StringBuilder().append(sequence).append(' ');
+        switch (mutation.getType()) {
+            case DOCK -> line.append("D ").append(encode(mutation.getId())).append(' ')
+                    .append(mutation.getDockPosition()).append(' ').append(encode(mutation.getSiblingId()))
+                    .append(' ').append(encode(mutation.getWeights()));
+            case UNDOCK -> line.append("U ").append(encode(mutation.getId()));
+            case FLOAT -> line.append("F ").append(encode(mutation.getId()));
+            case DIVIDERS -> {
+                int[] path = mutation.getPath();
+                line.append("W ");
+                line.append(path.length == 0 ? NONE : String.join(".",
+                        Arrays.stream(path).mapToObj(String::valueOf).toArray(String[]::new)));
+                line.append(' ').append(encode(mutation.getWeights()));
+            }
+            case LAYOUT -> line.append("L ").append(encode(mutation.getLayout()));
+        }
+        return line.append('\n').toString();
+    }
+
+    private static DockMutation decode(String line) {
+        String[] fields = line.split(" ", -1);
+        return switch (fields[1]) {
+            case "D" -> DockMutation.dock(decodeId(fields[2]), DockPosition.valueOf(fields[3]), decodeId(fields[4]),
+                    decodeWeights(fields[5]));
+            case "U" -> DockMutation.undock(decodeId(fields[2]), false);
+            case "F" -> DockMutation.undock(decodeId(fields[2]), true);
+            case "W" -> DockMutation.dividers(NONE.equals(fields[2]) ? new int[0]
+                    : Arrays.stream(fields[2].split("\\.")).mapToInt(Integer::parseInt).toArray(), decodeWeights(fields[3]));
+            case "L" -> DockMutation.layout(decodeLayout(fields[2]));
+            default -> throw new IllegalArgumentException("Unknown entry type " + fields[1]);
+        };
+    }
+
+    private static String encode(String id) {
+        return id == null ? NONE : URLEncoder.encode(id, StandardCharsets.UTF_8);
+    }
+
+    private static String decodeId(String field) {
+        return NONE.equals(field) ? null : URLDecoder.decode(field, StandardCharsets.UTF_8);
+    }
+
+    private static String encode(double[] weights) {
+        if (weights == null) {
+            return NONE;
+        }
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < weights.length; i++) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            builder.append(weights[i]);
+        }
+        return builder.toString();
+    }
+
+    private static double[] decodeWeights(String field) {
+        return NONE.equals(field) ? null : Arrays.stream(field.split(",")).mapToDouble(Double::parseDouble).toArray();
+    }
+
+    /**
+     * A layout as a single field: the encoded id of a dock node, or H or V followed by the items of
+     * the split and their weights in parentheses, e.g. {@code H(a:1.0,V(b:1.0,c:1.0):2.0)}.
+     */
+    static String encode(DockLayout layout) {
+        if (layout == null) {
+            return NONE;
+        }
+        StringBuilder builder = new StringBuilder();
+        encode(layout, builder);
+        return builder.toString();
+    }
+
+    private static void encode(DockLayout layout, StringBuilder builder) {
+        if (!layout.isSplit()) {
+            builder.append(encode(layout.getId()));
+            return;
+        }
+        builder.append(layout.getOrientation() == Orientation.HORIZONTAL ? "H(" : "V(");
+        double[] weights = layout.getWeights();
+        for (int i = 0; i < weights.length; i++) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            encode(layout.getItems().get(i), builder);
+            builder.append(':').append(weights[i]);
+        }
+        builder.append(')');
+    }
+
+    static DockLayout decodeLayout(String field) {
+        if (NONE.equals(field)) {
+            return null;
+        }
+        int[] position = {0};
+        DockLayout layout = decodeLayout(field, position);
+        if (position[0] != field.length()) {
+            throw new IllegalArgumentException("Unexpected characters after the layout " + field);
+        }
+        return layout;
+    }
+
+    private static DockLayout decodeLayout(String field, int[] position) {
+        int start = position[0];
+        if (field.startsWith("H(", start) || field.startsWith("V(", start)) {
+            Orientation orientation = field.charAt(start) == 'H' ? Orientation.HORIZONTAL : Orientation.VERTICAL;
+            position[0] += 2;
+            List<DockLayout> items = new ArrayList<>();
+            List<Double> weights = new ArrayList<>();
+            while (field.charAt(position[0]) != ')') {
+                if (!items.isEmpty()) {
+                    position[0]++;
+                }
+                items.add(decodeLayout(field, position));
+                int end = position[0] + 1;
+                while (end < field.length() && field.charAt(end) != ',' && field.charAt(end) != ')') {
+                    end++;
+                }
+                weights.add(Double.parseDouble(field.substring(position[0] + 1, end)));
+                position[0] = end;
+            }
+            position[0]++;
+            return DockLayout.split(orientation, items, weights.stream().mapToDouble(Double::doubleValue).toArray());
+        }
+        int end = start;
+        while (end < field.length() && field.charAt(end) != ':') {
+            end++;
+        }
+        position[0] = end;
+        return DockLayout.node(decodeId(field.substring(start, end)));
+    }
+
+    /**
+     * A request to write a snapshot of the layout and truncate the journal.
+     */
+    private record Compaction(DockLayout layout) {
+    }
+
+    /**
+     * A request to complete the future once the entries queued before are on the disk.
+     */
+    private record Flush(CompletableFuture<Void> future) {
+    }
+
+    /**
+     * The request to stop the writer.
+     */
+    private enum Stop {
+        STOP
+    }
+
+    /**
+     * A mutable split tree the journal entries are replayed into, which changes the same way the
+     * split layout engine changes the layout of a dock pane.
+     */
+    private static final class LayoutModel {
+        private Split root;
+
+        /**
+         * A split of the model, whose items are dock node ids or splits.
+         */
+        private static final class Split {
+            private Orientation orientation;
+            private final List<Object> items = new ArrayList<>();
+            private final List<Double> weights = new ArrayList<>();
+
+            Split(Orientation orientation) {
+                this.orientation = orientation;
+            }
+        }
+
+        void apply(DockMutation mutation) {
+            switch (mutation.getType()) {
+                case DOCK -> dock(mutation.getId(), mutation.getDockPosition(), mutation.getSiblingId(),
+                        mutation.getWeights());
+                case UNDOCK, FLOAT -> remove(mutation.getId());
+                case DIVIDERS -> setWeights(mutation.getPath(), mutation.getWeights());
+                case LAYOUT -> apply(mutation.getLayout());
+            }
+        }
+
+        void apply(DockLayout layout) {
+            root = null;
+            if (layout != null) {
+                Object item = fromLayout(layout);
+                root = item instanceof Split split ? split : single(item);
+            }
+        }
+
+        private static Object fromLayout(DockLayout layout) {
+            if (!layout.isSplit()) {
+                return layout.getId();
+            }
+            Split split = new Split(layout.getOrientation());
+            double[] weights = layout.getWeights();
+            for (int i = 0; i < weights.length; i++) {
+                split.items.add(fromLayout(layout.getItems().get(i)));
+                split.weights.add(weights[i]);
+            }
+            return split;
+        }
+
+        private static Split single(Object item) {
+            Split split = new Split(Orientation.HORIZONTAL);
+            split.items.add(item);
+            split.weights.add(1.0);
+            return split;
+        }
+
+        private void dock(String id, DockPosition dockPosition, String siblingId, double[] weights) {
+            // a node docked again leaves its previous place first
+            remove(id);
+            if (root == null) {
+                root = single(id);
+                return;
+            }
+
+            Split split = siblingId == null ? null : findParent(root, siblingId);
+            boolean relativeToRoot = split == null;
+            if (relativeToRoot) {
+                split = root;
+            }
+            Orientation orientation = dockPosition == DockPosition.LEFT || dockPosition == DockPosition.RIGHT
+                    ? Orientation.HORIZONTAL : Orientation.VERTICAL;
+            boolean reoriented = false;
+            if (split.orientation != orientation) {
+                if (split.items.size() > 1) {
+                    Split wrapper = new Split(orientation);
+                    if (relativeToRoot) {
+                        wrapper.items.add(root);
+                        wrapper.weights.add(1.0);
+                        root = wrapper;
+                    } else {
+                        int index = split.items.indexOf(siblingId);
+                        wrapper.items.add(siblingId);
+                        wrapper.weights.add(1.0);
+                        split.items.set(index, wrapper);
+                    }
+                    split = wrapper;
+                } else {
+                    reoriented = true;
+                }
+                split.orientation = orientation;
+            }
+
+            int index = 0;
+            if (dockPosition == DockPosition.LEFT || dockPosition == DockPosition.TOP) {
+                index = relativeToRoot ? 0 : split.items.indexOf(siblingId);
+            } else if (dockPosition == DockPosition.RIGHT || dockPosition == DockPosition.BOTTOM) {
+                index = relativeToRoot ? split.items.size() : split.items.indexOf(siblingId) + 1;
+            }
+            double average = split.weights.stream().mapToDouble(Double::doubleValue).average().orElse(1);
+            split.items.add(index, id);
+            split.weights.add(index, average);
+            if (weights != null && weights.length == split.weights.size()) {
+                for (int i = 0; i < weights.length; i++) {
+                    split.weights.set(i, weights[i]);
+                }
+            }
+            if (reoriented) {
+                normalize();
+            }
+        }
+
+        private void remove(String id) {
+            Split parent = root == null ? null : findParent(root, id);
+            if (parent != null) {
+                int index = parent.items.indexOf(id);
+                parent.items.remove(index);
+                parent.weights.remove(index);
+                normalize();
+            }
+        }
+
+        private void setWeights(int[] path, double[] weights) {
+            Split split = root;
+            for (int i = 0; split != null && i < path.length; i++) {
+                split = path[i] < split.items.size() && split.items.get(path[i]) instanceof Split child ? child : null;
+            }
+            if (split != null && weights != null && weights.length == split.weights.size()) {
+                for (int i = 0; i < weights.length; i++) {
+                    split.weights.set(i, weights[i]);
+                }
+            }
+        }
+
+        private static Split findParent(Split split, String id) {
+            for (Object item : split.items) {
+                if (id.equals(item)) {
+                    return split;
+                } else if (item instanceof Split child) {
+                    Split parent = findParent(child, id);
+                    if (parent != null) {
+                        return parent;
+                    }
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Normalize the model the way the split layout does, keeping the root a split.
+         */
+        private void normalize() {
+            normalize(root);
+            while (root.items.size() == 1 && root.items.get(0) instanceof Split child) {
+                root = child;
+            }
+            if (root.items.isEmpty()) {
+                root = null;
+            }
+        }
+
+        /**
+         * Drop the empty splits below the split, replace the splits with a single item by the item and
+         * merge the splits of the same orientation into their parent, like {@link DockLayout#retain}.
+         */
+        private static void normalize(Split split) {
+            for (int i = 0; i < split.items.size(); i++) {
+                if (!(split.items.get(i) instanceof Split child)) {
+                    continue;
+                }
+                normalize(child);
+                double weight = split.weights.get(i);
+                if (child.items.isEmpty()) {
+                    split.items.remove(i);
+                    split.weights.remove(i);
+                    i--;
+                } else if (child.items.size() == 1) {
+                    split.items.set(i, child.items.get(0));
+                    i--;
+                } else if (child.orientation == split.orientation) {
+                    double total = child.weights.stream().mapToDouble(w -> Math.max(0, w)).sum();
+                    split.items.remove(i);
+                    split.weights.remove(i);
+                    for (int j = 0; j < child.items.size(); j++) {
+                        split.items.add(i + j, child.items.get(j));
+                        split.weights.add(i + j, total > 0 ? weight * child.weights.get(j) / total
+                                : weight / child.items.size());
+                    }
+                    i += child.items.size() - 1;
+                }
+            }
+        }
+
+        DockLayout toLayout() {
+            if (root == null || root.items.isEmpty()) {
+                return null;
+            }
+            return toLayout(root);
+        }
+
+        private static DockLayout toLayout(Split split) {
+            List<DockLayout> items = new ArrayList<>();
+            List<Double> weights = new ArrayList<>();
+            for (int i = 0; i < split.items.size(); i++) {
+                Object item = split.items.get(i);
+                if (item instanceof Split child) {
+                    if (child.items.isEmpty()) {
+                        continue;
+                    }
+                    items.add(toLayout(child));
+                } else {
+                    items.add(DockLayout.node((String) item));
+                }
+                weights.add(split.weights.get(i));
+            }
+            return DockLayout.split(split.orientation, items, weights.stream().mapToDouble(Double::doubleValue).toArray());
+        }
+    }
+}
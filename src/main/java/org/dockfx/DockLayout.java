@@ -0,0 +1,262 @@
+/**
+ * @file DockLayout.java
+ * @brief Class describing the split tree of a dock pane by the ids of its dock nodes.
+ * @section License
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ **/
+
+package org.dockfx;
+
+import javafx.geometry.Orientation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * An immutable description of the layout of a dock pane, such as a saved perspective. A layout is
+ * either a dock node, identified by the id of the node, or a split of items with an orientation and
+ * the weights the space of the split is shared by. A layout never holds on to nodes, so it can be
+ * kept around and applied to a dock pane at any time.
+ * <p>
+ * {@link DockPane#captureLayout()} describes the current layout of a dock pane and
+ * {@link DockPane#applyLayout(DockLayout, java.util.function.Function)} changes the layout of a dock
+ * pane into the described one with as few edits as possible.
+ *
+ * @since DockFX 0.1
+ */
+public final class DockLayout {
+    /**
+     * The id of the dock node or null if this is a split.
+     */
+    private final String id;
+    /**
+     * The orientation of the split or null if this is a dock node.
+     */
+    private final Orientation orientation;
+    /**
+     * The items of the split, empty for a dock node.
+     */
+    private final List<DockLayout> items;
+    /**
+     * The weights of the items of the split, empty for a dock node.
+     */
+    private final double[] weights;
+
+    private DockLayout(String id, Orientation orientation, List<DockLayout> items, double[] weights) {
+        this.id = id;
+        this.orientation = orientation;
+        this.items = items;
+        this.weights = weights;
+    }
+
+    /**
+     * A layout showing the dock node with the id.
+     *
+     * @param id The id of the dock node.
+     * @return The layout of the dock node.
+     */
+    public static DockLayout node(String id) {
+        return new DockLayout(Objects.requireNonNull(id, "id"), null, List.of(), new double[0]);
+    }
+
+    /**
+     * A split sharing its space evenly between its items.
+     *
+     * @param orientation The orientation of the split.
+     * @param items       The items of the split.
+     * @return The layout of the split.
+     */
+    public static DockLayout split(Orientation orientation, DockLayout... items) {
+        double[] weights = new double[items.length];
+        Arrays.fill(weights, 1);
+        return split(orientation, List.of(items), weights);
+    }
+
+    /**
+     * A split sharing its space between its items in proportion to their weights.
+     *
+     * @param orientation The orientation of the split.
+     * @param items       The items of the split.
+     * @param weights     The weights of the items, for example their sizes.
+     * @return The layout of the split.
+     * @throws IllegalArgumentException If there are no items, the number of weights does not match
+     *                                  the number of items or a dock node id is used more than once.
+     */
+    public static DockLayout split(Orientation orientation, List<DockLayout> items, double[] weights) {
+        Objects.requireNonNull(orientation, "orientation");
+        if (items.isEmpty()) {
+            throw new IllegalArgumentException("A split needs at least one item");
+        }
+        if (items.size() != weights.length) {
+            throw new IllegalArgumentException("Expected " + items.size() + " weights but got " + weights.length);
+        }
+        DockLayout split = new DockLayout(null, orientation, List.copyOf(items), weights.clone());
+        Set<String> ids = new HashSet<>();
+        for (String id : split.getIds()) {
+            if (!ids.add(id)) {
+                throw new IllegalArgumentException("The dock node " + id + " is used more than once");
+            }
+        }
+        return split;
+    }
+
+    /**
+     * Whether this layout is a split rather than a dock node.
+     *
+     * @return Whether this layout is a split.
+     */
+    public boolean isSplit() {
+        return orientation != null;
+    }
+
+    /**
+     * The id of the dock node.
+     *
+     * @return The id of the dock node or null if this is a split.
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * The orientation of the split.
+     *
+     * @return The orientation of the split or null if this is a dock node.
+     */
+    public Orientation getOrientation() {
+        return orientation;
+    }
+
+    /**
+     * The items of the split.
+     *
+     * @return The unmodifiable items of the split, empty for a dock node.
+     */
+    public List<DockLayout> getItems() {
+        return items;
+    }
+
+    /**
+     * The weights of the items of the split.
+     *
+     * @return A copy of the weights of the items, empty for a dock node.
+     */
+    public double[] getWeights() {
+        return weights.clone();
+    }
+
+    /**
+     * The ids of the dock nodes of this layout in the order of the layout.
+     *
+     * @return The ids of the dock nodes.
+     */
+    public List<String> getIds() {
+        List<String> ids = new ArrayList<>();
+        addIds(ids);
+        return ids;
+    }
+
+    private void addIds(List<String> ids) {
+        if (isSplit()) {
+            for (DockLayout item : items) {
+                item.addIds(ids);
+            }
+        } else {
+            ids.add(id);
+        }
+    }
+
+    /**
+     * This layout without the dock nodes that are not in the set, normalized the way the split
+     * layout engine keeps its tree. Splits left empty are dropped, a split with a single item is
+     * replaced by the item and a split nested in a split of the same orientation is merged into it,
+     * its items sharing the weight of the merged split.
+     *
+     * @param ids The ids of the dock nodes to keep.
+     * @return The remaining layout or null if no dock node remains.
+     */
+    DockLayout retain(Set<String> ids) {
+        if (!isSplit()) {
+            return ids.contains(id) ? this : null;
+        }
+
+        List<DockLayout> retainedItems = new ArrayList<>();
+        List<Double> retainedWeights = new ArrayList<>();
+        for (int i = 0; i < items.size(); i++) {
+            DockLayout item = items.get(i).retain(ids);
+            if (item == null) {
+                continue;
+            }
+            if (item.isSplit() && item.orientation == orientation) {
+                double total = item.getTotalWeight();
+                for (int j = 0; j < item.items.size(); j++) {
+                    retainedItems.add(item.items.get(j));
+                    retainedWeights.add(total > 0 ? weights[i] * item.weights[j] / total : weights[i] / item.items.size());
+                }
+            } else {
+                retainedItems.add(item);
+                retainedWeights.add(weights[i]);
+            }
+        }
+
+        if (retainedItems.isEmpty()) {
+            return null;
+        } else if (retainedItems.size() == 1) {
+            return retainedItems.get(0);
+        } else if (retainedItems.equals(items)) {
+            return this;
+        }
+        double[] w = new double[retainedWeights.size()];
+        for (int i = 0; i < w.length; i++) {
+            w[i] = retainedWeights.get(i);
+        }
+        return new DockLayout(null, orientation, Collections.unmodifiableList(retainedItems), w);
+    }
+
+    private double getTotalWeight() {
+        double total = 0;
+        for (double weight : weights) {
+            total += Math.max(0, weight);
+        }
+        return total;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof DockLayout other)) {
+            return false;
+        }
+        return Objects.equals(id, other.id) && orientation == other.orientation && items.equals(other.items)
+                && Arrays.equals(weights, other.weights);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, orientation, items, Arrays.hashCode(weights));
+    }
+
+    @Override
+    public String toString() {
+        if (!isSplit()) {
+            return id;
+        }
+        StringBuilder builder = new StringBuilder(orientation == Orientation.HORIZONTAL ? "H[" : "V[");
+        for (int i = 0; i < items.size(); i++) {
+            if (i > 0) {
+                builder.append(", ");
+            }
+            builder.append(items.get(i)).append(' ').append(weights[i]);
+        }
+        return builder.append(']').toString();
+    }
+}
@@ -0,0 +1,116 @@
+/**
+ * @file DockLayoutChange.java
+ * @brief Class describing the coalesced changes of the layout of a dock pane during a pulse.
+ * @section License
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ **/
+
+package org.dockfx;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An immutable set of changes of the layout of a dock pane that were made during a pulse, passed to
+ * the {@link DockLayoutListener}s of the dock pane. Only the net effect is described, so a dock node
+ * docked and closed again during the same pulse is not mentioned at all and a dock node undocked
+ * and docked again elsewhere is reported as moved.
+ *
+ * @since DockFX 0.1
+ */
+public final class DockLayoutChange {
+    private final DockPane dockPane;
+    private final List<DockNode> added;
+    private final List<DockNode> removed;
+    private final List<DockNode> moved;
+    private final List<DockNode> floated;
+    private final List<int[]> changedWeights;
+
+    DockLayoutChange(DockPane dockPane, List<DockNode> added, List<DockNode> removed, List<DockNode> moved,
+                     List<DockNode> floated, List<int[]> changedWeights) {
+        this.dockPane = dockPane;
+        this.added = Collections.unmodifiableList(added);
+        this.removed = Collections.unmodifiableList(removed);
+        this.moved = Collections.unmodifiableList(moved);
+        this.floated = Collections.unmodifiableList(floated);
+        this.changedWeights = changedWeights;
+    }
+
+    /**
+     * The dock pane whose layout changed.
+     *
+     * @return The dock pane.
+     */
+    public DockPane getDockPane() {
+        return dockPane;
+    }
+
+    /**
+     * The dock nodes that are in the layout now but were not before.
+     *
+     * @return The unmodifiable added dock nodes in the order they were first changed.
+     */
+    public List<DockNode> getAdded() {
+        return added;
+    }
+
+    /**
+     * The dock nodes that were in the layout before and were removed without floating, for example
+     * because they were closed.
+     *
+     * @return The unmodifiable removed dock nodes in the order they were first changed.
+     */
+    public List<DockNode> getRemoved() {
+        return removed;
+    }
+
+    /**
+     * The dock nodes that were in the layout before and still are but were undocked and docked again
+     * in between, for example by dragging them to another position.
+     *
+     * @return The unmodifiable moved dock nodes in the order they were first changed.
+     */
+    public List<DockNode> getMoved() {
+        return moved;
+    }
+
+    /**
+     * The dock nodes that were in the layout before and were removed to float in their own window.
+     *
+     * @return The unmodifiable floated dock nodes in the order they were first changed.
+     */
+    public List<DockNode> getFloated() {
+        return floated;
+    }
+
+    /**
+     * The split panes of the split layout whose weights the user changed by moving their dividers,
+     * each given by the indices of the split pane and its ancestors in their parents from the root
+     * down as in {@link DockMutation#getPath()}. The paths are those at the time of the move, so they
+     * may be stale if dock nodes were also docked or undocked during the pulse.
+     *
+     * @return Copies of the paths of the split panes, each split pane once.
+     */
+    public List<int[]> getChangedWeights() {
+        return changedWeights.stream().map(int[]::clone).toList();
+    }
+
+    /**
+     * Whether nothing changed.
+     *
+     * @return Whether no dock node was added, removed, moved or floated and no weights changed.
+     */
+    public boolean isEmpty() {
+        return added.isEmpty() && removed.isEmpty() && moved.isEmpty() && floated.isEmpty()
+                && changedWeights.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "added " + added.size() + ", removed " + removed.size() + ", moved " + moved.size() + ", floated "
+                + floated.size() + ", weights " + changedWeights.stream().map(Arrays::toString).toList();
+    }
+}
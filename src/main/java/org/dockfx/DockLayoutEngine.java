@@ -0,0 +1,100 @@
+/**
+ * @file DockLayoutEngine.java
+ * @brief Interface of the strategies arranging the docked nodes of a dock pane.
+ * @section License
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ **/
+
+package org.dockfx;
+
+import javafx.scene.Node;
+
+import java.util.List;
+
+/**
+ * A strategy arranging the docked nodes of a dock pane. The layout engine owns the root node of the
+ * layout, which the dock pane shows as its only child, and decides what the docking positions mean
+ * for it. Dragging a dock node onto another one docks it relative to that node with the same docking
+ * positions whichever layout engine is used.
+ * <p>
+ * {@link DockSplitLayout} arranges the nodes in a tree of split containers and is the default.
+ * {@link DockGridLayout} places them into the cells of a grid, which is cheaper to change for
+ * dashboards with many panels of equal size.
+ *
+ * @since DockFX 0.1
+ */
+public interface DockLayoutEngine {
+
+    /**
+     * Called when this layout engine becomes the layout engine of the dock pane. A layout engine is
+     * attached to at most one dock pane at a time.
+     *
+     * @param dockPane The dock pane this layout engine arranges the nodes of.
+     */
+    void attach(DockPane dockPane);
+
+    /**
+     * Called when this layout engine is no longer the layout engine of its dock pane, after all of its
+     * nodes were undocked.
+     */
+    void detach();
+
+    /**
+     * The root node of the layout.
+     *
+     * @return The root node of the layout or null if there is none yet.
+     */
+    Node getRoot();
+
+    /**
+     * The docked nodes in the order of the layout.
+     *
+     * @return The docked nodes in the order of the layout.
+     */
+    List<Node> getNodes();
+
+    /**
+     * Dock the node at the docking position relative to the sibling.
+     *
+     * @param node         The node to dock.
+     * @param dockPosition The docking position of the node relative to the sibling.
+     * @param sibling      The docked node to dock relative to, or the root or null to dock relative to
+     *                     the whole layout.
+     */
+    void dock(Node node, DockPosition dockPosition, Node sibling);
+
+    /**
+     * Remove the node from the layout.
+     *
+     * @param node The node to remove.
+     * @return Whether the node was part of the layout.
+     */
+    boolean undock(Node node);
+
+    /**
+     * Move a docked node to the docking position relative to the sibling. By default the node is
+     * removed from the layout and docked again, layout engines that can relocate it in place should
+     * do so.
+     *
+     * @param node         The docked node to move.
+     * @param dockPosition The new docking position of the node relative to the sibling.
+     * @param sibling      The docked node to move the node next to, or the root or null to move it
+     *                     relative to the whole layout.
+     */
+    default void move(Node node, DockPosition dockPosition, Node sibling) {
+        Node root = getRoot();
+        undock(node);
+        dock(node, dockPosition, sibling == null || sibling == root ? getRoot() : sibling);
+    }
+
+    /**
+     * Called before the dock pane lays out the root when the space available to the layout changed.
+     *
+     * @param width  The width available to the layout.
+     * @param height The height available to the layout.
+     */
+    default void resize(double width, double height) {
+    }
+}
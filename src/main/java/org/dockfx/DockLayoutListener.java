@@ -0,0 +1,28 @@
+/**
+ * @file DockLayoutListener.java
+ * @brief Interface notified of the coalesced changes of the layout of a dock pane.
+ * @section License
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ **/
+
+package org.dockfx;
+
+/**
+ * Listens to the layout of a dock pane. Instead of being called for every docked, undocked or
+ * floated dock node and every moved divider, the listener is called once per pulse with all the
+ * changes since the previous call, so restoring a layout of many dock nodes results in a single
+ * call. The listener is called on the JavaFX application thread.
+ *
+ * @since DockFX 0.1
+ */
+@FunctionalInterface
+public interface DockLayoutListener {
+    /**
+     * Called once per pulse in which the layout of the dock pane changed.
+     *
+     * @param change The changes of the layout since the previous call.
+     */
+    void layoutChanged(DockLayoutChange change);
+}
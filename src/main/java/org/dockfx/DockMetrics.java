@@ -0,0 +1,496 @@
+/**
+ * @file DockMetrics.java
+ * @brief Class collecting performance measurements of a dock pane.
+ * @section License
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ **/
+
+package org.dockfx;
+
+/**
+ * Performance measurements of a dock pane. The measurements are recorded by the dock pane and its
+ * helpers on the JavaFX application thread and are meant to be read on that thread as well. The
+ * layout gauges describe the current layout of the dock pane.
+ *
+ * @since DockFX 0.1
+ */
+public final class DockMetrics {
+    /**
+     * The dock pane whose layout is measured by the layout gauges.
+     */
+    private final DockPane dockPane;
+    /**
+     * The time the prewarm scheduler started working on its current batch of dock nodes.
+     */
+    private long prewarmStartNanos = -1;
+    /**
+     * The time it took until no dock node that is showing was waiting to be prewarmed.
+     */
+    private long timeToFirstInteractiveNanos = -1;
+    /**
+     * The time it took until every scheduled dock node was prewarmed.
+     */
+    private long timeToAllWarmNanos = -1;
+    /**
+     * The number of dock nodes prewarmed so far.
+     */
+    private long prewarmedCount;
+    /**
+     * The number of time slices the prewarm scheduler has done work in.
+     */
+    private long prewarmPulseCount;
+    /**
+     * The time spent building and styling prewarmed contents.
+     */
+    private long prewarmNanos;
+    /**
+     * The number of dock nodes hibernated so far.
+     */
+    private long hibernateCount;
+    /**
+     * The number of dock nodes restored from hibernation so far.
+     */
+    private long restoreCount;
+    /**
+     * The time spent hibernating dock nodes including their snapshots.
+     */
+    private long hibernateNanos;
+    /**
+     * The time spent restoring dock nodes.
+     */
+    private long restoreNanos;
+    /**
+     * The depth of the layout tree when it was last measured.
+     */
+    private int layoutDepth;
+    /**
+     * The number of split panes in the layout tree when it was last measured.
+     */
+    private int layoutSplitCount;
+    /**
+     * The number of docked nodes in the layout tree when it was last measured.
+     */
+    private int layoutLeafCount;
+    /**
+     * The number of layouts applied to the dock pane so far.
+     */
+    private long layoutApplyCount;
+    /**
+     * The number of edits the last applied layout took.
+     */
+    private int lastLayoutEditCount;
+    /**
+     * The time spent applying layouts.
+     */
+    private long layoutApplyNanos;
+    /**
+     * The number of dock requests submitted to the dock pane and drained so far.
+     */
+    private long requestCount;
+    /**
+     * The number of drained dock requests that were applied rather than coalesced.
+     */
+    private long appliedRequestCount;
+    /**
+     * The number of batches the dock requests were applied in.
+     */
+    private long requestBatchCount;
+    /**
+     * The number of layout changes collected for the layout listeners.
+     */
+    private long layoutChangeCount;
+    /**
+     * The number of times the layout listeners were notified of the collected changes.
+     */
+    private long layoutNotificationCount;
+    /**
+     * The number of dock over events handled by the dock pane.
+     */
+    private long dockOverCount;
+    /**
+     * The number of dock over events that changed the dock indicators.
+     */
+    private long indicatorUpdateCount;
+    /**
+     * The time spent updating the dock indicators for dock over events.
+     */
+    private long dockOverNanos;
+    /**
+     * Whether the layout changed since it was last measured.
+     */
+    private boolean layoutChanged = true;
+
+    DockMetrics(DockPane dockPane) {
+        this.dockPane = dockPane;
+    }
+
+    /**
+     * The time from the start of the current prewarm batch until no dock node that is showing was
+     * waiting for its contents anymore, -1 if that has not happened yet.
+     *
+     * @return The time to the first interactive frame in nanoseconds.
+     */
+    public long getTimeToFirstInteractiveNanos() {
+        return timeToFirstInteractiveNanos;
+    }
+
+    /**
+     * The time from the start of the current prewarm batch until every scheduled dock node was warm,
+     * -1 if that has not happened yet.
+     *
+     * @return The time until all dock nodes are warm in nanoseconds.
+     */
+    public long getTimeToAllWarmNanos() {
+        return timeToAllWarmNanos;
+    }
+
+    /**
+     * The number of dock nodes whose contents were built by the prewarm scheduler.
+     *
+     * @return The number of prewarmed dock nodes.
+     */
+    public long getPrewarmedCount() {
+        return prewarmedCount;
+    }
+
+    /**
+     * The number of time slices in which the prewarm scheduler built contents. The slices run
+     * between pulses, see {@link DockPrewarmScheduler}.
+     *
+     * @return The number of prewarm slices.
+     */
+    public long getPrewarmPulseCount() {
+        return prewarmPulseCount;
+    }
+
+    /**
+     * The total time the prewarm scheduler spent building and styling contents.
+     *
+     * @return The total prewarm time in nanoseconds.
+     */
+    public long getPrewarmNanos() {
+        return prewarmNanos;
+    }
+
+    /**
+     * The number of times a dock node was hibernated.
+     *
+     * @return The number of hibernations.
+     */
+    public long getHibernateCount() {
+        return hibernateCount;
+    }
+
+    /**
+     * The number of times a dock node was restored from hibernation.
+     *
+     * @return The number of restorations.
+     */
+    public long getRestoreCount() {
+        return restoreCount;
+    }
+
+    /**
+     * The number of dock nodes that are currently hibernated.
+     *
+     * @return The number of hibernated dock nodes.
+     */
+    public long getHibernatedCount() {
+        return hibernateCount - restoreCount;
+    }
+
+    /**
+     * The total time spent hibernating dock nodes, including taking their snapshots.
+     *
+     * @return The total hibernation time in nanoseconds.
+     */
+    public long getHibernateNanos() {
+        return hibernateNanos;
+    }
+
+    /**
+     * The total time spent restoring dock nodes, including recreating their contents.
+     *
+     * @return The total restoration time in nanoseconds.
+     */
+    public long getRestoreNanos() {
+        return restoreNanos;
+    }
+
+    /**
+     * The depth of the layout tree, counting the root split pane as one and each docked node as one
+     * more than its split pane.
+     *
+     * @return The depth of the layout tree.
+     */
+    public int getLayoutDepth() {
+        measureLayout();
+        return layoutDepth;
+    }
+
+    /**
+     * The number of nodes in the layout tree, that is split panes and docked nodes.
+     *
+     * @return The number of nodes in the layout tree.
+     */
+    public int getLayoutNodeCount() {
+        measureLayout();
+        return layoutSplitCount + layoutLeafCount;
+    }
+
+    /**
+     * The number of split panes in the layout tree.
+     *
+     * @return The number of split panes in the layout tree.
+     */
+    public int getLayoutSplitCount() {
+        measureLayout();
+        return layoutSplitCount;
+    }
+
+    /**
+     * The number of layouts applied to the dock pane, for example perspective switches.
+     *
+     * @return The number of applied layouts.
+     */
+    public long getLayoutApplyCount() {
+        return layoutApplyCount;
+    }
+
+    /**
+     * The number of edits it took to apply the last layout, that is the items inserted into or
+     * removed from split panes, the split panes created or reoriented and the split panes whose
+     * divider positions changed. Switching between similar layouts takes few edits.
+     *
+     * @return The number of edits of the last applied layout.
+     */
+    public int getLastLayoutEditCount() {
+        return lastLayoutEditCount;
+    }
+
+    /**
+     * The total time spent applying layouts, not including the layout pass that follows.
+     *
+     * @return The total time spent applying layouts in nanoseconds.
+     */
+    public long getLayoutApplyNanos() {
+        return layoutApplyNanos;
+    }
+
+    /**
+     * The number of dock requests submitted to the dock pane from any thread that were drained on
+     * the JavaFX application thread.
+     *
+     * @return The number of drained dock requests.
+     */
+    public long getRequestCount() {
+        return requestCount;
+    }
+
+    /**
+     * The number of drained dock requests that were applied. The others were replaced by later
+     * requests for the same dock node or cancelled out.
+     *
+     * @return The number of applied dock requests.
+     */
+    public long getAppliedRequestCount() {
+        return appliedRequestCount;
+    }
+
+    /**
+     * The number of batches the dock requests were drained in, at most one per pulse.
+     *
+     * @return The number of dock request batches.
+     */
+    public long getRequestBatchCount() {
+        return requestBatchCount;
+    }
+
+    /**
+     * The number of changes of the layout collected for the layout listeners of the dock pane, each
+     * dock, undock and divider move counting once. Changes are only collected while there are
+     * layout listeners.
+     *
+     * @return The number of collected layout changes.
+     */
+    public long getLayoutChangeCount() {
+        return layoutChangeCount;
+    }
+
+    /**
+     * The number of times the layout listeners of the dock pane were notified, at most once per
+     * pulse however many changes were collected.
+     *
+     * @return The number of layout listener notifications.
+     */
+    public long getLayoutNotificationCount() {
+        return layoutNotificationCount;
+    }
+
+    /**
+     * The number of dock over events the dock pane handled while dock nodes were dragged over it.
+     *
+     * @return The number of handled dock over events.
+     */
+    public long getDockOverCount() {
+        return dockOverCount;
+    }
+
+    /**
+     * The number of dock over events that changed the dock indicators because the hovered indicator
+     * button or the dock node dragged over changed. The other events only hit-test the buttons.
+     *
+     * @return The number of dock over events that updated the dock indicators.
+     */
+    public long getIndicatorUpdateCount() {
+        return indicatorUpdateCount;
+    }
+
+    /**
+     * The time the dock pane spent hit-testing and updating its dock indicators for dock over events.
+     * Divided by the number of dock over events this is the indicator cost per event.
+     *
+     * @return The time spent on dock over events in nanoseconds.
+     */
+    public long getDockOverNanos() {
+        return dockOverNanos;
+    }
+
+    /**
+     * The number of floating host windows of the dock pane that are open.
+     *
+     * @return The number of open floating host windows.
+     */
+    public int getFloatingHostCount() {
+        return dockPane.getFloatingHosts().size();
+    }
+
+    /**
+     * The number of dock nodes docked in the floating host windows of the dock pane. Together with
+     * the number of floating host windows this tells how many stages the floating hosts save.
+     *
+     * @return The number of dock nodes in the open floating host windows.
+     */
+    public int getFloatingHostNodeCount() {
+        int count = 0;
+        for (DockPane host : dockPane.getFloatingHosts()) {
+            count += host.getLayoutEngine().getNodes().size();
+        }
+        return count;
+    }
+
+    /**
+     * Resets all measurements. The layout gauges keep describing the current layout.
+     */
+    public void reset() {
+        prewarmStartNanos = -1;
+        timeToFirstInteractiveNanos = -1;
+        timeToAllWarmNanos = -1;
+        prewarmedCount = 0;
+        prewarmPulseCount = 0;
+        prewarmNanos = 0;
+        hibernateCount = 0;
+        restoreCount = 0;
+        hibernateNanos = 0;
+        restoreNanos = 0;
+        layoutApplyCount = 0;
+        lastLayoutEditCount = 0;
+        layoutApplyNanos = 0;
+        requestCount = 0;
+        appliedRequestCount = 0;
+        requestBatchCount = 0;
+        layoutChangeCount = 0;
+        layoutNotificationCount = 0;
+        dockOverCount = 0;
+        indicatorUpdateCount = 0;
+        dockOverNanos = 0;
+    }
+
+    /**
+     * Measure the layout if it changed since it was last measured. The layout is measured when a
+     * layout gauge is read rather than after every change, as it takes a walk of the whole layout.
+     */
+    private void measureLayout() {
+        if (layoutChanged) {
+            layoutChanged = false;
+            dockPane.measureLayout();
+        }
+    }
+
+    void layoutChanged() {
+        layoutChanged = true;
+    }
+
+    void layoutMeasured(int depth, int splitCount, int leafCount) {
+        layoutDepth = depth;
+        layoutSplitCount = splitCount;
+        layoutLeafCount = leafCount;
+    }
+
+    void layoutApplied(int editCount, long elapsedNanos) {
+        layoutApplyCount++;
+        lastLayoutEditCount = editCount;
+        layoutApplyNanos += elapsedNanos;
+    }
+
+    void requestsApplied(int drained, int applied) {
+        requestBatchCount++;
+        requestCount += drained;
+        appliedRequestCount += applied;
+    }
+
+    void layoutChangeCollected() {
+        layoutChangeCount++;
+    }
+
+    void layoutListenersNotified() {
+        layoutNotificationCount++;
+    }
+
+    void dockOver(boolean indicatorsUpdated, long elapsedNanos) {
+        dockOverCount++;
+        if (indicatorsUpdated) {
+            indicatorUpdateCount++;
+        }
+        dockOverNanos += elapsedNanos;
+    }
+
+    void hibernated(long elapsedNanos) {
+        hibernateCount++;
+        hibernateNanos += elapsedNanos;
+    }
+
+    void restored(long elapsedNanos) {
+        restoreCount++;
+        restoreNanos += elapsedNanos;
+    }
+
+    void prewarmStarted(long now) {
+        if (prewarmStartNanos < 0 || timeToAllWarmNanos >= 0) {
+            prewarmStartNanos = now;
+            timeToFirstInteractiveNanos = -1;
+            timeToAllWarmNanos = -1;
+        }
+    }
+
+    void prewarmPulse(int warmed, long elapsedNanos) {
+        prewarmPulseCount++;
+        prewarmedCount += warmed;
+        prewarmNanos += elapsedNanos;
+    }
+
+    void prewarmInteractive(long now) {
+        if (timeToFirstInteractiveNanos < 0 && prewarmStartNanos >= 0) {
+            timeToFirstInteractiveNanos = now - prewarmStartNanos;
+        }
+    }
+
+    void prewarmFinished(long now) {
+        prewarmInteractive(now);
+        if (prewarmStartNanos >= 0) {
+            timeToAllWarmNanos = now - prewarmStartNanos;
+        }
+    }
+}
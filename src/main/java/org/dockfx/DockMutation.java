@@ -0,0 +1,185 @@
+/**
+ * @file DockMutation.java
+ * @brief Class describing a structural change of the layout of a dock pane.
+ * @section License
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ **/
+
+package org.dockfx;
+
+import java.util.Arrays;
+
+/**
+ * An immutable description of a structural change of the layout of a dock pane, such as a dock
+ * node being docked or undocked or the user moving a divider. Dock nodes are referred to by their
+ * ids and split panes by their path from the root of the layout, so a mutation never holds on to
+ * nodes and can be written to a {@link DockJournal} and replayed later.
+ *
+ * @since DockFX 0.1
+ */
+public final class DockMutation {
+
+    /**
+     * The kinds of structural changes.
+     */
+    public enum Type {
+        /**
+         * A dock node was docked relative to a sibling or the root of the layout, or moved there if it
+         * was docked already.
+         */
+        DOCK,
+        /**
+         * A dock node was removed from the layout.
+         */
+        UNDOCK,
+        /**
+         * A dock node was removed from the layout to float in its own window.
+         */
+        FLOAT,
+        /**
+         * The user moved a divider, which changed the weights of the items of a split pane.
+         */
+        DIVIDERS,
+        /**
+         * A whole layout was applied.
+         */
+        LAYOUT
+    }
+
+    private final Type type;
+    private final String id;
+    private final DockPosition dockPosition;
+    private final String siblingId;
+    private final int[] path;
+    private final double[] weights;
+    private final DockLayout layout;
+
+    private DockMutation(Type type, String id, DockPosition dockPosition, String siblingId, int[] path,
+                         double[] weights, DockLayout layout) {
+        this.type = type;
+        this.id = id;
+        this.dockPosition = dockPosition;
+        this.siblingId = siblingId;
+        this.path = path;
+        this.weights = weights;
+        this.layout = layout;
+    }
+
+    /**
+     * A dock node docked relative to a sibling.
+     *
+     * @param id           The id of the docked node.
+     * @param dockPosition The docking position relative to the sibling.
+     * @param siblingId    The id of the sibling or null if the node was docked relative to the root.
+     * @param weights      The weights of the items of the split pane the node was docked into.
+     * @return The mutation.
+     */
+    static DockMutation dock(String id, DockPosition dockPosition, String siblingId, double[] weights) {
+        return new DockMutation(Type.DOCK, id, dockPosition, siblingId, null, weights, null);
+    }
+
+    /**
+     * A dock node removed from the layout.
+     *
+     * @param id       The id of the removed node.
+     * @param floating Whether the node was removed to float.
+     * @return The mutation.
+     */
+    static DockMutation undock(String id, boolean floating) {
+        return new DockMutation(floating ? Type.FLOAT : Type.UNDOCK, id, null, null, null, null, null);
+    }
+
+    /**
+     * New weights of the items of a split pane.
+     *
+     * @param path    The indices of the split pane and its ancestors in their parents, from the root
+     *                down, empty for the root.
+     * @param weights The weights of the items of the split pane.
+     * @return The mutation.
+     */
+    static DockMutation dividers(int[] path, double[] weights) {
+        return new DockMutation(Type.DIVIDERS, null, null, null, path, weights, null);
+    }
+
+    /**
+     * An applied layout.
+     *
+     * @param layout The layout or null if the layout is empty.
+     * @return The mutation.
+     */
+    static DockMutation layout(DockLayout layout) {
+        return new DockMutation(Type.LAYOUT, null, null, null, null, null, layout);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * The id of the docked, undocked or floated dock node.
+     *
+     * @return The id of the dock node or null for other mutations.
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * The docking position of a docked node relative to its sibling.
+     *
+     * @return The docking position or null for other mutations.
+     */
+    public DockPosition getDockPosition() {
+        return dockPosition;
+    }
+
+    /**
+     * The id of the sibling a node was docked relative to.
+     *
+     * @return The id of the sibling or null if the node was docked relative to the root or for other
+     * mutations.
+     */
+    public String getSiblingId() {
+        return siblingId;
+    }
+
+    /**
+     * The path of the split pane whose weights changed, the indices of the split pane and its
+     * ancestors in their parents from the root down.
+     *
+     * @return A copy of the path, empty for the root, or null for other mutations.
+     */
+    public int[] getPath() {
+        return path == null ? null : path.clone();
+    }
+
+    /**
+     * The weights of the items of the split pane whose dividers moved or that a node was docked into.
+     *
+     * @return A copy of the weights or null if they are not known.
+     */
+    public double[] getWeights() {
+        return weights == null ? null : weights.clone();
+    }
+
+    /**
+     * The applied layout.
+     *
+     * @return The applied layout or null if it is empty or for other mutations.
+     */
+    public DockLayout getLayout() {
+        return layout;
+    }
+
+    @Override
+    public String toString() {
+        return switch (type) {
+            case DOCK -> "DOCK " + id + " " + dockPosition + " " + siblingId + " " + Arrays.toString(weights);
+            case UNDOCK, FLOAT -> type + " " + id;
+            case DIVIDERS -> "DIVIDERS " + Arrays.toString(path) + " " + Arrays.toString(weights);
+            case LAYOUT -> "LAYOUT " + layout;
+        };
+    }
+}
@@ -21,10 +21,9 @@ import javafx.scene.Cursor;
 import javafx.scene.Node;
 import javafx.scene.Scene;
 import javafx.scene.control.Label;
-import javafx.scene.image.Image;
-import javafx.scene.image.ImageView;
 import javafx.scene.input.MouseEvent;
 import javafx.scene.layout.BorderPane;
+import javafx.scene.layout.Pane;
 import javafx.scene.layout.Priority;
 import javafx.scene.layout.StackPane;
 import javafx.scene.layout.VBox;
@@ -33,7 +32,13 @@ import javafx.stage.Stage;
 import javafx.stage.StageStyle;
 import javafx.stage.Window;
 
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
+import java.util.ResourceBundle;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 
 /**
  * Base class for a dock node that provides the layout of the content along with a title bar and a
@@ -134,7 +139,11 @@ public class DockNode extends VBox implements EventHandler<MouseEvent> {
             return "maximized";
         }
     };
-    private final ObjectProperty<Node> graphicProperty = new SimpleObjectProperty<>(new ImageView(new Image(Objects.requireNonNull(getClass().getResource("docknode.png")).toExternalForm()))) {
+    /**
+     * The caption graphic of this node. When no graphic is set the title bar shows the shared
+     * {@link DockIcon#DOCK_NODE} icon, so the default graphic is only created once it is displayed.
+     */
+    private final ObjectProperty<Node> graphicProperty = new SimpleObjectProperty<>() {
         @Override
         public String getName() {
             return "graphic";
@@ -221,6 +230,11 @@ public class DockNode extends VBox implements EventHandler<MouseEvent> {
      * The position of the dock node relative to the dock pane.
      */
     private DockPosition dockPosition;
+    /**
+     * The container showing the title bar and the contents of this dock node. This is the dock node
+     * itself unless it is zoomed, then it is the zoom frame of its dock pane.
+     */
+    private Pane frame = this;
 
     /**
      * Whether the node is currently floating.
@@ -237,8 +251,10 @@ public class DockNode extends VBox implements EventHandler<MouseEvent> {
             Point2D floatScreen = this.localToScreen(0, 0);
 
             // setup window stage
-            getDockTitleBar().setVisible(this.isCustomTitleBar());
-            getDockTitleBar().setManaged(this.isCustomTitleBar());
+            if (getDockTitleBar() != null) {
+                getDockTitleBar().setVisible(this.isCustomTitleBar());
+                getDockTitleBar().setManaged(this.isCustomTitleBar());
+            }
 
             // apply the floating property so we can get its padding size
             // while it is floating to offset it by the drop shadow
@@ -260,10 +276,11 @@ public class DockNode extends VBox implements EventHandler<MouseEvent> {
             // offset the new stage to cover exactly the area the dock was local to the scene
             // this is useful for when the user presses the + sign and we have no information
             // on where the mouse was clicked
+            // the screen position is not known when the node was never laid out inside its window
             Point2D stagePosition;
-            if (this.isDecorated()) {
+            if (this.isDecorated() || floatScreen == null) {
                 Window owner = stage.getOwner();
-                stagePosition = floatScene.add(new Point2D(owner.getX(), owner.getY()));
+                stagePosition = owner == null ? floatScene : floatScene.add(new Point2D(owner.getX(), owner.getY()));
             } else {
                 stagePosition = floatScreen;
             }
@@ -281,10 +298,13 @@ public class DockNode extends VBox implements EventHandler<MouseEvent> {
 
             // apply the border pane css so that we can get the insets and position the stage properly
             dockPane.initializeDefaultUserAgentStylesheet();
+            // the node may be disposed before this runs so do not read our fields from it
+            String defaultUserAgentStylesheet = dockPane.getDefaultUserAgentStylesheet();
+            BorderPane floatingBorderPane = borderPane;
             Platform.runLater(() -> {
-                if (scene != null && !scene.getStylesheets().contains(dockPane.getDefaultUserAgentStylesheet()))
-                    scene.getStylesheets().add(dockPane.getDefaultUserAgentStylesheet());
-                borderPane.applyCss();
+                if (!scene.getStylesheets().contains(defaultUserAgentStylesheet))
+                    scene.getStylesheets().add(defaultUserAgentStylesheet);
+                floatingBorderPane.applyCss();
             });
             Insets insetsDelta = borderPane.getInsets();
 
@@ -358,12 +378,12 @@ public class DockNode extends VBox implements EventHandler<MouseEvent> {
     public void setDockTitleBar(DockTitleBar dockTitleBar) {
         if (dockTitleBar != null) {
             if (getDockTitleBar() != null) {
-                this.getChildren().set(this.getChildren().indexOf(getDockTitleBar()), dockTitleBar);
+                frame.getChildren().set(frame.getChildren().indexOf(getDockTitleBar()), dockTitleBar);
             } else {
-                this.getChildren().add(0, dockTitleBar);
+                frame.getChildren().add(0, dockTitleBar);
             }
         } else {
-            this.getChildren().remove(getDockTitleBar());
+            frame.getChildren().remove(getDockTitleBar());
         }
 
         this.dockTitleBar = dockTitleBar;
@@ -404,16 +424,61 @@ public class DockNode extends VBox implements EventHandler<MouseEvent> {
      * @param contents The new contents of this dock node.
      */
     public void setContents(Node contents) {
-        if (getChildren() != null && getChildren().indexOf(this.contents) > 0)
-            getChildren().set(getChildren().indexOf(this.contents), contents);
+        int index = this.contents != null ? frame.getChildren().indexOf(this.contents) : -1;
+        if (index >= 0) {
+            frame.getChildren().set(index, contents);
+            VBox.setVgrow(contents, Priority.ALWAYS);
+        }
         this.contents = contents;
         initMe();
     }
 
+    /**
+     * Loads the contents of this dock node from an FXML document on a background thread. A
+     * placeholder is used as the contents until the document is loaded, so the dock node can be
+     * docked and shown right away. The loaded contents replace the placeholder on the JavaFX
+     * application thread unless the contents were changed in the meantime.
+     * <p>
+     * The document is built on the background thread, so it must not create objects that may only be
+     * created on the JavaFX application thread, such as a {@code WebView} or a window. Such a document
+     * fails to load and leaves an error message in the placeholder; load it with
+     * {@link DockContentLoader#load(URL, ResourceBundle)} and {@link #setContents(Node)} instead.
+     *
+     * @param location  The location of the FXML document.
+     * @param resources The resource bundle used to resolve the document's resource keys, can be null.
+     * @return A future completed with the loaded contents on the JavaFX application thread.
+     */
+    public CompletableFuture<Node> setContentsAsync(URL location, ResourceBundle resources) {
+        StackPane placeholder = new StackPane();
+        placeholder.getStyleClass().add("dock-content-placeholder");
+        setContents(placeholder);
+
+        CompletableFuture<Node> loaded = new CompletableFuture<>();
+        DockContentLoader.loadAsync(location, resources).whenComplete((node, error) -> Platform.runLater(() -> {
+            if (error != null) {
+                log.error("Could not load FXML file {}", location, error);
+                placeholder.getChildren().add(new Label("Could not load FXML file"));
+                loaded.completeExceptionally(error);
+                return;
+            }
+            if (getContents() == placeholder) {
+                setContents(node);
+            }
+            loaded.complete(node);
+        }));
+        return loaded;
+    }
+
     /**
      * Object property maintaining bidirectional state of the caption graphic for this node with the
      * dock title bar or stage.
      * <p>
+     * The property only holds a graphic that was set. It is null by default, in which case the title
+     * bar shows an image view of the shared {@link DockIcon#DOCK_NODE} icon in its place once the
+     * title bar is first added to a scene. Earlier versions stored a new image view of that icon in
+     * this property for every dock node, so callers that expected a default graphic from
+     * {@link #getGraphic()} should fall back to {@code DockIcon.DOCK_NODE.getImage()}.
+     * <p>
      * {@code @defaultValue} null
      */
     public final ObjectProperty<Node> graphicProperty() {
@@ -464,7 +529,7 @@ public class DockNode extends VBox implements EventHandler<MouseEvent> {
     }
 
     public final void setUseCustomTitleBar(boolean useCustomTitleBar) {
-        if (this.isFloating()) {
+        if (this.isFloating() && getDockTitleBar() != null) {
             getDockTitleBar().setVisible(useCustomTitleBar);
             getDockTitleBar().setManaged(useCustomTitleBar);
         }
@@ -633,6 +698,38 @@ public class DockNode extends VBox implements EventHandler<MouseEvent> {
         }
     }
 
+    /**
+     * Prepare this node to be placed into the layout of the dock pane by the dock pane itself. The
+     * node leaves its stage or the dock pane it is docked in and is initialized, but unlike
+     * {@link #setDockPane(DockPane)} it is not docked.
+     *
+     * @param dockPane The dock pane that places this node into its layout.
+     */
+    void attach(DockPane dockPane) {
+        if (isFloating()) {
+            setFloating(false);
+        }
+        if (isDocked() && this.dockPane != null && this.dockPane != dockPane) {
+            undock();
+        }
+        this.dockPane = dockPane;
+        if (dockPosition == null) {
+            dockPosition = DockPosition.RIGHT;
+        }
+        if (!initializedProperty.get() && contents != null) {
+            initializedProperty.set(true);
+            initializeLayout(!"Dock".equals(titleProperty.get()));
+        }
+        this.dockedProperty.set(true);
+    }
+
+    /**
+     * Mark this node as undocked after its dock pane removed it from the layout itself.
+     */
+    void undocked() {
+        this.dockedProperty.set(false);
+    }
+
     /**
      * Detach this node from its previous dock pane if it was previously docked.
      */
@@ -643,6 +740,34 @@ public class DockNode extends VBox implements EventHandler<MouseEvent> {
         this.dockedProperty.set(false);
     }
 
+    /**
+     * Whether this dock node is zoomed, that is its title bar and contents are shown over the whole
+     * layout of its dock pane.
+     *
+     * @return Whether this dock node is zoomed.
+     * @see DockPane#zoomedNodeProperty()
+     */
+    public final boolean isZoomed() {
+        return frame != this;
+    }
+
+    /**
+     * Move the title bar and the contents of this dock node into another container. Only they are
+     * reparented, the dock node itself keeps its place in the layout.
+     *
+     * @param frame The container to show the title bar and the contents in, this dock node to show
+     *              them in the dock node again.
+     */
+    void setFrame(Pane frame) {
+        if (frame == this.frame) {
+            return;
+        }
+        List<Node> children = new ArrayList<>(this.frame.getChildren());
+        this.frame.getChildren().clear();
+        frame.getChildren().setAll(children);
+        this.frame = frame;
+    }
+
     /**
      * Close this dock node by setting it to not floating and making sure it is detached from any dock
      * pane.
@@ -655,6 +780,62 @@ public class DockNode extends VBox implements EventHandler<MouseEvent> {
         }
     }
 
+    /**
+     * Close this dock node and release everything it holds on to, including its title bar bindings,
+     * its floating stage and its dock pane, so that it can be garbage collected. A disposed dock node
+     * must not be used again.
+     */
+    public void dispose() {
+        close();
+
+        if (stage != null) {
+            stage.titleProperty().unbind();
+            stage.removeEventFilter(MouseEvent.MOUSE_PRESSED, this);
+            stage.removeEventFilter(MouseEvent.MOUSE_MOVED, this);
+            stage.removeEventFilter(MouseEvent.MOUSE_DRAGGED, this);
+            // JavaFX may keep a closed stage reachable so do not let it hold on to our scene
+            stage.setScene(null);
+            stage = null;
+        }
+
+        if (borderPane != null) {
+            if (borderPane.getCenter() == this) {
+                borderPane.setCenter(null);
+            }
+            borderPane = null;
+        }
+
+        if (getDockTitleBar() != null) {
+            getDockTitleBar().dispose();
+        }
+
+        if (dockPane != null) {
+            dockPane.release(this);
+        }
+        dockPane = null;
+    }
+
+    /**
+     * Whether this dock node is currently showing, that is visible and either floating in a showing
+     * stage or docked in a dock pane of a showing window that is not iconified. A docked node counts
+     * as showing before the skin of its split pane has added it to the scene.
+     *
+     * @return Whether this dock node is currently showing.
+     */
+    boolean isShown() {
+        if (!isVisible()) {
+            return false;
+        }
+        Window window;
+        if (isFloating()) {
+            window = stage;
+        } else {
+            Scene scene = isDocked() && dockPane != null ? dockPane.getScene() : getScene();
+            window = scene != null ? scene.getWindow() : null;
+        }
+        return window != null && window.isShowing() && !(window instanceof Stage && ((Stage) window).isIconified());
+    }
+
     /**
      * Gets whether the mouse is currently in this dock node's resize zone.
      *
@@ -776,29 +957,211 @@ public class DockNode extends VBox implements EventHandler<MouseEvent> {
             log.warn("dockPane is null, can not draw without dockPane");
             return;
         }
-        if (getDockTitleBar() == null) {
-            log.warn("dockTitleBar is null, this can not be moved title:{}", titleProperty);
-        }
         this.titleProperty.setValue(title);
         this.graphicProperty.setValue(graphic);
         this.contents = contents;
 
-        if (!"Dock".equals(title)) {
-            dockTitleBar = new DockTitleBar(this);
-        } else {
+        boolean titleBar = !"Dock".equals(title);
+        if (!titleBar) {
             log.warn("title is default value, not creating new title bar. this is the main central window,{}", contents);
         }
-        if (getDockTitleBar() != null)
-            getChildren().addAll(getDockTitleBar(), contents);
-        else
-            getChildren().add(contents);
-        VBox.setVgrow(contents, Priority.ALWAYS);
+        initializeLayout(titleBar);
 
-        this.getStyleClass().add("dock-node");
         dock(dockPane, dockPosition);
         dockPane.initializeDefaultUserAgentStylesheet();
     }
 
+    /**
+     * Initializes this dock node from a complete specification and docks it into the dock pane. All
+     * properties are applied before the layout is built so that the node is laid out and docked
+     * exactly once. Unlike the setters this does not add the default style sheet, which is left to
+     * the caller so that it can be done once for many dock nodes.
+     *
+     * @param spec     The specification of this dock node.
+     * @param dockPane The dock pane to dock this node into.
+     */
+    void initialize(Spec spec, DockPane dockPane) {
+        this.contents = spec.contents();
+        this.titleProperty.setValue(spec.title());
+        this.graphicProperty.setValue(spec.graphic());
+        this.dockPosition = spec.dockPosition();
+        this.dockPane = dockPane;
+        this.closableProperty.set(spec.closable());
+        this.floatableProperty.set(spec.floatable());
+        this.setPrefSize(spec.prefWidth(), spec.prefHeight());
+
+        this.initializedProperty.set(true);
+        this.dockedProperty.set(true);
+
+        if (spec.titleBar() && spec.titleBarFactory() != null) {
+            dockTitleBar = spec.titleBarFactory().apply(this);
+        }
+        initializeLayout(spec.titleBar());
+        dockPane.dock(this, dockPosition, spec.sibling() != null ? spec.sibling() : dockPane.getRoot());
+    }
+
+    /**
+     * Adds the title bar and the contents to the layout of this dock node.
+     *
+     * @param titleBar Whether a default title bar is created when none was set.
+     */
+    private void initializeLayout(boolean titleBar) {
+        if (titleBar && getDockTitleBar() == null) {
+            dockTitleBar = new DockTitleBar(this);
+        }
+        if (getDockTitleBar() != null && getDockTitleBar().getParent() != this)
+            getChildren().add(0, getDockTitleBar());
+        getChildren().add(contents);
+        VBox.setVgrow(contents, Priority.ALWAYS);
+
+        this.getStyleClass().add("dock-node");
+    }
+
+    /**
+     * Creates a builder that collects every property of a dock node up front. Unlike configuring a
+     * dock node through its setters the order of the calls does not matter and the node is
+     * initialized and docked only once. See {@link Builder} for how its defaults differ from the
+     * setters.
+     *
+     * @return A new dock node builder.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * The specification of a dock node, docked into a dock pane through
+     * {@link DockPane#dockAll(List)}. The record itself is immutable but it holds the live contents and
+     * graphic nodes, which become children of the dock node created from it. A specification is
+     * therefore single-use: docking it a second time moves the contents and the graphic out of the
+     * first dock node into the new one.
+     *
+     * @param contents     The contents of the dock node.
+     * @param title        The caption title of the dock node.
+     * @param graphic      The caption graphic of the dock node, null for the default graphic.
+     * @param dockPosition The docking position relative to the sibling.
+     * @param sibling      The sibling to dock relative to, null for the root of the dock pane.
+     * @param titleBar     Whether the dock node has a title bar.
+     * @param titleBarFactory The factory of the title bar, null for the default title bar.
+     * @param closable     Whether the dock node is closable.
+     * @param floatable    Whether the dock node is floatable.
+     * @param prefWidth    The preferred width of the dock node.
+     * @param prefHeight   The preferred height of the dock node.
+     * @since DockFX 0.1
+     */
+    public record Spec(Node contents, String title, Node graphic, DockPosition dockPosition, Node sibling,
+                       boolean titleBar, Function<DockNode, ? extends DockTitleBar> titleBarFactory,
+                       boolean closable, boolean floatable, double prefWidth, double prefHeight) {
+        public Spec {
+            Objects.requireNonNull(contents, "contents");
+            Objects.requireNonNull(title, "title");
+            Objects.requireNonNull(dockPosition, "dockPosition");
+        }
+    }
+
+    /**
+     * Builder collecting the properties of a dock node into a {@link Spec}. The title defaults to
+     * "Dock" and, unlike a dock node configured through its setters, which only creates a title bar
+     * for a title other than "Dock", the dock node has a title bar unless {@link #titleBar(boolean)}
+     * turns it off. Dock nodes are closable and floatable by default.
+     *
+     * @since DockFX 0.1
+     */
+    public static final class Builder {
+        private Node contents;
+        private String title = "Dock";
+        private Node graphic;
+        private DockPosition dockPosition;
+        private Node sibling;
+        private boolean titleBar = true;
+        private Function<DockNode, ? extends DockTitleBar> titleBarFactory;
+        private boolean closable = true;
+        private boolean floatable = true;
+        private double prefWidth = USE_COMPUTED_SIZE;
+        private double prefHeight = USE_COMPUTED_SIZE;
+
+        private Builder() {
+        }
+
+        public Builder contents(Node contents) {
+            this.contents = contents;
+            return this;
+        }
+
+        public Builder title(String title) {
+            this.title = title;
+            return this;
+        }
+
+        public Builder graphic(Node graphic) {
+            this.graphic = graphic;
+            return this;
+        }
+
+        public Builder dockPosition(DockPosition dockPosition) {
+            this.dockPosition = dockPosition;
+            return this;
+        }
+
+        public Builder sibling(Node sibling) {
+            this.sibling = sibling;
+            return this;
+        }
+
+        public Builder titleBar(boolean titleBar) {
+            this.titleBar = titleBar;
+            return this;
+        }
+
+        /**
+         * Sets the factory creating the title bar of the dock node, for example
+         * {@code DockCanvasTitleBar::new} for layouts with many dock nodes.
+         *
+         * @param titleBarFactory The factory of the title bar, null for the default title bar.
+         * @return This builder.
+         */
+        public Builder titleBarFactory(Function<DockNode, ? extends DockTitleBar> titleBarFactory) {
+            this.titleBarFactory = titleBarFactory;
+            return this;
+        }
+
+        public Builder closable(boolean closable) {
+            this.closable = closable;
+            return this;
+        }
+
+        public Builder floatable(boolean floatable) {
+            this.floatable = floatable;
+            return this;
+        }
+
+        public Builder prefSize(double prefWidth, double prefHeight) {
+            this.prefWidth = prefWidth;
+            this.prefHeight = prefHeight;
+            return this;
+        }
+
+        /**
+         * The immutable specification of the collected properties.
+         *
+         * @return The specification of the collected properties.
+         */
+        public Spec spec() {
+            return new Spec(contents, title, graphic, dockPosition, sibling, titleBar, titleBarFactory,
+                    closable, floatable, prefWidth, prefHeight);
+        }
+
+        /**
+         * Creates the dock node and docks it into the dock pane.
+         *
+         * @param dockPane The dock pane to dock the new node into.
+         * @return The new dock node.
+         */
+        public DockNode dock(DockPane dockPane) {
+            return dockPane.dockAll(List.of(spec())).get(0);
+        }
+    }
+
     /**
      * Loads Node from fxml file located at FXMLPath and returns it.
      *
@@ -810,7 +1173,7 @@ public class DockNode extends VBox implements EventHandler<MouseEvent> {
         try {
             loader.load(DockNode.class.getResourceAsStream(FXMLPath));
         } catch (Exception e) {
-            e.printStackTrace();
+            log.error("Could not load FXML file {}", FXMLPath, e);
             loader.setRoot(new StackPane(new Label("Could not load FXML file")));
         }
         initMe();
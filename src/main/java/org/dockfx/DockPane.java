@@ -9,57 +9,86 @@
 
 package org.dockfx;
 
+import javafx.animation.Animation;
 import javafx.animation.KeyFrame;
 import javafx.animation.KeyValue;
 import javafx.animation.Timeline;
 import javafx.application.Platform;
+import javafx.beans.property.BooleanProperty;
+import javafx.beans.property.ObjectProperty;
+import javafx.beans.property.SimpleBooleanProperty;
+import javafx.beans.property.SimpleObjectProperty;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.collections.ObservableMap;
 import javafx.css.PseudoClass;
 import javafx.event.EventHandler;
+import javafx.event.EventTarget;
+import javafx.geometry.Bounds;
 import javafx.geometry.Orientation;
 import javafx.geometry.Point2D;
 import javafx.geometry.Pos;
 import javafx.scene.Node;
-import javafx.scene.Parent;
+import javafx.scene.Scene;
 import javafx.scene.control.Button;
-import javafx.scene.control.SplitPane;
 import javafx.scene.layout.GridPane;
 import javafx.scene.layout.StackPane;
+import javafx.scene.layout.VBox;
 import javafx.scene.shape.Rectangle;
 import javafx.stage.Popup;
+import javafx.stage.Stage;
+import javafx.stage.Window;
 import javafx.util.Duration;
 
+import java.lang.ref.WeakReference;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.Stack;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
  * Base class for a dock pane that provides the layout of the dock nodes. Stacking the dock nodes to
- * the center in a TabPane will be added in a future release. For now the DockPane uses the relative
- * sizes of the dock nodes and lays them out in a tree of SplitPanes.
+ * the center in a TabPane will be added in a future release. The layout of the dock nodes is left to
+ * a layout engine, by default one that uses the relative sizes of the dock nodes and lays them out in
+ * a tree of split containers, SplitPanes by default.
  *
  * @since 0.0.1
  */
 public class DockPane extends StackPane implements EventHandler<DockEvent> {
     private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(DockPane.class);
     /**
-     * Package-private internal list of all DockPanes for event mouse picking.
+     * The pseudo class of the hovered dock indicator button.
      */
-    static List<DockPane> dockPanes = new ArrayList<>();
-
+    private static final PseudoClass FOCUSED_PSEUDO_CLASS = PseudoClass.getPseudoClass("focused");
     /**
-     * The current root node of this dock pane's layout.
+     * Internal list of all DockPanes for event mouse picking, in the order they were created so that
+     * overlapping stages are always picked in the same order. The dock panes are held weakly so that
+     * a dock pane which was never disposed does not outlive its scene.
      */
-    private Node root;
-
+    private static final List<WeakReference<DockPane>> dockPanes = new ArrayList<>();
     /**
      * Whether a DOCK_ENTER event has been received by this dock pane since the last DOCK_EXIT event
      * was received.
      */
     private boolean receivedEnter = false;
+    /**
+     * Whether the target of the dock event that is dispatched is in a dock pane nested in this one,
+     * which handles the event instead of this dock pane.
+     */
+    private boolean nestedDockEvent;
 
     /**
      * The current node in this dock pane that we may be dragging over.
@@ -74,6 +103,24 @@ public class DockPane extends StackPane implements EventHandler<DockEvent> {
      * The docking position of the current dock indicator button if any is selected.
      */
     private DockPosition dockPositionDrag;
+    /**
+     * The dock node the local dock indicator buttons are shown over, null if they are hidden.
+     */
+    private Node dockIndicatorTarget;
+    /**
+     * The dock indicator button that is hovered and shown focused.
+     */
+    private DockPosButton focusedDockPosButton;
+    /**
+     * The screen bounds of the local dock indicator buttons, measured after their popup was shown or
+     * moved, null if they are not measured yet.
+     */
+    private double[] localButtonBounds;
+    /**
+     * The screen bounds of the root dock indicator buttons, measured after the overlay was shown, null
+     * if they are not measured yet.
+     */
+    private double[] rootButtonBounds;
 
     /**
      * The docking area shape with a dotted animated border on the indicator overlay popup.
@@ -111,6 +158,194 @@ public class DockPane extends StackPane implements EventHandler<DockEvent> {
      */
     private final ObservableMap<Node, DockNodeEventHandler> dockNodeEventFilters =
             FXCollections.observableHashMap();
+    /**
+     * The factory creating the split containers of the layout.
+     */
+    private final ObjectProperty<Supplier<? extends DockSplit>> splitFactoryProperty =
+            new SimpleObjectProperty<>(DockSplitLayout.LayoutSplitPane::new) {
+                @Override
+                public String getName() {
+                    return "splitFactory";
+                }
+            };
+    /**
+     * The layout engine arranging the docked nodes.
+     */
+    private final ObjectProperty<DockLayoutEngine> layoutEngineProperty =
+            new SimpleObjectProperty<>(new DockSplitLayout()) {
+                @Override
+                protected void invalidated() {
+                    if (get() == null) {
+                        set(new DockSplitLayout());
+                    } else {
+                        changeLayoutEngine(get());
+                    }
+                }
+
+                @Override
+                public String getName() {
+                    return "layoutEngine";
+                }
+            };
+    /**
+     * The layout engine that is currently attached to this dock pane.
+     */
+    private DockLayoutEngine attachedLayoutEngine;
+    /**
+     * Whether dock nodes detached through their title bar float in a shared floating host window.
+     */
+    private final BooleanProperty floatingHostsProperty = new SimpleBooleanProperty(false) {
+        @Override
+        public String getName() {
+            return "floatingHosts";
+        }
+    };
+    /**
+     * The filter deciding where dragged dock nodes may be docked into this dock pane.
+     */
+    private final ObjectProperty<DockDropFilter> dropFilterProperty = new SimpleObjectProperty<>() {
+        @Override
+        protected void invalidated() {
+            filteredDockNode = null;
+        }
+
+        @Override
+        public String getName() {
+            return "dropFilter";
+        }
+    };
+    /**
+     * The dragged dock node the drop filter was last asked about for the whole dock pane, null if
+     * the answer is not known.
+     */
+    private DockNode filteredDockNode;
+    /**
+     * Whether the drop filter accepts the filtered dock node anywhere in this dock pane.
+     */
+    private boolean filteredDockNodeAccepted;
+    /**
+     * The floating host windows created for this dock pane that are still open.
+     */
+    private final List<DockPane> floatingHosts = new ArrayList<>();
+    /**
+     * The dock pane this dock pane is a floating host of, null if it is not a floating host.
+     */
+    private DockPane hostOwner;
+    /**
+     * The stage showing this dock pane while it is a floating host, null otherwise.
+     */
+    private Stage hostStage;
+    /**
+     * The number of drags of dock nodes out of this dock pane that have not ended yet.
+     */
+    private int activeDrags;
+    /**
+     * The dock node shown over the whole layout.
+     */
+    private final ObjectProperty<DockNode> zoomedNodeProperty = new SimpleObjectProperty<>() {
+        @Override
+        protected void invalidated() {
+            zoom(get());
+        }
+
+        @Override
+        public String getName() {
+            return "zoomedNode";
+        }
+    };
+    /**
+     * The dock node whose title bar and contents are shown in the zoom frame.
+     */
+    private DockNode zoomedNode;
+    /**
+     * The container showing the title bar and the contents of the zoomed dock node over the layout,
+     * created when a dock node is zoomed for the first time.
+     */
+    private VBox zoomFrame;
+    /**
+     * The dock nodes that applied layouts removed from this dock pane by their ids, kept with their
+     * contents for the next layout that shows them.
+     */
+    private final Map<String, DockNode> layoutCache = new LinkedHashMap<>();
+    /**
+     * The listeners notified of the structural changes of the layout.
+     */
+    private final List<Consumer<DockMutation>> mutationListeners = new ArrayList<>();
+    /**
+     * The listeners notified once per pulse of the coalesced changes of the layout.
+     */
+    private final List<DockLayoutListener> layoutListeners = new ArrayList<>();
+    /**
+     * The dock nodes changed since the layout listeners were last notified, mapped to whether they
+     * were in the layout before their first change. Only kept while there are layout listeners.
+     */
+    private final Map<DockNode, Boolean> layoutChanges = new LinkedHashMap<>();
+    /**
+     * The paths of the split panes whose dividers moved since the layout listeners were last
+     * notified.
+     */
+    private final List<int[]> changedWeights = new ArrayList<>();
+    /**
+     * The scene the layout listeners are notified after the next layout pulse of, or null if no
+     * notification is pending.
+     */
+    private Scene layoutChangeScene;
+    /**
+     * Whether a notification of the layout listeners is pending.
+     */
+    private boolean layoutChangePending;
+    private final Runnable layoutChangeNotifier = this::notifyLayoutListeners;
+    /**
+     * The performance measurements of this dock pane.
+     */
+    private final DockMetrics metrics = new DockMetrics(this);
+    /**
+     * The scheduler building dock node contents during idle pulses, created when first requested.
+     */
+    private DockPrewarmScheduler prewarmScheduler;
+    /**
+     * The manager hibernating hidden dock node contents, created when first requested.
+     */
+    private DockHibernationManager hibernationManager;
+    /**
+     * The undo manager of the layout operations, created when first requested.
+     */
+    private DockUndoManager undoManager;
+    /**
+     * The dock requests submitted from any thread that were not applied yet.
+     */
+    private final ConcurrentLinkedQueue<DockRequest> requests = new ConcurrentLinkedQueue<>();
+    /**
+     * Whether the submitted dock requests are going to be applied on the JavaFX application thread.
+     */
+    private final AtomicBoolean requestsScheduled = new AtomicBoolean();
+    /**
+     * The scene whose next pulse applies the submitted dock requests, if any.
+     */
+    private Scene requestsScene;
+    /**
+     * The pre-layout pulse listener applying the submitted dock requests.
+     */
+    private final Runnable requestsApplier = this::applyRequests;
+
+    /**
+     * Package-private list of the dock panes that were not disposed or collected yet, in the order
+     * they were created.
+     *
+     * @return A new list of the dock panes.
+     */
+    static List<DockPane> getDockPanes() {
+        List<DockPane> result = new ArrayList<>(dockPanes.size());
+        dockPanes.removeIf(reference -> {
+            DockPane dockPane = reference.get();
+            if (dockPane == null) {
+                return true;
+            }
+            result.add(dockPane);
+            return false;
+        });
+        return result;
+    }
 
     /**
      * Creates a new DockPane adding event handlers for dock events and creating the indicator
@@ -118,11 +353,17 @@ public class DockPane extends StackPane implements EventHandler<DockEvent> {
      */
     public DockPane() {
         super();
-        DockPane.dockPanes.add(this);
+        DockPane.dockPanes.add(new WeakReference<>(this));
 
         this.addEventHandler(DockEvent.ANY, this);
+        attachedLayoutEngine = getLayoutEngine();
+        attachedLayoutEngine.attach(this);
         this.addEventFilter(DockEvent.ANY, event -> {
-            if (event.getEventType() == DockEvent.DOCK_ENTER) {
+            nestedDockEvent = isInNestedDockPane(event.getTarget());
+            if (nestedDockEvent) {
+                // the dock pane nested in this one shows its own indicators instead
+                hideDockIndicators();
+            } else if (event.getEventType() == DockEvent.DOCK_ENTER) {
                 DockPane.this.receivedEnter = true;
             } else if (event.getEventType() == DockEvent.DOCK_OVER) {
                 DockPane.this.dockNodeDrag = null;
@@ -151,7 +392,10 @@ public class DockPane extends StackPane implements EventHandler<DockEvent> {
         KeyValue kv = new KeyValue(dockAreaIndicator.strokeDashOffsetProperty(), 12);
         KeyFrame kf = new KeyFrame(Duration.millis(500), kv);
         dockAreaStrokeTimeline.getKeyFrames().add(kf);
+        // the timeline is only running while the overlay is showing, a running timeline is held by
+        // the master timer and would otherwise keep this dock pane reachable forever
         dockAreaStrokeTimeline.play();
+        dockAreaStrokeTimeline.pause();
 
         DockPosButton dockCenter = new DockPosButton(false, DockPosition.CENTER);
         dockCenter.getStyleClass().add("dock-center");
@@ -234,296 +478,1450 @@ public class DockPane extends StackPane implements EventHandler<DockEvent> {
     }
 
     /**
-     * Dock the node into this dock pane at the given docking position relative to the sibling in the
-     * layout. This is used to relatively position the dock nodes to other nodes given their preferred
-     * size.
+     * The factory creating the split containers of this dock pane's layout. The default creates
+     * SplitPane controls, {@code DockSplitPane::new} creates lightweight {@link DockSplitPane}
+     * containers. Changing the factory only affects split containers created afterwards. The factory
+     * is used by the {@link DockSplitLayout} and has no effect with other layout engines.
      *
-     * @param node         The node that is to be docked into this dock pane.
-     * @param dockPosition The docking position of the node relative to the sibling.
-     * @param sibling      The sibling of this node in the layout.
+     * @defaultValue a factory of SplitPane based split containers
      */
-    public void dock(Node node, DockPosition dockPosition, Node sibling) {
-        DockNodeEventHandler dockNodeEventHandler = new DockNodeEventHandler(node);
-        dockNodeEventFilters.put(node, dockNodeEventHandler);
-        node.addEventFilter(DockEvent.DOCK_OVER, dockNodeEventHandler);
-
-        SplitPane split = (SplitPane) root;
-        if (split == null) {
-            split = new SplitPane();
-            split.getItems().add(node);
-            root = split;
-            this.getChildren().add(root);
-            return;
-        }
-
-        // find the parent of the sibling
-        if (sibling != null && sibling != root) {
-            Stack<Parent> stack = new Stack<>();
-            stack.push((Parent) root);
-            while (!stack.isEmpty()) {
-                Parent parent = stack.pop();
-
-                ObservableList<Node> children = parent.getChildrenUnmodifiable();
+    public final ObjectProperty<Supplier<? extends DockSplit>> splitFactoryProperty() {
+        return splitFactoryProperty;
+    }
 
-                if (parent instanceof SplitPane splitPane) {
-                    children = splitPane.getItems();
-                }
+    public final Supplier<? extends DockSplit> getSplitFactory() {
+        return splitFactoryProperty.get();
+    }
 
-                for (int i = 0; i < children.size(); i++) {
-                    if (children.get(i) == sibling) {
-                        assert parent instanceof SplitPane;
-                        split = (SplitPane) parent;
-                    } else if (children.get(i) instanceof Parent) {
-                        stack.push((Parent) children.get(i));
-                    }
-                }
-            }
-        }
+    public final void setSplitFactory(Supplier<? extends DockSplit> splitFactory) {
+        splitFactoryProperty.set(splitFactory);
+    }
 
-        Orientation requestedOrientation = (dockPosition == DockPosition.LEFT || dockPosition == DockPosition.RIGHT)
-                ? Orientation.HORIZONTAL : Orientation.VERTICAL;
+    /**
+     * The layout engine arranging the docked nodes of this dock pane, by default a
+     * {@link DockSplitLayout}. Nodes that are docked when the layout engine is changed are docked into
+     * the new layout engine one after the other in the order of the old layout. Setting null restores
+     * a split layout.
+     *
+     * @defaultValue a new DockSplitLayout
+     */
+    public final ObjectProperty<DockLayoutEngine> layoutEngineProperty() {
+        return layoutEngineProperty;
+    }
 
-        // if the orientation is different then reparent the split pane
-        if (split.getOrientation() != requestedOrientation) {
-            if (split.getItems().size() > 1) {
-                SplitPane splitPane = new SplitPane();
-                if (split == root && sibling == root) {
-                    this.getChildren().set(this.getChildren().indexOf(root), splitPane);
-                    splitPane.getItems().add(split);
-                    root = splitPane;
-                } else {
-                    split.getItems().set(split.getItems().indexOf(sibling), splitPane);
-                    splitPane.getItems().add(sibling);
-                }
+    public final DockLayoutEngine getLayoutEngine() {
+        return layoutEngineProperty.get();
+    }
 
-                split = splitPane;
-            }
-            split.setOrientation(requestedOrientation);
-        }
+    public final void setLayoutEngine(DockLayoutEngine layoutEngine) {
+        layoutEngineProperty.set(layoutEngine);
+    }
 
-        // finally dock the node to the correct split pane
-        ObservableList<Node> splitItems = split.getItems();
+    /**
+     * Whether dock nodes detached from this dock pane through their title bar, by the state button or
+     * by dropping them where they cannot be docked, float in a floating host window instead of a
+     * stage of their own. A floating host window shows a dock pane of its own that other dock nodes
+     * can be dragged into, so that the floating dock nodes share one stage and scene. Floating host
+     * windows inherit this property and the split factory of the dock pane they were created for, and
+     * close themselves when their last dock node leaves them.
+     *
+     * @defaultValue false
+     */
+    public final BooleanProperty floatingHostsProperty() {
+        return floatingHostsProperty;
+    }
 
-        double magnitude = 0;
+    public final boolean isFloatingHosts() {
+        return floatingHostsProperty.get();
+    }
 
-        if (!splitItems.isEmpty()) {
-            if (split.getOrientation() == Orientation.HORIZONTAL) {
-                for (Node splitItem : splitItems) {
-                    magnitude += splitItem.prefWidth(0);
-                }
-            } else {
-                for (Node splitItem : splitItems) {
-                    magnitude += splitItem.prefHeight(0);
-                }
-            }
-        }
+    public final void setFloatingHosts(boolean floatingHosts) {
+        floatingHostsProperty.set(floatingHosts);
+    }
 
-        if (dockPosition == DockPosition.LEFT || dockPosition == DockPosition.TOP) {
-            int relativeIndex = 0;
-            if (sibling != null && sibling != root) {
-                relativeIndex = splitItems.indexOf(sibling);
-            }
+    /**
+     * The filter deciding where dragged dock nodes may be docked into this dock pane, or null to
+     * accept them everywhere. Dock panes and dock nodes the filter rejects a dragged dock node for
+     * are skipped while picking the drop target, and the indicator buttons of rejected positions are
+     * hidden. Floating host windows inherit the filter of the dock pane they were created for.
+     *
+     * @defaultValue null
+     */
+    public final ObjectProperty<DockDropFilter> dropFilterProperty() {
+        return dropFilterProperty;
+    }
 
-            splitItems.add(relativeIndex, node);
+    public final DockDropFilter getDropFilter() {
+        return dropFilterProperty.get();
+    }
 
-            if (splitItems.size() > 1) {
-                if (split.getOrientation() == Orientation.HORIZONTAL) {
-                    split.setDividerPosition(relativeIndex,
-                            node.prefWidth(0) / (magnitude + node.prefWidth(0)));
-                } else {
-                    split.setDividerPosition(relativeIndex,
-                            node.prefHeight(0) / (magnitude + node.prefHeight(0)));
-                }
-            }
-        } else if (dockPosition == DockPosition.RIGHT || dockPosition == DockPosition.BOTTOM) {
-            int relativeIndex = splitItems.size();
-            if (sibling != null && sibling != root) {
-                relativeIndex = splitItems.indexOf(sibling) + 1;
-            }
+    public final void setDropFilter(DockDropFilter dropFilter) {
+        dropFilterProperty.set(dropFilter);
+    }
 
-            splitItems.add(relativeIndex, node);
-            if (splitItems.size() > 1) {
-                if (split.getOrientation() == Orientation.HORIZONTAL) {
-                    split.setDividerPosition(relativeIndex - 1,
-                            1 - node.prefWidth(0) / (magnitude + node.prefWidth(0)));
-                } else {
-                    split.setDividerPosition(relativeIndex - 1,
-                            1 - node.prefHeight(0) / (magnitude + node.prefHeight(0)));
-                }
-            }
+    /**
+     * Whether the drop filter of this dock pane accepts the dragged dock node anywhere in this dock
+     * pane. The filter is asked once per drag.
+     *
+     * @param dockNode The dragged dock node, null if it is not known.
+     * @return Whether the dock node may be docked into this dock pane.
+     */
+    boolean accepts(DockNode dockNode) {
+        if (dockNode != null && dockNode != filteredDockNode) {
+            filteredDockNode = dockNode;
+            filteredDockNodeAccepted = accepts(dockNode, null, null);
         }
+        return dockNode == null || filteredDockNodeAccepted;
     }
 
     /**
-     * Dock the node into this dock pane at the given docking position relative to the root in the
-     * layout. This is used to relatively position the dock nodes to other nodes given their preferred
-     * size.
-     *
-     * @param node         The node that is to be docked into this dock pane.
-     * @param dockPosition The docking position of the node relative to the sibling.
+     * Forget whether the drop filter accepts the dragged dock node, as the drag ended.
      */
-    public void dock(Node node, DockPosition dockPosition) {
-        dock(node, dockPosition, root);
+    void dropFinished() {
+        filteredDockNode = null;
     }
 
     /**
-     * Detach the node from this dock pane removing it from the layout.
+     * Whether the drop filter of this dock pane accepts the dragged dock node at the target and
+     * position, see {@link DockDropFilter#accepts(DockNode, DockPane, Node, DockPosition)}.
      *
-     * @param node The node that is to be removed from this dock pane.
+     * @param dockNode     The dragged dock node, null if it is not known.
+     * @param target       The node of the layout or null.
+     * @param dockPosition The docking position or null.
+     * @return Whether the dock node may be docked there, true if there is no filter or the dragged
+     * dock node is not known.
      */
-    public void undock(DockNode node) {
-        DockNodeEventHandler dockNodeEventHandler = dockNodeEventFilters.get(node);
-        if (dockNodeEventHandler != null) {
-            node.removeEventFilter(DockEvent.DOCK_OVER, dockNodeEventHandler);
-            dockNodeEventFilters.remove(node);
-        }
+    boolean accepts(DockNode dockNode, Node target, DockPosition dockPosition) {
+        DockDropFilter filter = getDropFilter();
+        return filter == null || dockNode == null || filter.accepts(dockNode, this, target, dockPosition);
+    }
 
-        // depth first search to find the parent of the node
-        Stack<Parent> findStack = new Stack<>();
-        findStack.push((Parent) root);
-        while (!findStack.isEmpty()) {
-            Parent parent = findStack.pop();
+    /**
+     * The floating host windows created for this dock pane that are still open, in the order they
+     * were created. Floating host windows created for a dock node in a floating host window belong to
+     * the dock pane of that floating host.
+     *
+     * @return The dock panes of the open floating host windows.
+     */
+    public final List<DockPane> getFloatingHosts() {
+        return Collections.unmodifiableList(floatingHosts);
+    }
 
-            ObservableList<Node> children = parent.getChildrenUnmodifiable();
+    /**
+     * Whether this dock pane is shown by a floating host window.
+     *
+     * @return Whether this dock pane is shown by a floating host window.
+     */
+    public final boolean isFloatingHost() {
+        return hostStage != null;
+    }
 
-            if (parent instanceof SplitPane split) {
-                children = split.getItems();
+    /**
+     * Move the dock node into a new floating host window. The window covers the area the dock node
+     * covered before, is owned by the window of the dock pane the floating host is created for and
+     * shows a new dock pane that the dock node is docked into.
+     *
+     * @param dockNode The docked or floating dock node to move.
+     * @return The dock pane of the new floating host window.
+     */
+    public DockPane floatInHost(DockNode dockNode) {
+        DockPane owner = hostOwner != null ? hostOwner : this;
+
+        Point2D position;
+        double width;
+        double height;
+        Stage floatingStage = dockNode.isFloating() ? dockNode.getStage() : null;
+        if (floatingStage != null) {
+            position = new Point2D(floatingStage.getX(), floatingStage.getY());
+            width = floatingStage.getScene().getWidth();
+            height = floatingStage.getScene().getHeight();
+        } else {
+            position = dockNode.localToScreen(0, 0);
+            if (position == null) {
+                position = Point2D.ZERO;
             }
+            width = dockNode.getWidth();
+            height = dockNode.getHeight();
+        }
 
-            for (int i = 0; i < children.size(); i++) {
-                if (children.get(i) == node) {
-                    children.remove(i);
-
-                    // start from the root again and remove any SplitPane's with no children in them
-                    Stack<Parent> clearStack = new Stack<>();
-                    clearStack.push((Parent) root);
-                    while (!clearStack.isEmpty()) {
-                        parent = clearStack.pop();
-
-                        children = parent.getChildrenUnmodifiable();
-
-                        if (parent instanceof SplitPane split) {
-                            children = split.getItems();
-                        }
+        DockPane host = new DockPane();
+        host.hostOwner = owner;
+        host.setSplitFactory(getSplitFactory());
+        host.setFloatingHosts(isFloatingHosts());
+        host.setDropFilter(getDropFilter());
 
-                        for (i = 0; i < children.size(); i++) {
-                            if (children.get(i) instanceof SplitPane split) {
-                                if (split.getItems().isEmpty()) {
-                                    children.remove(i);
-                                } else {
-                                    clearStack.push(split);
-                                }
-                            }
+        Scene scene = new Scene(host, width, height);
+        // the style sheet is added right away so that the first pulse lays out a styled window
+        scene.getStylesheets().add(getDefaultUserAgentStylesheet());
 
-                        }
-                    }
-                    return;
-                } else if (children.get(i) instanceof Parent) {
-                    findStack.push((Parent) children.get(i));
-                }
-            }
+        Stage stage = new Stage();
+        Window window = owner.getScene() != null ? owner.getScene().getWindow() : null;
+        if (window != null) {
+            stage.initOwner(window);
         }
+        stage.setTitle(dockNode.getTitle());
+        stage.setX(position.getX());
+        stage.setY(position.getY());
+        stage.setScene(scene);
+        // closing the window closes the dock nodes in it like closing a floating dock node does
+        stage.setOnCloseRequest(event -> host.dispose());
+        host.hostStage = stage;
+        owner.floatingHosts.add(host);
+
+        if (dockNode.isDocked() && !dockNode.isFloating()) {
+            dockNode.undock();
+        }
+        dockNode.dock(host, DockPosition.RIGHT, null);
+        stage.show();
+        return host;
     }
 
-    @Override
-    public void handle(DockEvent event) {
-        if (event.getEventType() == DockEvent.DOCK_ENTER) {
-            if (!dockIndicatorOverlay.isShowing()) {
-                Point2D topLeft = DockPane.this.localToScreen(0, 0);
-                dockIndicatorOverlay.show(DockPane.this, topLeft.getX(), topLeft.getY());
-            }
-        } else if (event.getEventType() == DockEvent.DOCK_OVER) {
-            this.receivedEnter = false;
-
-            dockPositionDrag = null;
-            dockAreaDrag = dockNodeDrag;
-
-            for (DockPosButton dockIndicatorButton : dockPosButtons) {
-                if (dockIndicatorButton.contains(dockIndicatorButton.screenToLocal(event.getScreenX(), event.getScreenY()))) {
-                    dockPositionDrag = dockIndicatorButton.getDockPos();
-                    if (dockIndicatorButton.isDockRoot()) {
-                        dockAreaDrag = root;
-                    }
-                    dockIndicatorButton.pseudoClassStateChanged(PseudoClass.getPseudoClass("focused"), true);
-                    break;
-                } else {
-                    dockIndicatorButton.pseudoClassStateChanged(PseudoClass.getPseudoClass("focused"), false);
-                }
-            }
-
-            if (dockPositionDrag != null) {
-                Point2D originToScene = dockAreaDrag.localToScene(0, 0).subtract(this.localToScene(0, 0));
-
-                dockAreaIndicator.setVisible(true);
-                dockAreaIndicator.relocate(originToScene.getX(), originToScene.getY());
-                if (dockPositionDrag == DockPosition.RIGHT) {
-                    dockAreaIndicator.setTranslateX(dockAreaDrag.getLayoutBounds().getWidth() / 2);
-                } else {
-                    dockAreaIndicator.setTranslateX(0);
-                }
+    /**
+     * Called when a dock node starts being dragged out of this dock pane. A floating host window stays
+     * open until the drag ended even if it has no dock nodes left, because the drag is delivered
+     * through its scene. The layout operations of the drag are recorded as a single command of the
+     * undo manager.
+     */
+    void dragStarted() {
+        activeDrags++;
+        DockUndoManager undo = getRecordingUndoManager();
+        if (undo != null) {
+            undo.beginEdit();
+        }
+    }
 
-                if (dockPositionDrag == DockPosition.BOTTOM) {
-                    dockAreaIndicator.setTranslateY(dockAreaDrag.getLayoutBounds().getHeight() / 2);
-                } else {
-                    dockAreaIndicator.setTranslateY(0);
-                }
+    /**
+     * Called when a drag of a dock node out of this dock pane ended.
+     */
+    void dragFinished() {
+        activeDrags--;
+        DockUndoManager undo = getRecordingUndoManager();
+        if (undo != null) {
+            undo.endEdit();
+        }
+        closeIfEmptyHost();
+    }
 
-                if (dockPositionDrag == DockPosition.LEFT || dockPositionDrag == DockPosition.RIGHT) {
-                    dockAreaIndicator.setWidth(dockAreaDrag.getLayoutBounds().getWidth() / 2);
-                } else {
-                    dockAreaIndicator.setWidth(dockAreaDrag.getLayoutBounds().getWidth());
-                }
-                if (dockPositionDrag == DockPosition.TOP || dockPositionDrag == DockPosition.BOTTOM) {
-                    dockAreaIndicator.setHeight(dockAreaDrag.getLayoutBounds().getHeight() / 2);
-                } else {
-                    dockAreaIndicator.setHeight(dockAreaDrag.getLayoutBounds().getHeight());
-                }
-            } else {
-                dockAreaIndicator.setVisible(false);
-            }
+    /**
+     * Close the window of this dock pane if it is a floating host that has no dock nodes left.
+     */
+    private void closeIfEmptyHost() {
+        if (hostStage != null && activeDrags <= 0 && getLayoutEngine().getNodes().isEmpty()) {
+            dispose();
+        }
+    }
 
-            if (dockNodeDrag != null) {
-                Point2D originToScreen = dockNodeDrag.localToScreen(0, 0);
+    /**
+     * The docked dock node that is shown over the whole layout of this dock pane, like a maximized
+     * editor, or null if none is. Only the title bar and the contents of the zoomed dock node are
+     * moved into a frame over the layout, the layout itself stays in the scene graph but is hidden
+     * and no longer laid out, so that zooming and restoring neither restyles nor relayouts the other
+     * dock nodes. Docking or undocking any node restores the layout first. Setting a dock node that
+     * is not docked in this dock pane is ignored.
+     *
+     * @defaultValue null
+     */
+    public final ObjectProperty<DockNode> zoomedNodeProperty() {
+        return zoomedNodeProperty;
+    }
 
-                double posX = originToScreen.getX() + dockNodeDrag.getLayoutBounds().getWidth() / 2
-                        - dockPosIndicator.getWidth() / 2;
-                double posY = originToScreen.getY() + dockNodeDrag.getLayoutBounds().getHeight() / 2
-                        - dockPosIndicator.getHeight() / 2;
+    public final DockNode getZoomedNode() {
+        return zoomedNodeProperty.get();
+    }
 
-                if (!dockIndicatorPopup.isShowing()) {
-                    dockIndicatorPopup.show(DockPane.this, posX, posY);
-                } else {
-                    dockIndicatorPopup.setX(posX);
-                    dockIndicatorPopup.setY(posY);
-                }
+    public final void setZoomedNode(DockNode zoomedNode) {
+        zoomedNodeProperty.set(zoomedNode);
+    }
 
-                // set visible after moving the popup
-                dockPosIndicator.setVisible(true);
-            } else {
-                dockPosIndicator.setVisible(false);
-            }
+    /**
+     * Show the dock node over the layout or restore the layout.
+     *
+     * @param dockNode The dock node to show over the layout or null to restore the layout.
+     */
+    private void zoom(DockNode dockNode) {
+        if (dockNode == zoomedNode) {
+            return;
         }
-
-        if (event.getEventType() == DockEvent.DOCK_RELEASED && event.getContents() != null) {
-            if (dockPositionDrag != null && dockIndicatorOverlay.isShowing()) {
-                DockNode dockNode = (DockNode) event.getContents();
-                dockNode.dock(this, dockPositionDrag, dockAreaDrag);
-            }
+        if (dockNode != null && !dockNodeEventFilters.containsKey(dockNode)) {
+            log.warn("not zooming {}, it is not docked in this dock pane", dockNode);
+            zoomedNodeProperty.set(zoomedNode);
+            return;
         }
 
-        if ((event.getEventType() == DockEvent.DOCK_EXIT && !this.receivedEnter) || event.getEventType() == DockEvent.DOCK_RELEASED) {
-            if (dockIndicatorPopup.isShowing()) {
-                dockIndicatorOverlay.hide();
-                dockIndicatorPopup.hide();
+        if (zoomedNode != null) {
+            zoomedNode.setFrame(zoomedNode);
+        }
+        zoomedNode = dockNode;
+        Node root = getRoot();
+        if (dockNode != null) {
+            if (zoomFrame == null) {
+                zoomFrame = new VBox();
+            }
+            zoomFrame.getStyleClass().setAll(dockNode.getStyleClass());
+            zoomFrame.getStyleClass().add("dock-zoom-frame");
+            dockNode.setFrame(zoomFrame);
+            root.setVisible(false);
+            root.setManaged(false);
+            if (zoomFrame.getParent() != this) {
+                this.getChildren().add(zoomFrame);
+            }
+        } else {
+            this.getChildren().remove(zoomFrame);
+            if (root != null) {
+                root.setVisible(true);
+                root.setManaged(true);
             }
         }
     }
 
     /**
-     * Base class for a dock indicator button that allows it to be displayed during a dock event and
-     * continue to receive input.
+     * Move the docked nodes from the attached layout engine to the new one.
      *
-     * @since 0.1
+     * @param layoutEngine The new layout engine.
+     */
+    private void changeLayoutEngine(DockLayoutEngine layoutEngine) {
+        DockLayoutEngine previous = attachedLayoutEngine;
+        if (previous == layoutEngine) {
+            return;
+        }
+        setZoomedNode(null);
+
+        List<Node> nodes = previous.getNodes();
+        for (Node node : nodes) {
+            previous.undock(node);
+        }
+        previous.detach();
+
+        attachedLayoutEngine = layoutEngine;
+        layoutEngine.attach(this);
+        Node sibling = null;
+        for (Node node : nodes) {
+            layoutEngine.dock(node, DockPosition.RIGHT, sibling);
+            sibling = node;
+        }
+        updateRoot();
+        metrics.layoutChanged();
+    }
+
+    /**
+     * Describe the current layout of this dock pane by the ids of its docked nodes, for example to
+     * save it as a perspective and apply it again later. Layout engines other than the split layout
+     * are described as a single horizontal split of their nodes in layout order.
+     *
+     * @return The description of the current layout or null if nothing is docked.
+     * @throws IllegalStateException If a docked node has no id.
+     */
+    public DockLayout captureLayout() {
+        return captureLayout(false);
+    }
+
+    /**
+     * Describe the current layout of this dock pane for the journal, leaving out docked nodes
+     * without an id, which the journal cannot refer to.
+     *
+     * @return The description of the current layout or null if there is nothing to describe.
+     */
+    DockLayout captureJournalLayout() {
+        DockLayout layout = captureLayout(true);
+        // leaving out nodes can leave splits with a single item
+        return layout == null ? null : layout.retain(new HashSet<>(layout.getIds()));
+    }
+
+    private DockLayout captureLayout(boolean skipAnonymous) {
+        if (getLayoutEngine() instanceof DockSplitLayout splitLayout) {
+            return splitLayout.capture(skipAnonymous);
+        }
+        List<DockLayout> items = new ArrayList<>();
+        for (Node node : getLayoutEngine().getNodes()) {
+            if (node.getId() != null) {
+                items.add(DockLayout.node(node.getId()));
+            } else if (!skipAnonymous) {
+                throw new IllegalStateException("Docked nodes need an id to be captured: " + node);
+            }
+        }
+        return items.isEmpty() ? null : DockLayout.split(Orientation.HORIZONTAL, items.toArray(new DockLayout[0]));
+    }
+
+    /**
+     * Change the layout of this dock pane into the described one, for example to switch to a saved
+     * perspective. Instead of rebuilding the layout only the minimal edits are made: docked nodes
+     * whose ids are part of the layout stay docked and are moved where the layout wants them, split
+     * panes are reused and divider positions only change where the weights differ.
+     * <p>
+     * The dock node of an id is the docked node with the id, or else the dock node a previously
+     * applied layout removed with its contents still built, or else the dock node the resolver
+     * returns. Dock nodes with an id that are not part of the layout are undocked and kept for the
+     * next layout that shows them, so switching back and forth between perspectives never rebuilds
+     * their contents. {@link #clearLayoutCache()} disposes the kept dock nodes. Ids without a dock
+     * node are left out of the layout.
+     * <p>
+     * The undo manager records the change as a single command that applies the previous layout again,
+     * taking the dock nodes it shows from the kept ones. Docked nodes without an id are not part of
+     * any layout, so undoing the change does not bring them back.
+     *
+     * @param layout   The description of the new layout.
+     * @param resolver Creates the dock node for an id of the layout that has none yet, may return
+     *                 null. Can be null if all dock nodes exist.
+     */
+    public void applyLayout(DockLayout layout, Function<String, ? extends DockNode> resolver) {
+        long start = System.nanoTime();
+        setZoomedNode(null);
+        DockUndoManager undo = getRecordingUndoManager();
+        DockLayout previous = undo != null ? captureJournalLayout() : null;
+
+        List<Node> current = getLayoutEngine().getNodes();
+        Map<String, Node> docked = new HashMap<>();
+        for (Node node : current) {
+            if (node.getId() != null) {
+                docked.put(node.getId(), node);
+            }
+        }
+
+        Map<String, Node> nodes = new LinkedHashMap<>();
+        for (String id : layout.getIds()) {
+            Node node = docked.get(id);
+            if (node == null) {
+                node = layoutCache.remove(id);
+            }
+            if (node == null && resolver != null) {
+                node = resolver.apply(id);
+            }
+            if (node == null) {
+                log.warn("Leaving out the dock node {} of the layout as there is none", id);
+            } else {
+                nodes.put(id, node);
+            }
+        }
+        DockLayout target = layout.retain(nodes.keySet());
+
+        Set<Node> added = Collections.newSetFromMap(new IdentityHashMap<>());
+        added.addAll(nodes.values());
+        added.removeAll(current);
+        for (Node node : added) {
+            if (node instanceof DockNode dockNode) {
+                dockNode.attach(this);
+            }
+        }
+
+        Set<Node> targetNodes = Collections.newSetFromMap(new IdentityHashMap<>());
+        targetNodes.addAll(nodes.values());
+        List<Node> removed = new ArrayList<>();
+        for (Node node : current) {
+            if (!targetNodes.contains(node)) {
+                removed.add(node);
+            }
+        }
+
+        int edits = 0;
+        if (target != null && getLayoutEngine() instanceof DockSplitLayout splitLayout) {
+            // the split layout removes the nodes that are not part of the layout itself
+            edits = splitLayout.apply(target, nodes);
+        } else {
+            // other layout engines get the nodes in the order of the layout
+            for (Node node : removed) {
+                getLayoutEngine().undock(node);
+                edits++;
+            }
+            Node sibling = null;
+            for (Node node : nodes.values()) {
+                if (added.contains(node)) {
+                    getLayoutEngine().dock(node, DockPosition.RIGHT, sibling);
+                    edits++;
+                }
+                sibling = node;
+            }
+        }
+
+        for (Node node : removed) {
+            DockNodeEventHandler handler = dockNodeEventFilters.remove(node);
+            if (handler != null) {
+                node.removeEventFilter(DockEvent.DOCK_OVER, handler);
+            }
+            if (node instanceof DockNode dockNode) {
+                dockNode.undocked();
+                if (dockNode.getId() != null) {
+                    layoutCache.put(dockNode.getId(), dockNode);
+                }
+            }
+        }
+        for (Node node : added) {
+            DockNodeEventHandler handler = new DockNodeEventHandler(node);
+            dockNodeEventFilters.put(node, handler);
+            node.addEventFilter(DockEvent.DOCK_OVER, handler);
+        }
+
+        if (!added.isEmpty()) {
+            initializeDefaultUserAgentStylesheet();
+        }
+        updateRoot();
+        metrics.layoutChanged();
+        metrics.layoutApplied(edits, System.nanoTime() - start);
+        if (!mutationListeners.isEmpty()) {
+            mutated(DockMutation.layout(target));
+        }
+        if (!layoutListeners.isEmpty()) {
+            for (Node node : removed) {
+                if (node instanceof DockNode dockNode) {
+                    layoutChanged(dockNode, true);
+                }
+            }
+            for (Node node : added) {
+                if (node instanceof DockNode dockNode) {
+                    layoutChanged(dockNode, false);
+                }
+            }
+        }
+        if (undo != null && previous != null && target != null) {
+            undo.layoutApplied(this, previous, target);
+        }
+    }
+
+    /**
+     * Notify the listener of every structural change of the layout of this dock pane, such as dock
+     * nodes with an id being docked or undocked. Only the split layout engine reports divider moves.
+     *
+     * @param listener The listener to add.
+     */
+    void addMutationListener(Consumer<DockMutation> listener) {
+        mutationListeners.add(listener);
+    }
+
+    void removeMutationListener(Consumer<DockMutation> listener) {
+        mutationListeners.remove(listener);
+    }
+
+    /**
+     * Record that the user moved a divider of a split pane of the split layout, or that the weights
+     * of its items were restored.
+     *
+     * @param path     The path of the split pane from the root of the layout.
+     * @param previous The weights of the items before.
+     * @param weights  The weights of the items after.
+     */
+    void dividersMoved(int[] path, double[] previous, double[] weights) {
+        if (!mutationListeners.isEmpty()) {
+            mutated(DockMutation.dividers(path, weights));
+        }
+        if (!layoutListeners.isEmpty()) {
+            if (changedWeights.stream().noneMatch(changed -> Arrays.equals(changed, path))) {
+                changedWeights.add(path.clone());
+            }
+            metrics.layoutChangeCollected();
+            scheduleLayoutListeners();
+        }
+        DockUndoManager undo = getRecordingUndoManager();
+        if (undo != null) {
+            undo.dividersMoved(this, path, previous, weights);
+        }
+    }
+
+    /**
+     * Notify the listener once per pulse of the changes of the layout of this dock pane, such as
+     * dock nodes being docked, undocked, moved or floated and dividers being moved. No listeners are
+     * registered on the dock nodes or split panes for this, and while no layout listener is added
+     * changes are not collected at all.
+     *
+     * @param listener The listener to add.
+     */
+    public void addLayoutListener(DockLayoutListener listener) {
+        layoutListeners.add(Objects.requireNonNull(listener, "listener"));
+    }
+
+    /**
+     * Stop notifying the listener of the changes of the layout of this dock pane. Once the last
+     * listener is removed the changes collected for the next notification are dropped.
+     *
+     * @param listener The listener to remove.
+     */
+    public void removeLayoutListener(DockLayoutListener listener) {
+        layoutListeners.remove(listener);
+        if (layoutListeners.isEmpty()) {
+            cancelLayoutListeners();
+        }
+    }
+
+    /**
+     * Collect the change of a dock node for the next notification of the layout listeners.
+     *
+     * @param dockNode The docked or undocked dock node.
+     * @param present  Whether the dock node was in the layout before this change.
+     */
+    private void layoutChanged(DockNode dockNode, boolean present) {
+        layoutChanges.putIfAbsent(dockNode, present);
+        metrics.layoutChangeCollected();
+        scheduleLayoutListeners();
+    }
+
+    /**
+     * Notify the layout listeners after the layout pass of the next pulse, or as soon as possible if
+     * this dock pane is not in a scene.
+     */
+    private void scheduleLayoutListeners() {
+        if (layoutChangePending) {
+            return;
+        }
+        layoutChangePending = true;
+        Scene scene = getScene();
+        if (scene != null) {
+            layoutChangeScene = scene;
+            scene.addPostLayoutPulseListener(layoutChangeNotifier);
+            Platform.requestNextPulse();
+        } else {
+            Platform.runLater(layoutChangeNotifier);
+        }
+    }
+
+    private void cancelLayoutListeners() {
+        if (layoutChangeScene != null) {
+            layoutChangeScene.removePostLayoutPulseListener(layoutChangeNotifier);
+            layoutChangeScene = null;
+        }
+        layoutChangePending = false;
+        layoutChanges.clear();
+        changedWeights.clear();
+    }
+
+    /**
+     * Notify the layout listeners of the net changes collected since their last notification.
+     */
+    private void notifyLayoutListeners() {
+        if (!layoutChangePending) {
+            return;
+        }
+        List<DockNode> added = new ArrayList<>();
+        List<DockNode> removed = new ArrayList<>();
+        List<DockNode> moved = new ArrayList<>();
+        List<DockNode> floated = new ArrayList<>();
+        for (Map.Entry<DockNode, Boolean> entry : layoutChanges.entrySet()) {
+            DockNode dockNode = entry.getKey();
+            boolean present = dockNodeEventFilters.containsKey(dockNode);
+            if (entry.getValue()) {
+                (present ? moved : dockNode.isFloating() ? floated : removed).add(dockNode);
+            } else if (present) {
+                added.add(dockNode);
+            }
+        }
+        DockLayoutChange change = new DockLayoutChange(this, added, removed, moved, floated,
+                new ArrayList<>(changedWeights));
+        cancelLayoutListeners();
+
+        metrics.layoutListenersNotified();
+        if (!change.isEmpty()) {
+            for (DockLayoutListener listener : new ArrayList<>(layoutListeners)) {
+                listener.layoutChanged(change);
+            }
+        }
+    }
+
+    /**
+     * Notify the mutation listeners of a structural change of the layout.
+     *
+     * @param mutation The structural change.
+     */
+    void mutated(DockMutation mutation) {
+        for (Consumer<DockMutation> listener : new ArrayList<>(mutationListeners)) {
+            listener.accept(mutation);
+        }
+    }
+
+    /**
+     * The ids of the dock nodes that applied layouts removed from this dock pane and that are kept
+     * with their contents for the next layout showing them.
+     *
+     * @return The unmodifiable ids of the kept dock nodes.
+     */
+    public final Set<String> getCachedLayoutIds() {
+        return Collections.unmodifiableSet(layoutCache.keySet());
+    }
+
+    /**
+     * Dispose the dock nodes that applied layouts removed from this dock pane and kept for later.
+     */
+    public void clearLayoutCache() {
+        List<DockNode> cached = new ArrayList<>(layoutCache.values());
+        layoutCache.clear();
+        for (DockNode dockNode : cached) {
+            dockNode.dispose();
+        }
+    }
+
+    /**
+     * The performance measurements of this dock pane.
+     *
+     * @return The performance measurements of this dock pane.
+     */
+    public final DockMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * The scheduler that builds the contents of this dock pane's dock nodes during idle pulses.
+     *
+     * @return The prewarm scheduler of this dock pane.
+     */
+    public final DockPrewarmScheduler getPrewarmScheduler() {
+        if (prewarmScheduler == null) {
+            prewarmScheduler = new DockPrewarmScheduler(this);
+        }
+        return prewarmScheduler;
+    }
+
+    /**
+     * The manager that hibernates the contents of this dock pane's dock nodes while they are hidden.
+     *
+     * @return The hibernation manager of this dock pane.
+     */
+    public final DockHibernationManager getHibernationManager() {
+        if (hibernationManager == null) {
+            hibernationManager = new DockHibernationManager(this);
+        }
+        return hibernationManager;
+    }
+
+    /**
+     * The manager recording the layout operations of this dock pane so that they can be undone and
+     * redone. A floating host window shares the undo manager of the dock pane that created it.
+     *
+     * @return The undo manager of this dock pane.
+     */
+    public final DockUndoManager getUndoManager() {
+        if (hostOwner != null) {
+            return hostOwner.getUndoManager();
+        }
+        if (undoManager == null) {
+            undoManager = new DockUndoManager();
+        }
+        return undoManager;
+    }
+
+    /**
+     * The undo manager to record a layout operation of this dock pane with.
+     *
+     * @return The undo manager or null if there is none or a command is being undone or redone.
+     */
+    private DockUndoManager getRecordingUndoManager() {
+        DockUndoManager undo = hostOwner != null ? hostOwner.undoManager : undoManager;
+        return undo != null && undo.isRecording() ? undo : null;
+    }
+
+    /**
+     * The place of a docked node in the layout to dock it back into.
+     *
+     * @param node The docked node.
+     * @return The place of the node or null if it is not docked.
+     */
+    private DockUndoManager.Place locate(Node node) {
+        if (getLayoutEngine() instanceof DockSplitLayout splitLayout) {
+            return splitLayout.locate(node);
+        }
+        // other layout engines only know the order of the nodes
+        List<Node> nodes = getLayoutEngine().getNodes();
+        int index = nodes.indexOf(node);
+        if (index < 0) {
+            return null;
+        }
+        Node neighbor = index > 0 ? nodes.get(index - 1) : nodes.size() > 1 ? nodes.get(1) : null;
+        return DockUndoManager.Place.of(neighbor, neighbor, index > 0 ? DockPosition.RIGHT : DockPosition.LEFT, null);
+    }
+
+    /**
+     * Forget a disposed dock node in the helpers of this dock pane.
+     *
+     * @param dockNode The disposed dock node.
+     */
+    void release(DockNode dockNode) {
+        layoutCache.values().remove(dockNode);
+        if (prewarmScheduler != null) {
+            prewarmScheduler.cancel(dockNode);
+        }
+        if (hibernationManager != null) {
+            hibernationManager.forget(dockNode);
+        }
+        DockUndoManager undo = hostOwner != null ? hostOwner.undoManager : undoManager;
+        if (undo != null) {
+            undo.forget(dockNode);
+        }
+    }
+
+    /**
+     * Releases everything this dock pane holds on to so that it can be garbage collected. The dock
+     * nodes that are still docked in this dock pane are disposed as well, and so are its floating host
+     * windows. A disposed dock pane no longer takes part in docking and must not be used again.
+     */
+    public void dispose() {
+        DockPane.dockPanes.removeIf(reference -> reference.refersTo(this) || reference.refersTo(null));
+        if (hostStage != null) {
+            Stage stage = hostStage;
+            hostStage = null;
+            hostOwner.floatingHosts.remove(this);
+            stage.close();
+        }
+        for (DockPane host : new ArrayList<>(floatingHosts)) {
+            host.dispose();
+        }
+        if (prewarmScheduler != null) {
+            prewarmScheduler.cancelAll();
+        }
+        if (hibernationManager != null) {
+            hibernationManager.unregisterAll();
+        }
+
+        setZoomedNode(null);
+        clearLayoutCache();
+        requests.clear();
+        cancelRequests();
+        layoutListeners.clear();
+        cancelLayoutListeners();
+        dockIndicatorOverlay.hide();
+        dockIndicatorPopup.hide();
+        resetDockIndicators();
+        dockAreaStrokeTimeline.stop();
+
+        for (Node node : new ArrayList<>(dockNodeEventFilters.keySet())) {
+            if (node instanceof DockNode dockNode) {
+                dockNode.dispose();
+            } else {
+                node.removeEventFilter(DockEvent.DOCK_OVER, dockNodeEventFilters.get(node));
+            }
+        }
+        dockNodeEventFilters.clear();
+
+        attachedLayoutEngine.detach();
+        this.getChildren().clear();
+        metrics.layoutChanged();
+        dockNodeDrag = null;
+        dockAreaDrag = null;
+    }
+
+    /**
+     * Dock the node into this dock pane at the given docking position relative to the sibling in the
+     * layout. This is used to relatively position the dock nodes to other nodes given their preferred
+     * size.
+     *
+     * @param node         The node that is to be docked into this dock pane.
+     * @param dockPosition The docking position of the node relative to the sibling.
+     * @param sibling      The sibling of this node in the layout.
+     */
+    public void dock(Node node, DockPosition dockPosition, Node sibling) {
+        setZoomedNode(null);
+        DockNodeEventHandler dockNodeEventHandler = new DockNodeEventHandler(node);
+        DockNodeEventHandler previous = dockNodeEventFilters.put(node, dockNodeEventHandler);
+        node.addEventFilter(DockEvent.DOCK_OVER, dockNodeEventHandler);
+
+        Node root = getRoot();
+        getLayoutEngine().dock(node, dockPosition, sibling);
+        updateRoot();
+        metrics.layoutChanged();
+
+        if (!mutationListeners.isEmpty() && node.getId() != null) {
+            String siblingId = sibling == null || sibling == root ? null : sibling.getId();
+            double[] weights = getLayoutEngine() instanceof DockSplitLayout splitLayout
+                    ? splitLayout.getParentWeights(node) : null;
+            mutated(DockMutation.dock(node.getId(), dockPosition, siblingId, weights));
+        }
+        if (!layoutListeners.isEmpty() && node instanceof DockNode dockNode) {
+            layoutChanged(dockNode, previous != null);
+        }
+        DockUndoManager undo = getRecordingUndoManager();
+        if (undo != null && node instanceof DockNode dockNode) {
+            undo.docked(this, dockNode, locate(node));
+        }
+    }
+
+    /**
+     * Show the root of the layout engine as the only child of this dock pane.
+     */
+    private void updateRoot() {
+        Node root = getLayoutEngine().getRoot();
+        if (root == null) {
+            this.getChildren().clear();
+        } else if (this.getChildren().size() != 1 || this.getChildren().get(0) != root) {
+            this.getChildren().setAll(root);
+        }
+    }
+
+    @Override
+    protected void layoutChildren() {
+        // the hidden layout is resized when the zoomed dock node is restored
+        if (zoomedNode == null) {
+            getLayoutEngine().resize(getWidth() - snappedLeftInset() - snappedRightInset(),
+                    getHeight() - snappedTopInset() - snappedBottomInset());
+        }
+        super.layoutChildren();
+    }
+
+    /**
+     * Measure the depth and the size of the layout tree for the metrics.
+     */
+    void measureLayout() {
+        Node root = getRoot();
+        if (root != null && !(root instanceof DockSplit)) {
+            // the container of a layout engine other than the split layout holds the nodes directly
+            metrics.layoutMeasured(2, 0, getLayoutEngine().getNodes().size());
+            return;
+        }
+
+        int depth = 0;
+        int splits = 0;
+        int leaves = 0;
+        Stack<Node> stack = new Stack<>();
+        Stack<Integer> depths = new Stack<>();
+        if (root != null) {
+            stack.push(root);
+            depths.push(1);
+        }
+        while (!stack.isEmpty()) {
+            Node node = stack.pop();
+            int nodeDepth = depths.pop();
+            depth = Math.max(depth, nodeDepth);
+            if (node instanceof DockSplit) {
+                splits++;
+                for (Node item : ((DockSplit) node).getItems()) {
+                    stack.push(item);
+                    depths.push(nodeDepth + 1);
+                }
+            } else {
+                leaves++;
+            }
+        }
+        metrics.layoutMeasured(depth, splits, leaves);
+    }
+
+    /**
+     * Create and dock a dock node for every specification in order. Each dock node is initialized and
+     * docked in a single pass and the default style sheet is added once for all of them, which makes
+     * this the fastest way to build a large layout.
+     *
+     * @param specs The specifications of the dock nodes to create.
+     * @return The new dock nodes in the order of their specifications.
+     */
+    public List<DockNode> dockAll(List<DockNode.Spec> specs) {
+        List<DockNode> dockNodes = new ArrayList<>(specs.size());
+        for (DockNode.Spec spec : specs) {
+            DockNode dockNode = new DockNode();
+            dockNode.initialize(spec, this);
+            dockNodes.add(dockNode);
+        }
+        initializeDefaultUserAgentStylesheet();
+        return dockNodes;
+    }
+
+    /**
+     * Request the dock node to be docked into this dock pane at the docking position relative to the
+     * sibling. This may be called from any thread, see {@link #requestClose(DockNode)}.
+     *
+     * @param dockNode     The dock node to dock, which may have been created on any thread but must
+     *                     not be touched by it anymore.
+     * @param dockPosition The docking position of the dock node relative to the sibling.
+     * @param sibling      The sibling to dock relative to, null for the root.
+     */
+    public void requestDock(DockNode dockNode, DockPosition dockPosition, Node sibling) {
+        submit(new DockRequest(Objects.requireNonNull(dockNode, "dockNode"), DockRequest.Kind.DOCK,
+                Objects.requireNonNull(dockPosition, "dockPosition"), sibling));
+    }
+
+    /**
+     * Request the dock node to float, in a floating host window if this dock pane uses them. This may
+     * be called from any thread, see {@link #requestClose(DockNode)}.
+     *
+     * @param dockNode The dock node to float.
+     */
+    public void requestFloat(DockNode dockNode) {
+        submit(new DockRequest(Objects.requireNonNull(dockNode, "dockNode"), DockRequest.Kind.FLOAT, null, null));
+    }
+
+    /**
+     * Request the dock node to be closed. This may be called from any thread.
+     * <p>
+     * Requests are put into a lock-free queue that is drained once per pulse before its layout pass,
+     * which applies all requests submitted until then as one batch, or right away on the JavaFX
+     * application thread while this dock pane is not in a showing window. A later request for a dock
+     * node replaces its earlier requests of the batch, and closing a dock node that was neither docked
+     * nor floating when the batch started cancels the requests showing it, so a burst of requests
+     * costs one batch per pulse and only the layout changes that remain. A batch is a single command
+     * of the undo manager.
+     *
+     * @param dockNode The dock node to close.
+     */
+    public void requestClose(DockNode dockNode) {
+        submit(new DockRequest(Objects.requireNonNull(dockNode, "dockNode"), DockRequest.Kind.CLOSE, null, null));
+    }
+
+    private void submit(DockRequest request) {
+        requests.add(request);
+        if (requestsScheduled.compareAndSet(false, true)) {
+            Platform.runLater(this::scheduleRequests);
+        }
+    }
+
+    /**
+     * Apply the submitted dock requests before the layout pass of the next pulse, or right away if
+     * this dock pane is not in a showing window.
+     */
+    private void scheduleRequests() {
+        Scene scene = getScene();
+        if (scene != null && scene.getWindow() != null && scene.getWindow().isShowing()) {
+            requestsScene = scene;
+            scene.addPreLayoutPulseListener(requestsApplier);
+            Platform.requestNextPulse();
+        } else {
+            applyRequests();
+        }
+    }
+
+    private void cancelRequests() {
+        if (requestsScene != null) {
+            requestsScene.removePreLayoutPulseListener(requestsApplier);
+            requestsScene = null;
+        }
+        requestsScheduled.set(false);
+    }
+
+    /**
+     * Apply the submitted dock requests as one batch, leaving out the ones later requests replace.
+     */
+    private void applyRequests() {
+        cancelRequests();
+        List<DockRequest> batch = new ArrayList<>();
+        Map<DockNode, Integer> pending = new IdentityHashMap<>();
+        int submitted = 0;
+        for (DockRequest request = requests.poll(); request != null; request = requests.poll()) {
+            submitted++;
+            DockNode dockNode = request.dockNode();
+            Integer previous = pending.remove(dockNode);
+            if (previous != null) {
+                batch.set(previous, null);
+            }
+            if (request.kind() != DockRequest.Kind.CLOSE || dockNode.isFloating() || dockNode.isDocked()) {
+                pending.put(dockNode, batch.size());
+                batch.add(request);
+            }
+        }
+        if (submitted == 0) {
+            // the requests were drained along with an earlier batch
+            return;
+        }
+        metrics.requestsApplied(submitted, pending.size());
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        DockUndoManager undo = getRecordingUndoManager();
+        if (undo != null) {
+            undo.beginEdit();
+        }
+        boolean docked = false;
+        try {
+            for (DockRequest request : batch) {
+                if (request == null) {
+                    continue;
+                }
+                try {
+                    docked |= apply(request);
+                } catch (RuntimeException e) {
+                    log.error("Failed to apply the dock request {}", request, e);
+                }
+            }
+        } finally {
+            if (undo != null) {
+                undo.endEdit();
+            }
+        }
+        if (docked) {
+            initializeDefaultUserAgentStylesheet();
+        }
+    }
+
+    /**
+     * Apply a dock request.
+     *
+     * @return Whether the dock node was docked into this dock pane.
+     */
+    private boolean apply(DockRequest request) {
+        DockNode dockNode = request.dockNode();
+        switch (request.kind()) {
+            case DOCK -> {
+                move(dockNode, request.dockPosition(), request.sibling());
+                return true;
+            }
+            case FLOAT -> {
+                if (dockNode.isFloating()) {
+                    return false;
+                }
+                if (dockNode.getDockPane() == null) {
+                    // a dock node that was never docked floats from this dock pane
+                    dockNode.attach(this);
+                    dockNode.undocked();
+                }
+                if (isFloatingHosts()) {
+                    dockNode.getDockPane().floatInHost(dockNode);
+                } else {
+                    dockNode.setFloating(true);
+                }
+            }
+            case CLOSE -> dockNode.close();
+        }
+        return false;
+    }
+
+    /**
+     * The current root node of this dock pane's layout. Can be null if nothing was docked yet.
+     *
+     * @return The current root node of this dock pane's layout.
+     */
+    Node getRoot() {
+        return getLayoutEngine().getRoot();
+    }
+
+    /**
+     * Dock the node into this dock pane at the given docking position relative to the root in the
+     * layout. This is used to relatively position the dock nodes to other nodes given their preferred
+     * size.
+     *
+     * @param node         The node that is to be docked into this dock pane.
+     * @param dockPosition The docking position of the node relative to the sibling.
+     */
+    public void dock(Node node, DockPosition dockPosition) {
+        dock(node, dockPosition, getRoot());
+    }
+
+    /**
+     * Detach the node from this dock pane removing it from the layout.
+     *
+     * @param node The node that is to be removed from this dock pane.
+     */
+    public void undock(DockNode node) {
+        setZoomedNode(null);
+        DockNodeEventHandler dockNodeEventHandler = dockNodeEventFilters.get(node);
+        if (dockNodeEventHandler != null) {
+            node.removeEventFilter(DockEvent.DOCK_OVER, dockNodeEventHandler);
+            dockNodeEventFilters.remove(node);
+        }
+
+        DockUndoManager undo = getRecordingUndoManager();
+        DockUndoManager.Place place = undo != null ? locate(node) : null;
+        if (getLayoutEngine().undock(node)) {
+            updateRoot();
+            metrics.layoutChanged();
+            if (!mutationListeners.isEmpty() && node.getId() != null) {
+                mutated(DockMutation.undock(node.getId(), node.isFloating()));
+            }
+            if (!layoutListeners.isEmpty()) {
+                layoutChanged(node, dockNodeEventHandler != null);
+            }
+            if (undo != null) {
+                undo.undocked(this, node, place, node.isFloating());
+            }
+        }
+        closeIfEmptyHost();
+    }
+
+    /**
+     * Move a dock node to the docking position relative to the sibling without dragging it, for
+     * example for a keyboard shortcut. A dock node docked in this dock pane is relocated within the
+     * layout as a single change: it stays docked, its listeners and title bar are kept, the layout
+     * listeners see it as moved and undoing the move puts it back. The layout engine keeps it in the
+     * scene graph where it can, see {@link DockLayoutEngine#move(Node, DockPosition, Node)}. Any
+     * other dock node leaves its window or dock pane and is docked into this dock pane.
+     *
+     * @param dockNode     The dock node to move.
+     * @param dockPosition The new docking position of the dock node relative to the sibling.
+     * @param sibling      The docked node to move the dock node next to, or null to move it relative
+     *                     to the whole layout.
+     * @throws IllegalArgumentException If the sibling is the dock node itself or is not docked in
+     *                                  this dock pane.
+     */
+    public void move(DockNode dockNode, DockPosition dockPosition, Node sibling) {
+        Node root = getRoot();
+        if (sibling == dockNode) {
+            throw new IllegalArgumentException("A dock node cannot be moved next to itself: " + dockNode);
+        } else if (sibling != null && sibling != root && !dockNodeEventFilters.containsKey(sibling)) {
+            throw new IllegalArgumentException("The sibling is not docked in this dock pane: " + sibling);
+        }
+        if (dockNode.getDockPane() != this || !dockNodeEventFilters.containsKey(dockNode)) {
+            dockNode.attach(this);
+            dockNode.setDockPosition(dockPosition);
+            dock(dockNode, dockPosition, sibling != null ? sibling : root);
+            return;
+        }
+
+        setZoomedNode(null);
+        DockUndoManager undo = getRecordingUndoManager();
+        DockUndoManager.Place place = undo != null ? locate(dockNode) : null;
+        getLayoutEngine().move(dockNode, dockPosition, sibling != null ? sibling : root);
+        dockNode.setDockPosition(dockPosition);
+        updateRoot();
+        metrics.layoutChanged();
+
+        if (!mutationListeners.isEmpty() && dockNode.getId() != null) {
+            // docking a node that is docked already moves it when the mutation is replayed
+            String siblingId = sibling == null || sibling == root ? null : sibling.getId();
+            double[] weights = getLayoutEngine() instanceof DockSplitLayout splitLayout
+                    ? splitLayout.getParentWeights(dockNode) : null;
+            mutated(DockMutation.dock(dockNode.getId(), dockPosition, siblingId, weights));
+        }
+        if (!layoutListeners.isEmpty()) {
+            layoutChanged(dockNode, true);
+        }
+        if (undo != null) {
+            undo.beginEdit();
+            undo.undocked(this, dockNode, place, false);
+            undo.docked(this, dockNode, locate(dockNode));
+            undo.endEdit();
+        }
+    }
+
+    @Override
+    public void handle(DockEvent event) {
+        if (nestedDockEvent) {
+            return;
+        }
+        DockNode dragged = event.getContents() instanceof DockNode dockNode ? dockNode : null;
+        if (event.getEventType() != DockEvent.DOCK_EXIT && !accepts(dragged)) {
+            hideDockIndicators();
+            return;
+        }
+        if (event.getEventType() == DockEvent.DOCK_ENTER) {
+            if (!dockIndicatorOverlay.isShowing()) {
+                for (DockPosButton button : dockPosButtons) {
+                    if (button.isDockRoot()) {
+                        button.setVisible(accepts(dragged, null, button.getDockPos()));
+                    }
+                }
+                Point2D topLeft = DockPane.this.localToScreen(0, 0);
+                dockIndicatorOverlay.show(DockPane.this, topLeft.getX(), topLeft.getY());
+                rootButtonBounds = null;
+                if (dockAreaStrokeTimeline.getStatus() == Animation.Status.PAUSED) {
+                    dockAreaStrokeTimeline.play();
+                }
+            }
+        } else if (event.getEventType() == DockEvent.DOCK_OVER) {
+            long start = System.nanoTime();
+            this.receivedEnter = false;
+
+            boolean targetChanged = dockNodeDrag != dockIndicatorTarget;
+            if (targetChanged) {
+                dockIndicatorTarget = dockNodeDrag;
+                showDockPosIndicator(dragged);
+            }
+
+            DockPosButton hovered = pickDockPosButton(event.getScreenX(), event.getScreenY());
+            boolean changed = targetChanged || hovered != focusedDockPosButton;
+            if (hovered != focusedDockPosButton) {
+                if (focusedDockPosButton != null) {
+                    focusedDockPosButton.pseudoClassStateChanged(FOCUSED_PSEUDO_CLASS, false);
+                }
+                if (hovered != null) {
+                    hovered.pseudoClassStateChanged(FOCUSED_PSEUDO_CLASS, true);
+                }
+                focusedDockPosButton = hovered;
+            }
+            if (changed) {
+                dockPositionDrag = hovered != null ? hovered.getDockPos() : null;
+                dockAreaDrag = hovered != null && hovered.isDockRoot() ? getRoot() : dockNodeDrag;
+                updateDockAreaIndicator();
+            }
+            metrics.dockOver(changed, System.nanoTime() - start);
+        }
+
+        if (event.getEventType() == DockEvent.DOCK_RELEASED && event.getContents() != null) {
+            if (dockPositionDrag != null && dockIndicatorOverlay.isShowing()) {
+                DockNode dockNode = (DockNode) event.getContents();
+                dockNode.dock(this, dockPositionDrag, dockAreaDrag);
+            }
+        }
+
+        if ((event.getEventType() == DockEvent.DOCK_EXIT && !this.receivedEnter) || event.getEventType() == DockEvent.DOCK_RELEASED) {
+            hideDockIndicators();
+        }
+        if (event.getEventType() == DockEvent.DOCK_RELEASED) {
+            dropFinished();
+        }
+    }
+
+    /**
+     * Whether the target of a dock event is in a dock pane nested in a dock node of this dock pane.
+     * Only the innermost dock pane around the target handles the event, so that dragging over a
+     * nested dock pane shows only its indicators and drops only into its layout.
+     *
+     * @param target The target of the dock event.
+     * @return Whether the target is in a nested dock pane.
+     */
+    private boolean isInNestedDockPane(EventTarget target) {
+        Node node = target instanceof Node n ? n : null;
+        while (node != null && node != this) {
+            if (node instanceof DockPane) {
+                return true;
+            }
+            node = node.getParent();
+        }
+        return false;
+    }
+
+    /**
+     * Hide the dock indicators of this dock pane if they are showing.
+     */
+    private void hideDockIndicators() {
+        if (dockIndicatorPopup.isShowing() || dockIndicatorOverlay.isShowing()) {
+            dockIndicatorOverlay.hide();
+            dockIndicatorPopup.hide();
+        }
+        resetDockIndicators();
+        if (dockAreaStrokeTimeline.getStatus() == Animation.Status.RUNNING) {
+            dockAreaStrokeTimeline.pause();
+        }
+    }
+
+    /**
+     * The dock indicator buttons, the local ones before the root ones.
+     *
+     * @return The dock indicator buttons.
+     */
+    List<DockPosButton> getDockPosButtons() {
+        return dockPosButtons;
+    }
+
+    /**
+     * Show the local dock indicator buttons centered over the dock node that is dragged over, or hide
+     * them if the pointer is over no dock node. Only the buttons of the positions the drop filter
+     * accepts are shown. The cached screen bounds of the buttons are dropped as they moved with the
+     * popup.
+     *
+     * @param dragged The dragged dock node, null if it is not known.
+     */
+    private void showDockPosIndicator(DockNode dragged) {
+        localButtonBounds = null;
+        boolean accepted = false;
+        for (DockPosButton button : dockPosButtons) {
+            if (!button.isDockRoot()) {
+                button.setVisible(dockIndicatorTarget != null && accepts(dragged, dockIndicatorTarget, button.getDockPos()));
+                accepted |= button.isVisible();
+            }
+        }
+        if (!accepted) {
+            dockPosIndicator.setVisible(false);
+            return;
+        }
+        Point2D originToScreen = dockIndicatorTarget.localToScreen(0, 0);
+        if (!dockIndicatorPopup.isShowing()) {
+            dockIndicatorPopup.show(DockPane.this, originToScreen.getX(), originToScreen.getY());
+        }
+        // the indicator only gets the style sheets of the dock pane once its popup is shown, it is
+        // centered by its styled size so that it lands on the same spot however often it was shown
+        dockPosIndicator.applyCss();
+        dockPosIndicator.autosize();
+        dockPosIndicator.layout();
+        dockIndicatorPopup.setX(originToScreen.getX() + dockIndicatorTarget.getLayoutBounds().getWidth() / 2
+                - dockPosIndicator.getWidth() / 2);
+        dockIndicatorPopup.setY(originToScreen.getY() + dockIndicatorTarget.getLayoutBounds().getHeight() / 2
+                - dockPosIndicator.getHeight() / 2);
+
+        // set visible after moving the popup
+        dockPosIndicator.setVisible(true);
+    }
+
+    /**
+     * The dock indicator button at the screen location. The screen bounds of the buttons are
+     * measured once after their popup was shown or moved, so that hovering only compares rectangles.
+     * The local buttons take precedence over the root buttons beneath them.
+     *
+     * @param screenX The x coordinate on the screen.
+     * @param screenY The y coordinate on the screen.
+     * @return The dock indicator button at the location or null if there is none.
+     */
+    private DockPosButton pickDockPosButton(double screenX, double screenY) {
+        if (localButtonBounds == null) {
+            localButtonBounds = measureButtonBounds(false, dockIndicatorPopup.isShowing() && dockPosIndicator.isVisible());
+        }
+        if (rootButtonBounds == null) {
+            rootButtonBounds = measureButtonBounds(true, dockIndicatorOverlay.isShowing());
+        }
+        DockPosButton button = pickDockPosButton(localButtonBounds, screenX, screenY);
+        return button != null ? button : pickDockPosButton(rootButtonBounds, screenX, screenY);
+    }
+
+    private DockPosButton pickDockPosButton(double[] bounds, double screenX, double screenY) {
+        for (int i = 0; i < dockPosButtons.size(); i++) {
+            int j = i * 4;
+            if (screenX >= bounds[j] && screenX < bounds[j + 2] && screenY >= bounds[j + 1] && screenY < bounds[j + 3]) {
+                return dockPosButtons.get(i);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Measure the screen bounds of either the local or the root dock indicator buttons.
+     *
+     * @param dockRoot Whether to measure the root dock indicator buttons.
+     * @param showing  Whether the buttons are showing, the bounds of hidden buttons are left empty.
+     * @return The minimum x and y and the maximum x and y of each button in the order of the dock
+     * indicator buttons, NaN for the buttons that were not measured.
+     */
+    private double[] measureButtonBounds(boolean dockRoot, boolean showing) {
+        double[] bounds = new double[dockPosButtons.size() * 4];
+        Arrays.fill(bounds, Double.NaN);
+        for (int i = 0; showing && i < dockPosButtons.size(); i++) {
+            DockPosButton button = dockPosButtons.get(i);
+            Bounds screenBounds = button.isDockRoot() == dockRoot && button.isVisible()
+                    ? button.localToScreen(button.getLayoutBounds()) : null;
+            if (screenBounds != null) {
+                bounds[i * 4] = screenBounds.getMinX();
+                bounds[i * 4 + 1] = screenBounds.getMinY();
+                bounds[i * 4 + 2] = screenBounds.getMaxX();
+                bounds[i * 4 + 3] = screenBounds.getMaxY();
+            }
+        }
+        return bounds;
+    }
+
+    /**
+     * Show the docking area the hovered dock indicator button docks into, or hide it if no button is
+     * hovered.
+     */
+    private void updateDockAreaIndicator() {
+        if (dockPositionDrag == null || dockAreaDrag == null) {
+            dockAreaIndicator.setVisible(false);
+            return;
+        }
+        Point2D originToScene = dockAreaDrag.localToScene(0, 0).subtract(this.localToScene(0, 0));
+        Bounds area = dockAreaDrag.getLayoutBounds();
+
+        dockAreaIndicator.setVisible(true);
+        dockAreaIndicator.relocate(originToScene.getX(), originToScene.getY());
+        dockAreaIndicator.setTranslateX(dockPositionDrag == DockPosition.RIGHT ? area.getWidth() / 2 : 0);
+        dockAreaIndicator.setTranslateY(dockPositionDrag == DockPosition.BOTTOM ? area.getHeight() / 2 : 0);
+        if (dockPositionDrag == DockPosition.LEFT || dockPositionDrag == DockPosition.RIGHT) {
+            dockAreaIndicator.setWidth(area.getWidth() / 2);
+        } else {
+            dockAreaIndicator.setWidth(area.getWidth());
+        }
+        if (dockPositionDrag == DockPosition.TOP || dockPositionDrag == DockPosition.BOTTOM) {
+            dockAreaIndicator.setHeight(area.getHeight() / 2);
+        } else {
+            dockAreaIndicator.setHeight(area.getHeight());
+        }
+    }
+
+    /**
+     * Forget the dock indicator state of a drag that left this dock pane or was released, so the next
+     * drag measures the buttons and positions the indicators again.
+     */
+    private void resetDockIndicators() {
+        if (focusedDockPosButton != null) {
+            focusedDockPosButton.pseudoClassStateChanged(FOCUSED_PSEUDO_CLASS, false);
+            focusedDockPosButton = null;
+        }
+        dockIndicatorTarget = null;
+        localButtonBounds = null;
+        rootButtonBounds = null;
+    }
+
+    /**
+     * Base class for a dock indicator button that allows it to be displayed during a dock event and
+     * continue to receive input.
+     *
+     * @since 0.1
      */
     public static class DockPosButton extends Button {
         /**
@@ -586,6 +1984,20 @@ public class DockPane extends StackPane implements EventHandler<DockEvent> {
         }
     }
 
+    /**
+     * A dock request submitted from any thread.
+     *
+     * @param dockNode     The dock node to dock, float or close.
+     * @param kind         What to do with the dock node.
+     * @param dockPosition The docking position relative to the sibling of a dock request.
+     * @param sibling      The sibling of a dock request, null for the root.
+     */
+    private record DockRequest(DockNode dockNode, Kind kind, DockPosition dockPosition, Node sibling) {
+        enum Kind {
+            DOCK, FLOAT, CLOSE
+        }
+    }
+
     /**
      * A wrapper to the type parameterized generic EventHandler that allows us to remove it from its
      * listener when the dock node becomes detached. It is specifically used to monitor which dock
@@ -0,0 +1,335 @@
+/**
+ * @file DockPrewarmScheduler.java
+ * @brief Class implementing idle time building of dock node contents.
+ * @section License
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ **/
+
+package org.dockfx;
+
+import javafx.application.Platform;
+import javafx.beans.property.ObjectProperty;
+import javafx.beans.property.SimpleObjectProperty;
+import javafx.scene.Node;
+import javafx.scene.Scene;
+import javafx.scene.layout.StackPane;
+import javafx.util.Duration;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.function.Supplier;
+
+/**
+ * Builds the contents of dock nodes in small time slices while the application is idle so that lazily
+ * created contents are ready before they are first used. Dock nodes that are showing are always built
+ * first, followed by the others in order of their priority. Each slice builds contents until the
+ * pulse budget is used up, but always at least one. The slices run on the JavaFX application thread
+ * between pulses and never request a pulse themselves: while the scene of the dock pane waits for a
+ * layout pass the next slice waits for that pulse to finish, and nothing is scheduled once nothing is
+ * pending.
+ * <p>
+ * A dock node counts as showing once the placeholder set as its contents is laid out, which only
+ * happens in showing windows. A dock node that already had contents when it was scheduled counts as
+ * showing if it was showing at that time.
+ *
+ * @since DockFX 0.1
+ */
+public final class DockPrewarmScheduler {
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(DockPrewarmScheduler.class);
+
+    /**
+     * The dock pane this scheduler belongs to.
+     */
+    private final DockPane dockPane;
+    /**
+     * The order tasks are run in, by priority and then by scheduling order.
+     */
+    private static final Comparator<Task> ORDER = Comparator.comparingInt((Task task) -> -task.priority)
+            .thenComparingLong(task -> task.sequence);
+
+    /**
+     * The dock nodes waiting for their contents that are showing.
+     */
+    private final PriorityQueue<Task> shown = new PriorityQueue<>(ORDER);
+    /**
+     * The dock nodes waiting for their contents that are not showing.
+     */
+    private final PriorityQueue<Task> hidden = new PriorityQueue<>(ORDER);
+    /**
+     * The number of tasks scheduled so far used to keep the scheduling order among equal priorities.
+     */
+    private long sequence;
+    /**
+     * Whether a slice is posted to the application thread or waits for the next pulse.
+     */
+    private boolean running;
+    /**
+     * Incremented whenever the scheduler stops, so that a slice posted before does not run.
+     */
+    private long generation;
+    /**
+     * The scene the next slice waits for the layout pass of, or null.
+     */
+    private Scene waitingScene;
+    /**
+     * Posts the next slice once the layout pass of the scene is done.
+     */
+    private final Runnable afterLayout = this::afterLayout;
+
+    private final ObjectProperty<Duration> pulseBudgetProperty = new SimpleObjectProperty<>(Duration.millis(4)) {
+        @Override
+        public String getName() {
+            return "pulseBudget";
+        }
+    };
+
+    DockPrewarmScheduler(DockPane dockPane) {
+        this.dockPane = dockPane;
+    }
+
+    /**
+     * The time the scheduler may spend building contents in a single slice between two pulses. At
+     * least one dock node is built in every slice regardless of the budget.
+     *
+     * @defaultValue 4 ms
+     */
+    public ObjectProperty<Duration> pulseBudgetProperty() {
+        return pulseBudgetProperty;
+    }
+
+    public Duration getPulseBudget() {
+        return pulseBudgetProperty.get();
+    }
+
+    public void setPulseBudget(Duration pulseBudget) {
+        pulseBudgetProperty.set(pulseBudget);
+    }
+
+    /**
+     * Schedule the contents of the dock node to be built with the default priority of zero.
+     *
+     * @param dockNode       The dock node to build the contents of.
+     * @param contentFactory The factory creating the contents.
+     */
+    public void schedule(DockNode dockNode, Supplier<? extends Node> contentFactory) {
+        schedule(dockNode, contentFactory, 0);
+    }
+
+    /**
+     * Schedule the contents of the dock node to be built. A placeholder is set as the contents of the
+     * dock node if it has none yet so that it can be docked right away. Scheduling a dock node again
+     * replaces its previous factory and priority.
+     *
+     * @param dockNode       The dock node to build the contents of.
+     * @param contentFactory The factory creating the contents.
+     * @param priority       The priority of the dock node, higher priorities are built first.
+     */
+    public void schedule(DockNode dockNode, Supplier<? extends Node> contentFactory, int priority) {
+        Objects.requireNonNull(dockNode, "dockNode");
+        Objects.requireNonNull(contentFactory, "contentFactory");
+
+        cancel(dockNode);
+        Task task = new Task(dockNode, contentFactory, priority, sequence++);
+        if (dockNode.getContents() == null) {
+            dockNode.setContents(new PrewarmPlaceholder(task));
+        } else if (dockNode.getContents() instanceof PrewarmPlaceholder placeholder) {
+            placeholder.task = task;
+        }
+        (dockNode.isShown() ? shown : hidden).add(task);
+
+        dockPane.getMetrics().prewarmStarted(System.nanoTime());
+        if (!running) {
+            running = true;
+            post();
+        }
+    }
+
+    /**
+     * Build the contents of the dock node right away if they are still pending, for example because
+     * the dock node is about to be shown.
+     *
+     * @param dockNode The dock node to build the contents of.
+     * @return Whether the contents were pending and have been built.
+     */
+    public boolean warm(DockNode dockNode) {
+        Task task = remove(dockNode);
+        if (task == null) {
+            return false;
+        }
+        build(task);
+        return true;
+    }
+
+    /**
+     * Remove the dock node from the scheduler without building its contents.
+     *
+     * @param dockNode The dock node to remove.
+     */
+    public void cancel(DockNode dockNode) {
+        remove(dockNode);
+    }
+
+    /**
+     * Remove every pending dock node without building its contents and stop the scheduler.
+     */
+    public void cancelAll() {
+        shown.clear();
+        hidden.clear();
+        stop();
+    }
+
+    /**
+     * The number of dock nodes still waiting for their contents.
+     *
+     * @return The number of pending dock nodes.
+     */
+    public int getPendingCount() {
+        return shown.size() + hidden.size();
+    }
+
+    /**
+     * Remove the pending task of the dock node.
+     *
+     * @param dockNode The dock node.
+     * @return The removed task or null if the dock node was not pending.
+     */
+    private Task remove(DockNode dockNode) {
+        for (PriorityQueue<Task> queue : List.of(shown, hidden)) {
+            for (Task task : queue) {
+                if (task.dockNode == dockNode) {
+                    queue.remove(task);
+                    return task;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Build contents until the pulse budget is used up, unless the scene of the dock pane is about to
+     * be laid out, in which case the slice waits for that pulse to be done first.
+     */
+    private void slice() {
+        if (getPendingCount() == 0) {
+            stop();
+            return;
+        }
+        Scene scene = dockPane.getScene();
+        if (scene != null && scene.getWindow() != null && scene.getWindow().isShowing()
+                && scene.getRoot().isNeedsLayout()) {
+            waitingScene = scene;
+            scene.addPostLayoutPulseListener(afterLayout);
+            return;
+        }
+
+        long start = System.nanoTime();
+        long deadline = start + (long) (getPulseBudget().toMillis() * 1_000_000);
+
+        int warmed = 0;
+        do {
+            Task task = shown.isEmpty() ? hidden.poll() : shown.poll();
+            if (task == null) {
+                break;
+            }
+            build(task);
+            warmed++;
+        } while (System.nanoTime() < deadline);
+
+        long now = System.nanoTime();
+        DockMetrics metrics = dockPane.getMetrics();
+        metrics.prewarmPulse(warmed, now - start);
+        if (getPendingCount() == 0) {
+            metrics.prewarmFinished(now);
+            stop();
+            return;
+        }
+        if (shown.isEmpty()) {
+            metrics.prewarmInteractive(now);
+        }
+        post();
+    }
+
+    /**
+     * Post the next slice to the application thread.
+     */
+    private void post() {
+        long posted = generation;
+        Platform.runLater(() -> {
+            if (posted == generation) {
+                slice();
+            }
+        });
+    }
+
+    /**
+     * Post the next slice after the layout pass the previous one waited for.
+     */
+    private void afterLayout() {
+        stopWaiting();
+        post();
+    }
+
+    private void stopWaiting() {
+        if (waitingScene != null) {
+            waitingScene.removePostLayoutPulseListener(afterLayout);
+            waitingScene = null;
+        }
+    }
+
+    /**
+     * Build and style the contents of the task's dock node.
+     *
+     * @param task The task to run.
+     */
+    private void build(Task task) {
+        Node contents;
+        try {
+            contents = task.contentFactory.get();
+        } catch (RuntimeException e) {
+            log.error("Could not create the contents of {}", task.dockNode.getTitle(), e);
+            return;
+        }
+        task.dockNode.setContents(contents);
+        // a node outside of a scene has no styles to apply yet, this is done when it is first shown
+        if (contents.getScene() != null) {
+            contents.applyCss();
+        }
+    }
+
+    private void stop() {
+        running = false;
+        generation++;
+        stopWaiting();
+    }
+
+    /**
+     * A dock node waiting for its contents.
+     */
+    private record Task(DockNode dockNode, Supplier<? extends Node> contentFactory, int priority, long sequence) {
+    }
+
+    /**
+     * The placeholder shown until the contents are built. Layout only runs for scenes of showing
+     * windows, so laying out the placeholder moves its dock node to the showing ones.
+     */
+    private final class PrewarmPlaceholder extends StackPane {
+        private Task task;
+
+        private PrewarmPlaceholder(Task task) {
+            this.task = task;
+            getStyleClass().add("dock-content-placeholder");
+        }
+
+        @Override
+        protected void layoutChildren() {
+            super.layoutChildren();
+            if (hidden.remove(task)) {
+                shown.add(task);
+            }
+        }
+    }
+}
@@ -0,0 +1,56 @@
+/**
+ * @file DockSplit.java
+ * @brief Interface of the split containers making up the layout of a dock pane.
+ * @section License
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ **/
+
+package org.dockfx;
+
+import javafx.collections.ObservableList;
+import javafx.collections.ObservableMap;
+import javafx.geometry.Orientation;
+import javafx.scene.Node;
+
+/**
+ * A container laying out its items next to each other separated by draggable dividers. The layout
+ * of a dock pane is a tree of these containers, which are created by the split factory of the dock
+ * pane. Implementations must be nodes and are either the default SplitPane based container or a
+ * {@link DockSplitPane}.
+ *
+ * @since DockFX 0.1
+ */
+public interface DockSplit {
+    /**
+     * The items laid out by this container.
+     *
+     * @return The items of this container.
+     */
+    ObservableList<Node> getItems();
+
+    Orientation getOrientation();
+
+    void setOrientation(Orientation orientation);
+
+    /**
+     * The positions of the dividers between the items as fractions of the size of this container.
+     *
+     * @return A copy of the divider positions.
+     */
+    double[] getDividerPositions();
+
+    /**
+     * Set the positions of all dividers at once.
+     *
+     * @param positions The divider positions as fractions of the size of this container.
+     */
+    void setDividerPositions(double... positions);
+
+    double getWidth();
+
+    double getHeight();
+
+    ObservableMap<Object, Object> getProperties();
+}
@@ -0,0 +1,1111 @@
+/**
+ * @file DockSplitLayout.java
+ * @brief Class implementing the layout engine arranging dock nodes in a tree of split containers.
+ * @section License
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ **/
+
+package org.dockfx;
+
+import javafx.collections.ObservableList;
+import javafx.event.EventHandler;
+import javafx.geometry.Bounds;
+import javafx.geometry.Orientation;
+import javafx.scene.Node;
+import javafx.scene.control.SplitPane;
+import javafx.scene.input.MouseEvent;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Stack;
+
+/**
+ * The default layout engine of a dock pane. It arranges the dock nodes in a tree of split containers
+ * created by the split factory of the dock pane, using the relative sizes of the dock nodes. Docking
+ * a node to the left or the right of a sibling puts it next to the sibling in a horizontal split
+ * container, docking it to the top or the bottom in a vertical one. The tree is kept flat, and the
+ * weights of the items survive resizes of the dock pane.
+ *
+ * @since DockFX 0.1
+ */
+public final class DockSplitLayout implements DockLayoutEngine {
+    /**
+     * The key of the split pane property holding the weights of its items.
+     */
+    private static final String DOCK_WEIGHTS = "dockfx-weights";
+
+    /**
+     * The dock pane this layout engine is attached to.
+     */
+    private DockPane dockPane;
+    /**
+     * The current root node of the layout.
+     */
+    private Node root;
+    /**
+     * The size the layout was last solved for.
+     */
+    private double solvedWidth;
+    private double solvedHeight;
+    /**
+     * Keeps the divider positions a user dragged a divider to as the weights of the items.
+     */
+    private final EventHandler<MouseEvent> dividerReleasedHandler = this::handleDividerReleased;
+
+    @Override
+    public void attach(DockPane dockPane) {
+        this.dockPane = dockPane;
+        dockPane.addEventFilter(MouseEvent.MOUSE_RELEASED, dividerReleasedHandler);
+    }
+
+    @Override
+    public void detach() {
+        if (dockPane != null) {
+            dockPane.removeEventFilter(MouseEvent.MOUSE_RELEASED, dividerReleasedHandler);
+        }
+        dockPane = null;
+        root = null;
+        solvedWidth = 0;
+        solvedHeight = 0;
+    }
+
+    @Override
+    public Node getRoot() {
+        return root;
+    }
+
+    @Override
+    public List<Node> getNodes() {
+        List<Node> nodes = new ArrayList<>();
+        if (root instanceof DockSplit split) {
+            addNodes(split, nodes);
+        }
+        return nodes;
+    }
+
+    /**
+     * Add the items of the split pane and its descendants that are not split panes in order.
+     *
+     * @param split The split pane.
+     * @param nodes The list to add the nodes to.
+     */
+    private static void addNodes(DockSplit split, List<Node> nodes) {
+        for (Node item : split.getItems()) {
+            if (isDockSplit(item)) {
+                addNodes((DockSplit) item, nodes);
+            } else {
+                nodes.add(item);
+            }
+        }
+    }
+
+    @Override
+    public void dock(Node node, DockPosition dockPosition, Node sibling) {
+        DockSplit split = (DockSplit) root;
+        if (split == null) {
+            split = createSplit();
+            split.getItems().add(node);
+            root = (Node) split;
+            return;
+        }
+
+        // find the parent of the sibling, the contents of the docked nodes are never walked
+        if (sibling != null && sibling != root) {
+            DockSplit parent = findParent(sibling);
+            if (parent != null) {
+                split = parent;
+            }
+        }
+
+        Orientation requestedOrientation = (dockPosition == DockPosition.LEFT || dockPosition == DockPosition.RIGHT)
+                ? Orientation.HORIZONTAL : Orientation.VERTICAL;
+
+        // if the orientation is different then reparent the split pane
+        boolean reoriented = false;
+        if (split.getOrientation() != requestedOrientation) {
+            if (split.getItems().size() > 1) {
+                DockSplit splitPane = createSplit();
+                if (split == root && sibling == root) {
+                    splitPane.getItems().add(root);
+                    root = (Node) splitPane;
+                } else {
+                    split.getItems().set(split.getItems().indexOf(sibling), (Node) splitPane);
+                    splitPane.getItems().add(sibling);
+                }
+
+                split = splitPane;
+            } else {
+                reoriented = true;
+            }
+            split.setOrientation(requestedOrientation);
+        }
+
+        // finally dock the node to the correct split pane
+        ObservableList<Node> splitItems = split.getItems();
+        List<Double> weights = getWeights(split);
+
+        int relativeIndex = 0;
+        if (dockPosition == DockPosition.LEFT || dockPosition == DockPosition.TOP) {
+            if (sibling != null && sibling != root) {
+                relativeIndex = splitItems.indexOf(sibling);
+            }
+        } else if (dockPosition == DockPosition.RIGHT || dockPosition == DockPosition.BOTTOM) {
+            relativeIndex = splitItems.size();
+            if (sibling != null && sibling != root) {
+                relativeIndex = splitItems.indexOf(sibling) + 1;
+            }
+        }
+
+        splitItems.add(relativeIndex, node);
+        weights.add(relativeIndex, getSize(node, split.getOrientation()));
+        solve(split, weights, getExtent(split));
+
+        // a split pane with a single item that changed its orientation may now match its parent
+        if (reoriented) {
+            normalize(split);
+        }
+    }
+
+    /**
+     * Create a split container for the layout of this dock pane using the split factory.
+     *
+     * @return The new split container.
+     */
+    private DockSplit createSplit() {
+        DockSplit split = dockPane.getSplitFactory().get();
+        if (!(split instanceof Node)) {
+            throw new IllegalStateException("The split factory must create nodes: " + split);
+        }
+        return split;
+    }
+
+    /**
+     * Whether the node is a split container of the layout. Split panes docked by the user do not
+     * implement DockSplit and are never normalized.
+     *
+     * @param node The node to test.
+     * @return Whether the node is a layout split container.
+     */
+    private static boolean isDockSplit(Node node) {
+        return node instanceof DockSplit;
+    }
+
+    /**
+     * Normalize the layout after a change of the split pane so that it never contains empty split
+     * panes, split panes with a single item or split panes nested in a split pane of the same
+     * orientation. Every one of them adds a skin, dividers and a layout pass without changing what is
+     * shown. Only the changed split pane and its ancestors can be affected, so only they are
+     * flattened. Finding the ancestors searches the split panes of the layout from the root, as the
+     * split panes keep no links to their parents, but never the contents of the docked nodes. The
+     * root stays a split pane, but a root with a single split pane item is replaced by that item.
+     *
+     * @param changed The split pane whose items changed.
+     */
+    private void normalize(DockSplit changed) {
+        List<DockSplit> path = findPath(changed);
+        for (int i = path.size() - 1; i >= 0; i--) {
+            flatten(path.get(i));
+        }
+
+        while (root instanceof DockSplit split && split.getItems().size() == 1 && isDockSplit(split.getItems().get(0))) {
+            Node item = split.getItems().get(0);
+            split.getItems().clear();
+            root = item;
+        }
+    }
+
+    /**
+     * Find the split panes from the root down to the given split pane. This searches the split panes
+     * of the layout depth first, the contents of the docked nodes are never walked.
+     *
+     * @param target The split pane to find.
+     * @return The split panes from the root to the target or an empty list if the target is not part
+     * of the layout.
+     */
+    private List<DockSplit> findPath(DockSplit target) {
+        if (!(root instanceof DockSplit)) {
+            return List.of();
+        }
+
+        Map<DockSplit, DockSplit> parents = new HashMap<>();
+        Stack<DockSplit> stack = new Stack<>();
+        stack.push((DockSplit) root);
+        while (!stack.isEmpty()) {
+            DockSplit split = stack.pop();
+            if (split == target) {
+                List<DockSplit> path = new ArrayList<>();
+                for (DockSplit s = target; s != null; s = parents.get(s)) {
+                    path.add(0, s);
+                }
+                return path;
+            }
+            for (Node item : split.getItems()) {
+                if (isDockSplit(item)) {
+                    parents.put((DockSplit) item, split);
+                    stack.push((DockSplit) item);
+                }
+            }
+        }
+        return List.of();
+    }
+
+    /**
+     * Flatten the split pane items of the split pane that are empty, have a single item or have the
+     * orientation of the split pane. A split pane item taking the place of its single item or being
+     * merged keeps the space it had, and the space of an empty split pane item goes to the item before
+     * it.
+     *
+     * @param split The split pane to flatten.
+     */
+    private void flatten(DockSplit split) {
+        ObservableList<Node> items = split.getItems();
+        boolean flatten = false;
+        for (Node item : items) {
+            if (isDockSplit(item)) {
+                DockSplit child = (DockSplit) item;
+                flatten |= child.getItems().size() <= 1 || child.getOrientation() == split.getOrientation();
+            }
+        }
+        if (!flatten) {
+            return;
+        }
+
+        double extent = getNominalExtent(split);
+        double[] positions = getDividerPositions(split);
+        List<Node> flatItems = new ArrayList<>();
+        List<Double> flatWeights = new ArrayList<>();
+        double start = 0;
+        for (int i = 0; i < items.size(); i++) {
+            double end = i < positions.length ? positions[i] : 1;
+            Node item = items.get(i);
+            // a single split pane item takes the place of its parent
+            while (isDockSplit(item) && ((DockSplit) item).getItems().size() == 1) {
+                DockSplit single = (DockSplit) item;
+                item = single.getItems().get(0);
+                single.getItems().clear();
+            }
+
+            if (isDockSplit(item) && ((DockSplit) item).getOrientation() == split.getOrientation()) {
+                DockSplit child = (DockSplit) item;
+                double[] childPositions = getDividerPositions(child);
+                double childStart = 0;
+                for (int j = 0; j < child.getItems().size(); j++) {
+                    double childEnd = j < childPositions.length ? childPositions[j] : 1;
+                    flatItems.add(child.getItems().get(j));
+                    flatWeights.add((childEnd - childStart) * (end - start) * extent);
+                    childStart = childEnd;
+                }
+                child.getItems().clear();
+            } else if (!isDockSplit(item) || !((DockSplit) item).getItems().isEmpty()) {
+                flatItems.add(item);
+                flatWeights.add((end - start) * extent);
+            } else if (!flatWeights.isEmpty()) {
+                // the space of an empty split pane goes to the item before it
+                flatWeights.set(flatWeights.size() - 1, flatWeights.get(flatWeights.size() - 1) + (end - start) * extent);
+            }
+            start = end;
+        }
+
+        items.setAll(flatItems);
+        solve(split, flatWeights, getExtent(split));
+    }
+
+    /**
+     * The weights of the items of the split pane in their current order. The weights the divider
+     * positions were last solved from are kept, even when the split pane clamped its dividers to the
+     * minimum sizes of its items, so the proportions come back once there is enough space again.
+     * Weights are taken from the divider positions when the user finished dragging a divider or when
+     * the items were changed by someone else.
+     *
+     * @param split The split pane.
+     * @return A modifiable list of the weights of the items.
+     */
+    private List<Double> getWeights(DockSplit split) {
+        ObservableList<Node> items = split.getItems();
+        SplitWeights state = (SplitWeights) split.getProperties().get(DOCK_WEIGHTS);
+        List<Double> weights = new ArrayList<>(items.size());
+        if (state != null && state.matches(split)) {
+            for (double weight : state.weights()) {
+                weights.add(weight);
+            }
+        } else if (items.size() > 1 && (state != null || getExtent(split) > 0)) {
+            weights.addAll(getWeightsFromPositions(split));
+        } else {
+            for (Node item : items) {
+                weights.add(getSize(item, split.getOrientation()));
+            }
+        }
+        return weights;
+    }
+
+    /**
+     * The weights of the items of the split pane that reproduce its current divider positions.
+     *
+     * @param split The split pane.
+     * @return The weights of the items.
+     */
+    private static List<Double> getWeightsFromPositions(DockSplit split) {
+        double extent = getNominalExtent(split);
+        double[] positions = getDividerPositions(split);
+        List<Double> weights = new ArrayList<>(split.getItems().size());
+        double start = 0;
+        for (int i = 0; i < split.getItems().size(); i++) {
+            double end = i < positions.length ? positions[i] : 1;
+            weights.add((end - start) * extent);
+            start = end;
+        }
+        return weights;
+    }
+
+    /**
+     * Keep the divider positions a user dragged the divider of a layout split pane to as the weights
+     * of its items. A single filter on the dock pane replaces listeners on every divider.
+     *
+     * @param event The mouse released event.
+     */
+    private void handleDividerReleased(MouseEvent event) {
+        boolean divider = false;
+        for (Node node = event.getPickResult().getIntersectedNode(); node != null && node != dockPane; node = node.getParent()) {
+            if (node.getStyleClass().contains("split-pane-divider")
+                    || node.getStyleClass().contains(DockSplitPane.DIVIDER_STYLE_CLASS)) {
+                divider = true;
+            } else if (node instanceof DockSplit split) {
+                if (divider) {
+                    double[] previous = toArray(getWeights(split));
+                    double[] w = toArray(getWeightsFromPositions(split));
+                    split.getProperties().put(DOCK_WEIGHTS, new SplitWeights(split.getItems().toArray(new Node[0]),
+                            split.getOrientation(), w));
+                    dockPane.dividersMoved(getPath(split), previous, w);
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Solve the divider positions of the split pane from the weights of its items and the minimum
+     * sizes of the items, setting all of them at once.
+     *
+     * @param split   The split pane.
+     * @param weights The weights of the items.
+     * @param extent  The size of the split pane along its orientation or zero if it is unknown.
+     */
+    private void solve(DockSplit split, List<Double> weights, double extent) {
+        ObservableList<Node> items = split.getItems();
+        double[] w = new double[items.size()];
+        double[] minimums = new double[items.size()];
+        for (int i = 0; i < w.length; i++) {
+            w[i] = weights.get(i);
+            double minimum = split.getOrientation() == Orientation.HORIZONTAL
+                    ? items.get(i).minWidth(-1) : items.get(i).minHeight(-1);
+            minimums[i] = Double.isFinite(minimum) ? minimum : 0;
+        }
+
+        double[] positions = DockWeights.solve(w, minimums, extent);
+        split.setDividerPositions(positions);
+        split.getProperties().put(DOCK_WEIGHTS, new SplitWeights(items.toArray(new Node[0]),
+                split.getOrientation(), w));
+    }
+
+    /**
+     * Solve the divider positions of the split pane and its descendants for a new size, keeping the
+     * weights of their items.
+     *
+     * @param split  The split pane.
+     * @param width  The new width of the split pane.
+     * @param height The new height of the split pane.
+     */
+    private void solve(DockSplit split, double width, double height) {
+        boolean horizontal = split.getOrientation() == Orientation.HORIZONTAL;
+        double extent = horizontal ? width : height;
+        solve(split, getWeights(split), extent);
+
+        double[] positions = split.getDividerPositions();
+        double start = 0;
+        for (int i = 0; i < split.getItems().size(); i++) {
+            double end = i < positions.length ? positions[i] : 1;
+            if (isDockSplit(split.getItems().get(i))) {
+                solve((DockSplit) split.getItems().get(i), horizontal ? (end - start) * width : width,
+                        horizontal ? height : (end - start) * height);
+            }
+            start = end;
+        }
+    }
+
+    @Override
+    public void resize(double width, double height) {
+        // solve the layout for the new size before the split panes clamp their dividers to it
+        if (root instanceof DockSplit split && width > 0 && height > 0
+                && (width != solvedWidth || height != solvedHeight)) {
+            solvedWidth = width;
+            solvedHeight = height;
+            solve(split, width, height);
+        }
+    }
+
+    /**
+     * The size of the split pane along its orientation.
+     *
+     * @param split The split pane.
+     * @return The size of the split pane along its orientation or zero if it was not laid out yet.
+     */
+    private static double getExtent(DockSplit split) {
+        return split.getOrientation() == Orientation.HORIZONTAL ? split.getWidth() : split.getHeight();
+    }
+
+    /**
+     * The size of the split pane along its orientation if it was laid out, or else the total weight
+     * of its items, which is the size its divider positions were solved for.
+     *
+     * @param split The split pane.
+     * @return The nominal size of the split pane.
+     */
+    private static double getNominalExtent(DockSplit split) {
+        double extent = getExtent(split);
+        if (extent > 0) {
+            return extent;
+        }
+        SplitWeights state = (SplitWeights) split.getProperties().get(DOCK_WEIGHTS);
+        extent = 0;
+        if (state != null) {
+            for (double weight : state.weights()) {
+                extent += Math.max(0, weight);
+            }
+        }
+        return extent > 0 ? extent : 1;
+    }
+
+    /**
+     * The size of the node along the orientation, its current size if it was laid out and otherwise
+     * its preferred size.
+     *
+     * @param node        The node.
+     * @param orientation The orientation.
+     * @return The size of the node along the orientation.
+     */
+    private static double getSize(Node node, Orientation orientation) {
+        Bounds bounds = node.getLayoutBounds();
+        double size = orientation == Orientation.HORIZONTAL ? bounds.getWidth() : bounds.getHeight();
+        if (size > 0) {
+            return size;
+        }
+        return orientation == Orientation.HORIZONTAL ? node.prefWidth(-1) : node.prefHeight(-1);
+    }
+
+    /**
+     * The divider positions of the split pane, spread evenly if they are not yet known. Docking nodes
+     * without a preferred size leaves divider positions that are not a number.
+     *
+     * @param split The split pane.
+     * @return The divider positions of the split pane.
+     */
+    private static double[] getDividerPositions(DockSplit split) {
+        double[] positions = split.getDividerPositions();
+        for (double position : positions) {
+            if (Double.isNaN(position)) {
+                for (int i = 0; i < positions.length; i++) {
+                    positions[i] = (i + 1) / (double) (positions.length + 1);
+                }
+                break;
+            }
+        }
+        return positions;
+    }
+
+    @Override
+    public boolean undock(Node node) {
+        // the contents of the docked nodes are never walked
+        DockSplit split = findParent(node);
+        if (split == null) {
+            return false;
+        }
+
+        // the remaining items keep their weights and share the space of the node
+        ObservableList<Node> items = split.getItems();
+        int index = items.indexOf(node);
+        List<Double> weights = getWeights(split);
+        items.remove(index);
+        weights.remove(index);
+        solve(split, weights, getExtent(split));
+
+        // remove the split panes left empty or with a single item
+        normalize(split);
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * A split pane takes an item out of the scene whenever it is removed and added again, so a node
+     * moved within its split pane, or turned around its only sibling, keeps its place in the scene
+     * graph when it passes a single item, which is moved to its other side instead. Any other move
+     * removes the node and docks it again.
+     */
+    @Override
+    public void move(Node node, DockPosition dockPosition, Node sibling) {
+        Orientation requestedOrientation = (dockPosition == DockPosition.LEFT || dockPosition == DockPosition.RIGHT)
+                ? Orientation.HORIZONTAL : Orientation.VERTICAL;
+        boolean relativeToRoot = sibling == null || sibling == root;
+        DockSplit split = findParent(node);
+        if (split != null && (relativeToRoot ? split == root : findParent(sibling) == split)) {
+            if (split.getOrientation() == requestedOrientation) {
+                reorder(split, node, dockPosition, relativeToRoot ? null : sibling);
+                return;
+            }
+            // a split pane of two items is turned unless it would have to be merged into its parent
+            DockSplit parent = split == root ? null : findParent((Node) split);
+            if (!relativeToRoot && split.getItems().size() == 2
+                    && (parent == null || parent.getOrientation() != requestedOrientation)) {
+                List<Double> weights = getWeights(split);
+                split.setOrientation(requestedOrientation);
+                reorder(split, weights, node, dockPosition, sibling);
+                return;
+            }
+        }
+
+        undock(node);
+        dock(node, dockPosition, relativeToRoot ? root : sibling);
+    }
+
+    /**
+     * Move the node to the docking position relative to the sibling within its split pane.
+     *
+     * @param split        The split pane holding the node and the sibling.
+     * @param node         The node to move.
+     * @param dockPosition The docking position, along the orientation of the split pane.
+     * @param sibling      The item to move the node next to or null to move it to either end.
+     */
+    private void reorder(DockSplit split, Node node, DockPosition dockPosition, Node sibling) {
+        reorder(split, getWeights(split), node, dockPosition, sibling);
+    }
+
+    private void reorder(DockSplit split, List<Double> weights, Node node, DockPosition dockPosition, Node sibling) {
+        ObservableList<Node> items = split.getItems();
+        int from = items.indexOf(node);
+        boolean before = dockPosition == DockPosition.LEFT || dockPosition == DockPosition.TOP;
+        int to;
+        if (sibling == null) {
+            to = before ? 0 : items.size() - 1;
+        } else {
+            int index = items.indexOf(sibling);
+            to = before ? index : index + 1;
+            // the index among the items without the node
+            if (index > from) {
+                to--;
+            }
+        }
+
+        // whichever side is smaller leaves the scene graph, the node itself when it passes several items
+        if (Math.abs(to - from) > 1) {
+            items.remove(from);
+            items.add(to, node);
+        } else if (to != from) {
+            items.add(from, items.remove(to));
+        }
+        weights.add(to, weights.remove(from));
+        solve(split, weights, getExtent(split));
+    }
+
+    /**
+     * The weights of the items of the split pane holding the node.
+     *
+     * @param node The docked node.
+     * @return The weights of the items of the split pane holding the node or null if the node is not
+     * docked.
+     */
+    double[] getParentWeights(Node node) {
+        DockSplit split = findParent(node);
+        return split == null ? null : toArray(getWeights(split));
+    }
+
+    /**
+     * Find the split pane holding the node. Only split panes are searched, the contents of the docked
+     * nodes are never walked.
+     *
+     * @param node The docked node or split pane.
+     * @return The split pane holding the node or null if it is not part of the layout.
+     */
+    private DockSplit findParent(Node node) {
+        if (!(root instanceof DockSplit rootSplit)) {
+            return null;
+        }
+        Stack<DockSplit> stack = new Stack<>();
+        stack.push(rootSplit);
+        while (!stack.isEmpty()) {
+            DockSplit split = stack.pop();
+            for (Node item : split.getItems()) {
+                if (item == node) {
+                    return split;
+                } else if (isDockSplit(item)) {
+                    stack.push((DockSplit) item);
+                }
+            }
+        }
+        return null;
+    }
+
+    private static double[] toArray(List<Double> weights) {
+        double[] w = new double[weights.size()];
+        for (int i = 0; i < w.length; i++) {
+            w[i] = weights.get(i);
+        }
+        return w;
+    }
+
+    /**
+     * The place of the docked node in the layout, described by the item that takes its place once it
+     * is removed, so that docking it next to that item restores the layout. That is the item before
+     * or after it when its split pane keeps at least two items, and otherwise the other item of the
+     * split pane, which replaces the split pane in its parent. A split pane item is merged into the
+     * parent then, so its items together take the place. A node of a root with at most two items is
+     * docked relative to the root again.
+     *
+     * @param node The docked node.
+     * @return The place of the node or null if it is not docked.
+     */
+    DockUndoManager.Place locate(Node node) {
+        DockSplit split = findParent(node);
+        if (split == null) {
+            return null;
+        }
+        List<Node> items = split.getItems();
+        int index = items.indexOf(node);
+        boolean after = index > 0;
+        Node neighbor = null;
+        if (items.size() > 2) {
+            neighbor = items.get(after ? index - 1 : index + 1);
+        } else if (items.size() == 2 && split != root) {
+            neighbor = items.get(1 - index);
+        }
+        DockPosition dockPosition = split.getOrientation() == Orientation.HORIZONTAL
+                ? after ? DockPosition.RIGHT : DockPosition.LEFT
+                : after ? DockPosition.BOTTOM : DockPosition.TOP;
+        return DockUndoManager.Place.of(neighbor == null ? null : getLeaf(neighbor, true),
+                neighbor == null ? null : getLeaf(neighbor, false), dockPosition, toArray(getWeights(split)));
+    }
+
+    /**
+     * The first or the last docked node of an item of the layout.
+     */
+    private static Node getLeaf(Node item, boolean first) {
+        while (isDockSplit(item) && !((DockSplit) item).getItems().isEmpty()) {
+            List<Node> items = ((DockSplit) item).getItems();
+            item = items.get(first ? 0 : items.size() - 1);
+        }
+        return item;
+    }
+
+    /**
+     * The sibling to dock a node relative to for it to be docked next to the neighbor of a place,
+     * given by its first and last docked node. That is the item of the layout spanning exactly the
+     * docked nodes from the first to the last. Adjacent items of a split pane spanning them together
+     * are grouped into a new split pane of the same orientation first, keeping their weights.
+     *
+     * @param first The first docked node of the neighbor, null for the root.
+     * @param last  The last docked node of the neighbor, null for the root.
+     * @return The sibling to dock relative to, the root if there is no neighbor or it is gone.
+     */
+    Node group(Node first, Node last) {
+        DockSplit firstParent = first == null ? null : findParent(first);
+        DockSplit lastParent = last == null ? null : findParent(last);
+        if (firstParent == null || lastParent == null) {
+            return root;
+        } else if (first == last) {
+            return first;
+        }
+
+        // the deepest split pane holding both docked nodes
+        List<DockSplit> firstPath = findPath(firstParent);
+        List<DockSplit> lastPath = findPath(lastParent);
+        int depth = 0;
+        while (depth + 1 < firstPath.size() && depth + 1 < lastPath.size()
+                && firstPath.get(depth + 1) == lastPath.get(depth + 1)) {
+            depth++;
+        }
+        DockSplit split = firstPath.get(depth);
+        List<Node> items = split.getItems();
+        int start = items.indexOf(depth + 1 < firstPath.size() ? (Node) firstPath.get(depth + 1) : first);
+        int end = items.indexOf(depth + 1 < lastPath.size() ? (Node) lastPath.get(depth + 1) : last) + 1;
+        if (getLeaf(items.get(start), true) != first || getLeaf(items.get(end - 1), false) != last) {
+            return first;
+        } else if (start == 0 && end == items.size()) {
+            return (Node) split;
+        }
+
+        List<Double> weights = getWeights(split);
+        List<Double> groupWeights = new ArrayList<>(weights.subList(start, end));
+        double total = 0;
+        for (double weight : groupWeights) {
+            total += weight;
+        }
+        List<Node> grouped = new ArrayList<>(items.subList(start, end));
+        DockSplit group = createSplit();
+        group.setOrientation(split.getOrientation());
+        items.subList(start, end).clear();
+        group.getItems().setAll(grouped);
+        items.add(start, (Node) group);
+        weights.subList(start, end).clear();
+        weights.add(start, total);
+        solve(split, weights, getExtent(split));
+        solve(group, groupWeights, 0);
+        return (Node) group;
+    }
+
+    /**
+     * Set the weights of the items of the split pane holding the node.
+     *
+     * @param node    The docked node.
+     * @param weights The weights, ignored unless there is one for every item.
+     */
+    void setParentWeights(Node node, double[] weights) {
+        DockSplit split = findParent(node);
+        if (split != null) {
+            setWeights(split, weights);
+        }
+    }
+
+    /**
+     * Set the weights of the items of the split pane at the path.
+     *
+     * @param path    The indices of the split pane and its ancestors in their parents, from the root
+     *                down.
+     * @param weights The weights, ignored unless there is one for every item.
+     */
+    void setWeights(int[] path, double[] weights) {
+        Node node = root;
+        for (int i = 0; node instanceof DockSplit split && i < path.length; i++) {
+            node = path[i] < split.getItems().size() ? split.getItems().get(path[i]) : null;
+        }
+        if (isDockSplit(node)) {
+            setWeights((DockSplit) node, weights);
+        }
+    }
+
+    private void setWeights(DockSplit split, double[] weights) {
+        if (weights.length != split.getItems().size()) {
+            return;
+        }
+        double[] previous = toArray(getWeights(split));
+        List<Double> w = new ArrayList<>(weights.length);
+        for (double weight : weights) {
+            w.add(weight);
+        }
+        solve(split, w, getExtent(split));
+        dockPane.dividersMoved(getPath(split), previous, weights.clone());
+    }
+
+    /**
+     * The indices of the split pane and its ancestors in their parents, from the root down.
+     *
+     * @param split The split pane.
+     * @return The path of the split pane, empty for the root.
+     */
+    private int[] getPath(DockSplit split) {
+        List<DockSplit> splits = findPath(split);
+        int[] path = new int[Math.max(0, splits.size() - 1)];
+        for (int i = 0; i < path.length; i++) {
+            path[i] = splits.get(i).getItems().indexOf((Node) splits.get(i + 1));
+        }
+        return path;
+    }
+
+    /**
+     * Describe the current layout by the ids of the docked nodes and the weights of the split panes.
+     *
+     * @param skipAnonymous Whether docked nodes without an id are left out instead of failing.
+     * @return The description of the layout or null if nothing is docked.
+     * @throws IllegalStateException If a docked node has no id and they are not skipped.
+     */
+    DockLayout capture(boolean skipAnonymous) {
+        if (!(root instanceof DockSplit split) || split.getItems().isEmpty()) {
+            return null;
+        }
+        return capture(split, skipAnonymous);
+    }
+
+    /**
+     * Describe the split pane and its descendants.
+     *
+     * @param split         The split pane.
+     * @param skipAnonymous Whether docked nodes without an id are left out instead of failing.
+     * @return The description of the split pane or null if it has nothing to describe.
+     */
+    private DockLayout capture(DockSplit split, boolean skipAnonymous) {
+        List<Double> weights = getWeights(split);
+        List<DockLayout> items = new ArrayList<>();
+        List<Double> itemWeights = new ArrayList<>();
+        for (int i = 0; i < split.getItems().size(); i++) {
+            Node item = split.getItems().get(i);
+            DockLayout layout;
+            if (isDockSplit(item)) {
+                layout = capture((DockSplit) item, skipAnonymous);
+            } else if (item.getId() != null) {
+                layout = DockLayout.node(item.getId());
+            } else if (skipAnonymous) {
+                layout = null;
+            } else {
+                throw new IllegalStateException("Docked nodes need an id to be captured: " + item);
+            }
+            if (layout != null) {
+                items.add(layout);
+                itemWeights.add(weights.get(i));
+            }
+        }
+        if (items.isEmpty()) {
+            return null;
+        }
+        double[] w = new double[itemWeights.size()];
+        for (int i = 0; i < w.length; i++) {
+            w[i] = itemWeights.get(i);
+        }
+        return DockLayout.split(split.getOrientation(), items, w);
+    }
+
+    /**
+     * Change the layout into the described one with as few edits as possible. Split panes of the
+     * current layout are matched to the splits of the description by the items they share and reused,
+     * and within every split pane only the items that are not part of the longest common subsequence
+     * of its current and its new items are removed or inserted. Nodes moving between split panes are
+     * removed from all split panes before they are inserted anywhere, so that no node is ever the item
+     * of two split panes. Divider positions are only solved for split panes whose items or weights
+     * changed.
+     *
+     * @param layout The description of the new layout, whose dock node ids all have a node.
+     * @param nodes  The nodes to show for the dock node ids of the description.
+     * @return The number of items inserted or removed, orientations changed and split panes whose
+     * divider positions changed.
+     */
+    int apply(DockLayout layout, Map<String, ? extends Node> nodes) {
+        DockLayout target = layout.isSplit() ? layout : DockLayout.split(Orientation.HORIZONTAL, layout);
+
+        // index the split panes of the current layout and their parents
+        List<DockSplit> existing = new ArrayList<>();
+        Map<DockSplit, DockSplit> parents = new HashMap<>();
+        if (root instanceof DockSplit rootSplit) {
+            Stack<DockSplit> stack = new Stack<>();
+            stack.push(rootSplit);
+            while (!stack.isEmpty()) {
+                DockSplit split = stack.pop();
+                existing.add(split);
+                for (Node item : split.getItems()) {
+                    if (isDockSplit(item)) {
+                        parents.put((DockSplit) item, split);
+                        stack.push((DockSplit) item);
+                    }
+                }
+            }
+        }
+
+        // match the splits of the description to split panes top down and collect their new items
+        Map<DockLayout, DockSplit> matches = new IdentityHashMap<>();
+        Map<DockSplit, List<Node>> targetItems = new IdentityHashMap<>();
+        List<DockLayout> order = new ArrayList<>();
+        Set<DockSplit> used = Collections.newSetFromMap(new IdentityHashMap<>());
+        int edits = match(target, null, root instanceof DockSplit rootSplit ? rootSplit : null, nodes, existing,
+                parents, used, matches, order);
+        for (DockLayout split : order) {
+            List<Node> items = new ArrayList<>();
+            for (DockLayout item : split.getItems()) {
+                items.add(item.isSplit() ? (Node) matches.get(item) : nodes.get(item.getId()));
+            }
+            targetItems.put(matches.get(split), items);
+        }
+
+        // remove everything that moves or goes away before inserting anything
+        Set<DockSplit> unchanged = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (DockSplit split : existing) {
+            List<Node> items = targetItems.getOrDefault(split, List.of());
+            Set<Node> keep = commonSubsequence(split.getItems(), items);
+            int removed = split.getItems().size() - keep.size();
+            if (removed > 0) {
+                split.getItems().removeIf(item -> !keep.contains(item));
+                edits += removed;
+            } else if (keep.size() == items.size()) {
+                unchanged.add(split);
+            }
+        }
+
+        // insert bottom up so that split panes are complete when they are inserted into their parent
+        for (int i = order.size() - 1; i >= 0; i--) {
+            DockLayout layoutSplit = order.get(i);
+            DockSplit split = matches.get(layoutSplit);
+            List<Node> items = targetItems.get(split);
+            ObservableList<Node> splitItems = split.getItems();
+            if (splitItems.isEmpty()) {
+                splitItems.setAll(items);
+                edits += items.size();
+            } else {
+                for (int j = 0; j < items.size(); j++) {
+                    if (j >= splitItems.size() || splitItems.get(j) != items.get(j)) {
+                        splitItems.add(j, items.get(j));
+                        edits++;
+                    }
+                }
+            }
+
+            List<Double> weights = new ArrayList<>();
+            for (double weight : layoutSplit.getWeights()) {
+                weights.add(weight);
+            }
+            if (!unchanged.contains(split) || !sameProportions(getWeights(split), weights)) {
+                solve(split, weights, getExtent(split));
+                edits++;
+            }
+        }
+
+        root = (Node) matches.get(target);
+        // solve the divider positions of the changed layout for the size of the dock pane on the next pass
+        solvedWidth = 0;
+        solvedHeight = 0;
+        return edits;
+    }
+
+    /**
+     * Match the split of the description and its descendant splits to split panes, reusing the
+     * given split pane or the unused split pane that shares the most items with the split, and
+     * creating split panes for the splits without a match.
+     *
+     * @return The number of split panes created and orientations changed.
+     */
+    private int match(DockLayout split, DockSplit parent, DockSplit candidate, Map<String, ? extends Node> nodes,
+                      List<DockSplit> existing, Map<DockSplit, DockSplit> parents, Set<DockSplit> used,
+                      Map<DockLayout, DockSplit> matches, List<DockLayout> order) {
+        if (candidate == null || used.contains(candidate)) {
+            Set<Node> items = Collections.newSetFromMap(new IdentityHashMap<>());
+            for (DockLayout item : split.getItems()) {
+                if (!item.isSplit()) {
+                    items.add(nodes.get(item.getId()));
+                }
+            }
+            int best = 0;
+            candidate = null;
+            for (DockSplit existingSplit : existing) {
+                if (used.contains(existingSplit)) {
+                    continue;
+                }
+                // shared items count most, staying below the same parent breaks ties
+                int score = 0;
+                for (Node item : existingSplit.getItems()) {
+                    if (items.contains(item)) {
+                        score += 2;
+                    }
+                }
+                if (parent != null && parents.get(existingSplit) == parent) {
+                    score++;
+                }
+                if (score > best) {
+                    best = score;
+                    candidate = existingSplit;
+                }
+            }
+        }
+
+        int edits = 0;
+        if (candidate == null) {
+            candidate = createSplit();
+            candidate.setOrientation(split.getOrientation());
+            edits++;
+        } else if (candidate.getOrientation() != split.getOrientation()) {
+            candidate.setOrientation(split.getOrientation());
+            edits++;
+        }
+        used.add(candidate);
+        matches.put(split, candidate);
+        order.add(split);
+
+        for (DockLayout item : split.getItems()) {
+            if (item.isSplit()) {
+                edits += match(item, candidate, null, nodes, existing, parents, used, matches, order);
+            }
+        }
+        return edits;
+    }
+
+    /**
+     * The items of a longest common subsequence of two item lists, which can stay where they are when
+     * the first list is changed into the second one.
+     *
+     * @param from The current items.
+     * @param to   The new items.
+     * @return The items of a longest common subsequence.
+     */
+    private static Set<Node> commonSubsequence(List<Node> from, List<Node> to) {
+        int n = from.size();
+        int m = to.size();
+        int[][] lengths = new int[n + 1][m + 1];
+        for (int i = n - 1; i >= 0; i--) {
+            for (int j = m - 1; j >= 0; j--) {
+                lengths[i][j] = from.get(i) == to.get(j) ? lengths[i + 1][j + 1] + 1
+                        : Math.max(lengths[i + 1][j], lengths[i][j + 1]);
+            }
+        }
+        Set<Node> common = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (int i = 0, j = 0; i < n && j < m; ) {
+            if (from.get(i) == to.get(j)) {
+                common.add(from.get(i));
+                i++;
+                j++;
+            } else if (lengths[i + 1][j] >= lengths[i][j + 1]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return common;
+    }
+
+    /**
+     * Whether two lists of weights share the space in the same proportions.
+     */
+    private static boolean sameProportions(List<Double> a, List<Double> b) {
+        if (a.size() != b.size()) {
+            return false;
+        }
+        double totalA = 0;
+        double totalB = 0;
+        for (int i = 0; i < a.size(); i++) {
+            totalA += a.get(i);
+            totalB += b.get(i);
+        }
+        for (int i = 0; i < a.size(); i++) {
+            if (Math.abs(a.get(i) / totalA - b.get(i) / totalB) > 1e-6) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The default split container of the layout, a SplitPane control.
+     */
+    static final class LayoutSplitPane extends SplitPane implements DockSplit {
+    }
+
+    /**
+     * The weights of the items of a layout split pane.
+     */
+    private record SplitWeights(Node[] items, Orientation orientation, double[] weights) {
+        /**
+         * Whether the split pane still has the items and the orientation the weights were kept for.
+         */
+        boolean matches(DockSplit split) {
+            ObservableList<Node> splitItems = split.getItems();
+            if (split.getOrientation() != orientation || splitItems.size() != items.length) {
+                return false;
+            }
+            for (int i = 0; i < items.length; i++) {
+                if (splitItems.get(i) != items[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
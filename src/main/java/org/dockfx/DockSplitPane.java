@@ -0,0 +1,331 @@
+/**
+ * @file DockSplitPane.java
+ * @brief Class implementing a lightweight split container for the layout of a dock pane.
+ * @section License
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ **/
+
+package org.dockfx;
+
+import javafx.beans.property.DoubleProperty;
+import javafx.beans.property.ObjectProperty;
+import javafx.beans.property.SimpleDoubleProperty;
+import javafx.beans.property.SimpleObjectProperty;
+import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+import javafx.css.PseudoClass;
+import javafx.geometry.Orientation;
+import javafx.geometry.Point2D;
+import javafx.scene.Node;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.layout.Region;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A lightweight alternative to the SplitPane control for the layout of a dock pane. It has no skin:
+ * the items are its direct children without content wrappers or clips, each divider is a single
+ * region reused from a pool when the items change, and the divider positions are a plain array
+ * instead of a property per divider. The divider positions are expected to be solved from weights
+ * by the dock pane, so this container does not balance them on its own. It is used by a dock pane
+ * after {@code dockPane.setSplitFactory(DockSplitPane::new)}.
+ *
+ * @since DockFX 0.1
+ */
+public class DockSplitPane extends Region implements DockSplit {
+    /**
+     * The style class of the divider regions.
+     */
+    static final String DIVIDER_STYLE_CLASS = "dock-split-divider";
+
+    private static final PseudoClass HORIZONTAL_PSEUDO_CLASS = PseudoClass.getPseudoClass("horizontal");
+    private static final PseudoClass VERTICAL_PSEUDO_CLASS = PseudoClass.getPseudoClass("vertical");
+
+    /**
+     * The items of this container, which are the first children of this container in the same order.
+     */
+    private final ObservableList<Node> items = FXCollections.observableArrayList();
+    /**
+     * The dividers between the items, which are the children after the items.
+     */
+    private final List<Region> dividers = new ArrayList<>();
+    /**
+     * The dividers no longer needed, kept to be reused when items are added again.
+     */
+    private final List<Region> dividerPool = new ArrayList<>();
+    /**
+     * The positions of the dividers as fractions of the size of this container.
+     */
+    private double[] dividerPositions = new double[0];
+    /**
+     * The divider being dragged or -1.
+     */
+    private int dragDivider = -1;
+
+    private final ObjectProperty<Orientation> orientationProperty =
+            new SimpleObjectProperty<>(Orientation.HORIZONTAL) {
+                @Override
+                protected void invalidated() {
+                    updateOrientation();
+                }
+
+                @Override
+                public String getName() {
+                    return "orientation";
+                }
+            };
+
+    private final DoubleProperty dividerSizeProperty = new SimpleDoubleProperty(4) {
+        @Override
+        protected void invalidated() {
+            requestLayout();
+        }
+
+        @Override
+        public String getName() {
+            return "dividerSize";
+        }
+    };
+
+    /**
+     * Creates a new horizontal split container without items.
+     */
+    public DockSplitPane() {
+        getStyleClass().add("dock-split-pane");
+        items.addListener(this::itemsChanged);
+        updateOrientation();
+    }
+
+    @Override
+    public final ObservableList<Node> getItems() {
+        return items;
+    }
+
+    /**
+     * The orientation in which the items are laid out next to each other.
+     *
+     * @defaultValue Orientation.HORIZONTAL
+     */
+    public final ObjectProperty<Orientation> orientationProperty() {
+        return orientationProperty;
+    }
+
+    @Override
+    public final Orientation getOrientation() {
+        return orientationProperty.get();
+    }
+
+    @Override
+    public final void setOrientation(Orientation orientation) {
+        orientationProperty.set(orientation);
+    }
+
+    /**
+     * The size of the dividers along the orientation.
+     *
+     * @defaultValue 4
+     */
+    public final DoubleProperty dividerSizeProperty() {
+        return dividerSizeProperty;
+    }
+
+    public final double getDividerSize() {
+        return dividerSizeProperty.get();
+    }
+
+    public final void setDividerSize(double dividerSize) {
+        dividerSizeProperty.set(dividerSize);
+    }
+
+    @Override
+    public double[] getDividerPositions() {
+        return dividerPositions.clone();
+    }
+
+    @Override
+    public void setDividerPositions(double... positions) {
+        for (int i = 0; i < Math.min(positions.length, dividerPositions.length); i++) {
+            dividerPositions[i] = positions[i];
+        }
+        requestLayout();
+    }
+
+    /**
+     * Mirror the changes of the items in the children and add or remove dividers to match.
+     *
+     * @param change The change of the items.
+     */
+    private void itemsChanged(ListChangeListener.Change<? extends Node> change) {
+        ObservableList<Node> children = getChildren();
+        while (change.next()) {
+            if (change.wasPermutated()) {
+                children.remove(0, items.size());
+                children.addAll(0, items);
+            } else {
+                if (change.wasRemoved()) {
+                    children.remove(change.getFrom(), change.getFrom() + change.getRemovedSize());
+                }
+                if (change.wasAdded()) {
+                    children.addAll(change.getFrom(), change.getAddedSubList());
+                }
+            }
+        }
+
+        int count = Math.max(0, items.size() - 1);
+        while (dividers.size() < count) {
+            Region divider = dividerPool.isEmpty() ? createDivider() : dividerPool.remove(dividerPool.size() - 1);
+            dividers.add(divider);
+            children.add(divider);
+        }
+        while (dividers.size() > count) {
+            dividerPool.add(dividers.remove(dividers.size() - 1));
+            children.remove(children.size() - 1);
+        }
+
+        if (dividerPositions.length != count) {
+            dividerPositions = new double[count];
+            for (int i = 0; i < count; i++) {
+                dividerPositions[i] = (i + 1) / (double) (count + 1);
+            }
+        }
+        requestLayout();
+    }
+
+    private Region createDivider() {
+        Region divider = new Region();
+        divider.getStyleClass().add(DIVIDER_STYLE_CLASS);
+        divider.addEventHandler(MouseEvent.MOUSE_PRESSED, event -> {
+            dragDivider = dividers.indexOf(divider);
+            event.consume();
+        });
+        divider.addEventHandler(MouseEvent.MOUSE_DRAGGED, event -> {
+            if (dragDivider >= 0) {
+                dragDivider(dragDivider, sceneToLocal(event.getSceneX(), event.getSceneY()));
+                event.consume();
+            }
+        });
+        divider.addEventHandler(MouseEvent.MOUSE_RELEASED, event -> dragDivider = -1);
+        return divider;
+    }
+
+    /**
+     * Move the divider to the point keeping the minimum sizes of the items next to it.
+     *
+     * @param index The index of the divider.
+     * @param point The point in the coordinates of this container.
+     */
+    private void dragDivider(int index, Point2D point) {
+        boolean horizontal = getOrientation() == Orientation.HORIZONTAL;
+        double extent = getContentExtent();
+        if (extent <= 0) {
+            return;
+        }
+
+        double offset = horizontal ? point.getX() - snappedLeftInset() : point.getY() - snappedTopInset();
+        double half = getDividerSize() / 2;
+        double lower = (index > 0 ? dividerPositions[index - 1] * extent + half : 0) + half
+                + (horizontal ? items.get(index).minWidth(-1) : items.get(index).minHeight(-1));
+        double upper = (index < dividerPositions.length - 1 ? dividerPositions[index + 1] * extent - half : extent) - half
+                - (horizontal ? items.get(index + 1).minWidth(-1) : items.get(index + 1).minHeight(-1));
+        dividerPositions[index] = Math.max(lower, Math.min(upper, offset)) / extent;
+        requestLayout();
+    }
+
+    private void updateOrientation() {
+        boolean horizontal = getOrientation() == Orientation.HORIZONTAL;
+        pseudoClassStateChanged(HORIZONTAL_PSEUDO_CLASS, horizontal);
+        pseudoClassStateChanged(VERTICAL_PSEUDO_CLASS, !horizontal);
+        requestLayout();
+    }
+
+    /**
+     * The size of this container along its orientation without its insets.
+     */
+    private double getContentExtent() {
+        return getOrientation() == Orientation.HORIZONTAL
+                ? getWidth() - snappedLeftInset() - snappedRightInset()
+                : getHeight() - snappedTopInset() - snappedBottomInset();
+    }
+
+    @Override
+    protected void layoutChildren() {
+        boolean horizontal = getOrientation() == Orientation.HORIZONTAL;
+        double left = snappedLeftInset();
+        double top = snappedTopInset();
+        double width = getWidth() - left - snappedRightInset();
+        double height = getHeight() - top - snappedBottomInset();
+        double extent = horizontal ? width : height;
+        double half = getDividerSize() / 2;
+
+        double start = 0;
+        for (int i = 0; i < items.size(); i++) {
+            boolean last = i == items.size() - 1;
+            double end = extent;
+            if (!last) {
+                double position = dividerPositions[i] * extent;
+                end = Math.max(start, Math.min(extent, horizontal ? snapPositionX(position) : snapPositionY(position)));
+            }
+            double itemStart = i == 0 ? start : start + half;
+            double itemSize = Math.max(0, (last ? end : end - half) - itemStart);
+            if (horizontal) {
+                items.get(i).resizeRelocate(left + itemStart, top, itemSize, height);
+            } else {
+                items.get(i).resizeRelocate(left, top + itemStart, width, itemSize);
+            }
+
+            if (!last) {
+                Region divider = dividers.get(i);
+                if (horizontal) {
+                    divider.resizeRelocate(left + end - half, top, 2 * half, height);
+                } else {
+                    divider.resizeRelocate(left, top + end - half, width, 2 * half);
+                }
+            }
+            start = end;
+        }
+    }
+
+    @Override
+    protected double computeMinWidth(double height) {
+        return computeSize(true, true) + snappedLeftInset() + snappedRightInset();
+    }
+
+    @Override
+    protected double computeMinHeight(double width) {
+        return computeSize(false, true) + snappedTopInset() + snappedBottomInset();
+    }
+
+    @Override
+    protected double computePrefWidth(double height) {
+        return computeSize(true, false) + snappedLeftInset() + snappedRightInset();
+    }
+
+    @Override
+    protected double computePrefHeight(double width) {
+        return computeSize(false, false) + snappedTopInset() + snappedBottomInset();
+    }
+
+    /**
+     * The size of the items along the width or the height, summed up along the orientation and the
+     * largest one across it.
+     *
+     * @param width   Whether to compute the width rather than the height.
+     * @param minimum Whether to compute the minimum rather than the preferred size.
+     * @return The size of the items.
+     */
+    private double computeSize(boolean width, boolean minimum) {
+        boolean along = width == (getOrientation() == Orientation.HORIZONTAL);
+        double size = 0;
+        for (Node item : items) {
+            double itemSize = width
+                    ? (minimum ? item.minWidth(-1) : item.prefWidth(-1))
+                    : (minimum ? item.minHeight(-1) : item.prefHeight(-1));
+            size = along ? size + itemSize : Math.max(size, itemSize);
+        }
+        return along ? size + dividers.size() * getDividerSize() : size;
+    }
+}
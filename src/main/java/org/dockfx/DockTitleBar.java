@@ -9,6 +9,9 @@
 
 package org.dockfx;
 
+import javafx.beans.InvalidationListener;
+import javafx.beans.Observable;
+import javafx.beans.binding.Bindings;
 import javafx.event.Event;
 import javafx.event.EventHandler;
 import javafx.geometry.Insets;
@@ -17,6 +20,7 @@ import javafx.scene.Node;
 import javafx.scene.Parent;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
+import javafx.scene.image.ImageView;
 import javafx.scene.input.MouseButton;
 import javafx.scene.input.MouseEvent;
 import javafx.scene.layout.HBox;
@@ -25,9 +29,15 @@ import javafx.scene.layout.Priority;
 import javafx.stage.Stage;
 import javafx.stage.Window;
 
-import java.util.HashMap;
-import java.util.List;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
 import java.util.Stack;
+import java.util.WeakHashMap;
+import java.util.function.Consumer;
 
 /**
  * Base class for a dock node title bar that provides the mouse dragging functionality, captioning,
@@ -45,6 +55,11 @@ public class DockTitleBar extends HBox implements EventHandler<MouseEvent> {
      * The label node used for captioning and the graphic.
      */
     private final Label label;
+    /**
+     * The graphic shown by the label when the dock node has no graphic of its own. It is created the
+     * first time it is needed.
+     */
+    private ImageView defaultGraphic;
     /**
      * State manipulation buttons including close, maximize, detach, and restore.
      */
@@ -60,10 +75,46 @@ public class DockTitleBar extends HBox implements EventHandler<MouseEvent> {
      * Whether this title bar is currently being dragged.
      */
     private boolean dragging = false;
+    /**
+     * The dock pane the dock node was dragged out of and that delivers the drag events until the drag
+     * ends, null if no such drag is in progress.
+     */
+    private DockPane dragSource;
     /**
      * The current node being dragged over for each window so we can keep track of enter/exit events.
+     * The windows are held weakly so that a window closed during a drag is not kept alive.
+     */
+    private final Map<Window, Node> dragNodes = new WeakHashMap<>();
+    /**
+     * Whether the drop filters of the dock panes accept the dragged dock node, asked once per drag.
+     */
+    private final Map<DockPane, Boolean> acceptingPanes = new IdentityHashMap<>();
+    /**
+     * The dock panes accepting the dragged dock node and their ancestors, which are traversed even
+     * inside dock panes that do not accept it.
+     */
+    private final Set<Node> acceptingPaths = Collections.newSetFromMap(new IdentityHashMap<>());
+    /**
+     * Whether the drop filters accept the dragged dock node next to the dock nodes of the layouts,
+     * asked once per drag.
+     */
+    private final Map<Node, Boolean> acceptingTargets = new IdentityHashMap<>();
+    /**
+     * Receives the trace of every drag session of this title bar, null if drags are not recorded.
+     */
+    private Consumer<DockDragTrace> dragTraceConsumer;
+    /**
+     * Records the mouse events of the current drag session while drags are recorded.
+     */
+    private DockDragTrace.Recorder dragTraceRecorder;
+    /**
+     * The number of nodes hit-tested while picking the targets of dock events.
      */
-    private final HashMap<Window, Node> dragNodes = new HashMap<>();
+    private long pickCount;
+    /**
+     * The number of dock events fired at the picked targets.
+     */
+    private long dispatchCount;
 
     /**
      * Creates a default DockTitleBar with captions and dragging behavior.
@@ -71,42 +122,151 @@ public class DockTitleBar extends HBox implements EventHandler<MouseEvent> {
      * @param dockNode The docking node that requires a title bar.
      */
     public DockTitleBar(DockNode dockNode) {
-        this.dockNode = dockNode;
+        this(dockNode, true);
+    }
 
-        label = new Label("Dock Title Bar");
-        label.textProperty().bind(dockNode.titleProperty());
-        label.graphicProperty().bind(dockNode.graphicProperty());
+    /**
+     * Creates a DockTitleBar with dragging behavior. Subclasses that draw the caption and the state
+     * manipulation buttons themselves can skip the creation of the label and the button controls, in
+     * which case {@link #getLabel()}, {@link #getCloseButton()} and {@link #getStateButton()} return
+     * null.
+     *
+     * @param dockNode The docking node that requires a title bar.
+     * @param controls Whether the label and the button controls are created.
+     */
+    protected DockTitleBar(DockNode dockNode, boolean controls) {
+        this.dockNode = dockNode;
 
-        stateButton = new Button();
-        stateButton.setOnAction(event -> {
-            if (dockNode.isFloating()) {
-                dockNode.setMaximized(!dockNode.isMaximized());
+        if (controls) {
+            label = new Label("Dock Title Bar");
+            label.textProperty().bind(dockNode.titleProperty());
+            // the graphic is bound once this title bar is first shown so that the default graphic is
+            // only created for title bars that are actually displayed
+            if (getScene() != null) {
+                bindGraphic();
             } else {
-                dockNode.setFloating(true);
+                sceneProperty().addListener(new InvalidationListener() {
+                    @Override
+                    public void invalidated(Observable observable) {
+                        if (getScene() != null) {
+                            sceneProperty().removeListener(this);
+                            bindGraphic();
+                        }
+                    }
+                });
             }
-        });
 
-        closeButton = new Button();
-        closeButton.setOnAction(event -> dockNode.close());
-        closeButton.visibleProperty().bind(dockNode.closableProperty());
+            stateButton = new Button();
+            stateButton.setOnAction(event -> toggleState());
+            // a docked dock node that may not float has nothing to detach
+            stateButton.visibleProperty().bind(dockNode.floatingProperty().or(dockNode.floatableProperty()));
+
+            closeButton = new Button();
+            closeButton.setOnAction(event -> dockNode.close());
+            closeButton.visibleProperty().bind(dockNode.closableProperty());
 
-        // create a pane that will stretch to make the buttons right aligned
-        Pane fillPane = new Pane();
-        HBox.setHgrow(fillPane, Priority.ALWAYS);
+            // create a pane that will stretch to make the buttons right aligned
+            Pane fillPane = new Pane();
+            HBox.setHgrow(fillPane, Priority.ALWAYS);
 
-        getChildren().addAll(label, fillPane, stateButton, closeButton);
+            getChildren().addAll(label, fillPane, stateButton, closeButton);
+
+            label.getStyleClass().add("dock-title-label");
+            closeButton.getStyleClass().add("dock-close-button");
+            stateButton.getStyleClass().add("dock-state-button");
+        } else {
+            label = null;
+            stateButton = null;
+            closeButton = null;
+        }
 
         this.addEventHandler(MouseEvent.MOUSE_PRESSED, this);
         this.addEventHandler(MouseEvent.DRAG_DETECTED, this);
         this.addEventHandler(MouseEvent.MOUSE_DRAGGED, this);
         this.addEventHandler(MouseEvent.MOUSE_RELEASED, this);
 
-        label.getStyleClass().add("dock-title-label");
-        closeButton.getStyleClass().add("dock-close-button");
-        stateButton.getStyleClass().add("dock-state-button");
         this.getStyleClass().add("dock-title-bar");
     }
 
+    /**
+     * Detaches the dock node when it is docked, otherwise maximizes or restores its floating stage.
+     * This is the action of the state button.
+     */
+    void toggleState() {
+        if (dockNode.isFloating()) {
+            dockNode.setMaximized(!dockNode.isMaximized());
+        } else if (dockNode.isFloatable()) {
+            DockPane dockPane = dockNode.getDockPane();
+            if (dockPane != null && dockPane.isFloatingHosts()) {
+                dockPane.floatInHost(dockNode);
+            } else {
+                dockNode.setFloating(true);
+            }
+        }
+    }
+
+    /**
+     * Releases the bindings and handlers this title bar has installed on its dock node and the dock
+     * pane so that they can be garbage collected. The title bar must not be used after it has been
+     * disposed.
+     */
+    public void dispose() {
+        if (label != null) {
+            label.textProperty().unbind();
+            label.graphicProperty().unbind();
+            label.setGraphic(null);
+        }
+        if (closeButton != null) {
+            closeButton.visibleProperty().unbind();
+            closeButton.setOnAction(null);
+        }
+        if (stateButton != null) {
+            stateButton.visibleProperty().unbind();
+            stateButton.setOnAction(null);
+        }
+
+        this.removeEventHandler(MouseEvent.MOUSE_PRESSED, this);
+        this.removeEventHandler(MouseEvent.DRAG_DETECTED, this);
+        this.removeEventHandler(MouseEvent.MOUSE_DRAGGED, this);
+        this.removeEventHandler(MouseEvent.MOUSE_RELEASED, this);
+
+        DockPane dockPane = dragSource != null ? dragSource : dockNode.getDockPane();
+        if (dockPane != null) {
+            dockPane.removeEventFilter(MouseEvent.MOUSE_DRAGGED, this);
+            dockPane.removeEventFilter(MouseEvent.MOUSE_RELEASED, this);
+        }
+        if (dragSource != null) {
+            dragSource = null;
+            dockPane.dragFinished();
+        }
+
+        dragNodes.clear();
+        dragging = false;
+        dragTraceRecorder = null;
+    }
+
+    /**
+     * Bind the graphic of the label to the graphic of the dock node falling back to the default
+     * graphic when the dock node has none.
+     */
+    private void bindGraphic() {
+        label.graphicProperty().bind(Bindings.createObjectBinding(
+                () -> dockNode.getGraphic() != null ? dockNode.getGraphic() : getDefaultGraphic(),
+                dockNode.graphicProperty()));
+    }
+
+    /**
+     * The graphic shown in place of a dock node that has no graphic of its own.
+     *
+     * @return The graphic shown in place of a dock node that has no graphic of its own.
+     */
+    private Node getDefaultGraphic() {
+        if (defaultGraphic == null) {
+            defaultGraphic = new ImageView(DockIcon.DOCK_NODE.getImage());
+        }
+        return defaultGraphic;
+    }
+
     /**
      * Whether this title bar is currently being dragged.
      *
@@ -119,7 +279,8 @@ public class DockTitleBar extends HBox implements EventHandler<MouseEvent> {
     /**
      * The label used for captioning and to provide a graphic.
      *
-     * @return The label used for captioning and to provide a graphic.
+     * @return The label used for captioning and to provide a graphic, null if this title bar draws
+     * its caption itself.
      */
     public final Label getLabel() {
         return label;
@@ -128,7 +289,8 @@ public class DockTitleBar extends HBox implements EventHandler<MouseEvent> {
     /**
      * The button used for closing this title bar and its associated dock node.
      *
-     * @return The button used for closing this title bar and its associated dock node.
+     * @return The button used for closing this title bar and its associated dock node, null if this
+     * title bar draws its buttons itself.
      */
     public final Button getCloseButton() {
         return closeButton;
@@ -139,7 +301,7 @@ public class DockTitleBar extends HBox implements EventHandler<MouseEvent> {
      * node.
      *
      * @return The button used for detaching, maximizing, or restoring this title bar and its
-     * associated dock node.
+     * associated dock node, null if this title bar draws its buttons itself.
      */
     public final Button getStateButton() {
         return stateButton;
@@ -154,6 +316,47 @@ public class DockTitleBar extends HBox implements EventHandler<MouseEvent> {
         return dockNode;
     }
 
+    /**
+     * Record the mouse events of every drag session of this title bar, from pressing the mouse
+     * button to releasing it, and pass them to the consumer once the drag ends. Presses and
+     * releases without a drag in between are not passed on. Recording is off by default.
+     *
+     * @param consumer The consumer of the drag traces or null to stop recording.
+     */
+    public final void setDragTraceConsumer(Consumer<DockDragTrace> consumer) {
+        dragTraceConsumer = consumer;
+        if (consumer == null) {
+            dragTraceRecorder = null;
+        }
+    }
+
+    /**
+     * The consumer of the traces of the drag sessions of this title bar.
+     *
+     * @return The consumer of the drag traces or null if drags are not recorded.
+     */
+    public final Consumer<DockDragTrace> getDragTraceConsumer() {
+        return dragTraceConsumer;
+    }
+
+    /**
+     * The number of nodes hit-tested while picking the targets of dock events so far.
+     *
+     * @return The number of hit-tested nodes.
+     */
+    final long getPickCount() {
+        return pickCount;
+    }
+
+    /**
+     * The number of dock events fired at picked targets so far.
+     *
+     * @return The number of fired dock events.
+     */
+    final long getDispatchCount() {
+        return dispatchCount;
+    }
+
     /**
      * Traverse the scene graph for all open stages and pick an event target for a dock event based on
      * the location. Once the event target is chosen run the event task with the target and the
@@ -168,10 +371,16 @@ public class DockTitleBar extends HBox implements EventHandler<MouseEvent> {
         // RFE for public scene graph traversal API filed but closed:
         // https://bugs.openjdk.java.net/browse/JDK-8133331
 
-        List<DockPane> dockPanes = DockPane.dockPanes;
+        // every stage is traversed once however many dock panes it shows, dock panes nested in dock
+        // nodes of other dock panes leave the event to the innermost dock pane themselves
+        Set<Stage> targetStages = new LinkedHashSet<>();
+        // without any drop filter nothing is pruned and every node under the mouse gets the events
+        boolean filtered = false;
+        for (DockPane dockPane : DockPane.getDockPanes()) {
+            if (dockPane.getScene() == null)
+                continue;
+            filtered |= dockPane.getDropFilter() != null;
 
-        // fire the dock over event for the active stages
-        for (DockPane dockPane : dockPanes) {
             Window window = dockPane.getScene().getWindow();
             if (!(window instanceof Stage targetStage)) continue;
 
@@ -183,61 +392,164 @@ public class DockTitleBar extends HBox implements EventHandler<MouseEvent> {
             if (targetStage == this.dockNode.getStage())
                 continue;
 
+            // stages without a dock pane accepting the dragged dock node are not traversed at all
+            if (isAccepting(dockPane)) {
+                targetStages.add(targetStage);
+            }
+        }
+
+        // fire the dock over event for the active stages
+        for (Stage targetStage : targetStages) {
             eventTask.reset();
 
             Node dragNode = dragNodes.get(targetStage);
 
             Parent root = targetStage.getScene().getRoot();
             Stack<Parent> stack = new Stack<>();
+            pickCount++;
             if (root.contains(root.screenToLocal(location.getX(), location.getY()))
                     && !root.isMouseTransparent()) {
                 stack.push(root);
             }
+            // the innermost dock pane on the way down and whether it accepts the dragged dock node
+            DockPane dockPane = null;
+            boolean accepting = !filtered;
             // depth first traversal to find the deepest node or parent with no children
             // that intersects the point of interest
             while (!stack.isEmpty()) {
                 Parent parent = stack.pop();
+                if (parent instanceof DockPane pane) {
+                    dockPane = pane;
+                    accepting = isAccepting(pane);
+                }
                 // if this parent contains the mouse click in screen coordinates in its local bounds
                 // then traverse its children
                 boolean notFired = true;
                 for (Node node : parent.getChildrenUnmodifiable()) {
+                    pickCount++;
                     if (node.contains(node.screenToLocal(location.getX(), location.getY()))
                             && !node.isMouseTransparent()) {
-                        if (node instanceof Parent) {
-                            stack.push((Parent) node);
-                        } else {
-                            eventTask.run(node, dragNode);
+                        if (!(node instanceof Parent child)) {
+                            if (accepting) {
+                                eventTask.run(node, dragNode);
+                            }
+                            notFired = false;
+                        } else if (!filtered || !isPruned(child, dockPane, accepting)) {
+                            stack.push(child);
+                            notFired = false;
                         }
-                        notFired = false;
+                        // a pruned parent is not traversed and leaves the event to this parent
                         break;
                     }
                 }
                 // if none of the children fired the event or there were no children
                 // fire it with the parent as the target to receive the event
-                if (notFired) {
+                if (notFired && accepting) {
                     eventTask.run(parent, dragNode);
                 }
             }
 
             if (explicit != null && dragNode != null && eventTask.getExecutions() < 1) {
+                dispatchCount++;
                 Event.fireEvent(dragNode, explicit.copyFor(this, dragNode));
                 dragNodes.put(targetStage, null);
             }
         }
     }
 
+    /**
+     * Whether the drop filter of the dock pane accepts the dragged dock node anywhere in the dock
+     * pane. The answer is kept for the rest of the drag, and the dock pane and its ancestors are
+     * remembered as the way to an accepting dock pane.
+     *
+     * @param dockPane The dock pane.
+     * @return Whether the dock pane accepts the dragged dock node.
+     */
+    private boolean isAccepting(DockPane dockPane) {
+        Boolean accepting = acceptingPanes.get(dockPane);
+        if (accepting == null) {
+            accepting = dockPane.accepts(dockNode);
+            acceptingPanes.put(dockPane, accepting);
+            for (Node node = dockPane; accepting && node != null; node = node.getParent()) {
+                acceptingPaths.add(node);
+            }
+        }
+        return accepting;
+    }
+
+    /**
+     * Whether the picking skips the parent and everything in it. A parent leading to a dock pane that
+     * accepts the dragged dock node is always traversed. Otherwise everything inside a dock pane that
+     * does not accept the dragged dock node is skipped, as are the dock nodes the drop filter of
+     * their dock pane does not accept the dragged dock node next to. Nothing is pruned while no dock
+     * pane has a drop filter.
+     *
+     * @param parent    The parent containing the point of interest.
+     * @param dockPane  The innermost dock pane around the parent or null.
+     * @param accepting Whether that dock pane accepts the dragged dock node.
+     * @return Whether the parent is skipped.
+     */
+    private boolean isPruned(Parent parent, DockPane dockPane, boolean accepting) {
+        if (acceptingPaths.contains(parent)) {
+            return false;
+        } else if (!accepting || parent instanceof DockPane) {
+            return true;
+        } else if (parent instanceof DockNode target && dockPane.getDropFilter() != null) {
+            return !acceptingTargets.computeIfAbsent(target, node -> dockPane.accepts(dockNode, node, null));
+        }
+        return false;
+    }
+
+    /**
+     * Forget what the drop filters answered for the drag that ended.
+     */
+    private void clearAccepting() {
+        for (DockPane dockPane : acceptingPanes.keySet()) {
+            dockPane.dropFinished();
+        }
+        acceptingPanes.clear();
+        acceptingPaths.clear();
+        acceptingTargets.clear();
+    }
+
     @Override
     public void handle(MouseEvent event) {
+        if (dragTraceConsumer != null) {
+            if (event.getEventType() == MouseEvent.MOUSE_PRESSED) {
+                dragTraceRecorder = new DockDragTrace.Recorder(dockNode);
+            }
+            if (dragTraceRecorder != null) {
+                dragTraceRecorder.add(event);
+            }
+        }
+
         if (event.getEventType() == MouseEvent.MOUSE_PRESSED) {
             if (dockNode.isFloating() && event.getClickCount() == 2 && event.getButton() == MouseButton.PRIMARY) {
                 dockNode.setMaximized(!dockNode.isMaximized());
+            } else if (dockNode.isDocked() && dockNode.getDockPane() != null && event.getClickCount() == 2
+                    && event.getButton() == MouseButton.PRIMARY) {
+                // a docked node is zoomed over the layout of its dock pane instead
+                DockPane dockPane = dockNode.getDockPane();
+                dockPane.setZoomedNode(dockNode.isZoomed() ? null : dockNode);
             } else {
                 // drag detected is used in place of mouse pressed so there is some threshold for the
                 // dragging which is determined by the default drag detection threshold
                 dragStart = new Point2D(event.getX(), event.getY());
             }
         } else if (event.getEventType() == MouseEvent.DRAG_DETECTED) {
+            if (!dockNode.isFloating() && !dockNode.isFloatable()) {
+                // a dock node that may not float can not be dragged out of its dock pane
+                return;
+            }
+            clearAccepting();
             if (!dockNode.isFloating()) {
+                // the drag starts before the dock node leaves the layout so that floating it is part of
+                // the same undoable command as docking it again
+                DockPane dockPane = this.getDockNode().getDockPane();
+                if (dockPane != null) {
+                    dockPane.dragStarted();
+                }
+
                 // if we are not using a custom title bar and the user
                 // is not forcing the default one for floating and
                 // the dock node does have native window decorations
@@ -257,10 +569,10 @@ public class DockTitleBar extends HBox implements EventHandler<MouseEvent> {
                 // However since flickering when popping out was already eliminated that would
                 // be overkill and is not a suitable solution for native decorations.
                 // Bug report open: https://bugs.openjdk.java.net/browse/JDK-8133335
-                DockPane dockPane = this.getDockNode().getDockPane();
                 if (dockPane != null) {
                     dockPane.addEventFilter(MouseEvent.MOUSE_DRAGGED, this);
                     dockPane.addEventFilter(MouseEvent.MOUSE_RELEASED, this);
+                    dragSource = dockPane;
                 }
             } else if (dockNode.isMaximized()) {
                 double ratioX = event.getX() / this.getDockNode().getWidth();
@@ -304,13 +616,13 @@ public class DockTitleBar extends HBox implements EventHandler<MouseEvent> {
             // TODO: change the pick result by adding a copyForPick()
             DockEvent dockEnterEvent =
                     new DockEvent(this, DockEvent.NULL_SOURCE_TARGET, DockEvent.DOCK_ENTER, event.getX(),
-                            event.getY(), event.getScreenX(), event.getScreenY(), null);
+                            event.getY(), event.getScreenX(), event.getScreenY(), null, dockNode);
             DockEvent dockOverEvent =
                     new DockEvent(this, DockEvent.NULL_SOURCE_TARGET, DockEvent.DOCK_OVER, event.getX(),
-                            event.getY(), event.getScreenX(), event.getScreenY(), null);
+                            event.getY(), event.getScreenX(), event.getScreenY(), null, dockNode);
             DockEvent dockExitEvent =
                     new DockEvent(this, DockEvent.NULL_SOURCE_TARGET, DockEvent.DOCK_EXIT, event.getX(),
-                            event.getY(), event.getScreenX(), event.getScreenY(), null);
+                            event.getY(), event.getScreenX(), event.getScreenY(), null, dockNode);
 
             EventTask eventTask = new EventTask() {
                 @Override
@@ -318,6 +630,7 @@ public class DockTitleBar extends HBox implements EventHandler<MouseEvent> {
                     executions++;
 
                     if (dragNode != node) {
+                        dispatchCount++;
                         Event.fireEvent(node, dockEnterEvent.copyFor(DockTitleBar.this, node));
 
                         if (dragNode != null) {
@@ -326,11 +639,13 @@ public class DockTitleBar extends HBox implements EventHandler<MouseEvent> {
                             // are currently over and know when we
                             // aren't over any which DOCK_OVER
                             // does not provide
+                            dispatchCount++;
                             Event.fireEvent(dragNode, dockExitEvent.copyFor(DockTitleBar.this, dragNode));
                         }
 
                         dragNodes.put(node.getScene().getWindow(), node);
                     }
+                    dispatchCount++;
                     Event.fireEvent(node, dockOverEvent.copyFor(DockTitleBar.this, node));
                 }
             };
@@ -338,6 +653,7 @@ public class DockTitleBar extends HBox implements EventHandler<MouseEvent> {
             this.pickEventTarget(new Point2D(event.getScreenX(), event.getScreenY()), eventTask,
                     dockExitEvent);
         } else if (event.getEventType() == MouseEvent.MOUSE_RELEASED) {
+            boolean dragged = dragging;
             dragging = false;
 
             DockEvent dockReleasedEvent =
@@ -349,8 +665,10 @@ public class DockTitleBar extends HBox implements EventHandler<MouseEvent> {
                 public void run(Node node, Node dragNode) {
                     executions++;
                     if (dragNode != node) {
+                        dispatchCount++;
                         Event.fireEvent(node, dockReleasedEvent.copyFor(DockTitleBar.this, node));
                     }
+                    dispatchCount++;
                     Event.fireEvent(node, dockReleasedEvent.copyFor(DockTitleBar.this, node));
                 }
             };
@@ -358,12 +676,26 @@ public class DockTitleBar extends HBox implements EventHandler<MouseEvent> {
             this.pickEventTarget(new Point2D(event.getScreenX(), event.getScreenY()), eventTask, null);
 
             dragNodes.clear();
+            clearAccepting();
 
-            // Remove temporary event handler for bug mentioned above.
-            DockPane dockPane = this.getDockNode().getDockPane();
+            // Remove temporary event handler for bug mentioned above from the dock pane it was added to,
+            // the dock node may have been docked into another one by now.
+            DockPane dockPane = dragSource;
             if (dockPane != null) {
+                dragSource = null;
                 dockPane.removeEventFilter(MouseEvent.MOUSE_DRAGGED, this);
                 dockPane.removeEventFilter(MouseEvent.MOUSE_RELEASED, this);
+                // a dock node dropped where it cannot be docked floats in a floating host window
+                if (dragged && dockNode.isFloating() && dockPane.isFloatingHosts()) {
+                    dockPane.floatInHost(dockNode);
+                }
+                dockPane.dragFinished();
+            }
+
+            DockDragTrace.Recorder recorder = dragTraceRecorder;
+            dragTraceRecorder = null;
+            if (recorder != null && dragged && dragTraceConsumer != null) {
+                dragTraceConsumer.accept(recorder.finish());
             }
         }
     }
@@ -0,0 +1,523 @@
+/**
+ * @file DockUndoManager.java
+ * @brief Class implementing undo and redo of the layout operations of a dock pane.
+ * @section License
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ **/
+
+package org.dockfx;
+
+import javafx.beans.property.IntegerProperty;
+import javafx.beans.property.SimpleIntegerProperty;
+import javafx.scene.Node;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Records the layout operations of a dock pane as small reversible commands so that they can be
+ * undone and redone, for example from Ctrl+Z and Ctrl+Y. Docking, undocking and floating a dock node
+ * and moving a divider of the split layout are recorded. A command only remembers the place of the
+ * dock node it moved, as the neighbors it is docked next to and the weights of its split pane, and
+ * undoing or redoing it moves just that dock node back, so neither is proportional to the size of the
+ * layout. Dragging a dock node by its title bar is recorded as one command.
+ * <p>
+ * The commands are kept in a ring buffer of at most {@link #limitProperty() limit} commands, the
+ * oldest ones being dropped first. Dock nodes and neighbors are only weakly referenced, and a
+ * disposed dock node is forgotten right away, so a long session neither grows the history nor keeps
+ * closed dock nodes alive. Undoing a command of a forgotten dock node does nothing. Floating host
+ * windows share the undo manager of the dock pane that created them. Applying a layout, such as
+ * switching to another perspective, is recorded as one command holding the layouts before and after,
+ * so undoing it switches back in one step.
+ *
+ * @since DockFX 0.1
+ */
+public final class DockUndoManager {
+
+    /**
+     * The commands from the oldest to the newest, starting at {@link #first} and wrapping around.
+     */
+    private Command[] commands;
+    /**
+     * The index of the oldest command in the ring buffer.
+     */
+    private int first;
+    /**
+     * The number of commands in the ring buffer.
+     */
+    private int size;
+    /**
+     * The number of commands that can be undone, the commands after them can be redone.
+     */
+    private int undoable;
+    /**
+     * The commands recorded since the outermost {@link #beginEdit()}, or null outside an edit.
+     */
+    private List<Command> edit;
+    /**
+     * The nesting depth of {@link #beginEdit()}.
+     */
+    private int editDepth;
+    /**
+     * Whether a command is being undone or redone, which records nothing.
+     */
+    private boolean applying;
+
+    private final IntegerProperty limitProperty = new SimpleIntegerProperty(100) {
+        @Override
+        protected void invalidated() {
+            resize(Math.max(1, get()));
+        }
+
+        @Override
+        public String getName() {
+            return "limit";
+        }
+    };
+
+    DockUndoManager() {
+        commands = new Command[limitProperty.get()];
+    }
+
+    /**
+     * The maximum number of commands that are kept, the oldest ones are dropped first.
+     *
+     * @defaultValue 100
+     */
+    public IntegerProperty limitProperty() {
+        return limitProperty;
+    }
+
+    public int getLimit() {
+        return limitProperty.get();
+    }
+
+    public void setLimit(int limit) {
+        limitProperty.set(limit);
+    }
+
+    /**
+     * Whether there is a command that can be undone.
+     *
+     * @return Whether there is a command that can be undone.
+     */
+    public boolean canUndo() {
+        return undoable > 0;
+    }
+
+    /**
+     * Whether there is an undone command that can be redone.
+     *
+     * @return Whether there is a command that can be redone.
+     */
+    public boolean canRedo() {
+        return undoable < size;
+    }
+
+    /**
+     * Undo the newest command that was not undone yet.
+     *
+     * @return Whether a command was undone.
+     */
+    public boolean undo() {
+        if (!canUndo()) {
+            return false;
+        }
+        undoable--;
+        run(get(undoable), true);
+        return true;
+    }
+
+    /**
+     * Redo the oldest command that was undone.
+     *
+     * @return Whether a command was redone.
+     */
+    public boolean redo() {
+        if (!canRedo()) {
+            return false;
+        }
+        run(get(undoable), false);
+        undoable++;
+        return true;
+    }
+
+    /**
+     * Forget all commands.
+     */
+    public void clear() {
+        Arrays.fill(commands, null);
+        first = 0;
+        size = 0;
+        undoable = 0;
+    }
+
+    /**
+     * Start recording the following layout operations as a single command, until the matching call
+     * of {@link #endEdit()}. Edits may be nested, the outermost one makes the command.
+     */
+    public void beginEdit() {
+        if (editDepth++ == 0) {
+            edit = new ArrayList<>();
+        }
+    }
+
+    /**
+     * Finish the command started by the matching call of {@link #beginEdit()}.
+     */
+    public void endEdit() {
+        if (editDepth == 0 || --editDepth > 0) {
+            return;
+        }
+        List<Command> commands = edit;
+        edit = null;
+        if (commands.size() == 1) {
+            push(commands.get(0));
+        } else if (!commands.isEmpty()) {
+            push(new Compound(commands.toArray(new Command[0])));
+        }
+    }
+
+    /**
+     * Whether layout operations are recorded right now, which they are not while a command is being
+     * undone or redone.
+     *
+     * @return Whether layout operations are recorded.
+     */
+    boolean isRecording() {
+        return !applying;
+    }
+
+    /**
+     * Record a dock node that was docked into the dock pane.
+     *
+     * @param dockPane The dock pane.
+     * @param dockNode The docked node.
+     * @param place    The place of the dock node in the layout after it was docked.
+     */
+    void docked(DockPane dockPane, DockNode dockNode, Place place) {
+        record(new Move(new WeakReference<>(dockNode), new WeakReference<>(dockPane), place, false, false));
+    }
+
+    /**
+     * Record a dock node that was removed from the layout of the dock pane.
+     *
+     * @param dockPane The dock pane.
+     * @param dockNode The removed node.
+     * @param place    The place of the dock node in the layout before it was removed.
+     * @param floated  Whether the dock node was removed to float.
+     */
+    void undocked(DockPane dockPane, DockNode dockNode, Place place, boolean floated) {
+        record(new Move(new WeakReference<>(dockNode), new WeakReference<>(dockPane), place, true, floated));
+    }
+
+    /**
+     * Record new weights of the items of a split pane after the user moved a divider.
+     *
+     * @param dockPane The dock pane.
+     * @param path     The path of the split pane from the root of the layout.
+     * @param previous The weights before the divider moved.
+     * @param weights  The weights after the divider moved.
+     */
+    void dividersMoved(DockPane dockPane, int[] path, double[] previous, double[] weights) {
+        record(new Dividers(new WeakReference<>(dockPane), path, previous, weights));
+    }
+
+    /**
+     * Record a layout that was applied to the dock pane.
+     *
+     * @param dockPane The dock pane.
+     * @param previous The layout of the dock pane before.
+     * @param layout   The layout of the dock pane after.
+     */
+    void layoutApplied(DockPane dockPane, DockLayout previous, DockLayout layout) {
+        record(new Layout(new WeakReference<>(dockPane), previous, layout));
+    }
+
+    /**
+     * Let go of a disposed dock node. The commands moving it are kept but do nothing anymore, and the
+     * dock node is no longer used as a neighbor to dock other dock nodes next to.
+     *
+     * @param dockNode The disposed dock node.
+     */
+    void forget(DockNode dockNode) {
+        for (int i = 0; i < size; i++) {
+            get(i).forget(dockNode);
+        }
+        if (edit != null) {
+            for (Command command : edit) {
+                command.forget(dockNode);
+            }
+        }
+    }
+
+    private void record(Command command) {
+        if (applying) {
+            return;
+        }
+        if (edit != null) {
+            edit.add(command);
+        } else {
+            push(command);
+        }
+    }
+
+    private void push(Command command) {
+        // a new command drops the commands that were undone
+        for (int i = undoable; i < size; i++) {
+            commands[(first + i) % commands.length] = null;
+        }
+        size = undoable;
+        if (size == commands.length) {
+            commands[first] = null;
+            first = (first + 1) % commands.length;
+            size--;
+        }
+        commands[(first + size) % commands.length] = command;
+        size++;
+        undoable = size;
+    }
+
+    private Command get(int index) {
+        return commands[(first + index) % commands.length];
+    }
+
+    private void resize(int limit) {
+        // the newest commands are kept
+        int drop = Math.max(0, size - limit);
+        Command[] resized = new Command[limit];
+        for (int i = drop; i < size; i++) {
+            resized[i - drop] = get(i);
+        }
+        commands = resized;
+        first = 0;
+        size -= drop;
+        undoable = Math.max(0, undoable - drop);
+    }
+
+    private void run(Command command, boolean undo) {
+        applying = true;
+        try {
+            if (undo) {
+                command.undo();
+            } else {
+                command.redo();
+            }
+        } finally {
+            applying = false;
+        }
+    }
+
+    /**
+     * Move a dock node to its place in the layout of the dock pane, leaving its floating stage or the
+     * dock pane it is docked in first.
+     */
+    private static void dock(DockPane dockPane, DockNode dockNode, Place place) {
+        if (dockNode.isFloating()) {
+            dockNode.setFloating(false);
+        }
+        if (dockNode.isDocked() && dockNode.getDockPane() != null) {
+            dockNode.undock();
+        }
+        Node first = place.first().get();
+        Node last = place.last().get();
+        Node sibling = dockPane.getRoot();
+        if (dockPane.getLayoutEngine() instanceof DockSplitLayout splitLayout) {
+            sibling = splitLayout.group(first, last);
+        } else if (first != null && dockPane.getLayoutEngine().getNodes().contains(first)) {
+            sibling = first;
+        }
+        dockNode.dock(dockPane, place.dockPosition(), sibling);
+        if (place.weights() != null && dockPane.getLayoutEngine() instanceof DockSplitLayout splitLayout) {
+            splitLayout.setParentWeights(dockNode, place.weights());
+        }
+    }
+
+    /**
+     * The place of a docked node in the layout: the neighbor it is docked next to, the docking
+     * position relative to it and the weights of the items of its split pane. The neighbor is the
+     * item that takes the place of the dock node once it is removed, or, when the split pane of the
+     * dock node is merged into its parent, the items of the merged split pane, which are grouped into
+     * a split pane again to dock the node next to them. The neighbor is identified by its first and
+     * last docked node rather than by split panes, which are replaced when a layout operation is
+     * undone or redone.
+     *
+     * @param first        The first docked node of the neighbor, null for the root.
+     * @param last         The last docked node of the neighbor, null for the root.
+     * @param dockPosition The docking position relative to the neighbor.
+     * @param weights      The weights of the items of the split pane of the dock node or null.
+     */
+    record Place(WeakReference<Node> first, WeakReference<Node> last, DockPosition dockPosition,
+                 double[] weights) {
+
+        static Place of(Node first, Node last, DockPosition dockPosition, double[] weights) {
+            return new Place(new WeakReference<>(first), new WeakReference<>(last), dockPosition, weights);
+        }
+
+        void forget(DockNode dockNode) {
+            if (first.refersTo(dockNode)) {
+                first.clear();
+            }
+            if (last.refersTo(dockNode)) {
+                last.clear();
+            }
+        }
+    }
+
+    /**
+     * A reversible layout operation.
+     */
+    private interface Command {
+        void undo();
+
+        void redo();
+
+        void forget(DockNode dockNode);
+    }
+
+    /**
+     * A dock node docked into or removed from the layout of a dock pane.
+     *
+     * @param removed Whether the dock node was removed rather than docked.
+     * @param floated Whether the dock node was removed to float.
+     */
+    private record Move(WeakReference<DockNode> dockNode, WeakReference<DockPane> dockPane, Place place,
+                        boolean removed, boolean floated) implements Command {
+
+        @Override
+        public void undo() {
+            apply(!removed, false);
+        }
+
+        @Override
+        public void redo() {
+            apply(removed, floated);
+        }
+
+        /**
+         * Dock the dock node at its place or remove it from the layout.
+         *
+         * @param remove Whether to remove the dock node.
+         * @param floatIt Whether the removed dock node floats.
+         */
+        void apply(boolean remove, boolean floatIt) {
+            DockNode node = dockNode.get();
+            DockPane pane = dockPane.get();
+            if (node == null || pane == null || place == null) {
+                return;
+            }
+            if (!remove) {
+                dock(pane, node, place);
+            } else if (floatIt) {
+                node.setFloating(true);
+            } else if (node.isDocked()) {
+                node.undock();
+            }
+        }
+
+        @Override
+        public void forget(DockNode node) {
+            if (dockNode.refersTo(node)) {
+                dockNode.clear();
+            }
+            if (place != null) {
+                place.forget(node);
+            }
+        }
+    }
+
+    /**
+     * The user moving a divider of a split pane of the split layout.
+     */
+    private record Dividers(WeakReference<DockPane> dockPane, int[] path, double[] previous,
+                            double[] weights) implements Command {
+
+        @Override
+        public void undo() {
+            apply(previous);
+        }
+
+        @Override
+        public void redo() {
+            apply(weights);
+        }
+
+        private void apply(double[] w) {
+            DockPane pane = dockPane.get();
+            if (pane != null && pane.getLayoutEngine() instanceof DockSplitLayout splitLayout) {
+                splitLayout.setWeights(path, w);
+            }
+        }
+
+        @Override
+        public void forget(DockNode dockNode) {
+        }
+    }
+
+    /**
+     * A layout applied to a dock pane, for example by switching perspectives. The layouts only hold
+     * ids, the dock pane keeps the dock nodes a layout removed for applying the other one again.
+     */
+    private record Layout(WeakReference<DockPane> dockPane, DockLayout previous,
+                          DockLayout layout) implements Command {
+
+        @Override
+        public void undo() {
+            apply(previous);
+        }
+
+        @Override
+        public void redo() {
+            apply(layout);
+        }
+
+        private void apply(DockLayout l) {
+            DockPane pane = dockPane.get();
+            if (pane != null) {
+                pane.applyLayout(l, null);
+            }
+        }
+
+        @Override
+        public void forget(DockNode dockNode) {
+        }
+    }
+
+    /**
+     * Commands recorded by one edit, undone in reverse.
+     */
+    private record Compound(Command[] commands) implements Command {
+
+        @Override
+        public void undo() {
+            for (int i = commands.length - 1; i >= 0; i--) {
+                commands[i].undo();
+            }
+        }
+
+        @Override
+        public void redo() {
+            for (int i = 0; i < commands.length; i++) {
+                if (commands[i] instanceof Move move && move.removed() && i + 1 < commands.length
+                        && commands[i + 1] instanceof Move next && !next.removed()
+                        && move.dockNode().get() == next.dockNode().get()) {
+                    // a dock node dragged to another place is not floated in between
+                    move.apply(true, false);
+                } else {
+                    commands[i].redo();
+                }
+            }
+        }
+
+        @Override
+        public void forget(DockNode dockNode) {
+            for (Command command : commands) {
+                command.forget(dockNode);
+            }
+        }
+    }
+}
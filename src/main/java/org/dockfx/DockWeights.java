@@ -0,0 +1,134 @@
+/**
+ * @file DockWeights.java
+ * @brief Class solving split pane divider positions from item weights.
+ * @section License
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ **/
+
+package org.dockfx;
+
+/**
+ * Solves the divider positions of a split pane from the weights of its items in a single pass. The
+ * space is shared in proportion to the weights, except that no item gets less than its minimum size
+ * as long as the minimum sizes fit. The solver works on plain numbers so it does not depend on the
+ * scene graph.
+ *
+ * @since DockFX 0.1
+ */
+final class DockWeights {
+    private DockWeights() {
+    }
+
+    /**
+     * Solve the sizes of the items.
+     *
+     * @param weights  The weight of each item. Weights that are not positive count as the average
+     *                 positive weight, or as one if there is none.
+     * @param minimums The minimum size of each item.
+     * @param extent   The size to share between the items.
+     * @return The size of each item.
+     */
+    static double[] solveSizes(double[] weights, double[] minimums, double extent) {
+        int count = weights.length;
+        double[] sizes = new double[count];
+        if (count == 0) {
+            return sizes;
+        }
+
+        double[] w = positiveWeights(weights);
+        double minimumTotal = 0;
+        for (double minimum : minimums) {
+            minimumTotal += Math.max(0, minimum);
+        }
+
+        // the minimum sizes do not fit so they are shrunk evenly
+        if (minimumTotal > 0 && minimumTotal >= extent) {
+            for (int i = 0; i < count; i++) {
+                sizes[i] = Math.max(0, minimums[i]) * extent / minimumTotal;
+            }
+            return sizes;
+        }
+
+        // fix every item whose share would be below its minimum size until the rest fit
+        boolean[] fixed = new boolean[count];
+        double remaining = extent;
+        double remainingWeight = 0;
+        for (double weight : w) {
+            remainingWeight += weight;
+        }
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            double fixedSize = 0;
+            double fixedWeight = 0;
+            for (int i = 0; i < count; i++) {
+                if (!fixed[i] && remaining * w[i] / remainingWeight < minimums[i]) {
+                    fixed[i] = true;
+                    sizes[i] = minimums[i];
+                    fixedSize += minimums[i];
+                    fixedWeight += w[i];
+                    changed = true;
+                }
+            }
+            remaining -= fixedSize;
+            remainingWeight -= fixedWeight;
+        }
+        for (int i = 0; i < count; i++) {
+            if (!fixed[i]) {
+                sizes[i] = remaining * w[i] / remainingWeight;
+            }
+        }
+        return sizes;
+    }
+
+    /**
+     * Solve the divider positions of the items.
+     *
+     * @param weights  The weight of each item, see {@link #solveSizes(double[], double[], double)}.
+     * @param minimums The minimum size of each item.
+     * @param extent   The size to share between the items. If it is not positive the weights are
+     *                 taken as sizes.
+     * @return The divider positions between the items as fractions of the extent.
+     */
+    static double[] solve(double[] weights, double[] minimums, double extent) {
+        int count = weights.length;
+        double[] positions = new double[Math.max(0, count - 1)];
+        if (positions.length == 0) {
+            return positions;
+        }
+
+        if (extent <= 0) {
+            extent = 0;
+            for (double weight : positiveWeights(weights)) {
+                extent += weight;
+            }
+        }
+        double[] sizes = solveSizes(weights, minimums, extent);
+        double position = 0;
+        for (int i = 0; i < positions.length; i++) {
+            position += sizes[i];
+            positions[i] = position / extent;
+        }
+        return positions;
+    }
+
+    private static double[] positiveWeights(double[] weights) {
+        double total = 0;
+        int positive = 0;
+        for (double weight : weights) {
+            if (weight > 0) {
+                total += weight;
+                positive++;
+            }
+        }
+        double fallback = positive > 0 ? total / positive : 1;
+
+        double[] result = new double[weights.length];
+        for (int i = 0; i < weights.length; i++) {
+            result[i] = weights[i] > 0 ? weights[i] : fallback;
+        }
+        return result;
+    }
+}
@@ -1,11 +1,1688 @@
 package org.dockfx;
 
 
+import javafx.beans.property.SimpleObjectProperty;
+import javafx.css.PseudoClass;
+import javafx.event.Event;
+import javafx.event.EventType;
+import javafx.geometry.Bounds;
+import javafx.geometry.Orientation;
+import javafx.geometry.Point2D;
+import javafx.scene.Node;
+import javafx.scene.control.Control;
+import javafx.scene.control.Skin;
+import javafx.scene.control.SplitPane;
+import javafx.scene.image.ImageView;
+import javafx.scene.input.MouseButton;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.input.PickResult;
+import javafx.scene.Scene;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Priority;
+import javafx.scene.layout.Region;
+import javafx.scene.paint.Color;
+import javafx.stage.Stage;
+import javafx.util.Duration;
+import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.testfx.api.FxToolkit;
+
+import java.lang.ref.WeakReference;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class DockNodeTest {
 
+    private static final int LEAK_CYCLES = 10_000;
+
+    @BeforeAll
+    static void startToolkit() throws Exception {
+        FxToolkit.registerPrimaryStage();
+    }
+
     @Test
     void setFloating() {
     }
-}
\ No newline at end of file
+
+    @Test
+    void disposedDockNodesAreCollectable() throws Exception {
+        List<WeakReference<DockNode>> references = FxToolkit.setupFixture(() -> {
+            DockPane dockPane = new DockPane();
+            Stage stage = new Stage();
+            stage.setScene(new Scene(dockPane, 400, 300));
+            stage.show();
+
+            createDockNode(dockPane, DockPosition.LEFT);
+
+            List<WeakReference<DockNode>> result = new ArrayList<>();
+            for (int i = 0; i < LEAK_CYCLES; i++) {
+                DockNode dockNode = createDockNode(dockPane, DockPosition.RIGHT);
+                dockPane.applyCss();
+                dockNode.setFloating(true);
+                dockNode.close();
+                dockNode.dispose();
+                if (i % 500 == 0) {
+                    result.add(new WeakReference<>(dockNode));
+                }
+            }
+
+            closeStage(stage);
+            return result;
+        });
+
+        for (WeakReference<DockNode> reference : references) {
+            assertCollected(reference);
+        }
+    }
+
+    @Test
+    void dockPanesArePickedInCreationOrder() throws Exception {
+        FxToolkit.setupFixture(() -> {
+            List<DockPane> created = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                created.add(new DockPane());
+            }
+            List<DockPane> dockPanes = DockPane.getDockPanes();
+            assertEquals(created, dockPanes.subList(dockPanes.size() - created.size(), dockPanes.size()));
+
+            created.remove(7).dispose();
+            dockPanes = DockPane.getDockPanes();
+            assertEquals(created, dockPanes.subList(dockPanes.size() - created.size(), dockPanes.size()));
+            created.forEach(DockPane::dispose);
+        });
+    }
+
+    @Test
+    void disposedDockPaneIsCollectable() throws Exception {
+        List<WeakReference<?>> references = FxToolkit.setupFixture(() -> {
+            DockPane dockPane = new DockPane();
+            Stage stage = new Stage();
+            stage.setScene(new Scene(dockPane, 400, 300));
+            stage.show();
+
+            DockNode dockNode = createDockNode(dockPane, DockPosition.LEFT);
+            // a title bar is created for any non default title
+            DockNode titled = new DockNode();
+            titled.setTitle("Titled");
+            titled.setContents(new Region());
+            titled.setDockPosition(DockPosition.RIGHT);
+            titled.setDockPane(new DockPane());
+
+            dockPane.dispose();
+            titled.getDockPane().dispose();
+            closeStage(stage);
+
+            assertFalse(DockPane.getDockPanes().contains(dockPane));
+            assertNull(dockNode.getDockPane());
+            return List.of(new WeakReference<>(dockPane), new WeakReference<>(dockNode),
+                    new WeakReference<>(titled), new WeakReference<>(titled.getDockTitleBar()));
+        });
+
+        for (WeakReference<?> reference : references) {
+            assertCollected(reference);
+        }
+    }
+
+    @Test
+    void closedDockPaneWithHibernationIsCollectable() throws Exception {
+        List<WeakReference<?>> references = FxToolkit.setupFixture(() -> {
+            DockPane dockPane = new DockPane();
+            Stage stage = new Stage();
+            stage.setScene(new Scene(dockPane, 400, 300));
+            stage.show();
+
+            DockNode dockNode = createDockNode(dockPane, DockPosition.LEFT);
+            DockHibernationManager manager = dockPane.getHibernationManager();
+            manager.register(dockNode, new DockHibernationCallback() {
+                @Override
+                public void hibernate(DockNode dockNode, Node contents) {
+                }
+
+                @Override
+                public Node restore(DockNode dockNode) {
+                    return new Region();
+                }
+            });
+
+            // the window is closed without disposing the dock pane
+            closeStage(stage);
+            return List.of(new WeakReference<>(dockPane), new WeakReference<>(manager),
+                    new WeakReference<>(dockNode));
+        });
+
+        for (WeakReference<?> reference : references) {
+            assertCollected(reference);
+        }
+    }
+
+    @Test
+    void builderDocksOnce() throws Exception {
+        FxToolkit.setupFixture(() -> {
+            DockPane dockPane = new DockPane();
+            DockNode.Spec left = DockNode.builder()
+                    .contents(new Region())
+                    .dockPosition(DockPosition.LEFT)
+                    .spec();
+            DockNode.Spec right = DockNode.builder()
+                    .contents(new Region())
+                    .title("Right")
+                    .titleBar(false)
+                    .closable(false)
+                    .dockPosition(DockPosition.RIGHT)
+                    .spec();
+
+            List<DockNode> dockNodes = dockPane.dockAll(List.of(left, right));
+
+            assertEquals(2, dockNodes.size());
+            // the title bar follows the spec and not the default title
+            assertNotNull(dockNodes.get(0).getDockTitleBar());
+            assertNull(dockNodes.get(1).getDockTitleBar());
+            assertFalse(dockNodes.get(1).isClosable());
+            for (DockNode dockNode : dockNodes) {
+                assertTrue(dockNode.isDocked());
+                assertSame(dockPane, dockNode.getDockPane());
+                assertEquals(1, dockNode.getChildren().stream().filter(n -> n instanceof Region
+                        && !(n instanceof DockTitleBar)).count());
+            }
+            dockPane.dispose();
+        });
+    }
+
+    @Test
+    void setContentsAsyncReplacesPlaceholder() throws Exception {
+        URL location = DockNodeTest.class.getResource("content.fxml");
+        DockPane dockPane = FxToolkit.setupFixture(DockPane::new);
+        DockNode dockNode = FxToolkit.setupFixture(DockNode::new);
+
+        CompletableFuture<Node> loaded = FxToolkit.setupFixture(() -> {
+            CompletableFuture<Node> future = dockNode.setContentsAsync(location, null);
+            dockNode.setDockPosition(DockPosition.LEFT);
+            dockNode.setDockPane(dockPane);
+            // the placeholder is docked while the document is loading
+            assertTrue(dockNode.isDocked());
+            return future;
+        });
+        Node contents = loaded.get(10, TimeUnit.SECONDS);
+
+        assertEquals("content", contents.getId());
+        FxToolkit.setupFixture(() -> {
+            assertSame(contents, dockNode.getContents());
+            assertTrue(dockNode.getChildren().contains(contents));
+            dockPane.dispose();
+        });
+    }
+
+    @Test
+    void defaultGraphicIsCreatedOnFirstShowFromTheSharedIcon() throws Exception {
+        FxToolkit.setupFixture(() -> {
+            DockPane dockPane = new DockPane();
+            Stage stage = new Stage();
+            stage.setScene(new Scene(dockPane, 400, 300));
+            stage.show();
+
+            List<DockNode> dockNodes = new ArrayList<>();
+            for (String title : List.of("First", "Second")) {
+                DockNode dockNode = new DockNode();
+                dockNode.setContents(new Region());
+                dockNode.setTitle(title);
+                dockNode.setDockPosition(DockPosition.RIGHT);
+                dockNode.setDockTitleBar(DockRobot.headlessTitleBar(dockNode));
+                dockNodes.add(dockNode);
+            }
+            DockNode first = dockNodes.get(0);
+            // the title bar exists but has not been in a scene yet
+            assertNull(first.getDockTitleBar().getLabel().getGraphic());
+            assertNull(first.getGraphic());
+
+            List<ImageView> graphics = new ArrayList<>();
+            for (DockNode dockNode : dockNodes) {
+                dockNode.setDockPane(dockPane);
+                // skinning the split pane adds the dock node to the scene
+                dockPane.applyCss();
+                graphics.add(assertInstanceOf(ImageView.class, dockNode.getDockTitleBar().getLabel().getGraphic()));
+                assertNull(dockNode.getGraphic());
+            }
+            // every title bar has a graphic of its own showing the one decoded image
+            assertNotSame(graphics.get(0), graphics.get(1));
+            assertSame(DockIcon.DOCK_NODE.getImage(), graphics.get(0).getImage());
+            assertSame(graphics.get(0).getImage(), graphics.get(1).getImage());
+            assertTrue(DockIcon.DOCK_NODE.isCached());
+
+            Region graphic = new Region();
+            first.setGraphic(graphic);
+            assertSame(graphic, first.getDockTitleBar().getLabel().getGraphic());
+            first.setGraphic(null);
+            assertSame(graphics.get(0), first.getDockTitleBar().getLabel().getGraphic());
+
+            dockPane.dispose();
+            closeStage(stage);
+        });
+    }
+
+    @Test
+    void prewarmBuildsShowingNodesFirst() throws Exception {
+        List<String> built = new ArrayList<>();
+        DockPane dockPane = FxToolkit.setupFixture(() -> {
+            DockPane result = new DockPane();
+            Stage stage = new Stage();
+            stage.setScene(new Scene(result, 400, 300));
+            stage.show();
+
+            DockPrewarmScheduler scheduler = result.getPrewarmScheduler();
+            scheduler.setPulseBudget(Duration.ZERO);
+            DockNode hidden = new DockNode();
+            scheduler.schedule(hidden, () -> createContents(built, "hidden"), 10);
+            DockNode low = new DockNode();
+            scheduler.schedule(low, () -> createContents(built, "low"), 1);
+            for (String name : List.of("left", "right")) {
+                DockNode dockNode = new DockNode();
+                scheduler.schedule(dockNode, () -> createContents(built, name));
+                dockNode.setDockPosition(DockPosition.LEFT);
+                dockNode.setDockPane(result);
+            }
+            return result;
+        });
+
+        for (int i = 0; i < 250 && FxToolkit.setupFixture(() -> dockPane.getPrewarmScheduler().getPendingCount()) > 0; i++) {
+            Thread.sleep(20);
+        }
+
+        assertEquals(List.of("left", "right", "hidden", "low"), built);
+        FxToolkit.setupFixture(() -> {
+            DockMetrics metrics = dockPane.getMetrics();
+            assertEquals(4, metrics.getPrewarmedCount());
+            assertTrue(metrics.getTimeToFirstInteractiveNanos() >= 0);
+            assertTrue(metrics.getTimeToAllWarmNanos() >= metrics.getTimeToFirstInteractiveNanos());
+            Stage stage = (Stage) dockPane.getScene().getWindow();
+            dockPane.dispose();
+            closeStage(stage);
+        });
+    }
+
+    @Test
+    void prewarmRunsBetweenPulsesWithoutRequestingThem() throws Exception {
+        List<String> built = new ArrayList<>();
+        int[] pulses = {0};
+        DockPane dockPane = FxToolkit.setupFixture(() -> {
+            DockPane result = new DockPane();
+            Stage stage = new Stage();
+            stage.setScene(new Scene(result, 400, 300));
+            stage.show();
+            result.getScene().addPostLayoutPulseListener(() -> pulses[0]++);
+
+            DockPrewarmScheduler scheduler = result.getPrewarmScheduler();
+            scheduler.setPulseBudget(Duration.ZERO);
+            for (int i = 0; i < 100; i++) {
+                scheduler.schedule(new DockNode(), () -> createContents(built, "hidden"));
+            }
+            return result;
+        });
+
+        for (int i = 0; i < 250 && FxToolkit.setupFixture(() -> dockPane.getPrewarmScheduler().getPendingCount()) > 0; i++) {
+            Thread.sleep(20);
+        }
+
+        assertEquals(100, built.size());
+        FxToolkit.setupFixture(() -> {
+            // one node is built per slice, yet the hidden nodes never needed a frame
+            assertEquals(100, dockPane.getMetrics().getPrewarmPulseCount());
+            assertTrue(pulses[0] < 10, pulses[0] + " pulses");
+            Stage stage = (Stage) dockPane.getScene().getWindow();
+            dockPane.dispose();
+            closeStage(stage);
+        });
+    }
+
+    @Test
+    void hibernationKeepsBudgetAndRestoresShownNodes() throws Exception {
+        FxToolkit.setupFixture(() -> {
+            DockPane dockPane = new DockPane();
+            Stage stage = new Stage();
+            stage.setScene(new Scene(dockPane, 400, 300));
+            stage.show();
+
+            List<String> events = new ArrayList<>();
+            DockHibernationCallback callback = new DockHibernationCallback() {
+                @Override
+                public void hibernate(DockNode dockNode, Node contents) {
+                    events.add("hibernate " + dockNode.getId());
+                }
+
+                @Override
+                public Node restore(DockNode dockNode) {
+                    events.add("restore " + dockNode.getId());
+                    return new Region();
+                }
+            };
+            DockHibernationManager manager = dockPane.getHibernationManager();
+            manager.setBudget(1);
+
+            DockNode shown = createDockNode(dockPane, DockPosition.LEFT);
+            shown.setId("shown");
+            manager.register(shown, callback);
+            List<DockNode> hidden = new ArrayList<>();
+            for (String id : List.of("first", "second")) {
+                DockNode dockNode = new DockNode();
+                Region contents = new Region();
+                contents.resize(40, 30);
+                dockNode.setContents(contents);
+                dockNode.setId(id);
+                manager.register(dockNode, callback);
+                hidden.add(dockNode);
+            }
+
+            manager.check(System.nanoTime());
+
+            // the showing node exceeds the budget on its own but is never hibernated
+            assertFalse(manager.isHibernated(shown));
+            assertEquals(List.of("hibernate first", "hibernate second"), events);
+            for (DockNode dockNode : hidden) {
+                assertTrue(manager.isHibernated(dockNode));
+                assertTrue(dockNode.getContents().getStyleClass().contains("dock-hibernated-placeholder"));
+            }
+
+            DockNode first = hidden.get(0);
+            first.setDockPosition(DockPosition.RIGHT);
+            first.setDockPane(dockPane);
+            manager.check(System.nanoTime());
+
+            assertFalse(manager.isHibernated(first));
+            assertEquals("restore first", events.get(2));
+            assertFalse(first.getContents().getStyleClass().contains("dock-hibernated-placeholder"));
+            assertEquals(2, dockPane.getMetrics().getHibernateCount());
+            assertEquals(1, dockPane.getMetrics().getHibernatedCount());
+
+            dockPane.dispose();
+            closeStage(stage);
+        });
+    }
+
+    @Test
+    void hibernationQueriesKeepTheLeastRecentlyShownOrder() throws Exception {
+        FxToolkit.setupFixture(() -> {
+            DockPane dockPane = new DockPane();
+            List<String> events = new ArrayList<>();
+            DockHibernationCallback callback = new DockHibernationCallback() {
+                @Override
+                public void hibernate(DockNode dockNode, Node contents) {
+                    events.add(dockNode.getId());
+                }
+
+                @Override
+                public Node restore(DockNode dockNode) {
+                    return new Region();
+                }
+            };
+            DockHibernationManager manager = dockPane.getHibernationManager();
+            List<DockNode> dockNodes = new ArrayList<>();
+            for (String id : List.of("first", "second", "third")) {
+                DockNode dockNode = new DockNode();
+                dockNode.setContents(new Region());
+                dockNode.setId(id);
+                manager.register(dockNode, callback);
+                dockNodes.add(dockNode);
+            }
+
+            // queries must not count as showing the dock node
+            DockNode first = dockNodes.get(0);
+            assertFalse(manager.isHibernated(first));
+            assertFalse(manager.restore(first));
+            manager.setBudget(1);
+            manager.check(System.nanoTime());
+
+            assertEquals(List.of("first", "second"), events);
+            assertFalse(manager.isHibernated(dockNodes.get(2)));
+
+            manager.unregisterAll();
+        });
+    }
+
+    @Test
+    void hibernationKeepsThePlaceholderWhenRestoringFails() throws Exception {
+        FxToolkit.setupFixture(() -> {
+            DockPane dockPane = new DockPane();
+            int[] failures = {1};
+            Region restored = new Region();
+            DockHibernationCallback callback = new DockHibernationCallback() {
+                @Override
+                public void hibernate(DockNode dockNode, Node contents) {
+                }
+
+                @Override
+                public Node restore(DockNode dockNode) {
+                    if (failures[0]-- > 0) {
+                        throw new IllegalStateException("not yet");
+                    }
+                    return restored;
+                }
+            };
+            DockHibernationManager manager = dockPane.getHibernationManager();
+            DockNode dockNode = new DockNode();
+            dockNode.setContents(new Region());
+            manager.register(dockNode, callback);
+            assertTrue(manager.hibernate(dockNode));
+            Node placeholder = dockNode.getContents();
+
+            assertFalse(manager.restore(dockNode));
+            assertTrue(manager.isHibernated(dockNode));
+            assertSame(placeholder, dockNode.getContents());
+            assertEquals(0, dockPane.getMetrics().getRestoreCount());
+
+            assertTrue(manager.restore(dockNode));
+            assertFalse(manager.isHibernated(dockNode));
+            assertSame(restored, dockNode.getContents());
+
+            manager.unregisterAll();
+        });
+    }
+
+    @Test
+    void undockNormalizesLayout() throws Exception {
+        FxToolkit.setupFixture(() -> {
+            DockPane dockPane = new DockPane();
+            DockNode a = createDockNode(dockPane, DockPosition.LEFT);
+            DockNode b = createDockNode(dockPane, DockPosition.BOTTOM);
+            DockNode c = DockNode.builder().contents(new Region()).dockPosition(DockPosition.RIGHT).sibling(b)
+                    .dock(dockPane);
+            DockNode d = DockNode.builder().contents(new Region()).dockPosition(DockPosition.BOTTOM).sibling(b)
+                    .dock(dockPane);
+
+            // a above a horizontal split of c and a vertical split of b and d
+            assertEquals(4, dockPane.getMetrics().getLayoutDepth());
+            assertEquals(7, dockPane.getMetrics().getLayoutNodeCount());
+
+            c.undock();
+
+            // the single item split collapses and the vertical split of b and d merges into the root
+            SplitPane root = (SplitPane) dockPane.getRoot();
+            assertEquals(Orientation.VERTICAL, root.getOrientation());
+            assertEquals(List.of(a, b, d), root.getItems());
+            assertEquals(2, dockPane.getMetrics().getLayoutDepth());
+            assertEquals(4, dockPane.getMetrics().getLayoutNodeCount());
+            double[] positions = root.getDividerPositions();
+            assertEquals(2, positions.length);
+            assertTrue(positions[0] < positions[1]);
+
+            a.undock();
+            b.undock();
+            assertEquals(List.of(d), ((SplitPane) dockPane.getRoot()).getItems());
+            assertEquals(1, dockPane.getMetrics().getLayoutSplitCount());
+            dockPane.dispose();
+        });
+    }
+
+    @Test
+    void dividerWeightsSurviveResizes() throws Exception {
+        FxToolkit.setupFixture(() -> {
+            DockPane dockPane = new DockPane();
+            new Scene(dockPane, 400, 300);
+            Region left = new Region();
+            left.setPrefWidth(200);
+            left.setMinWidth(150);
+            Region right = new Region();
+            right.setPrefWidth(600);
+            DockNode.builder().contents(left).titleBar(false).dockPosition(DockPosition.LEFT).dock(dockPane);
+            DockNode.builder().contents(right).titleBar(false).dockPosition(DockPosition.RIGHT).dock(dockPane);
+            SplitPane root = (SplitPane) dockPane.getRoot();
+
+            dockPane.applyCss();
+            for (double width : new double[]{800, 200, 800}) {
+                dockPane.resize(width, 300);
+                dockPane.layout();
+                double[] positions = root.getDividerPositions();
+                // the minimum size wins while the pane is small and the weights once it is large again
+                if (width > 300) {
+                    assertEquals(0.25, positions[0], 0.01);
+                } else {
+                    assertTrue(positions[0] * width >= 150);
+                }
+            }
+
+            // a divider dragged by the user becomes the new weights
+            root.setDividerPositions(0.5);
+            Node divider = root.lookup(".split-pane-divider");
+            divider.fireEvent(new MouseEvent(MouseEvent.MOUSE_RELEASED, 0, 0, 0, 0, MouseButton.PRIMARY, 1,
+                    false, false, false, false, false, false, false, false, false, false,
+                    new PickResult(divider, 0, 0)));
+            dockPane.resize(400, 300);
+            dockPane.layout();
+            assertEquals(0.5, root.getDividerPositions()[0], 0.01);
+            dockPane.dispose();
+        });
+    }
+
+    @Test
+    void dockSplitPaneLaysOutItemsFlat() throws Exception {
+        FxToolkit.setupFixture(() -> {
+            DockPane dockPane = new DockPane();
+            dockPane.setSplitFactory(DockSplitPane::new);
+            new Scene(dockPane, 400, 300);
+            List<DockNode> dockNodes = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                Region contents = new Region();
+                contents.setPrefWidth(100);
+                dockNodes.add(DockNode.builder().contents(contents).titleBar(false)
+                        .dockPosition(DockPosition.RIGHT).dock(dockPane));
+            }
+
+            DockSplitPane root = (DockSplitPane) dockPane.getRoot();
+            // the items and one divider between each of them are the only children
+            assertEquals(5, root.getChildrenUnmodifiable().size());
+            dockPane.applyCss();
+            dockPane.layout();
+            double dividerSize = root.getDividerSize();
+            for (DockNode dockNode : dockNodes) {
+                assertEquals(400 / 3.0, dockNode.getWidth() + dividerSize * (dockNode == dockNodes.get(1) ? 1 : 0.5), 1);
+                assertSame(root, dockNode.getParent());
+            }
+
+            dockNodes.get(1).undock();
+            assertEquals(3, root.getChildrenUnmodifiable().size());
+            dockPane.layout();
+            assertEquals(200, dockNodes.get(0).getWidth() + dividerSize / 2, 1);
+            dockPane.dispose();
+        });
+    }
+
+    private static Node createContents(List<String> built, String name) {
+        built.add(name);
+        return new Region();
+    }
+
+    private static DockNode createDockNode(DockPane dockPane, DockPosition dockPosition) {
+        DockNode dockNode = new DockNode();
+        dockNode.setContents(new Region());
+        dockNode.setDockPosition(dockPosition);
+        dockNode.setDockPane(dockPane);
+        return dockNode;
+    }
+
+    @Test
+    void canvasTitleBarHitTestsItsButtons() throws Exception {
+        FxToolkit.setupFixture(() -> {
+            DockPane dockPane = new DockPane();
+            new Scene(dockPane, 400, 300);
+            List<DockNode> dockNodes = new ArrayList<>();
+            for (int i = 0; i < 2; i++) {
+                dockNodes.add(DockNode.builder().contents(new Region())
+                        .titleBarFactory(DockRobot::headlessCanvasTitleBar)
+                        .dockPosition(DockPosition.RIGHT).dock(dockPane));
+            }
+            dockPane.applyCss();
+            dockPane.layout();
+
+            DockTitleBar titleBar = dockNodes.get(1).getDockTitleBar();
+            assertInstanceOf(DockCanvasTitleBar.class, titleBar);
+            assertNull(titleBar.getLabel());
+            assertEquals(1, titleBar.getChildrenUnmodifiable().size());
+
+            // a click on the caption does not hit a button
+            double y = titleBar.getHeight() / 2;
+            click(titleBar, 10, y);
+            assertTrue(dockNodes.get(1).isDocked());
+
+            // a docked dock node that may not float shows no state button
+            double prefWidth = titleBar.prefWidth(-1);
+            double stateX = titleBar.getWidth() - titleBar.snappedRightInset() - DockIcon.CLOSE.getImage().getWidth()
+                    - 8 - titleBar.getSpacing() - 8;
+            dockNodes.get(1).setFloatable(false);
+            assertEquals(prefWidth - titleBar.getSpacing() - DockIcon.RESTORE.getImage().getWidth() - 8,
+                    titleBar.prefWidth(-1));
+            click(titleBar, stateX, y);
+            assertFalse(dockNodes.get(1).isFloating());
+            dockNodes.get(1).setFloatable(true);
+            assertEquals(prefWidth, titleBar.prefWidth(-1));
+
+            // the close button is right aligned
+            click(titleBar, titleBar.getWidth() - 8, y);
+            assertFalse(dockNodes.get(1).isDocked());
+            assertTrue(dockNodes.get(0).isDocked());
+            dockPane.dispose();
+        });
+    }
+
+    @Test
+    void canvasTitleBarStylesAndClipsItsTitle() throws Exception {
+        FxToolkit.setupFixture(() -> {
+            DockPane dockPane = new DockPane();
+            Scene scene = new Scene(dockPane, 400, 300);
+            String css = ".dock-canvas-title-bar { -fx-text-fill: red; }";
+            scene.getStylesheets().add("data:text/css;base64,"
+                    + Base64.getEncoder().encodeToString(css.getBytes(StandardCharsets.UTF_8)));
+            DockNode dockNode = DockNode.builder().contents(new Region()).title("Portfolio overview")
+                    .titleBarFactory(DockRobot::headlessCanvasTitleBar).dockPosition(DockPosition.RIGHT)
+                    .dock(dockPane);
+            dockPane.applyCss();
+            dockPane.layout();
+
+            DockCanvasTitleBar titleBar = (DockCanvasTitleBar) dockNode.getDockTitleBar();
+            assertEquals(Color.RED, titleBar.getTextFill());
+            assertNull(titleBar.getCloseButton());
+            assertNull(titleBar.getStateButton());
+
+            // every character is 7 pixels wide and the ellipsis is one character
+            assertEquals("Portfolio overview", titleBar.clipTitle("Portfolio overview", 126));
+            assertEquals("Portfolio\u2026", titleBar.clipTitle("Portfolio overview", 70));
+            assertEquals("Portfolio\u2026", titleBar.clipTitle("Portfolio overview", 82));
+            assertEquals("\u2026", titleBar.clipTitle("Portfolio overview", 10));
+            assertEquals("", titleBar.clipTitle("Portfolio overview", 6));
+
+            // a bound fill is not overridden by the style sheet
+            titleBar.textFillProperty().bind(new SimpleObjectProperty<>(Color.BLUE));
+            dockPane.applyCss();
+            assertEquals(Color.BLUE, titleBar.getTextFill());
+            dockPane.dispose();
+        });
+    }
+
+    @Test
+    void gridLayoutPlacesNodesIntoCells() throws Exception {
+        FxToolkit.setupFixture(() -> {
+            DockPane dockPane = new DockPane();
+            DockGridLayout grid = new DockGridLayout(3);
+            dockPane.setLayoutEngine(grid);
+            new Scene(dockPane, 300, 200);
+            List<DockNode> dockNodes = new ArrayList<>();
+            for (int i = 0; i < 5; i++) {
+                dockNodes.add(DockNode.builder().contents(new Region()).titleBar(false)
+                        .dockPosition(DockPosition.RIGHT).dock(dockPane));
+            }
+            assertEquals(2, grid.getRows());
+            assertEquals(1, grid.getColumn(dockNodes.get(4)));
+            assertEquals(1, grid.getRow(dockNodes.get(4)));
+
+            // undocking leaves the other nodes in their cells and the next node takes the free cell
+            dockNodes.get(1).undock();
+            assertEquals(2, grid.getColumn(dockNodes.get(2)));
+            DockNode next = DockNode.builder().contents(new Region()).titleBar(false)
+                    .dockPosition(DockPosition.RIGHT).dock(dockPane);
+            assertEquals(1, grid.getColumn(next));
+            assertEquals(0, grid.getRow(next));
+
+            // a taken neighbouring cell inserts the node in reading order
+            DockNode left = DockNode.builder().contents(new Region()).titleBar(false)
+                    .dockPosition(DockPosition.LEFT).sibling(dockNodes.get(2)).dock(dockPane);
+            assertEquals(2, grid.getColumn(left));
+            assertEquals(0, grid.getColumn(dockNodes.get(2)));
+            assertEquals(1, grid.getRow(dockNodes.get(2)));
+            assertEquals(0, grid.getColumn(dockNodes.get(0)));
+
+            // the node below a spanning node moves on
+            grid.setSpan(left, 1, 2);
+            assertEquals(0, grid.getColumn(dockNodes.get(4)));
+            assertEquals(2, grid.getRow(dockNodes.get(4)));
+            dockPane.layout();
+            assertEquals(100, left.getWidth(), 1);
+            assertEquals(200 * 2 / 3.0, left.getHeight(), 1);
+            assertEquals(200 / 3.0, dockNodes.get(2).getHeight(), 1);
+
+            // the nodes keep their order when the layout engine changes
+            List<Node> nodes = grid.getNodes();
+            dockPane.setLayoutEngine(new DockSplitLayout());
+            assertEquals(nodes, dockPane.getLayoutEngine().getNodes());
+            assertSame(dockPane.getRoot(), dockPane.getChildren().get(0));
+            dockPane.dispose();
+        });
+    }
+
+    @Test
+    void floatingHostsShareOneWindow() throws Exception {
+        FxToolkit.setupFixture(() -> {
+            DockPane dockPane = new DockPane();
+            dockPane.setFloatingHosts(true);
+            Stage stage = new Stage();
+            stage.setScene(new Scene(dockPane, 400, 300));
+            stage.show();
+            List<DockNode> dockNodes = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                dockNodes.add(DockNode.builder().contents(new Region()).titleBarFactory(DockRobot::headlessCanvasTitleBar)
+                        .dockPosition(DockPosition.RIGHT).dock(dockPane));
+            }
+            dockPane.applyCss();
+            dockPane.layout();
+
+            // the state button floats the dock node in a floating host window
+            dockNodes.get(0).getDockTitleBar().toggleState();
+            assertEquals(1, dockPane.getMetrics().getFloatingHostCount());
+            DockPane host = dockPane.getFloatingHosts().get(0);
+            assertTrue(host.isFloatingHost());
+            assertTrue(host.isFloatingHosts());
+            assertSame(host, dockNodes.get(0).getDockPane());
+            assertFalse(dockNodes.get(0).isFloating());
+            Stage hostStage = (Stage) host.getScene().getWindow();
+            assertTrue(hostStage.isShowing());
+            assertSame(stage, hostStage.getOwner());
+
+            // another dock node shares the window
+            dockNodes.get(1).undock();
+            dockNodes.get(1).dock(host, DockPosition.BOTTOM, dockNodes.get(0));
+            assertEquals(2, dockPane.getMetrics().getFloatingHostNodeCount());
+
+            // the window closes with its last dock node
+            dockNodes.get(0).close();
+            assertTrue(hostStage.isShowing());
+            dockNodes.get(1).close();
+            assertFalse(hostStage.isShowing());
+            assertEquals(0, dockPane.getMetrics().getFloatingHostCount());
+            assertTrue(dockNodes.get(2).isDocked());
+
+            dockNodes.get(2).getDockTitleBar().toggleState();
+            dockPane.dispose();
+            assertEquals(0, dockPane.getFloatingHosts().size());
+            assertNull(dockNodes.get(2).getDockPane());
+            closeStage(stage);
+        });
+    }
+
+    @Test
+    void zoomShowsDockNodeOverLayout() throws Exception {
+        FxToolkit.setupFixture(() -> {
+            DockPane dockPane = new DockPane();
+            new Scene(dockPane, 400, 300);
+            List<DockNode> dockNodes = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                dockNodes.add(DockNode.builder().contents(new Region()).titleBar(false)
+                        .dockPosition(DockPosition.RIGHT).dock(dockPane));
+            }
+            dockPane.applyCss();
+            dockPane.layout();
+            Node root = dockPane.getRoot();
+            DockNode zoomed = dockNodes.get(1);
+            Node contents = zoomed.getContents();
+
+            dockPane.setZoomedNode(zoomed);
+            dockPane.layout();
+            assertTrue(zoomed.isZoomed());
+            // the zoomed node and its siblings stay in the layout
+            assertSame(root, dockPane.getRoot());
+            assertSame(zoomed, dockPane.getLayoutEngine().getNodes().get(1));
+            assertFalse(root.isVisible());
+            assertFalse(root.isManaged());
+            assertEquals(400, contents.getLayoutBounds().getWidth(), 1);
+
+            dockPane.setZoomedNode(null);
+            dockPane.layout();
+            assertFalse(zoomed.isZoomed());
+            assertSame(zoomed, contents.getParent());
+            assertTrue(root.isVisible());
+            assertEquals(1, dockPane.getChildren().size());
+            assertTrue(contents.getLayoutBounds().getWidth() < 200);
+
+            // docking changes restore the layout and nodes that are not docked are not zoomed
+            dockPane.setZoomedNode(zoomed);
+            dockNodes.get(0).undock();
+            assertNull(dockPane.getZoomedNode());
+            assertFalse(zoomed.isZoomed());
+            dockPane.setZoomedNode(dockNodes.get(0));
+            assertNull(dockPane.getZoomedNode());
+            dockPane.dispose();
+        });
+    }
+
+    @Test
+    void applyLayoutMakesMinimalEdits() throws Exception {
+        FxToolkit.setupFixture(() -> {
+            DockPane dockPane = new DockPane();
+            List<String> resolved = new ArrayList<>();
+            Function<String, DockNode> resolver = id -> {
+                resolved.add(id);
+                DockNode dockNode = new DockNode();
+                dockNode.setContents(new Region());
+                dockNode.setId(id);
+                return dockNode;
+            };
+            DockLayout trading = DockLayout.split(Orientation.HORIZONTAL,
+                    DockLayout.node("chart"),
+                    DockLayout.split(Orientation.VERTICAL, DockLayout.node("orders"), DockLayout.node("news")));
+            DockLayout research = DockLayout.split(Orientation.HORIZONTAL,
+                    List.of(DockLayout.node("chart"), DockLayout.node("notes"),
+                            DockLayout.split(Orientation.VERTICAL, DockLayout.node("orders"), DockLayout.node("news"))),
+                    new double[]{2, 1, 1});
+
+            dockPane.applyLayout(trading, resolver);
+            assertEquals(List.of("chart", "orders", "news"), resolved);
+            assertEquals(trading.getIds(), dockPane.captureLayout().getIds());
+            Node chart = dockPane.getLayoutEngine().getNodes().get(0);
+            SplitPane column = (SplitPane) ((SplitPane) dockPane.getRoot()).getItems().get(1);
+
+            dockPane.applyLayout(research, resolver);
+            // only the new node is inserted and the divider positions of the root change
+            assertEquals(2, dockPane.getMetrics().getLastLayoutEditCount());
+            assertEquals("notes", resolved.get(3));
+            assertSame(chart, dockPane.getLayoutEngine().getNodes().get(0));
+            assertSame(column, ((SplitPane) dockPane.getRoot()).getItems().get(2));
+            assertEquals(research.getIds(), dockPane.captureLayout().getIds());
+            assertArrayEquals(new double[]{0.5, 0.75}, ((SplitPane) dockPane.getRoot()).getDividerPositions(), 1e-9);
+
+            dockPane.applyLayout(trading, resolver);
+            assertEquals(Set.of("notes"), dockPane.getCachedLayoutIds());
+            assertSame(column, ((SplitPane) dockPane.getRoot()).getItems().get(1));
+
+            // switching back takes the cached node instead of resolving it again
+            dockPane.applyLayout(research, resolver);
+            assertEquals(4, resolved.size());
+            assertTrue(dockPane.getCachedLayoutIds().isEmpty());
+
+            // ids without a node are left out and the layout is normalized
+            dockPane.applyLayout(DockLayout.split(Orientation.VERTICAL, DockLayout.node("news"),
+                    DockLayout.split(Orientation.VERTICAL, DockLayout.node("missing"), DockLayout.node("orders"))), id -> null);
+            SplitPane root = (SplitPane) dockPane.getRoot();
+            assertEquals(Orientation.VERTICAL, root.getOrientation());
+            assertEquals(List.of("news", "orders"), dockPane.captureLayout().getIds());
+            assertEquals(2, root.getItems().size());
+            assertEquals(Set.of("chart", "notes"), dockPane.getCachedLayoutIds());
+            dockPane.dispose();
+            assertTrue(dockPane.getCachedLayoutIds().isEmpty());
+        });
+    }
+
+    @Test
+    void journalRecoversLayout(@TempDir Path directory) throws Exception {
+        Path file = directory.resolve("layout.journal");
+        DockPane dockPane = FxToolkit.setupFixture(DockPane::new);
+        DockJournal journal = FxToolkit.setupFixture(() -> {
+            DockJournal result = DockJournal.open(dockPane, file);
+            result.setCompactionThreshold(4);
+            DockNode a = createDockNode(dockPane, "a", DockPosition.LEFT);
+            DockNode b = createDockNode(dockPane, "b", DockPosition.RIGHT);
+            DockNode.builder().contents(new Region()).dockPosition(DockPosition.BOTTOM).sibling(b).dock(dockPane);
+            // docked nodes are moved next to a sibling
+            DockNode c = createDockNode(dockPane, "c", DockPosition.RIGHT);
+            c.undock();
+            c.dock(dockPane, DockPosition.BOTTOM, b);
+            createDockNode(dockPane, "d", DockPosition.TOP);
+            a.undock();
+            DockNode e = createDockNode(dockPane, "e", DockPosition.RIGHT);
+            e.undock();
+            e.dock(dockPane, DockPosition.LEFT, c);
+            return result;
+        });
+        journal.flush().get(10, TimeUnit.SECONDS);
+
+        // the journal was compacted and the anonymous dock node is left out
+        assertTrue(Files.exists(DockJournal.getSnapshotFile(file)));
+        assertTrue(Files.readAllLines(file).size() < 4);
+        DockLayout expected = FxToolkit.setupFixture(dockPane::captureJournalLayout);
+        assertEquals(List.of("d", "b", "e", "c"), expected.getIds());
+        assertSameStructure(expected, DockJournal.recover(file));
+
+        // an entry cut off by a crash is ignored
+        Files.writeString(file, "999 U d", StandardOpenOption.APPEND);
+        assertSameStructure(expected, DockJournal.recover(file));
+
+        FxToolkit.setupFixture(() -> {
+            journal.close();
+            dockPane.dispose();
+        });
+    }
+
+    @Test
+    void applyLayoutIsUndoneInOneStep() throws Exception {
+        FxToolkit.setupFixture(() -> {
+            DockPane dockPane = new DockPane();
+            Function<String, DockNode> resolver = id -> {
+                DockNode dockNode = new DockNode();
+                dockNode.setContents(new Region());
+                dockNode.setId(id);
+                return dockNode;
+            };
+            DockLayout trading = DockLayout.split(Orientation.HORIZONTAL,
+                    DockLayout.node("chart"),
+                    DockLayout.split(Orientation.VERTICAL, DockLayout.node("orders"), DockLayout.node("news")));
+            DockLayout research = DockLayout.split(Orientation.VERTICAL, DockLayout.node("notes"),
+                    DockLayout.node("chart"));
+            dockPane.applyLayout(trading, resolver);
+            DockUndoManager undoManager = dockPane.getUndoManager();
+            Node news = dockPane.getLayoutEngine().getNodes().get(2);
+            ((DockNode) news).undock();
+            List<String> before = dockPane.captureLayout().getIds();
+
+            dockPane.applyLayout(research, resolver);
+            assertEquals(List.of("notes", "chart"), dockPane.captureLayout().getIds());
+
+            // the switch is one command and the history before it is kept
+            assertTrue(undoManager.undo());
+            assertEquals(before, dockPane.captureLayout().getIds());
+            assertEquals(Orientation.HORIZONTAL, ((SplitPane) dockPane.getRoot()).getOrientation());
+            assertTrue(undoManager.undo());
+            assertEquals(List.of("chart", "orders", "news"), dockPane.captureLayout().getIds());
+            assertSame(news, dockPane.getLayoutEngine().getNodes().get(2));
+
+            assertTrue(undoManager.redo());
+            assertTrue(undoManager.redo());
+            assertEquals(List.of("notes", "chart"), dockPane.captureLayout().getIds());
+            assertFalse(undoManager.canRedo());
+            dockPane.dispose();
+        });
+    }
+
+    @Test
+    void undoManagerRevertsLayoutOperations() throws Exception {
+        DockPane dockPane = FxToolkit.setupFixture(DockPane::new);
+        FxToolkit.setupFixture(() -> {
+            DockNode a = createDockNode(dockPane, "a", DockPosition.LEFT);
+            DockNode b = createDockNode(dockPane, "b", DockPosition.RIGHT);
+            DockNode c = createDockNode(dockPane, "c", DockPosition.RIGHT);
+            c.undock();
+            c.dock(dockPane, DockPosition.BOTTOM, b);
+            DockNode e = createDockNode(dockPane, "e", DockPosition.TOP);
+            DockUndoManager undoManager = dockPane.getUndoManager();
+            List<DockLayout> layouts = new ArrayList<>();
+            layouts.add(dockPane.captureLayout());
+
+            // the split pane left with a single split pane item is merged into the root
+            a.undock();
+            layouts.add(dockPane.captureLayout());
+            assertEquals(3, layouts.get(1).getItems().size());
+            b.setFloating(true);
+            layouts.add(dockPane.captureLayout());
+            ((DockSplitLayout) dockPane.getLayoutEngine()).setWeights(new int[0], new double[]{1, 3});
+            layouts.add(dockPane.captureLayout());
+            e.undock();
+            layouts.add(dockPane.captureLayout());
+            e.dock(dockPane, DockPosition.LEFT, c);
+            layouts.add(dockPane.captureLayout());
+            assertEquals(Orientation.HORIZONTAL, layouts.get(5).getOrientation());
+
+            for (int i = layouts.size() - 2; i >= 0; i--) {
+                assertTrue(undoManager.undo());
+                // the orientation of a root with a single item does not matter
+                if (layouts.get(i).getItems().size() > 1) {
+                    assertSameStructure(layouts.get(i), dockPane.captureLayout());
+                } else {
+                    assertEquals(layouts.get(i).getIds(), dockPane.captureLayout().getIds());
+                }
+            }
+            assertFalse(undoManager.canUndo());
+            assertTrue(b.isDocked());
+            assertFalse(b.getStage().isShowing());
+
+            while (undoManager.redo()) {
+                assertTrue(undoManager.canUndo());
+            }
+            assertSameStructure(layouts.get(5), dockPane.captureLayout());
+            assertTrue(b.isFloating());
+
+            // the weights of the split pane come back with the dock node
+            undoManager.undo();
+            undoManager.undo();
+            assertArrayEquals(new double[]{1, 3}, dockPane.captureLayout().getWeights());
+
+            // the newest commands are kept and a new operation drops the undone ones
+            undoManager.setLimit(2);
+            assertFalse(undoManager.canUndo());
+            assertTrue(undoManager.canRedo());
+            e.undock();
+            assertFalse(undoManager.canRedo());
+
+            // the commands of a disposed dock node do nothing
+            e.dispose();
+            assertTrue(undoManager.undo());
+            assertFalse(e.isDocked());
+            assertEquals(List.of("c"), dockPane.captureLayout().getIds());
+            return null;
+        });
+        FxToolkit.setupFixture(dockPane::dispose);
+    }
+
+    @Test
+    void requestsFromOtherThreadsAreBatched() throws Exception {
+        DockPane dockPane = FxToolkit.setupFixture(DockPane::new);
+        DockNode shown = FxToolkit.setupFixture(() -> createDockNode(dockPane, "shown", DockPosition.LEFT));
+        DockUndoManager undoManager = FxToolkit.setupFixture(dockPane::getUndoManager);
+
+        // the application thread is kept busy while the worker submits so that its requests form a batch
+        FxToolkit.setupFixture(() -> {
+            Thread worker = new Thread(() -> {
+                for (int i = 0; i < 300; i++) {
+                    DockNode dockNode = new DockNode();
+                    dockNode.setContents(new Region());
+                    dockNode.setId("alert-" + i);
+                    dockPane.requestDock(dockNode, DockPosition.RIGHT, null);
+                    if (i % 3 == 0) {
+                        // opening and closing a dock node cancels out
+                        dockPane.requestClose(dockNode);
+                    }
+                }
+                dockPane.requestFloat(shown);
+                dockPane.requestClose(shown);
+            });
+            worker.start();
+            worker.join();
+            assertEquals(List.of(shown), dockPane.getLayoutEngine().getNodes());
+            return null;
+        });
+
+        FxToolkit.setupFixture(() -> {
+            DockMetrics metrics = dockPane.getMetrics();
+            assertEquals(1, metrics.getRequestBatchCount());
+            assertEquals(402, metrics.getRequestCount());
+            assertEquals(201, metrics.getAppliedRequestCount());
+            List<Node> nodes = dockPane.getLayoutEngine().getNodes();
+            assertEquals(200, nodes.size());
+            assertEquals("alert-1", nodes.get(0).getId());
+            assertEquals("alert-299", nodes.get(199).getId());
+            assertFalse(shown.isDocked());
+            assertFalse(shown.isFloating());
+
+            // the batch is undone at once
+            assertTrue(undoManager.undo());
+            assertEquals(List.of(shown), dockPane.getLayoutEngine().getNodes());
+            assertFalse(undoManager.canUndo());
+            dockPane.dispose();
+        });
+    }
+
+    @Test
+    void requestsAreAppliedOncePerPulse() throws Exception {
+        DockPane dockPane = FxToolkit.setupFixture(DockPane::new);
+        // the batch count at the start and at the end of every pulse
+        List<long[]> pulses = new ArrayList<>();
+        Stage stage = FxToolkit.setupFixture(() -> {
+            Stage result = new Stage();
+            result.setScene(new Scene(dockPane, 400, 300));
+            result.show();
+            DockMetrics metrics = dockPane.getMetrics();
+            result.getScene().addPreLayoutPulseListener(
+                    () -> pulses.add(new long[]{metrics.getRequestBatchCount(), -1}));
+            result.getScene().addPostLayoutPulseListener(() -> {
+                if (!pulses.isEmpty()) {
+                    pulses.get(pulses.size() - 1)[1] = metrics.getRequestBatchCount();
+                }
+            });
+            return result;
+        });
+
+        // the requests are submitted in bursts spanning several pulses
+        for (int i = 0; i < 500; i++) {
+            DockNode dockNode = new DockNode();
+            dockNode.setContents(new Region());
+            dockPane.requestDock(dockNode, DockPosition.RIGHT, null);
+            if (i % 50 == 49) {
+                Thread.sleep(10);
+            }
+        }
+        for (int i = 0; i < 100; i++) {
+            if (FxToolkit.setupFixture(() -> dockPane.getMetrics().getRequestCount()) == 500) {
+                break;
+            }
+            Thread.sleep(20);
+        }
+
+        FxToolkit.setupFixture(() -> {
+            assertEquals(500, dockPane.getLayoutEngine().getNodes().size());
+            long batches = 0;
+            for (long[] pulse : pulses) {
+                // no batch is applied between pulses and at most one in each
+                assertEquals(batches, pulse[0]);
+                assertTrue(pulse[1] - pulse[0] <= 1);
+                batches = pulse[1];
+            }
+            assertEquals(dockPane.getMetrics().getRequestBatchCount(), batches);
+            assertTrue(batches > 1);
+            dockPane.dispose();
+            closeStage(stage);
+        });
+    }
+
+    @Test
+    void layoutListenersReceiveNetChangesOncePerPulse() throws Exception {
+        DockPane dockPane = FxToolkit.setupFixture(DockPane::new);
+        List<DockLayoutChange> changes = new ArrayList<>();
+        DockLayoutListener listener = changes::add;
+        DockNode[] nodes = FxToolkit.setupFixture(() -> {
+            DockNode a = createDockNode(dockPane, "a", DockPosition.LEFT);
+            DockNode b = createDockNode(dockPane, "b", DockPosition.RIGHT);
+            DockNode c = createDockNode(dockPane, "c", DockPosition.BOTTOM);
+            dockPane.addLayoutListener(listener);
+
+            DockNode d = createDockNode(dockPane, "d", DockPosition.TOP);
+            a.close();
+            b.setFloating(true);
+            dockPane.undock(c);
+            dockPane.dock(c, DockPosition.LEFT, d);
+            // docking and closing a dock node during the same pulse cancels out
+            createDockNode(dockPane, "e", DockPosition.RIGHT).close();
+            return new DockNode[]{a, b, c, d};
+        });
+
+        FxToolkit.setupFixture(() -> {
+            assertEquals(1, changes.size());
+            DockLayoutChange change = changes.get(0);
+            assertEquals(List.of(nodes[3]), change.getAdded());
+            assertEquals(List.of(nodes[0]), change.getRemoved());
+            assertEquals(List.of(nodes[1]), change.getFloated());
+            assertEquals(List.of(nodes[2]), change.getMoved());
+            assertEquals(7, dockPane.getMetrics().getLayoutChangeCount());
+            assertEquals(1, dockPane.getMetrics().getLayoutNotificationCount());
+
+            // without listeners nothing is collected
+            dockPane.removeLayoutListener(listener);
+            nodes[3].close();
+        });
+        FxToolkit.setupFixture(() -> {
+            assertEquals(1, changes.size());
+            assertEquals(7, dockPane.getMetrics().getLayoutChangeCount());
+            nodes[1].close();
+            dockPane.dispose();
+        });
+    }
+
+    @Test
+    void dockIndicatorsUpdateOnlyWhenTheHoveredButtonChanges() throws Exception {
+        DockPane dockPane = FxToolkit.setupFixture(DockPane::new);
+        Stage stage = FxToolkit.setupFixture(() -> {
+            Stage s = new Stage();
+            s.setScene(new Scene(dockPane, 800, 600));
+            s.show();
+            return s;
+        });
+        FxToolkit.setupFixture(() -> {
+            // the indicator buttons get a skin without text as there are no fonts to lay out text with
+            for (DockPane.DockPosButton button : dockPane.getDockPosButtons()) {
+                button.setSkin(new RegionSkin(button));
+            }
+            DockNode a = createDockNode(dockPane, "a", DockPosition.LEFT);
+            DockNode b = createDockNode(dockPane, "b", DockPosition.RIGHT);
+            dockPane.applyCss();
+            dockPane.layout();
+            b.setFloating(true);
+
+            Node target = a.getContents();
+            Point2D center = target.localToScreen(50, 50);
+            fireDockEvent(target, DockEvent.DOCK_ENTER, center, null);
+            fireDockEvent(target, DockEvent.DOCK_OVER, center, null);
+            fireDockEvent(target, DockEvent.DOCK_OVER, center.add(1, 1), null);
+            DockMetrics metrics = dockPane.getMetrics();
+            assertEquals(2, metrics.getDockOverCount());
+            assertEquals(1, metrics.getIndicatorUpdateCount());
+
+            DockPane.DockPosButton top = dockPane.getDockPosButtons().get(0);
+            assertEquals(DockPosition.TOP, top.getDockPos());
+            Bounds topBounds = top.localToScreen(top.getLayoutBounds());
+            Point2D overTop = new Point2D(topBounds.getCenterX(), topBounds.getCenterY());
+            fireDockEvent(target, DockEvent.DOCK_OVER, overTop, null);
+            fireDockEvent(target, DockEvent.DOCK_OVER, overTop.add(1, 0), null);
+            assertEquals(4, metrics.getDockOverCount());
+            assertEquals(2, metrics.getIndicatorUpdateCount());
+            assertTrue(top.getPseudoClassStates().contains(PseudoClass.getPseudoClass("focused")));
+
+            fireDockEvent(target, DockEvent.DOCK_RELEASED, overTop, b);
+            assertFalse(top.getPseudoClassStates().contains(PseudoClass.getPseudoClass("focused")));
+            assertEquals(List.of("b", "a"), dockPane.captureLayout().getIds());
+            assertEquals(Orientation.VERTICAL, dockPane.captureLayout().getOrientation());
+
+            dockPane.dispose();
+            stage.close();
+        });
+    }
+
+    @Test
+    void onlyTheInnermostDockPaneHandlesDockEvents() throws Exception {
+        DockPane outer = FxToolkit.setupFixture(DockPane::new);
+        Stage stage = FxToolkit.setupFixture(() -> {
+            Stage s = new Stage();
+            s.setScene(new Scene(outer, 800, 600));
+            s.show();
+            return s;
+        });
+        FxToolkit.setupFixture(() -> {
+            DockPane inner = new DockPane();
+            for (DockPane dockPane : List.of(outer, inner)) {
+                for (DockPane.DockPosButton button : dockPane.getDockPosButtons()) {
+                    button.setSkin(new RegionSkin(button));
+                }
+            }
+            createDockNode(outer, "a", DockPosition.LEFT);
+            DockNode document = new DockNode();
+            document.setContents(inner);
+            document.setDockPosition(DockPosition.RIGHT);
+            document.setDockPane(outer);
+            DockNode b = createDockNode(inner, "b", DockPosition.LEFT);
+            DockNode c = createDockNode(outer, "c", DockPosition.BOTTOM);
+            outer.applyCss();
+            outer.layout();
+            c.setFloating(true);
+
+            Node target = b.getContents();
+            Point2D center = target.localToScreen(50, 50);
+            fireDockEvent(target, DockEvent.DOCK_ENTER, center, null);
+            fireDockEvent(target, DockEvent.DOCK_OVER, center, null);
+            assertEquals(1, inner.getMetrics().getDockOverCount());
+            assertEquals(0, outer.getMetrics().getDockOverCount());
+
+            DockPane.DockPosButton right = inner.getDockPosButtons().get(1);
+            assertEquals(DockPosition.RIGHT, right.getDockPos());
+            Bounds bounds = right.localToScreen(right.getLayoutBounds());
+            Point2D overRight = new Point2D(bounds.getCenterX(), bounds.getCenterY());
+            fireDockEvent(target, DockEvent.DOCK_OVER, overRight, null);
+            fireDockEvent(target, DockEvent.DOCK_RELEASED, overRight, c);
+            assertEquals(List.of("b", "c"), inner.captureLayout().getIds());
+            assertEquals(List.of(document), outer.getLayoutEngine().getNodes().subList(1, 2));
+            assertEquals(2, outer.getLayoutEngine().getNodes().size());
+
+            outer.dispose();
+            inner.dispose();
+            stage.close();
+        });
+    }
+
+    @Test
+    void dropFiltersHideRejectedPositionsAndSkipRejectedPanes() throws Exception {
+        DockPane dockPane = FxToolkit.setupFixture(DockPane::new);
+        Stage stage = FxToolkit.setupFixture(() -> {
+            Stage s = new Stage();
+            s.setScene(new Scene(dockPane, 800, 600));
+            s.show();
+            return s;
+        });
+        FxToolkit.setupFixture(() -> {
+            for (DockPane.DockPosButton button : dockPane.getDockPosButtons()) {
+                button.setSkin(new RegionSkin(button));
+            }
+            DockNode a = createDockNode(dockPane, "a", DockPosition.LEFT);
+            DockNode b = createDockNode(dockPane, "b", DockPosition.RIGHT);
+            DockNode dragged = new DockNode();
+            DockTitleBar titleBar = new DockTitleBar(dragged);
+            for (Control control : List.of(titleBar.getLabel(), titleBar.getCloseButton(), titleBar.getStateButton())) {
+                control.setSkin(new RegionSkin(control));
+            }
+            dragged.setDockTitleBar(titleBar);
+            dragged.setContents(new Region());
+            dragged.setDockPosition(DockPosition.BOTTOM);
+            dragged.setDockPane(dockPane);
+            dockPane.applyCss();
+            dockPane.layout();
+
+            // a dock node that may not float is not dragged out of its dock pane
+            dragged.setFloatable(false);
+            assertFalse(titleBar.getStateButton().isVisible());
+            Point2D start = titleBar.localToScreen(5, 5);
+            titleBar.handle(mouseEvent(MouseEvent.DRAG_DETECTED, start));
+            assertFalse(dragged.isFloating());
+            assertTrue(dragged.isDocked());
+            dragged.setFloatable(true);
+
+            List<String> asked = new ArrayList<>();
+            dockPane.setDropFilter((dockNode, pane, target, dockPosition) -> {
+                asked.add((target == null ? "root" : target.getId()) + " " + dockPosition);
+                return dockPosition != DockPosition.TOP && (target == null || !"b".equals(target.getId()));
+            });
+            titleBar.handle(mouseEvent(MouseEvent.MOUSE_PRESSED, start));
+            titleBar.handle(mouseEvent(MouseEvent.DRAG_DETECTED, start));
+            assertTrue(dragged.isFloating());
+
+            // the root indicator button for the top is hidden
+            Point2D overA = a.getContents().localToScreen(50, 50);
+            titleBar.handle(mouseEvent(MouseEvent.MOUSE_DRAGGED, overA));
+            List<DockPane.DockPosButton> buttons = dockPane.getDockPosButtons();
+            assertFalse(buttons.get(0).isVisible());
+            assertTrue(buttons.get(1).isVisible());
+            assertFalse(buttons.get(4).isVisible());
+            assertTrue(buttons.get(5).isVisible());
+
+            // b is not traversed, the dock pane itself is the target and shows the root buttons only
+            Point2D overB = b.getContents().localToScreen(50, 50);
+            titleBar.handle(mouseEvent(MouseEvent.MOUSE_DRAGGED, overB));
+            titleBar.handle(mouseEvent(MouseEvent.MOUSE_DRAGGED, overB.add(1, 1)));
+            assertEquals(1, asked.stream().filter("root null"::equals).count());
+            assertEquals(1, asked.stream().filter("b null"::equals).count());
+            assertFalse(asked.contains("b RIGHT"));
+
+            // a dock pane that rejects the dragged dock node gets no dock events at all
+            dockPane.getMetrics().reset();
+            dockPane.setDropFilter((dockNode, pane, target, dockPosition) -> false);
+            titleBar.handle(mouseEvent(MouseEvent.MOUSE_RELEASED, overB));
+            titleBar.handle(mouseEvent(MouseEvent.DRAG_DETECTED, start));
+            titleBar.handle(mouseEvent(MouseEvent.MOUSE_DRAGGED, overA));
+            assertEquals(0, dockPane.getMetrics().getDockOverCount());
+            titleBar.handle(mouseEvent(MouseEvent.MOUSE_RELEASED, overA));
+            assertTrue(dragged.isFloating());
+
+            dragged.close();
+            dockPane.dispose();
+            stage.close();
+        });
+    }
+
+    @Test
+    void nodesOutsideDockPanesGetDockEventsWithoutDropFilters() throws Exception {
+        FxToolkit.setupFixture(() -> {
+            DockPane dockPane = new DockPane();
+            Region plain = new Region();
+            plain.setPrefSize(200, 600);
+            HBox root = new HBox(plain, dockPane);
+            HBox.setHgrow(dockPane, Priority.ALWAYS);
+            Stage stage = new Stage();
+            stage.setScene(new Scene(root, 800, 600));
+            DockRobot.skinIndicators(stage.getScene());
+            stage.show();
+            DockRobot robot = new DockRobot(dockPane, 1);
+            DockNode a = robot.create("a");
+            DockNode b = robot.create("b");
+            robot.dock(a, DockPosition.RIGHT, null);
+            robot.dock(b, DockPosition.RIGHT, null);
+            root.applyCss();
+            root.layout();
+            List<EventType<?>> received = new ArrayList<>();
+            plain.addEventHandler(DockEvent.ANY, event -> received.add(event.getEventType()));
+
+            // every node under the mouse gets the dock events as long as there is no drop filter
+            DockTitleBar titleBar = b.getDockTitleBar();
+            Point2D overPlain = plain.localToScreen(100, 300);
+            titleBar.handle(mouseEvent(MouseEvent.MOUSE_PRESSED, titleBar.localToScreen(5, 5)));
+            titleBar.handle(mouseEvent(MouseEvent.DRAG_DETECTED, titleBar.localToScreen(5, 5)));
+            titleBar.handle(mouseEvent(MouseEvent.MOUSE_DRAGGED, overPlain));
+            titleBar.handle(mouseEvent(MouseEvent.MOUSE_RELEASED, overPlain));
+            assertTrue(received.containsAll(List.of(DockEvent.DOCK_ENTER, DockEvent.DOCK_OVER,
+                    DockEvent.DOCK_RELEASED)), received::toString);
+
+            // with a drop filter only the way to accepting dock panes is traversed
+            received.clear();
+            dockPane.setDropFilter((dockNode, pane, target, dockPosition) -> true);
+            titleBar = a.getDockTitleBar();
+            titleBar.handle(mouseEvent(MouseEvent.MOUSE_PRESSED, titleBar.localToScreen(5, 5)));
+            titleBar.handle(mouseEvent(MouseEvent.DRAG_DETECTED, titleBar.localToScreen(5, 5)));
+            titleBar.handle(mouseEvent(MouseEvent.MOUSE_DRAGGED, overPlain));
+            titleBar.handle(mouseEvent(MouseEvent.MOUSE_RELEASED, overPlain));
+            assertTrue(received.isEmpty(), received::toString);
+
+            for (DockNode dockNode : List.copyOf(robot.getDockNodes())) {
+                robot.close(dockNode);
+            }
+            dockPane.dispose();
+            stage.close();
+            return null;
+        });
+    }
+
+    @Test
+    void moveRelocatesDockNodesWithoutTakingThemOutOfTheScene() throws Exception {
+        FxToolkit.setupFixture(() -> {
+            DockPane dockPane = new DockPane();
+            Stage stage = new Stage();
+            stage.setScene(new Scene(dockPane, 800, 600));
+            stage.show();
+            DockNode a = createDockNode(dockPane, "a", DockPosition.RIGHT);
+            DockNode b = createDockNode(dockPane, "b", DockPosition.RIGHT);
+            DockNode c = createDockNode(dockPane, "c", DockPosition.RIGHT);
+            dockPane.applyCss();
+            dockPane.layout();
+            DockUndoManager undoManager = dockPane.getUndoManager();
+            List<DockMutation> mutations = new ArrayList<>();
+            dockPane.addMutationListener(mutations::add);
+            int[] sceneChanges = new int[2];
+            a.sceneProperty().addListener(observable -> sceneChanges[0]++);
+            c.sceneProperty().addListener(observable -> sceneChanges[1]++);
+
+            // the item passed by a dock node moving within its split pane goes to its other side
+            dockPane.move(a, DockPosition.RIGHT, b);
+            assertEquals(List.of("b", "a", "c"), dockPane.captureLayout().getIds());
+            assertTrue(a.isDocked());
+            assertEquals(DockPosition.RIGHT, a.getDockPosition());
+            assertEquals(1, mutations.size());
+            assertEquals("b", mutations.get(0).getSiblingId());
+            assertEquals(0, sceneChanges[0]);
+
+            // a move is undone and redone as one command
+            assertTrue(undoManager.undo());
+            assertEquals(List.of("a", "b", "c"), dockPane.captureLayout().getIds());
+            assertTrue(undoManager.redo());
+            assertEquals(List.of("b", "a", "c"), dockPane.captureLayout().getIds());
+            dockPane.move(a, DockPosition.RIGHT, c);
+            assertEquals(List.of("b", "c", "a"), dockPane.captureLayout().getIds());
+
+            // a dock node moved across split panes is docked again
+            dockPane.move(c, DockPosition.BOTTOM, a);
+            assertEquals(List.of("b", "a", "c"), dockPane.captureLayout().getIds());
+            assertEquals(Orientation.VERTICAL, dockPane.captureLayout().getItems().get(1).getOrientation());
+
+            sceneChanges[1] = 0;
+            dockPane.move(c, DockPosition.TOP, a);
+            assertEquals(List.of("b", "c", "a"), dockPane.captureLayout().getIds());
+            assertEquals(0, sceneChanges[1]);
+            dockPane.move(c, DockPosition.RIGHT, null);
+            assertEquals(List.of("b", "a", "c"), dockPane.captureLayout().getIds());
+            assertEquals(Orientation.HORIZONTAL, dockPane.captureLayout().getOrientation());
+            assertEquals(3, dockPane.captureLayout().getItems().size());
+
+            // a split pane of two items is turned around the dock node
+            dockPane.undock(b);
+            sceneChanges[1] = 0;
+            dockPane.move(c, DockPosition.TOP, a);
+            assertEquals(List.of("c", "a"), dockPane.captureLayout().getIds());
+            assertEquals(Orientation.VERTICAL, dockPane.captureLayout().getOrientation());
+            assertEquals(0, sceneChanges[1]);
+
+            // a dock node that is not docked in the dock pane is docked into it
+            b.setFloating(true);
+            dockPane.move(b, DockPosition.TOP, null);
+            assertEquals(List.of("b", "c", "a"), dockPane.captureLayout().getIds());
+            assertTrue(b.isDocked());
+            assertFalse(b.isFloating());
+            assertThrows(IllegalArgumentException.class, () -> dockPane.move(a, DockPosition.LEFT, a));
+
+            dockPane.dispose();
+            stage.close();
+            return null;
+        });
+    }
+
+    @Test
+    void robotRunsSeededWorkloadsRepeatably() throws Exception {
+        FxToolkit.setupFixture(() -> {
+            List<DockLayout> layouts = new ArrayList<>();
+            for (int run = 0; run < 2; run++) {
+                DockPane dockPane = new DockPane();
+                Stage stage = new Stage();
+                stage.setScene(new Scene(dockPane, 800, 600));
+                DockRobot.skinIndicators(stage.getScene());
+                stage.show();
+                DockRobot robot = new DockRobot(dockPane, 7);
+
+                // a dragged dock node is docked next to the dock node it is dropped on
+                DockNode a = robot.create("a");
+                DockNode b = robot.create("b");
+                robot.dock(a, DockPosition.RIGHT, null);
+                robot.dock(b, DockPosition.RIGHT, null);
+                dockPane.applyCss();
+                dockPane.layout();
+                assertTrue(robot.drag(b, a, DockPosition.BOTTOM));
+                assertEquals(Orientation.VERTICAL, dockPane.captureLayout().getOrientation());
+                assertEquals(List.of("a", "b"), dockPane.captureLayout().getIds());
+
+                robot.run(60);
+                assertTrue(robot.getTimings().get("drag").getCount() > 0);
+                assertEquals(robot.getTreeStatistics().dockedNodes(), dockPane.captureLayout().getIds().size());
+                layouts.add(dockPane.captureLayout());
+
+                for (DockNode dockNode : List.copyOf(robot.getDockNodes())) {
+                    robot.close(dockNode);
+                }
+                dockPane.dispose();
+                stage.close();
+            }
+            assertSameStructure(layouts.get(0), layouts.get(1));
+            return null;
+        });
+    }
+
+    @Test
+    void dragTracesAreRecordedSavedAndReplayed(@TempDir Path directory) throws Exception {
+        FxToolkit.setupFixture(() -> {
+            DockPane dockPane = new DockPane();
+            Stage stage = new Stage();
+            stage.setScene(new Scene(dockPane, 800, 600));
+            DockRobot.skinIndicators(stage.getScene());
+            stage.show();
+            DockRobot robot = new DockRobot(dockPane, 7);
+            DockNode a = robot.create("a");
+            DockNode b = robot.create("b");
+            robot.dock(a, DockPosition.RIGHT, null);
+            robot.dock(b, DockPosition.RIGHT, null);
+            dockPane.applyCss();
+            dockPane.layout();
+            DockLayout before = dockPane.captureLayout();
+
+            // only drags are recorded, and only while there is a consumer
+            List<DockDragTrace> traces = new ArrayList<>();
+            b.getDockTitleBar().setDragTraceConsumer(traces::add);
+            b.getDockTitleBar().handle(DockRobot.mouseEvent(MouseEvent.MOUSE_PRESSED, new Point2D(10, 10)));
+            b.getDockTitleBar().handle(DockRobot.mouseEvent(MouseEvent.MOUSE_RELEASED, new Point2D(10, 10)));
+            assertTrue(traces.isEmpty());
+            assertTrue(robot.drag(b, a, DockPosition.BOTTOM));
+            b.getDockTitleBar().setDragTraceConsumer(null);
+            assertTrue(robot.drag(b, a, DockPosition.RIGHT));
+            assertEquals(1, traces.size());
+
+            DockDragTrace trace = traces.get(0);
+            assertEquals("b", trace.getDockNodeId());
+            assertEquals(before, trace.getLayout());
+            assertNotNull(trace.getDockPaneBounds());
+            assertEquals(12, trace.size());
+            assertEquals(MouseEvent.MOUSE_PRESSED, trace.getEventType(0));
+            assertEquals(MouseEvent.DRAG_DETECTED, trace.getEventType(1));
+            assertEquals(MouseEvent.MOUSE_RELEASED, trace.getEventType(11));
+            assertEquals(MouseButton.PRIMARY, trace.getButton(5));
+
+            // a trace survives its file
+            Path file = directory.resolve("drag.dfxtrace");
+            trace.write(file);
+            assertTrue(Files.size(file) < 100 + 20 * trace.size());
+            DockDragTrace read = DockDragTrace.read(file);
+            assertEquals(trace.getLayout(), read.getLayout());
+            assertEquals(trace.getDockPaneBounds(), read.getDockPaneBounds());
+            for (int i = 0; i < trace.size(); i++) {
+                assertEquals(trace.getEventType(i), read.getEventType(i));
+                assertEquals(trace.getNanos(i), read.getNanos(i));
+                assertEquals(trace.getScreenX(i), read.getScreenX(i));
+                assertEquals(trace.getY(i), read.getY(i));
+            }
+            Files.write(file, new byte[]{1, 2, 3, 4, 5});
+            assertThrows(java.io.IOException.class, () -> DockDragTrace.read(file));
+
+            // the replay restores the recorded layout and drags the dock node the same way again
+            DockRobot.ReplayReport report = robot.replay(read, false);
+            assertTrue(report.docked());
+            assertEquals(12, report.events());
+            assertEquals(12, report.latency().getCount());
+            assertTrue(report.picks() > 0);
+            assertTrue(report.dispatches() > 0);
+            assertEquals(List.of("a", "b"), dockPane.captureLayout().getIds());
+            assertEquals(Orientation.VERTICAL, dockPane.captureLayout().getOrientation());
+
+            for (DockNode dockNode : List.copyOf(robot.getDockNodes())) {
+                robot.close(dockNode);
+            }
+            dockPane.dispose();
+            stage.close();
+            return null;
+        });
+    }
+
+    private static MouseEvent mouseEvent(EventType<MouseEvent> type, Point2D screen) {
+        return new MouseEvent(type, 0, 0, screen.getX(), screen.getY(), MouseButton.PRIMARY, 1, false, false, false,
+                false, true, false, false, false, false, false, null);
+    }
+
+    private static void fireDockEvent(Node target, EventType<DockEvent> type, Point2D screen, DockNode contents) {
+        Event.fireEvent(target, new DockEvent(target, target, type, 0, 0, screen.getX(), screen.getY(), null,
+                contents));
+    }
+
+    /**
+     * A skin showing a control as a plain square region.
+     */
+    private static final class RegionSkin implements Skin<Control> {
+        private final Control control;
+        private final Region region = new Region();
+
+        RegionSkin(Control control) {
+            this.control = control;
+            region.setPrefSize(32, 32);
+        }
+
+        @Override
+        public Control getSkinnable() {
+            return control;
+        }
+
+        @Override
+        public Node getNode() {
+            return region;
+        }
+
+        @Override
+        public void dispose() {
+        }
+    }
+
+    private static DockNode createDockNode(DockPane dockPane, String id, DockPosition dockPosition) {
+        DockNode dockNode = new DockNode();
+        Region contents = new Region();
+        contents.setPrefSize(100, 100);
+        dockNode.setContents(contents);
+        dockNode.setId(id);
+        dockNode.setDockPosition(dockPosition);
+        dockNode.setDockPane(dockPane);
+        return dockNode;
+    }
+
+    /**
+     * Compares the structure of the layouts. The weights are left out as the divider positions of a
+     * dock pane that was never laid out are not meaningful.
+     */
+    private static void assertSameStructure(DockLayout expected, DockLayout actual) {
+        assertEquals(expected.getId(), actual.getId());
+        assertEquals(expected.getOrientation(), actual.getOrientation());
+        assertEquals(expected.getItems().size(), actual.getItems().size(), actual::toString);
+        for (int i = 0; i < expected.getItems().size(); i++) {
+            assertSameStructure(expected.getItems().get(i), actual.getItems().get(i));
+        }
+    }
+
+    private static void click(Node node, double x, double y) {
+        Point2D scene = node.localToScene(x, y);
+        for (EventType<MouseEvent> type : List.of(MouseEvent.MOUSE_PRESSED, MouseEvent.MOUSE_RELEASED)) {
+            node.fireEvent(new MouseEvent(type, scene.getX(), scene.getY(), x, y, MouseButton.PRIMARY, 1,
+                    false, false, false, false, true, false, false, false, false, false,
+                    new PickResult(node, scene.getX(), scene.getY())));
+        }
+    }
+
+    private static void closeStage(Stage stage) {
+        stage.close();
+        // JavaFX may keep the last closed stage reachable, which is not what we are testing
+        stage.setScene(null);
+    }
+
+    private static void assertCollected(WeakReference<?> reference) throws InterruptedException {
+        for (int i = 0; i < 50 && reference.get() != null; i++) {
+            System.gc();
+            Thread.sleep(20);
+        }
+        assertNull(reference.get(), "object is still reachable after dispose");
+    }
+}
@@ -0,0 +1,599 @@
+/**
+ * @file DockRobot.java
+ * @brief Driver synthesizing docking operations headless for scripted load tests.
+ * @section License
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ **/
+
+package org.dockfx;
+
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
+import javafx.event.EventType;
+import javafx.geometry.Bounds;
+import javafx.geometry.Point2D;
+import javafx.geometry.Rectangle2D;
+import javafx.scene.Node;
+import javafx.scene.Scene;
+import javafx.scene.control.Control;
+import javafx.scene.control.Skin;
+import javafx.scene.input.MouseButton;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.layout.Region;
+import javafx.stage.Screen;
+import javafx.stage.Stage;
+import javafx.stage.Window;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Drives docking operations against a dock pane the way a user and an application would, for load
+ * tests that reproduce performance reports. Drags are synthesized as the mouse events a title bar
+ * receives, so they go through the same picking and dock indicators as a real drag, while docking,
+ * floating, moving and closing use the API. A seeded random workload mixes all of them, so the same
+ * seed always makes the same operations. Drag sessions recorded by a title bar as a
+ * {@link DockDragTrace} are replayed against their recorded layout. Every operation is timed
+ * including the CSS and layout passes of the next pulse.
+ * <p>
+ * The dock pane has to be shown in a window. The robot works headless on the Monocle platform: the
+ * controls of its title bars and dock indicators get a skin that lays out no text and floating
+ * windows are kept within the screen. It has to run on the JavaFX application thread.
+ *
+ * <pre>{@code
+ * DockRobot robot = new DockRobot(dockPane, 42);
+ * robot.run(1000);
+ * robot.getTimings().forEach((operation, timing) -> System.out.println(operation + " " + timing));
+ * }</pre>
+ *
+ * @since DockFX 0.1
+ */
+public final class DockRobot {
+    /**
+     * The number of mouse dragged events a drag takes to reach its target.
+     */
+    private static final int DRAG_STEPS = 8;
+
+    private static final DockPosition[] POSITIONS = {DockPosition.LEFT, DockPosition.RIGHT, DockPosition.TOP,
+            DockPosition.BOTTOM};
+
+    private final DockPane dockPane;
+    private final Random random;
+    private final List<DockNode> dockNodes = new ArrayList<>();
+    private final Map<String, Timing> timings = new LinkedHashMap<>();
+    private int created;
+
+    /**
+     * Create a robot driving the shown dock pane.
+     *
+     * @param dockPane The dock pane to drive.
+     * @param seed     The seed of the random workloads.
+     * @throws IllegalStateException If the dock pane is not in a scene.
+     */
+    public DockRobot(DockPane dockPane, long seed) {
+        if (dockPane.getScene() == null) {
+            throw new IllegalStateException("The dock pane has to be shown in a window");
+        }
+        this.dockPane = dockPane;
+        this.random = new Random(seed);
+        // the default style sheet is otherwise added after the first dock, which changes the size of
+        // the dock indicators between the first drags and the later ones
+        Scene scene = dockPane.getScene();
+        if (!scene.getStylesheets().contains(dockPane.getDefaultUserAgentStylesheet())) {
+            scene.getStylesheets().add(dockPane.getDefaultUserAgentStylesheet());
+        }
+        for (DockPane.DockPosButton button : dockPane.getDockPosButtons()) {
+            button.setSkin(new RegionSkin(button));
+        }
+    }
+
+    /**
+     * Create a dock node with a title bar that can be dragged headless. The dock node is not docked
+     * yet.
+     *
+     * @param id The id and title of the dock node.
+     * @return The dock node.
+     */
+    public DockNode create(String id) {
+        DockNode dockNode = new DockNode();
+        dockNode.setDockTitleBar(headlessTitleBar(dockNode));
+        dockNode.setTitle(id);
+        dockNode.setId(id);
+        Region contents = new Region();
+        contents.setPrefSize(100, 100);
+        dockNode.setContents(contents);
+        dockNodes.add(dockNode);
+        return dockNode;
+    }
+
+    /**
+     * Dock the dock node next to the sibling, or move it there if it is docked already.
+     *
+     * @param dockNode     The dock node.
+     * @param dockPosition The docking position relative to the sibling.
+     * @param sibling      The docked node to dock next to or null to dock relative to the whole layout.
+     */
+    public void dock(DockNode dockNode, DockPosition dockPosition, Node sibling) {
+        boolean docked = dockNode.isDocked() && !dockNode.isFloating() && dockNode.getDockPane() == dockPane;
+        long start = System.nanoTime();
+        dockPane.move(dockNode, dockPosition, sibling);
+        record(start, docked ? "move" : "dock");
+    }
+
+    /**
+     * Float the dock node in its own window.
+     *
+     * @param dockNode The dock node.
+     */
+    public void floatNode(DockNode dockNode) {
+        long start = System.nanoTime();
+        dockNode.setFloating(true);
+        record(start, "float");
+    }
+
+    /**
+     * Close the dock node and dispose it.
+     *
+     * @param dockNode The dock node.
+     */
+    public void close(DockNode dockNode) {
+        long start = System.nanoTime();
+        dockNode.dispose();
+        dockNodes.remove(dockNode);
+        record(start, "close");
+    }
+
+    /**
+     * Drag the dock node by its title bar onto the dock indicator button of the docking position,
+     * the way a user would: press the title bar, drag it in steps over the layout to the target and
+     * then onto the button and release it there. A docked node floats as soon as the drag starts.
+     *
+     * @param dockNode     The dock node to drag, which needs a title bar.
+     * @param target       The docked node to drop the dock node next to or null to drop it relative to
+     *                     the whole layout.
+     * @param dockPosition The docking position of the button to drop the dock node on.
+     * @return Whether the dock node was docked by the drag.
+     */
+    public boolean drag(DockNode dockNode, DockNode target, DockPosition dockPosition) {
+        DockTitleBar titleBar = dockNode.getDockTitleBar();
+        long start = System.nanoTime();
+        Point2D from = titleBar.localToScreen(5, 5);
+        if (from == null) {
+            from = dockPane.localToScreen(0, 0);
+        }
+        titleBar.handle(mouseEvent(MouseEvent.MOUSE_PRESSED, from));
+        titleBar.handle(mouseEvent(MouseEvent.DRAG_DETECTED, from));
+
+        Node over = target != null ? target : dockPane;
+        Bounds bounds = over.localToScreen(over.getLayoutBounds());
+        Point2D to = new Point2D(bounds.getCenterX(), bounds.getCenterY());
+        for (int i = 1; i <= DRAG_STEPS; i++) {
+            titleBar.handle(mouseEvent(MouseEvent.MOUSE_DRAGGED, from.interpolate(to, i / (double) DRAG_STEPS)));
+        }
+
+        Point2D drop = to;
+        for (DockPane.DockPosButton button : dockPane.getDockPosButtons()) {
+            if (button.getDockPos() == dockPosition && button.isDockRoot() == (target == null)
+                    && button.isVisible() && button.getScene() != null && button.getScene().getWindow().isShowing()) {
+                Bounds buttonBounds = button.localToScreen(button.getLayoutBounds());
+                drop = new Point2D(buttonBounds.getCenterX(), buttonBounds.getCenterY());
+            }
+        }
+        titleBar.handle(mouseEvent(MouseEvent.MOUSE_DRAGGED, drop));
+        titleBar.handle(mouseEvent(MouseEvent.MOUSE_RELEASED, drop));
+        record(start, "drag");
+        return dockNode.isDocked() && !dockNode.isFloating();
+    }
+
+    /**
+     * Replay a recorded drag session. The window of the dock pane is moved and sized so that the dock
+     * pane takes the screen bounds it had when the drag started, as far as the screen allows, and the
+     * recorded layout is applied with dock nodes created by this robot. The events are then fed to
+     * the title bar of the dragged dock node and each is timed. Traces from a larger screen need a
+     * headless screen as large, set by the {@code headless.geometry} system property, for example
+     * {@code -Dheadless.geometry=1920x1200}.
+     *
+     * @param trace The recorded drag session.
+     * @param paced Whether to wait between the events as long as the user did, running the pulses in
+     *              between, rather than feeding them back to back.
+     * @return The report of the replay.
+     * @throws IllegalArgumentException If the dragged dock node is neither in the recorded layout nor
+     *                                  a dock node of this robot.
+     */
+    public ReplayReport replay(DockDragTrace trace, boolean paced) {
+        Rectangle2D bounds = trace.getDockPaneBounds();
+        Window window = dockPane.getScene().getWindow();
+        if (bounds != null) {
+            Rectangle2D screen = Screen.getPrimary().getBounds();
+            double width = Math.min(bounds.getWidth(), screen.getWidth());
+            double height = Math.min(bounds.getHeight(), screen.getHeight());
+            window.setWidth(window.getWidth() + width - dockPane.getWidth());
+            window.setHeight(window.getHeight() + height - dockPane.getHeight());
+            Point2D at = dockPane.localToScreen(0, 0);
+            window.setX(window.getX() + Math.max(screen.getMinX(), Math.min(bounds.getMinX(), screen.getMaxX() - width))
+                    - at.getX());
+            window.setY(window.getY() + Math.max(screen.getMinY(), Math.min(bounds.getMinY(), screen.getMaxY() - height))
+                    - at.getY());
+        }
+        if (trace.getLayout() != null) {
+            dockPane.applyLayout(trace.getLayout(), this::create);
+        }
+        dockPane.getScene().getRoot().applyCss();
+        dockPane.getScene().getRoot().layout();
+
+        // the dragged dock node is looked for in the layout first, it may have been floating
+        String id = trace.getDockNodeId();
+        List<Node> candidates = new ArrayList<>(dockPane.getLayoutEngine().getNodes());
+        candidates.addAll(dockNodes);
+        DockNode dragged = null;
+        for (Node node : candidates) {
+            if (dragged == null && id != null && node instanceof DockNode dockNode && id.equals(dockNode.getId())) {
+                dragged = dockNode;
+            }
+        }
+        if (dragged == null) {
+            throw new IllegalArgumentException("No dock node " + trace.getDockNodeId() + " to replay the drag of");
+        }
+
+        DockTitleBar titleBar = dragged.getDockTitleBar();
+        long picks = titleBar.getPickCount();
+        long dispatches = titleBar.getDispatchCount();
+        Timing latency = new Timing();
+        long replayStart = System.nanoTime();
+        for (int i = 0; i < trace.size(); i++) {
+            if (paced && System.nanoTime() - replayStart < trace.getNanos(i)) {
+                waitForPulse(replayStart + trace.getNanos(i));
+            }
+            MouseButton button = trace.getButton(i);
+            MouseEvent event = new MouseEvent(trace.getEventType(i), trace.getX(i), trace.getY(i),
+                    trace.getScreenX(i), trace.getScreenY(i), button, trace.getClickCount(i), false, false, false,
+                    false, button == MouseButton.PRIMARY && trace.getEventType(i) != MouseEvent.MOUSE_RELEASED, false,
+                    false, false, false, false, null);
+            long start = System.nanoTime();
+            titleBar.handle(event);
+            latency.add(System.nanoTime() - start);
+            keepOnScreen(dragged);
+        }
+        record(replayStart, "replay");
+        return new ReplayReport(trace.size(), titleBar.getPickCount() - picks, titleBar.getDispatchCount() - dispatches,
+                latency, dragged.isDocked() && !dragged.isFloating());
+    }
+
+    /**
+     * Run a random workload of operations. Dock nodes are created and docked, dragged next to other
+     * dock nodes, moved, floated, docked again and closed, about as often as users do, while keeping
+     * at least a few dock nodes docked.
+     *
+     * @param operations The number of operations.
+     */
+    public void run(int operations) {
+        for (int i = 0; i < operations; i++) {
+            List<DockNode> docked = new ArrayList<>();
+            List<DockNode> floating = new ArrayList<>();
+            for (DockNode dockNode : dockNodes) {
+                if (dockNode.isFloating()) {
+                    floating.add(dockNode);
+                } else if (dockNode.isDocked()) {
+                    docked.add(dockNode);
+                }
+            }
+
+            int operation = docked.size() < 4 ? 0 : random.nextInt(10);
+            DockPosition dockPosition = POSITIONS[random.nextInt(POSITIONS.length)];
+            DockNode sibling = docked.isEmpty() || random.nextInt(10) == 0 ? null
+                    : docked.get(random.nextInt(docked.size()));
+            if (operation < 2) {
+                dock(create("robot-" + created++), dockPosition, sibling);
+            } else if (operation < 4 && sibling != null) {
+                DockNode dockNode = pick(docked, sibling);
+                drag(dockNode, sibling, dockPosition);
+            } else if (operation < 6 && sibling != null) {
+                dock(pick(docked, sibling), dockPosition, sibling);
+            } else if (operation < 7) {
+                floatNode(docked.get(random.nextInt(docked.size())));
+            } else if (operation < 9 && !floating.isEmpty()) {
+                dock(floating.get(random.nextInt(floating.size())), dockPosition, sibling);
+            } else {
+                List<DockNode> open = floating.isEmpty() || random.nextBoolean() ? docked : floating;
+                close(open.get(random.nextInt(open.size())));
+            }
+        }
+    }
+
+    /**
+     * A random docked node other than the sibling.
+     */
+    private DockNode pick(List<DockNode> docked, DockNode sibling) {
+        DockNode dockNode = docked.get(random.nextInt(docked.size()));
+        return dockNode != sibling ? dockNode : docked.get((docked.indexOf(sibling) + 1) % docked.size());
+    }
+
+    /**
+     * Record the time an operation took since it started, including the CSS and layout passes of the
+     * next pulse in the scene of the dock pane and the windows of the floating dock nodes.
+     */
+    private void record(long start, String operation) {
+        long nanos = System.nanoTime() - start;
+        keepOnScreen();
+        List<Scene> scenes = new ArrayList<>();
+        scenes.add(dockPane.getScene());
+        for (DockNode dockNode : dockNodes) {
+            if (dockNode.isFloating() && dockNode.getScene() != null) {
+                scenes.add(dockNode.getScene());
+            }
+        }
+        long[] passStart = new long[1];
+        long[] passNanos = new long[1];
+        Runnable preLayout = () -> passStart[0] = System.nanoTime();
+        Runnable postLayout = () -> passNanos[0] += System.nanoTime() - passStart[0];
+        for (Scene scene : scenes) {
+            scene.addPreLayoutPulseListener(preLayout);
+            scene.addPostLayoutPulseListener(postLayout);
+        }
+        waitForPulse(0);
+        for (Scene scene : scenes) {
+            scene.removePreLayoutPulseListener(preLayout);
+            scene.removePostLayoutPulseListener(postLayout);
+        }
+        timings.computeIfAbsent(operation, name -> new Timing()).add(nanos + passNanos[0]);
+    }
+
+    /**
+     * Keep the floating windows of the dock nodes within the screen, as the headless platform fails
+     * to paint windows reaching past it.
+     */
+    private void keepOnScreen() {
+        for (DockNode dockNode : dockNodes) {
+            keepOnScreen(dockNode);
+        }
+    }
+
+    private static void keepOnScreen(DockNode dockNode) {
+        Rectangle2D screen = Screen.getPrimary().getBounds();
+        Stage stage = dockNode.getStage();
+        if (dockNode.isFloating() && stage != null) {
+            stage.setWidth(Math.min(stage.getWidth(), screen.getWidth() / 2));
+            stage.setHeight(Math.min(stage.getHeight(), screen.getHeight() / 2));
+            stage.setX(Math.max(screen.getMinX(), Math.min(stage.getX(), screen.getMaxX() - stage.getWidth())));
+            stage.setY(Math.max(screen.getMinY(), Math.min(stage.getY(), screen.getMaxY() - stage.getHeight())));
+        }
+    }
+
+    /**
+     * Wait in a nested event loop for the first pulse at or after the deadline. Leaving the nested
+     * event loop returns once the whole pulse, CSS and layout passes included, ran.
+     *
+     * @param deadline The {@link System#nanoTime()} to wait for, 0 for the next pulse.
+     */
+    private static void waitForPulse(long deadline) {
+        Object key = new Object();
+        new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                if (System.nanoTime() >= deadline) {
+                    stop();
+                    Platform.exitNestedEventLoop(key, null);
+                }
+            }
+        }.start();
+        Platform.enterNestedEventLoop(key);
+    }
+
+    /**
+     * The dock nodes created by this robot that were not closed, docked or floating.
+     *
+     * @return The dock nodes.
+     */
+    public List<DockNode> getDockNodes() {
+        return Collections.unmodifiableList(dockNodes);
+    }
+
+    /**
+     * The timings of the operations, by the name of the operation: dock, move, drag, float, close and
+     * replay.
+     *
+     * @return The timings in the order the operations were first made.
+     */
+    public Map<String, Timing> getTimings() {
+        return Collections.unmodifiableMap(timings);
+    }
+
+    /**
+     * Describe the layout the operations left behind.
+     *
+     * @return The statistics of the layout.
+     */
+    public TreeStatistics getTreeStatistics() {
+        int floating = 0;
+        for (DockNode dockNode : dockNodes) {
+            if (dockNode.isFloating()) {
+                floating++;
+            }
+        }
+        DockLayout layout = dockPane.captureLayout();
+        int[] splits = new int[1];
+        int depth = layout == null ? 0 : measure(layout, splits);
+        return new TreeStatistics(layout == null ? 0 : layout.getIds().size(), floating, splits[0], depth);
+    }
+
+    private static int measure(DockLayout layout, int[] splits) {
+        if (!layout.isSplit()) {
+            return 1;
+        }
+        splits[0]++;
+        int depth = 0;
+        for (DockLayout item : layout.getItems()) {
+            depth = Math.max(depth, measure(item, splits));
+        }
+        return depth + 1;
+    }
+
+    /**
+     * A title bar for the dock node whose label and buttons can be laid out without fonts.
+     *
+     * @param dockNode The dock node.
+     * @return The title bar, which still has to be set on the dock node.
+     */
+    public static DockTitleBar headlessTitleBar(DockNode dockNode) {
+        DockTitleBar titleBar = new DockTitleBar(dockNode);
+        for (Control control : List.of(titleBar.getLabel(), titleBar.getCloseButton(), titleBar.getStateButton())) {
+            control.setSkin(new RegionSkin(control));
+        }
+        return titleBar;
+    }
+
+    /**
+     * A canvas title bar for the dock node that measures its title without fonts, taking every
+     * character to be 7 pixels wide.
+     *
+     * @param dockNode The dock node.
+     * @return The title bar, which still has to be set on the dock node.
+     */
+    public static DockCanvasTitleBar headlessCanvasTitleBar(DockNode dockNode) {
+        return new DockCanvasTitleBar(dockNode) {
+            @Override
+            double computeTextWidth(String text) {
+                return 7 * text.length();
+            }
+        };
+    }
+
+    /**
+     * Give the dock indicator buttons of the dock panes of the scene a skin that lays out no text, so
+     * that their popups can be shown headless without fonts.
+     *
+     * @param scene The scene.
+     */
+    public static void skinIndicators(Scene scene) {
+        String css = ".dock-pos-indicator .button, .dock-root-pane .button { -fx-skin: \""
+                + RegionSkin.class.getName() + "\"; }";
+        scene.getStylesheets().add("data:text/css;base64,"
+                + Base64.getEncoder().encodeToString(css.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * A primary button mouse event at the screen location, as a title bar receives it while dragged.
+     *
+     * @param type   The type of the event.
+     * @param screen The screen location of the mouse.
+     * @return The mouse event.
+     */
+    public static MouseEvent mouseEvent(EventType<MouseEvent> type, Point2D screen) {
+        return new MouseEvent(type, 0, 0, screen.getX(), screen.getY(), MouseButton.PRIMARY, 1, false, false, false,
+                false, true, false, false, false, false, false, null);
+    }
+
+    /**
+     * The durations of the operations of one kind.
+     */
+    public static final class Timing {
+        private long[] nanos = new long[16];
+        private int count;
+
+        private void add(long duration) {
+            if (count == nanos.length) {
+                nanos = Arrays.copyOf(nanos, count * 2);
+            }
+            nanos[count++] = duration;
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        public long getTotalNanos() {
+            long total = 0;
+            for (int i = 0; i < count; i++) {
+                total += nanos[i];
+            }
+            return total;
+        }
+
+        public double getMeanNanos() {
+            return count == 0 ? 0 : getTotalNanos() / (double) count;
+        }
+
+        /**
+         * The duration that the given share of the operations did not exceed.
+         *
+         * @param percentile The share of the operations from 0 to 100.
+         * @return The duration in nanoseconds or 0 if there were no operations.
+         */
+        public long getPercentileNanos(double percentile) {
+            if (count == 0) {
+                return 0;
+            }
+            long[] sorted = Arrays.copyOf(nanos, count);
+            Arrays.sort(sorted);
+            int index = (int) Math.ceil(percentile / 100 * count) - 1;
+            return sorted[Math.max(0, Math.min(count - 1, index))];
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d ops, mean %.1f us, p50 %.1f us, p99 %.1f us, max %.1f us", count,
+                    getMeanNanos() / 1e3, getPercentileNanos(50) / 1e3, getPercentileNanos(99) / 1e3,
+                    getPercentileNanos(100) / 1e3);
+        }
+    }
+
+    /**
+     * The statistics of a layout.
+     *
+     * @param dockedNodes   The number of docked nodes.
+     * @param floatingNodes The number of floating dock nodes created by the robot.
+     * @param splits        The number of splits.
+     * @param depth         The depth of the split tree, 1 for a single docked node.
+     */
+    public record TreeStatistics(int dockedNodes, int floatingNodes, int splits, int depth) {
+    }
+
+    /**
+     * The report of a replayed drag session.
+     *
+     * @param events     The number of replayed events.
+     * @param picks      The number of nodes hit-tested while picking the targets of the dock events.
+     * @param dispatches The number of dock events fired at the picked targets.
+     * @param latency    The time the title bar took to handle each event.
+     * @param docked     Whether the dragged dock node ended up docked.
+     */
+    public record ReplayReport(int events, long picks, long dispatches, Timing latency, boolean docked) {
+    }
+
+    /**
+     * A skin showing a control as a plain square region, for controls that would otherwise lay out
+     * text without fonts.
+     */
+    public static final class RegionSkin implements Skin<Control> {
+        private final Control control;
+        private final Region region = new Region();
+
+        public RegionSkin(Control control) {
+            this.control = control;
+            region.setPrefSize(32, 32);
+        }
+
+        @Override
+        public Control getSkinnable() {
+            return control;
+        }
+
+        @Override
+        public Node getNode() {
+            return region;
+        }
+
+        @Override
+        public void dispose() {
+        }
+    }
+}
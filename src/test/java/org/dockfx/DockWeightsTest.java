@@ -0,0 +1,50 @@
+package org.dockfx;
+
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class DockWeightsTest {
+
+    private static final double DELTA = 1e-9;
+
+    @Test
+    void sharesInProportionToWeights() {
+        assertArrayEquals(new double[]{0.25, 0.5}, DockWeights.solve(new double[]{1, 1, 2}, new double[3], 400), DELTA);
+    }
+
+    @Test
+    void keepsMinimumSizes() {
+        double[] sizes = DockWeights.solveSizes(new double[]{1, 3}, new double[]{150, 0}, 200);
+
+        assertArrayEquals(new double[]{150, 50}, sizes, DELTA);
+    }
+
+    @Test
+    void fixingOneMinimumSizeCanViolateAnother() {
+        // the second item only falls below its minimum once the first one is fixed
+        double[] sizes = DockWeights.solveSizes(new double[]{1, 2, 7}, new double[]{50, 40, 0}, 200);
+
+        assertArrayEquals(new double[]{50, 40, 110}, sizes, DELTA);
+    }
+
+    @Test
+    void shrinksMinimumSizesThatDoNotFit() {
+        double[] sizes = DockWeights.solveSizes(new double[]{1, 1}, new double[]{300, 100}, 200);
+
+        assertArrayEquals(new double[]{150, 50}, sizes, DELTA);
+    }
+
+    @Test
+    void takesWeightsAsSizesWithoutExtent() {
+        assertArrayEquals(new double[]{0.25}, DockWeights.solve(new double[]{100, 300}, new double[2], 0), DELTA);
+    }
+
+    @Test
+    void replacesMissingWeightsWithTheAverage() {
+        assertArrayEquals(new double[]{1 / 3.0, 0.5}, DockWeights.solve(new double[]{Double.NaN, 100, 300}, new double[3], 0), DELTA);
+        assertEquals(0, DockWeights.solve(new double[]{1}, new double[1], 100).length);
+    }
+}
@@ -0,0 +1,1619 @@
+/**
+ * @file DockBenchmark.java
+ * @brief Driver running performance scenarios against the public DockFX API. Maintained in a
+ * separate package to ensure the encapsulation of org.dockfx private package members.
+ * @section License
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ **/
+
+package org.dockfx.benchmark;
+
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
+import javafx.beans.value.ChangeListener;
+import javafx.event.Event;
+import javafx.geometry.Bounds;
+import javafx.geometry.Insets;
+import javafx.geometry.Orientation;
+import javafx.geometry.Point2D;
+import javafx.scene.Node;
+import javafx.scene.Parent;
+import javafx.scene.Scene;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.control.ScrollPane;
+import javafx.scene.control.Skin;
+import javafx.scene.control.Slider;
+import javafx.scene.control.SplitPane;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.layout.GridPane;
+import javafx.scene.layout.Region;
+import javafx.stage.PopupWindow;
+import javafx.stage.Stage;
+import javafx.stage.Window;
+import org.dockfx.DockCanvasTitleBar;
+import org.dockfx.DockDragTrace;
+import org.dockfx.DockEvent;
+import org.dockfx.DockGridLayout;
+import org.dockfx.DockIcon;
+import org.dockfx.DockJournal;
+import org.dockfx.DockLayout;
+import org.dockfx.DockLayoutEngine;
+import org.dockfx.DockMetrics;
+import org.dockfx.DockNode;
+import org.dockfx.DockPane;
+import org.dockfx.DockPosition;
+import org.dockfx.DockUndoManager;
+import org.dockfx.DockPrewarmScheduler;
+import org.dockfx.DockRobot;
+import org.dockfx.DockSplit;
+import org.dockfx.DockSplitLayout;
+import org.dockfx.DockSplitPane;
+import org.dockfx.DockTitleBar;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Runs the named benchmark scenarios, or all of them when no name is given, and prints one line per
+ * measurement. Every scenario runs on the JavaFX application thread. To run it without a display use
+ * the headless Monocle platform the tests use, i.e. {@code -Dglass.platform=Monocle
+ * -Dmonocle.platform=Headless -Dprism.order=sw}.
+ */
+public class DockBenchmark {
+    private static final Map<String, Scenario> scenarios = new LinkedHashMap<>();
+
+    static {
+        scenarios.put("dock-nodes", DockBenchmark::dockNodes);
+        scenarios.put("dock-all", DockBenchmark::dockAll);
+        scenarios.put("prewarm", DockBenchmark::prewarm);
+        scenarios.put("dock-churn", DockBenchmark::dockChurn);
+        scenarios.put("split-container", DockBenchmark::splitContainer);
+        scenarios.put("title-bars", DockBenchmark::titleBars);
+        scenarios.put("canvas-memory", DockBenchmark::canvasMemory);
+        scenarios.put("layout-engines", DockBenchmark::layoutEngines);
+        scenarios.put("floating-hosts", DockBenchmark::floatingHosts);
+        scenarios.put("zoom", DockBenchmark::zoom);
+        scenarios.put("float-dock", DockBenchmark::floatDock);
+        scenarios.put("perspectives", DockBenchmark::perspectives);
+        scenarios.put("journal", DockBenchmark::journal);
+        scenarios.put("undo", DockBenchmark::undo);
+        scenarios.put("requests", DockBenchmark::requests);
+        scenarios.put("layout-listener", DockBenchmark::layoutListener);
+        scenarios.put("dock-over", DockBenchmark::dockOver);
+        scenarios.put("nested-pick", DockBenchmark::nestedPick);
+        scenarios.put("drop-filter", DockBenchmark::dropFilter);
+        scenarios.put("move", DockBenchmark::move);
+        scenarios.put("robot", DockBenchmark::robot);
+        scenarios.put("replay", DockBenchmark::replay);
+    }
+
+    public static void main(String[] args) throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        Platform.startup(started::countDown);
+        started.await();
+
+        List<String> names = args.length > 0 ? Arrays.asList(args) : new ArrayList<>(scenarios.keySet());
+        for (String name : names) {
+            Scenario scenario = scenarios.get(name);
+            if (scenario == null) {
+                System.err.println("unknown scenario " + name + ", expected one of " + scenarios.keySet());
+                continue;
+            }
+            Report report = new Report(name);
+            CompletableFuture<Void> done = new CompletableFuture<>();
+            Platform.runLater(() -> {
+                try {
+                    scenario.run(report);
+                    done.complete(null);
+                } catch (Throwable t) {
+                    done.completeExceptionally(t);
+                }
+            });
+            done.get();
+        }
+
+        Platform.exit();
+    }
+
+    /**
+     * Creates and docks 1,000 dock nodes that keep the default graphic and measures the time and the
+     * heap it takes.
+     */
+    private static void dockNodes(Report report) {
+        DockPane dockPane = new DockPane();
+        Stage stage = show(dockPane);
+
+        long heapBefore = usedHeap();
+        long start = System.nanoTime();
+        for (int i = 0; i < 1000; i++) {
+            DockNode dockNode = new DockNode();
+            dockNode.setContents(new Region());
+            dockNode.setTitle("Panel " + i);
+            dockNode.setDockPosition(i % 2 == 0 ? DockPosition.RIGHT : DockPosition.BOTTOM);
+            dockNode.setDockPane(dockPane);
+        }
+        report.add("create and dock", System.nanoTime() - start, 1000);
+        report.add("retained heap", usedHeap() - heapBefore, "bytes");
+        report.add("default graphic decoded", DockIcon.DOCK_NODE.isCached() ? 1 : 0, "images");
+
+        dockPane.dispose();
+        stage.close();
+    }
+
+    /**
+     * Builds the same layout of 1,000 dock nodes once through the setters and once through
+     * {@link DockPane#dockAll(List)}.
+     */
+    private static void dockAll(Report report) {
+        DockPane setterPane = new DockPane();
+        Stage setterStage = show(setterPane);
+        long start = System.nanoTime();
+        for (int i = 0; i < 1000; i++) {
+            DockNode dockNode = new DockNode();
+            dockNode.setContents(new Region());
+            dockNode.setTitle("Panel " + i);
+            dockNode.setPrefSize(100, 100);
+            dockNode.setDockPosition(i % 2 == 0 ? DockPosition.RIGHT : DockPosition.BOTTOM);
+            dockNode.setDockPane(setterPane);
+        }
+        report.add("setters", System.nanoTime() - start, 1000);
+        setterPane.dispose();
+        setterStage.close();
+
+        DockPane builderPane = new DockPane();
+        Stage builderStage = show(builderPane);
+        start = System.nanoTime();
+        List<DockNode.Spec> specs = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            specs.add(DockNode.builder()
+                    .contents(new Region())
+                    .title("Panel " + i)
+                    .prefSize(100, 100)
+                    .dockPosition(i % 2 == 0 ? DockPosition.RIGHT : DockPosition.BOTTOM)
+                    .spec());
+        }
+        builderPane.dockAll(specs);
+        report.add("dockAll", System.nanoTime() - start, 1000);
+        builderPane.dispose();
+        builderStage.close();
+    }
+
+    /**
+     * Shows 8 docked and 200 undocked dock nodes whose contents are moderately expensive to build,
+     * once building every content up front and once through the prewarm scheduler.
+     */
+    private static void prewarm(Report report) {
+        DockPane eagerPane = new DockPane();
+        Stage eagerStage = show(eagerPane);
+        long start = System.nanoTime();
+        for (int i = 0; i < 208; i++) {
+            DockNode dockNode = new DockNode();
+            dockNode.setContents(createContents());
+            if (i < 8) {
+                dockNode.setDockPosition(i % 2 == 0 ? DockPosition.RIGHT : DockPosition.BOTTOM);
+                dockNode.setDockPane(eagerPane);
+            }
+        }
+        eagerPane.applyCss();
+        report.add("eager first frame", (System.nanoTime() - start) / 1e6, "ms");
+        eagerPane.dispose();
+        eagerStage.close();
+
+        DockPane dockPane = new DockPane();
+        Stage stage = show(dockPane);
+        DockPrewarmScheduler scheduler = dockPane.getPrewarmScheduler();
+        for (int i = 0; i < 208; i++) {
+            DockNode dockNode = new DockNode();
+            // undocked nodes get the higher priority to show that showing nodes still come first
+            scheduler.schedule(dockNode, DockBenchmark::createContents, i < 8 ? 0 : 1);
+            if (i < 8) {
+                dockNode.setDockPosition(i % 2 == 0 ? DockPosition.RIGHT : DockPosition.BOTTOM);
+                dockNode.setDockPane(dockPane);
+            }
+        }
+        awaitPulses(() -> scheduler.getPendingCount() == 0);
+
+        DockMetrics metrics = dockPane.getMetrics();
+        report.add("first interactive frame", metrics.getTimeToFirstInteractiveNanos() / 1e6, "ms");
+        report.add("all warm", metrics.getTimeToAllWarmNanos() / 1e6, "ms");
+        report.add("slices", metrics.getPrewarmPulseCount(), "slices");
+        report.add("time per slice", metrics.getPrewarmNanos() / 1e6 / metrics.getPrewarmPulseCount(), "ms");
+
+        dockPane.dispose();
+        stage.close();
+    }
+
+    /**
+     * Docks 50 dock nodes and then moves a random one next to another random one 2,000 times, as a
+     * day of rearranging panels would, and reports the size of the resulting layout.
+     */
+    private static void dockChurn(Report report) {
+        DockPane dockPane = new DockPane();
+        Stage stage = show(dockPane);
+        Random random = new Random(42);
+        DockPosition[] positions = {DockPosition.LEFT, DockPosition.RIGHT, DockPosition.TOP, DockPosition.BOTTOM};
+
+        List<DockNode> dockNodes = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            dockNodes.add(DockNode.builder()
+                    .contents(new Region())
+                    .title("Panel " + i)
+                    .prefSize(100, 100)
+                    .dockPosition(positions[random.nextInt(positions.length)])
+                    .sibling(dockNodes.isEmpty() ? null : dockNodes.get(random.nextInt(dockNodes.size())))
+                    .dock(dockPane));
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 2000; i++) {
+            DockNode dockNode = dockNodes.get(random.nextInt(dockNodes.size()));
+            DockNode sibling = dockNodes.get(random.nextInt(dockNodes.size()));
+            if (dockNode == sibling) {
+                continue;
+            }
+            dockPane.undock(dockNode);
+            dockPane.dock(dockNode, positions[random.nextInt(positions.length)], sibling);
+        }
+        report.add("undock and dock", System.nanoTime() - start, 2000);
+
+        DockMetrics metrics = dockPane.getMetrics();
+        report.add("layout depth", metrics.getLayoutDepth(), "levels");
+        report.add("layout nodes", metrics.getLayoutNodeCount(), "nodes");
+        report.add("layout split panes", metrics.getLayoutSplitCount(), "split panes");
+
+        dockPane.dispose();
+        stage.close();
+    }
+
+    /**
+     * Lays out the same tree of 300 dock nodes once with SplitPane controls and once with
+     * DockSplitPane containers and measures the size of the scene graph, the CSS passes and the
+     * layout passes.
+     */
+    private static void splitContainer(Report report) {
+        splitContainer(report, "SplitPane", null);
+        splitContainer(report, "DockSplitPane", DockSplitPane::new);
+    }
+
+    private static void splitContainer(Report report, String name, Supplier<? extends DockSplit> splitFactory) {
+        DockPane dockPane = new DockPane();
+        if (splitFactory != null) {
+            dockPane.setSplitFactory(splitFactory);
+        }
+        Stage stage = show(dockPane);
+        Random random = new Random(42);
+        List<DockNode> dockNodes = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            dockNodes.add(DockNode.builder()
+                    .contents(new Region())
+                    .titleBar(false)
+                    .dockPosition(random.nextBoolean() ? DockPosition.RIGHT : DockPosition.BOTTOM)
+                    .sibling(dockNodes.isEmpty() ? null : dockNodes.get(random.nextInt(dockNodes.size())))
+                    .dock(dockPane));
+        }
+
+        long start = System.nanoTime();
+        dockPane.applyCss();
+        dockPane.layout();
+        report.add(name + " first pass", (System.nanoTime() - start) / 1e6, "ms");
+        report.add(name + " scene graph", countNodes(dockPane), "nodes");
+
+        start = System.nanoTime();
+        for (int i = 0; i < 20; i++) {
+            // changing a style class of the dock pane reapplies the styles of the whole tree
+            dockPane.getStyleClass().add("benchmark");
+            dockPane.applyCss();
+            dockPane.getStyleClass().remove("benchmark");
+            dockPane.applyCss();
+        }
+        report.add(name + " CSS pass", System.nanoTime() - start, 40);
+
+        start = System.nanoTime();
+        for (int i = 0; i < 40; i++) {
+            dockPane.resize(i % 2 == 0 ? 1000 : 1280, 800);
+            dockPane.layout();
+        }
+        report.add(name + " layout pass", System.nanoTime() - start, 40);
+
+        dockPane.dispose();
+        stage.close();
+    }
+
+    /**
+     * Lays out 500 dock nodes once with the default title bar and once with the canvas title bar and
+     * measures the size of the scene graph, the CSS passes and the layout passes.
+     */
+    private static void titleBars(Report report) {
+        titleBars(report, "DockTitleBar", DockTitleBar::new);
+        titleBars(report, "DockCanvasTitleBar", DockCanvasTitleBar::new);
+    }
+
+    private static void titleBars(Report report, String name, Function<DockNode, ? extends DockTitleBar> titleBarFactory) {
+        DockPane dockPane = new DockPane();
+        dockPane.setSplitFactory(DockSplitPane::new);
+        Stage stage = show(dockPane);
+        List<DockNode> dockNodes = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            // a grid of 20 columns with 25 rows each
+            dockNodes.add(DockNode.builder()
+                    .contents(new Region())
+                    .title("Panel " + i)
+                    .titleBarFactory(titleBarFactory)
+                    .dockPosition(i % 25 == 0 ? DockPosition.RIGHT : DockPosition.BOTTOM)
+                    .sibling(i % 25 == 0 ? null : dockNodes.get(i - 1))
+                    .dock(dockPane));
+        }
+
+        long start = System.nanoTime();
+        dockPane.applyCss();
+        dockPane.layout();
+        report.add(name + " first pass", (System.nanoTime() - start) / 1e6, "ms");
+        report.add(name + " scene graph", countNodes(dockPane), "nodes");
+
+        start = System.nanoTime();
+        for (int i = 0; i < 20; i++) {
+            dockPane.getStyleClass().add("benchmark");
+            dockPane.applyCss();
+            dockPane.getStyleClass().remove("benchmark");
+            dockPane.applyCss();
+        }
+        report.add(name + " CSS pass", System.nanoTime() - start, 40);
+
+        start = System.nanoTime();
+        for (int i = 0; i < 40; i++) {
+            dockPane.resize(i % 2 == 0 ? 1000 : 1280, 800);
+            dockPane.layout();
+        }
+        report.add(name + " layout pass", System.nanoTime() - start, 40);
+
+        dockPane.dispose();
+        stage.close();
+    }
+
+    /**
+     * Renders 500 dock nodes once without title bars and once with canvas title bars and measures the
+     * heap the rendered canvases retain. The titles are left empty so that no text is rendered, which
+     * keeps the scenario runnable without the native font libraries.
+     */
+    private static void canvasMemory(Report report) {
+        long withoutTitleBars = canvasMemory(report, "no title bar", null);
+        long withTitleBars = canvasMemory(report, "canvas title bar", DockRobot::headlessCanvasTitleBar);
+        report.add("heap per canvas title bar", (withTitleBars - withoutTitleBars) / 500, "bytes");
+    }
+
+    private static long canvasMemory(Report report, String name,
+                                     Function<DockNode, ? extends DockTitleBar> titleBarFactory) {
+        DockPane dockPane = new DockPane();
+        dockPane.setSplitFactory(DockSplitPane::new);
+        Stage stage = show(dockPane);
+        long heapBefore = usedHeap();
+        List<DockNode> dockNodes = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            // a grid of 20 columns with 25 rows each
+            dockNodes.add(DockNode.builder()
+                    .contents(new Region())
+                    .title("")
+                    .titleBar(titleBarFactory != null)
+                    .titleBarFactory(titleBarFactory)
+                    .dockPosition(i % 25 == 0 ? DockPosition.RIGHT : DockPosition.BOTTOM)
+                    .sibling(i % 25 == 0 ? null : dockNodes.get(i - 1))
+                    .dock(dockPane));
+        }
+        // let the pulses lay out and render the canvases
+        awaitPulses(() -> !dockPane.isNeedsLayout());
+        awaitPulses(() -> true);
+        awaitPulses(() -> true);
+
+        long retainedHeap = usedHeap() - heapBefore;
+        report.add(name + " retained heap", retainedHeap, "bytes");
+        if (titleBarFactory != null) {
+            double outputScale = stage.getOutputScaleX() * stage.getOutputScaleY();
+            long pixels = 0;
+            for (DockNode dockNode : dockNodes) {
+                for (Node child : dockNode.getDockTitleBar().getChildrenUnmodifiable()) {
+                    if (child instanceof Canvas canvas)
+                        pixels += (long) (Math.ceil(canvas.getWidth()) * Math.ceil(canvas.getHeight()) * outputScale);
+                }
+            }
+            report.add(name + " canvas textures", pixels * 4, "bytes");
+            report.add(name + " canvas pixels", pixels / 500, "pixels per title bar");
+        }
+
+        dockPane.dispose();
+        stage.close();
+        return retainedHeap;
+    }
+
+    /**
+     * Docks 500 dock nodes and then moves random dock nodes next to random siblings, once with the
+     * split layout and once with the grid layout, and measures the mutations and a layout pass.
+     */
+    private static void layoutEngines(Report report) {
+        layoutEngines(report, "split", new DockSplitLayout());
+        layoutEngines(report, "grid", new DockGridLayout(20));
+    }
+
+    private static void layoutEngines(Report report, String name, DockLayoutEngine layoutEngine) {
+        DockPane dockPane = new DockPane();
+        dockPane.setSplitFactory(DockSplitPane::new);
+        dockPane.setLayoutEngine(layoutEngine);
+        Stage stage = show(dockPane);
+        Random random = new Random(42);
+        List<DockNode> dockNodes = new ArrayList<>();
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 500; i++) {
+            dockNodes.add(DockNode.builder()
+                    .contents(new Region())
+                    .titleBar(false)
+                    .dockPosition(random.nextBoolean() ? DockPosition.RIGHT : DockPosition.BOTTOM)
+                    .sibling(dockNodes.isEmpty() ? null : dockNodes.get(random.nextInt(dockNodes.size())))
+                    .dock(dockPane));
+        }
+        report.add(name + " dock", System.nanoTime() - start, 500);
+
+        DockPosition[] positions = {DockPosition.LEFT, DockPosition.RIGHT, DockPosition.TOP, DockPosition.BOTTOM};
+        start = System.nanoTime();
+        for (int i = 0; i < 2000; i++) {
+            DockNode dockNode = dockNodes.get(random.nextInt(dockNodes.size()));
+            DockNode sibling = dockNodes.get(random.nextInt(dockNodes.size()));
+            dockNode.undock();
+            if (sibling != dockNode) {
+                dockPane.dock(dockNode, positions[random.nextInt(positions.length)], sibling);
+            } else {
+                dockPane.dock(dockNode, DockPosition.RIGHT);
+            }
+        }
+        report.add(name + " move", System.nanoTime() - start, 2000);
+        report.add(name + " layout depth", dockPane.getMetrics().getLayoutDepth(), "levels");
+
+        start = System.nanoTime();
+        dockPane.applyCss();
+        dockPane.layout();
+        report.add(name + " layout pass", (System.nanoTime() - start) / 1e6, "ms");
+
+        dockPane.dispose();
+        stage.close();
+    }
+
+    /**
+     * Floats 16 dock nodes once in a stage each and once in a single floating host window and
+     * measures the windows, the heap they retain and the pulses repainting all of them.
+     */
+    private static void floatingHosts(Report report) {
+        floatingHosts(report, "stages", false);
+        floatingHosts(report, "host", true);
+    }
+
+    private static void floatingHosts(Report report, String name, boolean floatingHosts) {
+        DockPane dockPane = new DockPane();
+        dockPane.setFloatingHosts(floatingHosts);
+        Stage stage = show(dockPane);
+        List<DockNode> dockNodes = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            dockNodes.add(DockNode.builder()
+                    .contents(createContents())
+                    .titleBar(false)
+                    .dockPosition(i % 4 == 0 ? DockPosition.RIGHT : DockPosition.BOTTOM)
+                    .sibling(i % 4 == 0 ? null : dockNodes.get(i - 1))
+                    .dock(dockPane));
+        }
+        dockPane.applyCss();
+        dockPane.layout();
+
+        int windowsBefore = Window.getWindows().size();
+        long heapBefore = usedHeap();
+        long start = System.nanoTime();
+        DockPane host = null;
+        DockNode sibling = null;
+        for (DockNode dockNode : dockNodes) {
+            if (!floatingHosts) {
+                dockNode.setFloating(true);
+            } else if (host == null) {
+                host = dockPane.floatInHost(dockNode);
+            } else {
+                dockNode.undock();
+                dockNode.setDockPane(host);
+                host.dock(dockNode, DockPosition.RIGHT, sibling);
+            }
+            sibling = dockNode;
+        }
+        report.add(name + " float", System.nanoTime() - start, dockNodes.size());
+        awaitPulses(() -> true);
+        report.add(name + " windows", Window.getWindows().size() - windowsBefore, "windows");
+
+        // every pulse changes every dock node so that all of their windows are repainted
+        int pulses = 60;
+        int[] pulse = {0};
+        start = System.nanoTime();
+        awaitPulses(() -> {
+            for (DockNode dockNode : dockNodes) {
+                dockNode.getContents().setOpacity(pulse[0] % 2 == 0 ? 0.5 : 1);
+            }
+            return ++pulse[0] > pulses;
+        });
+        report.add(name + " repaint pulse", System.nanoTime() - start, pulses);
+        // measured after the windows were painted so that their render surfaces are included
+        report.add(name + " retained heap", usedHeap() - heapBefore, "bytes");
+
+        dockPane.dispose();
+        stage.close();
+    }
+
+    /**
+     * Zooms and restores dock nodes of a layout of 200 dock nodes, one toggle per pulse, and measures
+     * the toggles along with the pulses laying out the dock pane again while the layout or a zoomed
+     * dock node is shown. The CSS and layout passes of a pulse are timed with the pulse listeners of
+     * the scene.
+     */
+    private static void zoom(Report report) {
+        DockPane dockPane = new DockPane();
+        dockPane.setSplitFactory(DockSplitPane::new);
+        Stage stage = show(dockPane);
+        List<DockNode> dockNodes = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            // a grid of 20 columns with 10 rows each
+            dockNodes.add(DockNode.builder()
+                    .contents(createContents())
+                    .titleBar(false)
+                    .dockPosition(i % 10 == 0 ? DockPosition.RIGHT : DockPosition.BOTTOM)
+                    .sibling(i % 10 == 0 ? null : dockNodes.get(i - 1))
+                    .dock(dockPane));
+        }
+        awaitPulses(() -> true);
+
+        // the first toggles are not measured as they are slowed down by the JIT compiler
+        for (int i = 0; i < 20; i++) {
+            dockPane.setZoomedNode(i % 2 == 0 ? dockNodes.get(i) : null);
+            awaitPulses(() -> true);
+        }
+
+        PulseTimer pulseTimer = new PulseTimer(stage.getScene());
+        int toggles = 100;
+        int[] toggle = {0};
+        long[] toggleNanos = {0};
+        awaitPulses(() -> {
+            if (toggle[0] == toggles) {
+                return true;
+            }
+            long start = System.nanoTime();
+            dockPane.setZoomedNode(toggle[0] % 2 == 0 ? dockNodes.get(toggle[0] % dockNodes.size()) : null);
+            toggleNanos[0] += System.nanoTime() - start;
+            toggle[0]++;
+            return false;
+        });
+        long passNanos = pulseTimer.stop();
+        report.add("toggle change", toggleNanos[0], toggles);
+        report.add("toggle pulse", passNanos, toggles);
+        report.add("toggle", toggleNanos[0] + passNanos, toggles);
+
+        relayoutPulses(report, "layout relayout pulse", dockPane);
+        dockPane.setZoomedNode(dockNodes.get(0));
+        awaitPulses(() -> true);
+        relayoutPulses(report, "zoomed relayout pulse", dockPane);
+
+        dockPane.dispose();
+        stage.close();
+    }
+
+    /**
+     * Changes the padding of the dock pane in 40 pulses and measures their CSS and layout passes.
+     */
+    private static void relayoutPulses(Report report, String metric, DockPane dockPane) {
+        PulseTimer pulseTimer = new PulseTimer(dockPane.getScene());
+        int[] pulse = {0};
+        awaitPulses(() -> {
+            dockPane.setPadding(new Insets(pulse[0] % 2));
+            return ++pulse[0] > 40;
+        });
+        report.add(metric, pulseTimer.stop(), 40);
+    }
+
+    /**
+     * Floats and docks again a dock node with large contents of 10,000 regions and 100 sliders and
+     * measures the time each transition takes including the work it leaves to the event queue and the
+     * CSS and layout passes of the next pulses, along with the skins that were recreated. No skin is
+     * recreated because the contents never leave their dock node; the time is spent showing the
+     * floating stage and restyling the subtree in its new scene, which JavaFX does for any node that
+     * changes scenes.
+     */
+    private static void floatDock(Report report) {
+        DockPane dockPane = new DockPane();
+        Stage stage = show(dockPane);
+        DockNode.builder().contents(new Region()).titleBar(false).dockPosition(DockPosition.LEFT).dock(dockPane);
+
+        GridPane gridPane = new GridPane();
+        List<Slider> sliders = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            Region region = new Region();
+            region.setPrefSize(4, 4);
+            gridPane.add(region, i % 100, i / 100);
+        }
+        for (int i = 0; i < 100; i++) {
+            Slider slider = new Slider();
+            sliders.add(slider);
+            gridPane.add(slider, i % 10 * 10, 100 + i / 10, 10, 1);
+        }
+        DockNode dockNode = DockNode.builder().contents(new ScrollPane(gridPane)).titleBar(false)
+                .dockPosition(DockPosition.RIGHT).dock(dockPane);
+        awaitPulses(() -> true);
+        awaitPulses(() -> true);
+        List<Skin<?>> skins = new ArrayList<>();
+        for (Slider slider : sliders) {
+            skins.add(slider.getSkin());
+        }
+
+        int cycles = 20;
+        long floatNanos = 0;
+        long dockNanos = 0;
+        for (int i = 0; i < cycles; i++) {
+            long start = System.nanoTime();
+            dockNode.setFloating(true);
+            floatNanos += System.nanoTime() - start + drainEvents() + pulsePasses(stage.getScene(), dockNode.getScene());
+
+            start = System.nanoTime();
+            dockNode.setDockPane(dockPane);
+            dockPane.dock(dockNode, DockPosition.RIGHT);
+            dockNanos += System.nanoTime() - start + drainEvents() + pulsePasses(stage.getScene());
+        }
+        report.add("float", floatNanos, cycles);
+        report.add("dock", dockNanos, cycles);
+        int recreated = 0;
+        for (int i = 0; i < sliders.size(); i++) {
+            if (sliders.get(i).getSkin() != skins.get(i)) {
+                recreated++;
+            }
+        }
+        report.add("skins recreated", recreated, "skins");
+
+        dockPane.dispose();
+        stage.close();
+    }
+
+    /**
+     * Switches back and forth between two perspectives of 100 dock nodes each, half of which they
+     * share, once by rebuilding the dock pane with new dock nodes for every switch and once by
+     * applying the layout of the perspective to the dock pane. Each switch is measured including the
+     * CSS and layout passes of the next pulses.
+     */
+    private static void perspectives(Report report) {
+        DockLayout trading = createPerspective(0);
+        DockLayout research = createPerspective(50);
+        perspectives(report, "rebuild", trading, research, true);
+        perspectives(report, "apply", trading, research, false);
+    }
+
+    private static void perspectives(Report report, String name, DockLayout trading, DockLayout research,
+                                     boolean rebuild) {
+        DockPane dockPane = new DockPane();
+        Stage stage = show(dockPane);
+        int[] resolved = {0};
+        Function<String, DockNode> resolver = id -> {
+            resolved[0]++;
+            DockNode dockNode = new DockNode();
+            dockNode.setContents(createContents());
+            dockNode.setId(id);
+            return dockNode;
+        };
+
+        // the first switches are not measured as they build the contents of both perspectives
+        int warmups = 4;
+        int switches = 20;
+        long changeNanos = 0;
+        long pulseNanos = 0;
+        int edits = 0;
+        for (int i = 0; i < warmups + switches; i++) {
+            if (i == warmups) {
+                resolved[0] = 0;
+            }
+            DockLayout layout = i % 2 == 0 ? trading : research;
+            long start = System.nanoTime();
+            if (rebuild) {
+                for (Node node : dockPane.getLayoutEngine().getNodes()) {
+                    ((DockNode) node).dispose();
+                }
+            }
+            dockPane.applyLayout(layout, resolver);
+            long change = System.nanoTime() - start;
+            long pulse = pulsePasses(stage.getScene());
+            if (i >= warmups) {
+                changeNanos += change;
+                pulseNanos += pulse;
+                edits += dockPane.getMetrics().getLastLayoutEditCount();
+            }
+        }
+        report.add(name + " switch change", changeNanos, switches);
+        report.add(name + " switch pulse", pulseNanos, switches);
+        report.add(name + " switch", changeNanos + pulseNanos, switches);
+        report.add(name + " edits per switch", edits / (double) switches, "edits");
+        report.add(name + " nodes created", resolved[0], "nodes");
+        report.add(name + " cached nodes", dockPane.getCachedLayoutIds().size(), "nodes");
+
+        dockPane.dispose();
+        stage.close();
+    }
+
+    /**
+     * Switches back and forth between two perspectives of 100 dock nodes each while following the
+     * layout, once the way an application had to before with listeners on the docked, floating and
+     * maximized properties of every dock node and the dividers of every split pane, and once with a
+     * single layout listener on the dock pane. Each switch is measured including the CSS and layout
+     * passes of the next pulses, which notify the layout listener.
+     */
+    private static void layoutListener(Report report) {
+        DockLayout trading = createPerspective(0);
+        DockLayout research = createPerspective(50);
+        for (boolean coalesced : new boolean[]{false, true}) {
+            String variant = coalesced ? "layout listener " : "property listeners ";
+            DockPane dockPane = new DockPane();
+            Stage stage = show(dockPane);
+            Function<String, DockNode> resolver = id -> {
+                DockNode dockNode = new DockNode();
+                dockNode.setContents(createContents());
+                dockNode.setId(id);
+                return dockNode;
+            };
+
+            int[] callbacks = new int[1];
+            int[] registered = new int[1];
+            Set<Object> followed = Collections.newSetFromMap(new IdentityHashMap<>());
+            ChangeListener<Object> propertyListener = (observable, oldValue, newValue) -> callbacks[0]++;
+            Runnable follow = () -> {
+                for (Node node : dockPane.getLayoutEngine().getNodes()) {
+                    if (node instanceof DockNode dockNode && followed.add(dockNode)) {
+                        dockNode.dockedProperty().addListener(propertyListener);
+                        dockNode.floatingProperty().addListener(propertyListener);
+                        dockNode.maximizedProperty().addListener(propertyListener);
+                        registered[0] += 3;
+                    }
+                }
+                for (Node node : dockPane.lookupAll(".split-pane")) {
+                    for (SplitPane.Divider divider : ((SplitPane) node).getDividers()) {
+                        if (followed.add(divider)) {
+                            divider.positionProperty().addListener(propertyListener);
+                            registered[0]++;
+                        }
+                    }
+                }
+            };
+            if (coalesced) {
+                dockPane.addLayoutListener(change -> callbacks[0]++);
+                registered[0]++;
+            }
+
+            int warmups = 4;
+            int switches = 20;
+            long nanos = 0;
+            for (int i = 0; i < warmups + switches; i++) {
+                if (i == warmups) {
+                    callbacks[0] = 0;
+                }
+                long start = System.nanoTime();
+                dockPane.applyLayout(i % 2 == 0 ? trading : research, resolver);
+                pulsePasses(stage.getScene());
+                if (!coalesced) {
+                    // new dock nodes and split panes have to be followed after every switch
+                    follow.run();
+                }
+                if (i >= warmups) {
+                    nanos += System.nanoTime() - start;
+                }
+            }
+            report.add(variant + "switch", nanos, switches);
+            report.add(variant + "callbacks per switch", callbacks[0] / (double) switches, "callbacks");
+            report.add(variant + "registered", registered[0], "listeners");
+
+            dockPane.dispose();
+            stage.close();
+        }
+    }
+
+    /**
+     * Moves a random one of 100 dock nodes next to another random one 50,000 times, once without and
+     * once with a journal, which writes 100,000 entries. Measures what the journal adds to the
+     * application thread, how long the writer lags behind, and how long recovering the layout from
+     * the uncompacted journal and from a snapshot takes.
+     */
+    private static void journal(Report report) throws Exception {
+        Path file = Files.createTempFile("dockfx", ".journal");
+        Path snapshotFile = DockJournal.getSnapshotFile(file);
+        try {
+            churn(report, "churn without journal", null);
+            churn(report, "churn with journal", dockPane -> {
+                DockJournal journal = DockJournal.open(dockPane, file);
+                journal.setCompactionThreshold(Integer.MAX_VALUE);
+                return journal;
+            });
+            report.add("journal size", Files.size(file), "bytes");
+
+            long start = System.nanoTime();
+            DockLayout layout = DockJournal.recover(file);
+            report.add("recover 100k entries", (System.nanoTime() - start) / 1e6, "ms");
+            report.add("recovered dock nodes", layout.getIds().size(), "nodes");
+
+            // a compacted journal is a snapshot of the same layout and an empty journal
+            DockPane dockPane = new DockPane();
+            dockPane.applyLayout(layout, id -> {
+                DockNode dockNode = new DockNode();
+                dockNode.setContents(new Region());
+                dockNode.setId(id);
+                return dockNode;
+            });
+            DockJournal compacted = DockJournal.open(dockPane, file);
+            compacted.flush().get();
+            compacted.close();
+            start = System.nanoTime();
+            DockJournal.recover(file);
+            report.add("recover snapshot", (System.nanoTime() - start) / 1e6, "ms");
+            dockPane.dispose();
+        } finally {
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(snapshotFile);
+        }
+    }
+
+    /**
+     * Docks 100 dock nodes with ids and moves a random one next to another random one 50,000 times.
+     *
+     * @param opener Opens a journal of the dock pane before the dock nodes are moved, may be null.
+     */
+    private static void churn(Report report, String metric, Function<DockPane, DockJournal> opener)
+            throws Exception {
+        DockPane dockPane = new DockPane();
+        Stage stage = show(dockPane);
+        Random random = new Random(42);
+        List<DockNode> dockNodes = dockPanels(dockPane, random);
+        DockJournal journal = opener == null ? null : opener.apply(dockPane);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 50_000; i++) {
+            movePanel(dockPane, dockNodes, random);
+        }
+        report.add(metric, System.nanoTime() - start, 50_000);
+
+        if (journal != null) {
+            start = System.nanoTime();
+            journal.flush().get();
+            report.add("writer lag", (System.nanoTime() - start) / 1e6, "ms");
+            journal.close();
+        }
+        dockPane.dispose();
+        stage.close();
+    }
+
+    /**
+     * Drags over 100 dock nodes, firing 20,000 dock over events on a 5 by 5 grid of points around
+     * the center of each dock node in turn, so that the pointer moves over the indicator buttons and
+     * the target changes every 25 events. Measures the time the dock pane takes to update its
+     * indicators per event.
+     */
+    private static void dockOver(Report report) {
+        DockPane dockPane = new DockPane();
+        Stage stage = show(dockPane);
+        DockRobot.skinIndicators(stage.getScene());
+        List<DockNode> dockNodes = dockPanels(dockPane, new Random(42));
+        pulsePasses(stage.getScene());
+
+        Node first = dockNodes.get(0).getContents();
+        Point2D start = first.localToScreen(0, 0);
+        Event.fireEvent(first, new DockEvent(dockPane, first, DockEvent.DOCK_ENTER, 0, 0, start.getX(),
+                start.getY(), null));
+        int events = 20000;
+        for (boolean measured : new boolean[]{false, true}) {
+            dockPane.getMetrics().reset();
+            long nanos = 0;
+            for (int i = 0; i < events; i++) {
+                Node target = dockNodes.get(i / 25 % dockNodes.size()).getContents();
+                Bounds bounds = target.localToScreen(target.getLayoutBounds());
+                double screenX = bounds.getCenterX() + (i % 5 - 2) * 20;
+                double screenY = bounds.getCenterY() + (i / 5 % 5 - 2) * 20;
+                DockEvent event = new DockEvent(dockPane, target, DockEvent.DOCK_OVER, 0, 0, screenX, screenY, null);
+                long eventStart = System.nanoTime();
+                Event.fireEvent(target, event);
+                nanos += System.nanoTime() - eventStart;
+            }
+            if (measured) {
+                DockMetrics metrics = dockPane.getMetrics();
+                report.add("dock over", nanos, events);
+                report.add("indicator cost", metrics.getDockOverNanos(), (int) metrics.getDockOverCount());
+                report.add("indicator updates", metrics.getIndicatorUpdateCount(), "updates");
+            }
+        }
+        Event.fireEvent(first, new DockEvent(dockPane, first, DockEvent.DOCK_RELEASED, 0, 0, start.getX(),
+                start.getY(), null));
+
+        dockPane.dispose();
+        stage.close();
+    }
+
+    /**
+     * Drags a dock node 2,000 times over the dock nodes of the innermost of three nested dock panes,
+     * each dock pane showing three dock nodes and the dock node with the next dock pane. Measures the
+     * time a drag event takes to pick the target and notify the dock panes, how many dock over events
+     * the dock panes handle per drag event and how many dock indicator overlays show at once.
+     */
+    private static void nestedPick(Report report) {
+        DockPane outer = new DockPane();
+        Stage stage = show(outer);
+        DockRobot.skinIndicators(stage.getScene());
+        List<DockPane> dockPanes = new ArrayList<>();
+        List<DockNode> innermost = new ArrayList<>();
+        DockPane dockPane = outer;
+        for (int level = 0; level < 3; level++) {
+            dockPanes.add(dockPane);
+            innermost.clear();
+            for (DockPosition dockPosition : new DockPosition[]{DockPosition.LEFT, DockPosition.TOP, DockPosition.RIGHT}) {
+                innermost.add(DockNode.builder().contents(new Region()).titleBar(false).dockPosition(dockPosition)
+                        .dock(dockPane));
+            }
+            DockPane nested = new DockPane();
+            DockNode.builder().contents(level < 2 ? nested : new Region()).titleBar(false)
+                    .dockPosition(DockPosition.BOTTOM).dock(dockPane);
+            dockPane = nested;
+        }
+
+        DockTitleBar titleBar = dragHandle(outer);
+        pulsePasses(stage.getScene());
+
+        Point2D start = titleBar.localToScreen(5, 5);
+        titleBar.handle(DockRobot.mouseEvent(MouseEvent.MOUSE_PRESSED, start));
+        titleBar.handle(DockRobot.mouseEvent(MouseEvent.DRAG_DETECTED, start));
+        int events = 2000;
+        for (boolean measured : new boolean[]{false, true}) {
+            for (DockPane pane : dockPanes) {
+                pane.getMetrics().reset();
+            }
+            long nanos = 0;
+            for (int i = 0; i < events; i++) {
+                Node target = innermost.get(i / 10 % innermost.size()).getContents();
+                Bounds bounds = target.localToScreen(target.getLayoutBounds());
+                Point2D point = new Point2D(bounds.getMinX() + 5 + i % 10, bounds.getMinY() + 5 + i % 10);
+                long eventStart = System.nanoTime();
+                titleBar.handle(DockRobot.mouseEvent(MouseEvent.MOUSE_DRAGGED, point));
+                nanos += System.nanoTime() - eventStart;
+            }
+            if (measured) {
+                long dockOvers = 0;
+                for (DockPane pane : dockPanes) {
+                    dockOvers += pane.getMetrics().getDockOverCount();
+                }
+                long overlays = Window.getWindows().stream()
+                        .filter(window -> window instanceof PopupWindow && window.isShowing()).count();
+                report.add("drag event", nanos, events);
+                report.add("dock over per drag event", dockOvers / (double) events, "events");
+                report.add("indicator popups showing", overlays, "popups");
+            }
+        }
+        titleBar.handle(DockRobot.mouseEvent(MouseEvent.MOUSE_RELEASED, start));
+
+        outer.dispose();
+        stage.close();
+    }
+
+    /**
+     * Drags a dock node over 100 dock nodes with contents of 200 regions each, once without a drop
+     * filter and once with a drop filter accepting the dragged dock node next to one in ten dock
+     * nodes only, whose contents the picking then skips for the others.
+     */
+    private static void dropFilter(Report report) {
+        for (boolean filtered : new boolean[]{false, true}) {
+            String variant = filtered ? "filtered " : "unfiltered ";
+            DockPane dockPane = new DockPane();
+            Stage stage = show(dockPane);
+            DockRobot.skinIndicators(stage.getScene());
+            // a grid of 10 by 10 dock nodes
+            DockLayout[] columns = new DockLayout[10];
+            for (int i = 0; i < columns.length; i++) {
+                DockLayout[] rows = new DockLayout[10];
+                for (int j = 0; j < rows.length; j++) {
+                    rows[j] = DockLayout.node("panel-" + (i * 10 + j));
+                }
+                columns[i] = DockLayout.split(Orientation.VERTICAL, rows);
+            }
+            dockPane.applyLayout(DockLayout.split(Orientation.HORIZONTAL, columns), id -> {
+                DockNode dockNode = new DockNode();
+                dockNode.setContents(createContents());
+                dockNode.setId(id);
+                return dockNode;
+            });
+            List<DockNode> dockNodes = new ArrayList<>();
+            for (Node node : dockPane.getLayoutEngine().getNodes()) {
+                dockNodes.add((DockNode) node);
+            }
+            int[] asked = new int[1];
+            if (filtered) {
+                dockPane.setDropFilter((dockNode, pane, target, dockPosition) -> {
+                    asked[0]++;
+                    return target == null || target.getId().endsWith("0");
+                });
+            }
+            DockTitleBar titleBar = dragHandle(dockPane);
+            pulsePasses(stage.getScene());
+
+            Point2D start = titleBar.localToScreen(5, 5);
+            titleBar.handle(DockRobot.mouseEvent(MouseEvent.MOUSE_PRESSED, start));
+            titleBar.handle(DockRobot.mouseEvent(MouseEvent.DRAG_DETECTED, start));
+            int events = 4000;
+            Random random = new Random(42);
+            for (boolean measured : new boolean[]{false, true}) {
+                long nanos = 0;
+                for (int i = 0; i < events; i++) {
+                    Node target = dockNodes.get(random.nextInt(dockNodes.size())).getContents();
+                    Bounds bounds = target.localToScreen(target.getLayoutBounds());
+                    Point2D point = new Point2D(bounds.getCenterX(), bounds.getCenterY());
+                    long eventStart = System.nanoTime();
+                    titleBar.handle(DockRobot.mouseEvent(MouseEvent.MOUSE_DRAGGED, point));
+                    nanos += System.nanoTime() - eventStart;
+                }
+                if (measured) {
+                    report.add(variant + "drag event", nanos, events);
+                }
+            }
+            titleBar.handle(DockRobot.mouseEvent(MouseEvent.MOUSE_RELEASED, start));
+            if (filtered) {
+                report.add(variant + "filter calls", asked[0], "calls");
+            }
+
+            dockPane.dispose();
+            stage.close();
+        }
+    }
+
+    /**
+     * Moves dock nodes of a grid of 10 by 10 dock nodes the way keyboard shortcuts would, once by
+     * undocking and docking them again and once with {@link DockPane#move}. The first moves reorder
+     * the dock nodes within their column, the following ones move them next to a random dock node.
+     * Each move is measured including the CSS and layout passes of the next pulses, along with how
+     * often a moved dock node left the scene.
+     */
+    private static void move(Report report) {
+        DockPosition[] positions = {DockPosition.LEFT, DockPosition.RIGHT, DockPosition.TOP, DockPosition.BOTTOM};
+        List<String> layouts = new ArrayList<>();
+        for (boolean move : new boolean[]{false, true}) {
+            String variant = move ? "move " : "undock and dock ";
+            DockPane dockPane = new DockPane();
+            Stage stage = show(dockPane);
+            dockPane.applyLayout(createPerspective(0), id -> {
+                DockNode dockNode = new DockNode();
+                dockNode.setContents(createContents());
+                dockNode.setId(id);
+                return dockNode;
+            });
+            List<DockNode> dockNodes = new ArrayList<>();
+            int[] detached = new int[1];
+            for (Node node : dockPane.getLayoutEngine().getNodes()) {
+                dockNodes.add((DockNode) node);
+                node.sceneProperty().addListener((observable, oldScene, newScene) -> {
+                    if (newScene == null) {
+                        detached[0]++;
+                    }
+                });
+            }
+            List<List<DockNode>> columns = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                columns.add(new ArrayList<>(dockNodes.subList(i * 10, i * 10 + 10)));
+            }
+            pulsePasses(stage.getScene());
+
+            Random random = new Random(42);
+            for (boolean withinColumn : new boolean[]{true, false}) {
+                String name = variant + (withinColumn ? "within column" : "anywhere");
+                int moves = withinColumn ? 200 : 100;
+                long changeNanos = 0;
+                long pulseNanos = 0;
+                detached[0] = 0;
+                for (int i = 0; i < moves; i++) {
+                    DockNode dockNode;
+                    DockNode sibling;
+                    DockPosition dockPosition;
+                    if (withinColumn) {
+                        List<DockNode> column = columns.get(random.nextInt(columns.size()));
+                        dockNode = column.remove(random.nextInt(column.size()));
+                        int index = random.nextInt(column.size());
+                        sibling = column.get(index);
+                        dockPosition = random.nextBoolean() ? DockPosition.TOP : DockPosition.BOTTOM;
+                        column.add(dockPosition == DockPosition.TOP ? index : index + 1, dockNode);
+                    } else {
+                        dockNode = dockNodes.get(random.nextInt(dockNodes.size()));
+                        do {
+                            sibling = dockNodes.get(random.nextInt(dockNodes.size()));
+                        } while (sibling == dockNode);
+                        dockPosition = positions[random.nextInt(positions.length)];
+                    }
+
+                    long start = System.nanoTime();
+                    if (move) {
+                        dockPane.move(dockNode, dockPosition, sibling);
+                    } else {
+                        dockNode.undock();
+                        dockNode.setDockPane(dockPane);
+                        dockPane.dock(dockNode, dockPosition, sibling);
+                    }
+                    changeNanos += System.nanoTime() - start;
+                    pulseNanos += pulsePasses(stage.getScene());
+                }
+                report.add(name + " change", changeNanos, moves);
+                report.add(name + " pulse", pulseNanos, moves);
+                report.add(name, changeNanos + pulseNanos, moves);
+                report.add(name + " nodes detached", detached[0] / (double) moves, "per move");
+            }
+            layouts.add(dockPane.captureLayout().getIds().toString());
+
+            dockPane.dispose();
+            stage.close();
+        }
+        report.add("same order of dock nodes", layouts.get(0).equals(layouts.get(1)) ? 1 : 0, "(1 = yes)");
+    }
+
+    /**
+     * Runs a random workload of 1,000 dock, drag, move, float and close operations with a fixed seed
+     * and reports the timings of the operations and the layout they leave behind.
+     */
+    private static void robot(Report report) {
+        DockPane dockPane = new DockPane();
+        Stage stage = show(dockPane);
+        DockRobot robot = new DockRobot(dockPane, 42);
+        robot.run(1000);
+        robot.getTimings().forEach((operation, timing) -> {
+            report.add(operation, timing.getTotalNanos(), timing.getCount());
+            report.add(operation + " p99", timing.getPercentileNanos(99) / 1e3, "us");
+        });
+        DockRobot.TreeStatistics statistics = robot.getTreeStatistics();
+        report.add("docked nodes", statistics.dockedNodes(), "nodes");
+        report.add("floating nodes", statistics.floatingNodes(), "nodes");
+        report.add("split panes", statistics.splits(), "split panes");
+        report.add("layout depth", statistics.depth(), "levels");
+
+        dockPane.dispose();
+        stage.close();
+    }
+
+    /**
+     * Records a drag across a layout of 16 dock nodes into a trace file and replays it 50 times back
+     * to back, reporting the nodes hit-tested and the dock events fired per event and the time the
+     * title bar takes to handle an event. A trace recorded elsewhere, for example attached to a bug
+     * report, is replayed instead when its file is given by the {@code dockfx.trace} system property,
+     * 5 times and paced like the user dragged, with the pulses in between.
+     */
+    private static void replay(Report report) throws Exception {
+        DockPane dockPane = new DockPane();
+        Stage stage = show(dockPane);
+        DockRobot.skinIndicators(stage.getScene());
+        DockRobot robot = new DockRobot(dockPane, 42);
+
+        String file = System.getProperty("dockfx.trace");
+        DockDragTrace trace;
+        if (file != null) {
+            trace = DockDragTrace.read(Path.of(file));
+        } else {
+            List<DockNode> dockNodes = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                DockNode dockNode = robot.create("panel" + i);
+                robot.dock(dockNode, i % 4 == 0 ? DockPosition.RIGHT : DockPosition.BOTTOM,
+                        i % 4 == 0 ? null : dockNodes.get(i - 1));
+                dockNodes.add(dockNode);
+            }
+            List<DockDragTrace> traces = new ArrayList<>();
+            DockTitleBar titleBar = dockNodes.get(0).getDockTitleBar();
+            titleBar.setDragTraceConsumer(traces::add);
+            robot.drag(dockNodes.get(0), dockNodes.get(14), DockPosition.BOTTOM);
+            titleBar.setDragTraceConsumer(null);
+            trace = traces.get(0);
+            Path saved = Files.createTempFile("drag", ".dfxtrace");
+            trace.write(saved);
+            report.add("trace file", Files.size(saved), "bytes");
+            trace = DockDragTrace.read(saved);
+            Files.delete(saved);
+        }
+
+        boolean paced = file != null;
+        int runs = paced ? 5 : 50;
+        long picks = 0;
+        long dispatches = 0;
+        long handleNanos = 0;
+        long worstP99 = 0;
+        int docked = 0;
+        for (int run = 0; run < runs; run++) {
+            DockRobot.ReplayReport replay = robot.replay(trace, paced);
+            picks += replay.picks();
+            dispatches += replay.dispatches();
+            handleNanos += replay.latency().getTotalNanos();
+            worstP99 = Math.max(worstP99, replay.latency().getPercentileNanos(99));
+            docked += replay.docked() ? 1 : 0;
+        }
+        int events = runs * trace.size();
+        report.add("events per drag", trace.size(), "events");
+        report.add("picks per event", picks / (double) events, "nodes");
+        report.add("dispatches per event", dispatches / (double) events, "events");
+        report.add("handle", handleNanos, events);
+        report.add("handle p99, worst run", worstP99 / 1e3, "us");
+        report.add("docked", docked / (double) runs, "(1 = every run)");
+
+        dockPane.dispose();
+        stage.close();
+    }
+
+    /**
+     * Docks a dock node whose title bar can be dragged headless into the dock pane.
+     */
+    private static DockTitleBar dragHandle(DockPane dockPane) {
+        DockNode dragged = new DockNode();
+        DockTitleBar titleBar = DockRobot.headlessTitleBar(dragged);
+        dragged.setDockTitleBar(titleBar);
+        dragged.setContents(new Region());
+        dragged.setDockPosition(DockPosition.RIGHT);
+        dragged.setDockPane(dockPane);
+        return titleBar;
+    }
+
+    /**
+     * Moves a random one of 100 dock nodes next to another random one 1,000 times and undoes and
+     * redoes all of the moves, compared with keeping a captured layout for every move and applying it
+     * to undo the move.
+     */
+    private static void undo(Report report) {
+        DockPane dockPane = new DockPane();
+        Stage stage = show(dockPane);
+        Random random = new Random(42);
+        List<DockNode> dockNodes = dockPanels(dockPane, random);
+        pulsePasses(dockPane.getScene());
+        // warm up
+        for (int i = 0; i < 1000; i++) {
+            movePanel(dockPane, dockNodes, random);
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 1000; i++) {
+            movePanel(dockPane, dockNodes, random);
+        }
+        report.add("move without history", System.nanoTime() - start, 1000);
+
+        DockLayout before = dockPane.captureLayout();
+        DockUndoManager undoManager = dockPane.getUndoManager();
+        undoManager.setLimit(1000);
+        start = System.nanoTime();
+        for (int i = 0; i < 1000; i++) {
+            undoManager.beginEdit();
+            movePanel(dockPane, dockNodes, random);
+            undoManager.endEdit();
+        }
+        report.add("move with undo manager", System.nanoTime() - start, 1000);
+        DockLayout moved = dockPane.captureLayout();
+
+        start = System.nanoTime();
+        int undos = 0;
+        while (undoManager.undo()) {
+            undos++;
+        }
+        report.add("undo", System.nanoTime() - start, undos);
+        report.add("undone to the layout before", sameNodes(before, dockPane.captureLayout()) ? 1 : 0, "matches");
+        start = System.nanoTime();
+        int redos = 0;
+        while (undoManager.redo()) {
+            redos++;
+        }
+        report.add("redo", System.nanoTime() - start, redos);
+        report.add("redone to the moved layout", sameNodes(moved, dockPane.captureLayout()) ? 1 : 0, "matches");
+        undoManager.clear();
+
+        // the snapshot based history captures the whole layout before every move
+        List<DockLayout> snapshots = new ArrayList<>();
+        start = System.nanoTime();
+        for (int i = 0; i < 1000; i++) {
+            snapshots.add(dockPane.captureLayout());
+            movePanel(dockPane, dockNodes, random);
+        }
+        report.add("move with snapshots", System.nanoTime() - start, 1000);
+        start = System.nanoTime();
+        for (int i = snapshots.size() - 1; i >= 0; i--) {
+            dockPane.applyLayout(snapshots.get(i), null);
+        }
+        report.add("undo by applying snapshots", System.nanoTime() - start, 1000);
+
+        dockPane.dispose();
+        stage.close();
+    }
+
+    /**
+     * A worker thread raising a burst of 500 alerts, each opening a dock node next to the layout,
+     * where every other alert is acknowledged right away, closing its dock node again. Compares
+     * wrapping every call in its own runnable with submitting dock requests, which are applied in at
+     * most one batch per pulse.
+     */
+    private static void requests(Report report) {
+        for (boolean queued : new boolean[]{false, true}) {
+            String variant = queued ? "requests " : "runLater ";
+            DockPane dockPane = new DockPane();
+            Stage stage = show(dockPane);
+            DockNode.builder().contents(new Region()).titleBar(false).dockPosition(DockPosition.LEFT).dock(dockPane);
+            pulsePasses(stage.getScene());
+
+            int[] runnables = new int[1];
+            long[] runnableNanos = new long[1];
+            Thread worker = new Thread(() -> {
+                for (int i = 0; i < 500; i++) {
+                    DockNode dockNode = new DockNode();
+                    // the default title leaves out the title bar, whose label can not be laid out headless
+                    dockNode.setContents(new Region());
+                    boolean acknowledged = i % 2 == 0;
+                    if (queued) {
+                        dockPane.requestDock(dockNode, DockPosition.RIGHT, null);
+                        if (acknowledged) {
+                            dockPane.requestClose(dockNode);
+                        }
+                    } else {
+                        Platform.runLater(() -> {
+                            long start = System.nanoTime();
+                            dockNode.setDockPosition(DockPosition.RIGHT);
+                            dockNode.setDockPane(dockPane);
+                            runnables[0]++;
+                            runnableNanos[0] += System.nanoTime() - start;
+                        });
+                        if (acknowledged) {
+                            Platform.runLater(() -> {
+                                long start = System.nanoTime();
+                                dockNode.close();
+                                runnables[0]++;
+                                runnableNanos[0] += System.nanoTime() - start;
+                            });
+                        }
+                    }
+                }
+            });
+
+            int[] pulses = new int[1];
+            Runnable pulseCounter = () -> pulses[0]++;
+            stage.getScene().addPostLayoutPulseListener(pulseCounter);
+            long start = System.nanoTime();
+            worker.start();
+            awaitPulses(() -> !worker.isAlive() && dockPane.getLayoutEngine().getNodes().size() == 251);
+            long applied = System.nanoTime() - start;
+            stage.getScene().removePostLayoutPulseListener(pulseCounter);
+            long passes = pulsePasses(stage.getScene());
+            report.add(variant + "burst until applied", applied / 1e6, "ms");
+            report.add(variant + "layout passes after", passes / 1e6, "ms");
+            report.add(variant + "pulses until applied", pulses[0], "pulses");
+            if (queued) {
+                report.add(variant + "batches", dockPane.getMetrics().getRequestBatchCount(), "batches");
+                report.add(variant + "layout mutations", dockPane.getMetrics().getAppliedRequestCount(), "mutations");
+            } else {
+                report.add(variant + "runnables", runnables[0], "runnables");
+                report.add(variant + "runnable time", runnableNanos[0] / 1e6, "ms");
+                report.add(variant + "layout mutations", runnables[0], "mutations");
+            }
+
+            dockPane.dispose();
+            stage.close();
+        }
+    }
+
+    /**
+     * Whether the layouts have the same dock nodes in the same splits, regardless of their weights.
+     */
+    private static boolean sameNodes(DockLayout a, DockLayout b) {
+        if (a.isSplit() != b.isSplit() || a.getItems().size() != b.getItems().size()
+                || !Objects.equals(a.getId(), b.getId())) {
+            return false;
+        }
+        for (int i = 0; i < a.getItems().size(); i++) {
+            if (!sameNodes(a.getItems().get(i), b.getItems().get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Docks 100 dock nodes with ids without title bars at random positions next to random siblings.
+     */
+    private static List<DockNode> dockPanels(DockPane dockPane, Random random) {
+        DockPosition[] positions = {DockPosition.LEFT, DockPosition.RIGHT, DockPosition.TOP, DockPosition.BOTTOM};
+        List<DockNode> dockNodes = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            DockNode dockNode = DockNode.builder()
+                    .contents(new Region())
+                    .titleBar(false)
+                    .prefSize(100, 100)
+                    .dockPosition(positions[random.nextInt(positions.length)])
+                    .sibling(dockNodes.isEmpty() ? null : dockNodes.get(random.nextInt(dockNodes.size())))
+                    .dock(dockPane);
+            dockNode.setId("panel-" + i);
+            dockNodes.add(dockNode);
+        }
+        return dockNodes;
+    }
+
+    /**
+     * Moves a random dock node next to another random one.
+     */
+    private static void movePanel(DockPane dockPane, List<DockNode> dockNodes, Random random) {
+        DockPosition[] positions = {DockPosition.LEFT, DockPosition.RIGHT, DockPosition.TOP, DockPosition.BOTTOM};
+        DockNode dockNode = dockNodes.get(random.nextInt(dockNodes.size()));
+        DockNode sibling = dockNodes.get(random.nextInt(dockNodes.size()));
+        if (dockNode == sibling) {
+            sibling = dockNodes.get((dockNodes.indexOf(dockNode) + 1) % dockNodes.size());
+        }
+        dockPane.undock(dockNode);
+        dockPane.dock(dockNode, positions[random.nextInt(positions.length)], sibling);
+    }
+
+    /**
+     * A perspective of 10 columns of 10 dock nodes each, with the ids of the dock nodes counting up
+     * from the first one.
+     */
+    private static DockLayout createPerspective(int first) {
+        DockLayout[] columns = new DockLayout[10];
+        for (int column = 0; column < columns.length; column++) {
+            DockLayout[] rows = new DockLayout[10];
+            for (int row = 0; row < rows.length; row++) {
+                rows[row] = DockLayout.node("panel-" + (first + column * 10 + row));
+            }
+            columns[column] = DockLayout.split(Orientation.VERTICAL, rows);
+        }
+        return DockLayout.split(Orientation.HORIZONTAL, columns);
+    }
+
+    private static int countNodes(Node node) {
+        int count = 1;
+        if (node instanceof Parent parent) {
+            for (Node child : parent.getChildrenUnmodifiable()) {
+                count += countNodes(child);
+            }
+        }
+        return count;
+    }
+
+    private static Node createContents() {
+        GridPane gridPane = new GridPane();
+        for (int i = 0; i < 200; i++) {
+            Region region = new Region();
+            region.setPrefSize(8, 8);
+            region.setStyle("-fx-background-color: #808080;");
+            gridPane.add(region, i % 20, i / 20);
+        }
+        return gridPane;
+    }
+
+    /**
+     * Lets the application thread process pulses until the condition holds.
+     */
+    private static void awaitPulses(BooleanSupplier condition) {
+        Object key = new Object();
+        new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                if (condition.getAsBoolean()) {
+                    stop();
+                    Platform.exitNestedEventLoop(key, null);
+                }
+            }
+        }.start();
+        Platform.enterNestedEventLoop(key);
+    }
+
+    /**
+     * Lets the application thread process the events queued so far.
+     *
+     * @return The time it took.
+     */
+    private static long drainEvents() {
+        long start = System.nanoTime();
+        Object key = new Object();
+        Platform.runLater(() -> Platform.exitNestedEventLoop(key, null));
+        Platform.enterNestedEventLoop(key);
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * Lets the application thread process the next two pulses and measures the CSS and layout passes
+     * of the scenes in them.
+     *
+     * @return The time the passes took.
+     */
+    private static long pulsePasses(Scene... scenes) {
+        List<PulseTimer> pulseTimers = new ArrayList<>();
+        for (Scene scene : scenes) {
+            pulseTimers.add(new PulseTimer(scene));
+        }
+        awaitPulses(() -> true);
+        awaitPulses(() -> true);
+        long passNanos = 0;
+        for (PulseTimer pulseTimer : pulseTimers) {
+            passNanos += pulseTimer.stop();
+        }
+        return passNanos;
+    }
+
+    private static Stage show(DockPane dockPane) {
+        Stage stage = new Stage();
+        stage.setScene(new Scene(dockPane, 1280, 800));
+        stage.show();
+        return stage;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * Sums up the time the CSS and layout passes of a scene take in the pulses until it is stopped.
+     */
+    private static final class PulseTimer {
+        private final Scene scene;
+        private long passStart;
+        private long passNanos;
+        private final Runnable preLayout = () -> passStart = System.nanoTime();
+        private final Runnable postLayout = () -> passNanos += System.nanoTime() - passStart;
+
+        PulseTimer(Scene scene) {
+            this.scene = scene;
+            scene.addPreLayoutPulseListener(preLayout);
+            scene.addPostLayoutPulseListener(postLayout);
+        }
+
+        /**
+         * Stops timing the passes.
+         *
+         * @return The time the passes took so far.
+         */
+        long stop() {
+            scene.removePreLayoutPulseListener(preLayout);
+            scene.removePostLayoutPulseListener(postLayout);
+            return passNanos;
+        }
+    }
+
+    /**
+     * A single benchmark scenario.
+     */
+    private interface Scenario {
+        void run(Report report) throws Exception;
+    }
+
+    /**
+     * Prints the measurements of a scenario.
+     */
+    private static final class Report {
+        private final String scenario;
+
+        private Report(String scenario) {
+            this.scenario = scenario;
+        }
+
+        /**
+         * Adds a measurement.
+         */
+        void add(String metric, double value, String unit) {
+            System.out.printf("%-24s %-32s %14.1f %s%n", scenario, metric, value, unit);
+        }
+
+        /**
+         * Adds the elapsed time of a number of operations along with the time per operation.
+         */
+        void add(String metric, long elapsedNanos, int operations) {
+            add(metric, elapsedNanos / 1e6, "ms");
+            add(metric + " per op", elapsedNanos / 1e3 / operations, "us");
+        }
+    }
+}
@@ -19,6 +19,7 @@ import javafx.scene.layout.Priority;
 import javafx.scene.layout.VBox;
 import javafx.scene.web.HTMLEditor;
 import javafx.stage.Stage;
+import org.dockfx.DockIcon;
 import org.dockfx.DockNode;
 import org.dockfx.DockPane;
 import org.dockfx.DockPosition;
@@ -26,7 +27,6 @@ import org.dockfx.DockPosition;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
-import java.util.Objects;
 import java.util.Random;
 
 public class DockFX extends Application {
@@ -64,7 +64,7 @@ public class DockFX extends Application {
                 new TableColumn<String, String>("B"), new TableColumn<String, String>("C"));
 
         // load an image to caption the dock nodes
-        Image dockImage = new Image(Objects.requireNonNull(DockFX.class.getResource("/org/dockfx/docknode.png")).toExternalForm());
+        Image dockImage = DockIcon.DOCK_NODE.getImage();
 
         // create and dock some prototype dock nodes to the middle of the dock pane
         // the preferred sizes are used to specify the relative size of the node
@@ -79,7 +79,7 @@ public class DockFX extends Application {
         DockNode tabsDock = new DockNode();
         tabsDock.setPrefSize(300, 100);
         tabsDock.setTitle("Tabs Dock");
-        tabsDock.setGraphic(new ImageView(new Image(Objects.requireNonNull(DockFX.class.getResource("/org/dockfx/docknode.png")).toExternalForm())));
+        tabsDock.setGraphic(new ImageView(DockIcon.DOCK_NODE.getImage()));
         tabsDock.setContents(tabs);
         tabsDock.setDockPosition(DockPosition.TOP);
         tabsDock.setDockPane(dockPane);